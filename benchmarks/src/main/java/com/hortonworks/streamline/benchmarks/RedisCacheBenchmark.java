@@ -0,0 +1,142 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.benchmarks;
+
+import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisAbstractCache;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisHashesCache;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisStandIn;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisStringsCache;
+import com.lambdaworks.redis.RedisAsyncConnection;
+import com.lambdaworks.redis.RedisClient;
+import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the multi-key operations of the redis cache views with the naive command sequences they replace:
+ * HGETALL filtered on the client against HMGET of the requested fields, and a SET plus EXPIRE round trip per key
+ * against pipelined SET PX. Runs against the in-process {@link RedisStandIn} so that no redis server is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCacheBenchmark {
+    private static final String HASH_KEY = "benchmark-hash";
+    private static final long TTL_SECS = 600;
+
+    @Param({"10000"})
+    private int hashSize;
+
+    @Param({"100"})
+    private int keysPerCall;
+
+    private RedisStandIn redis;
+    private RedisClient redisClient;
+    private RedisConnection<String, String> connection;
+    private RedisHashesCache<String, String> hashesCache;
+    private RedisStringsCache<String, String> stringsCache;
+    private List<String> fields;
+    private Map<String, String> entries;
+
+    @Setup
+    public void setup() throws Exception {
+        redis = new RedisStandIn();
+        redisClient = new RedisClient("127.0.0.1", redis.getPort());
+        Utf8StringCodec codec = new Utf8StringCodec();
+        connection = redisClient.connect(codec);
+        RedisAsyncConnection<String, String> asyncConnection = redisClient.connectAsync(codec);
+
+        ExpiryPolicy noExpiry = new ExpiryPolicy(null, 0, null);
+        ExpiryPolicy ttl = new ExpiryPolicy(null, 0, null);
+        ttl.setTtl(ttl.new Ttl(TTL_SECS, TimeUnit.SECONDS));
+        hashesCache = new RedisHashesCache<>(connection, asyncConnection, HASH_KEY, noExpiry,
+                RedisAbstractCache.DEFAULT_BATCH_SIZE);
+        stringsCache = new RedisStringsCache<>(connection, asyncConnection, ttl, RedisAbstractCache.DEFAULT_BATCH_SIZE);
+
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i < hashSize; i++) {
+            hash.put("field-" + i, "value-" + i);
+        }
+        connection.hmset(HASH_KEY, hash);
+
+        fields = new ArrayList<>(keysPerCall);
+        entries = new LinkedHashMap<>();
+        int step = Math.max(1, hashSize / keysPerCall);
+        for (int i = 0; i < keysPerCall; i++) {
+            fields.add("field-" + (i * step % hashSize));
+            entries.put("key-" + i, "value-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        redisClient.shutdown();
+        redis.close();
+    }
+
+    @Benchmark
+    public Map<String, String> hgetAllAndFilter() {
+        Map<String, String> all = connection.hgetall(HASH_KEY);
+        Map<String, String> result = new HashMap<>();
+        for (String field : fields) {
+            String value = all.get(field);
+            if (value != null) {
+                result.put(field, value);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, String> hashesCacheGetAll() {
+        return hashesCache.getAll(fields);
+    }
+
+    @Benchmark
+    public void setAndExpirePerKey() {
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            connection.set(entry.getKey(), entry.getValue());
+            connection.expire(entry.getKey(), TTL_SECS);
+        }
+    }
+
+    @Benchmark
+    public void stringsCachePutAll() {
+        stringsCache.putAll(entries);
+    }
+}
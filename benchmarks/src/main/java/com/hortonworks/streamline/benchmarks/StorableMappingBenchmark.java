@@ -0,0 +1,164 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.benchmarks;
+
+import com.hortonworks.streamline.common.util.ReflectionHelper;
+import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessor;
+import com.hortonworks.streamline.streams.catalog.Cluster;
+import com.hortonworks.streamline.streams.catalog.Namespace;
+import com.hortonworks.streamline.streams.catalog.TopologyVersionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares mapping catalog storables from and to rows with reflection, as {@code AbstractStorable} used to do, with
+ * the {@link StorableAccessor}s. {@code fromRow} populates the storables column by column as the JDBC storage does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorableMappingBenchmark {
+    private List<Storable> storables;
+    private List<Map<String, Object>> maps;
+    private List<Object[]> rows;
+    private List<BiConsumer<Object, Object>[]> setters;
+
+    @Setup
+    public void setup() {
+        Cluster cluster = new Cluster();
+        cluster.setId(1L);
+        cluster.setName("cluster");
+        cluster.setAmbariImportUrl("http://ambari:8080/api/v1/clusters/cluster");
+        cluster.setDescription("production cluster");
+        cluster.setTimestamp(System.currentTimeMillis());
+
+        Namespace namespace = new Namespace();
+        namespace.setId(2L);
+        namespace.setName("environment");
+        namespace.setStreamingEngine("STORM");
+        namespace.setTimeSeriesDB("AMBARI_METRICS");
+        namespace.setDescription("production environment");
+        namespace.setTimestamp(System.currentTimeMillis());
+
+        TopologyVersionInfo versionInfo = new TopologyVersionInfo();
+        versionInfo.setId(3L);
+        versionInfo.setTopologyId(4L);
+        versionInfo.setName("CURRENT");
+        versionInfo.setDescription("current version");
+        versionInfo.setTimestamp(System.currentTimeMillis());
+
+        storables = new ArrayList<>();
+        storables.add(cluster);
+        storables.add(namespace);
+        storables.add(versionInfo);
+        maps = new ArrayList<>();
+        rows = new ArrayList<>();
+        setters = new ArrayList<>();
+        for (Storable storable : storables) {
+            Map<String, Object> map = storable.toMap();
+            maps.add(map);
+            StorableAccessor accessor = StorableAccessor.of(storable.getClass());
+            String[] names = map.keySet().toArray(new String[0]);
+            Object[] row = new Object[names.length];
+            BiConsumer<Object, Object>[] rowSetters = new BiConsumer[names.length];
+            for (int i = 0; i < names.length; i++) {
+                row[i] = map.get(names[i]);
+                rowSetters[i] = accessor.getSetter(names[i], row[i].getClass());
+            }
+            rows.add(row);
+            setters.add(rowSetters);
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> toMapReflection() throws Exception {
+        List<Map<String, Object>> result = new ArrayList<>(storables.size());
+        for (Storable storable : storables) {
+            Map<String, Object> map = new HashMap<>();
+            for (String fieldName : ReflectionHelper.getFieldNamesToTypes(storable.getClass()).keySet()) {
+                map.put(fieldName, ReflectionHelper.invokeGetter(fieldName, storable));
+            }
+            result.add(map);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> toMapAccessor() {
+        List<Map<String, Object>> result = new ArrayList<>(storables.size());
+        for (Storable storable : storables) {
+            result.add(storable.toMap());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Storable> fromMapReflection() throws Exception {
+        List<Storable> result = new ArrayList<>(storables.size());
+        for (int i = 0; i < storables.size(); i++) {
+            Storable storable = storables.get(i).getClass().newInstance();
+            for (Map.Entry<String, Object> entry : maps.get(i).entrySet()) {
+                ReflectionHelper.invokeSetter(entry.getKey(), storable, entry.getValue());
+            }
+            result.add(storable);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Storable> fromMapAccessor() {
+        List<Storable> result = new ArrayList<>(storables.size());
+        for (int i = 0; i < storables.size(); i++) {
+            Storable storable = StorableAccessor.of(storables.get(i).getClass()).newInstance();
+            result.add(storable.fromMap(maps.get(i)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Storable> fromRowAccessor() {
+        List<Storable> result = new ArrayList<>(storables.size());
+        for (int i = 0; i < storables.size(); i++) {
+            Storable storable = StorableAccessor.of(storables.get(i).getClass()).newInstance();
+            Object[] row = rows.get(i);
+            BiConsumer<Object, Object>[] rowSetters = setters.get(i);
+            for (int j = 0; j < row.length; j++) {
+                rowSetters[j].accept(storable, row[j]);
+            }
+            result.add(storable);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.benchmarks;
+
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
+import com.hortonworks.streamline.streams.layout.storm.StormTopologyLayoutConstants;
+import com.hortonworks.streamline.streams.runtime.storm.serialization.StreamlineEventSerializer;
+import org.apache.storm.serialization.KryoValuesDeserializer;
+import org.apache.storm.serialization.KryoValuesSerializer;
+import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a tuple carrying a StreamlineEvent with the Storm defaults (no registration, java
+ * serialization fall back) and with the registered {@link StreamlineEventSerializer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamlineEventSerializationBenchmark {
+    private static final List<String> FIELDS = Arrays.asList("deviceId", "deviceType", "temperature", "humidity",
+            "latitude", "longitude", "timestamp", "status");
+
+    private KryoValuesSerializer defaultSerializer;
+    private KryoValuesDeserializer defaultDeserializer;
+    private KryoValuesSerializer eventSerializer;
+    private KryoValuesDeserializer eventDeserializer;
+    private Values eventImplTuple;
+    private Values indexedEventTuple;
+    private byte[] defaultBytes;
+    private byte[] eventImplBytes;
+    private byte[] indexedEventBytes;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> defaultConf = Utils.readDefaultConfig();
+        defaultSerializer = new KryoValuesSerializer(defaultConf);
+        defaultDeserializer = new KryoValuesDeserializer(defaultConf);
+
+        Map<String, Object> conf = new HashMap<>(defaultConf);
+        List<Object> registrations = new ArrayList<>();
+        registrations.add(Collections.singletonMap(StreamlineEventImpl.class.getName(), StreamlineEventSerializer.class.getName()));
+        registrations.add(Collections.singletonMap(IndexedStreamlineEvent.class.getName(), StreamlineEventSerializer.class.getName()));
+        conf.put("topology.kryo.register", registrations);
+        conf.put(StormTopologyLayoutConstants.TOPOLOGY_EVENT_LAYOUTS, Collections.singletonList(FIELDS));
+        eventSerializer = new KryoValuesSerializer(conf);
+        eventDeserializer = new KryoValuesDeserializer(conf);
+
+        Map<String, Object> fieldsAndValues = new LinkedHashMap<>();
+        fieldsAndValues.put("deviceId", "device-0042");
+        fieldsAndValues.put("deviceType", "thermostat");
+        fieldsAndValues.put("temperature", 72.5);
+        fieldsAndValues.put("humidity", 41);
+        fieldsAndValues.put("latitude", 37.3875);
+        fieldsAndValues.put("longitude", -122.0575);
+        fieldsAndValues.put("timestamp", System.currentTimeMillis());
+        fieldsAndValues.put("status", "OK");
+        Map<String, Object> header = new HashMap<>();
+        header.put("dataSourceIds", Collections.singletonList("1"));
+
+        StreamlineEventImpl eventImpl = new StreamlineEventImpl(fieldsAndValues, "1", header);
+        IndexedStreamlineEvent indexedEvent = new IndexedStreamlineEvent(StreamlineEventLayout.of(FIELDS), fieldsAndValues,
+                "1", eventImpl.getId(), header, StreamlineEvent.DEFAULT_SOURCE_STREAM, null);
+        eventImplTuple = new Values(eventImpl);
+        indexedEventTuple = new Values(indexedEvent);
+        defaultBytes = defaultSerializer.serialize(eventImplTuple);
+        eventImplBytes = eventSerializer.serialize(eventImplTuple);
+        indexedEventBytes = eventSerializer.serialize(indexedEventTuple);
+    }
+
+    @Benchmark
+    public byte[] serializeDefault() {
+        return defaultSerializer.serialize(eventImplTuple);
+    }
+
+    @Benchmark
+    public byte[] serializeEventImpl() {
+        return eventSerializer.serialize(eventImplTuple);
+    }
+
+    @Benchmark
+    public byte[] serializeIndexedEvent() {
+        return eventSerializer.serialize(indexedEventTuple);
+    }
+
+    @Benchmark
+    public List<Object> deserializeDefault() {
+        return defaultDeserializer.deserialize(defaultBytes);
+    }
+
+    @Benchmark
+    public List<Object> deserializeEventImpl() {
+        return eventDeserializer.deserialize(eventImplBytes);
+    }
+
+    @Benchmark
+    public List<Object> deserializeIndexedEvent() {
+        return eventDeserializer.deserialize(indexedEventBytes);
+    }
+}
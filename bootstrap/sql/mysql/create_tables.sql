@@ -364,3 +364,9 @@ CREATE TABLE IF NOT EXISTS components (
   timestamp BIGINT,
   PRIMARY KEY (id)
 );
+
+CREATE TABLE IF NOT EXISTS id_blocks (
+  namespace VARCHAR(255) NOT NULL,
+  nextId BIGINT NOT NULL,
+  PRIMARY KEY (namespace)
+);
@@ -19,4 +19,47 @@ package com.hortonworks.streamline.cache.stats;
  * Created by hlouro on 8/6/15.
  */
 public interface CacheStats {
+    /**
+     * @return number of lookups that were served from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return number of lookups that were not found in the cache and had to be loaded
+     */
+    long getMissCount();
+
+    /**
+     * @return number of entries loaded from the backing data store
+     */
+    long getLoadCount();
+
+    /**
+     * @return number of loads from the backing data store that failed
+     */
+    long getLoadFailureCount();
+
+    /**
+     * @return number of entries removed from the cache to honor its size bound
+     */
+    long getEvictionCount();
+
+    /**
+     * @return latency percentiles of the single and multi key lookups
+     */
+    LatencyHistogram.Snapshot getGetLatency();
+
+    /**
+     * @return latency percentiles of the single and multi key writes
+     */
+    LatencyHistogram.Snapshot getPutLatency();
+
+    default long getRequestCount() {
+        return getHitCount() + getMissCount();
+    }
+
+    default double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) getHitCount() / requestCount;
+    }
 }
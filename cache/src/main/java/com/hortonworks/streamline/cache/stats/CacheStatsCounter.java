@@ -0,0 +1,80 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the statistics of a cache. Counters are striped and latencies go to a {@link LatencyHistogram},
+ * so recording never blocks the callers.
+ */
+public class CacheStatsCounter {
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    public void recordLoads(int count) {
+        loadCount.add(count);
+    }
+
+    public void recordLoadFailure() {
+        loadFailureCount.increment();
+    }
+
+    public void recordEvictions(int count) {
+        evictionCount.add(count);
+    }
+
+    /**
+     * @param startNanos value of {@link System#nanoTime()} when the lookup started
+     */
+    public void recordGetLatency(long startNanos) {
+        getLatency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param startNanos value of {@link System#nanoTime()} when the write started
+     */
+    public void recordPutLatency(long startNanos) {
+        putLatency.record(System.nanoTime() - startNanos);
+    }
+
+    public SimpleCacheStats snapshot() {
+        return new SimpleCacheStats(hitCount.sum(), missCount.sum(), loadCount.sum(), loadFailureCount.sum(),
+                evictionCount.sum(), getLatency.snapshot(), putLatency.snapshot());
+    }
+
+    /**
+     * @return snapshot with the given counts in place of the hit, miss and eviction counts recorded by this counter,
+     * for caches that keep their own counts
+     */
+    public SimpleCacheStats snapshot(long hitCount, long missCount, long evictionCount) {
+        return new SimpleCacheStats(hitCount, missCount, loadCount.sum(), loadFailureCount.sum(),
+                evictionCount, getLatency.snapshot(), putLatency.snapshot());
+    }
+}
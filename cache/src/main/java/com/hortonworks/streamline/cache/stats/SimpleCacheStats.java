@@ -0,0 +1,92 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.stats;
+
+/**
+ * Immutable point in time snapshot of the counters of a cache.
+ */
+public class SimpleCacheStats implements CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long loadFailureCount;
+    private final long evictionCount;
+    private final LatencyHistogram.Snapshot getLatency;
+    private final LatencyHistogram.Snapshot putLatency;
+
+    public SimpleCacheStats(long hitCount, long missCount, long evictionCount) {
+        this(hitCount, missCount, 0, 0, evictionCount, LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY);
+    }
+
+    public SimpleCacheStats(long hitCount, long missCount, long loadCount, long loadFailureCount, long evictionCount,
+                            LatencyHistogram.Snapshot getLatency, LatencyHistogram.Snapshot putLatency) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.loadFailureCount = loadFailureCount;
+        this.evictionCount = evictionCount;
+        this.getLatency = getLatency;
+        this.putLatency = putLatency;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getGetLatency() {
+        return getLatency;
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getPutLatency() {
+        return putLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleCacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadCount=" + loadCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", evictionCount=" + evictionCount +
+                ", getLatency=" + getLatency +
+                ", putLatency=" + putLatency +
+                '}';
+    }
+}
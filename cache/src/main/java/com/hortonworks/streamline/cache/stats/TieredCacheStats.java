@@ -0,0 +1,82 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.stats;
+
+/**
+ * Immutable point in time snapshot of the counters of a two tier cache. A lookup is a hit if it is served by either
+ * tier, and a miss if neither tier has the key. The entries read from the remote tier are counted as loads, and the
+ * evictions are those of the local tier.
+ */
+public class TieredCacheStats extends SimpleCacheStats {
+    private final long localHitCount;
+    private final long remoteHitCount;
+    private final long invalidationCount;
+
+    public TieredCacheStats(long localHitCount, long remoteHitCount, long missCount, long loadFailureCount,
+                            long evictionCount, long invalidationCount,
+                            LatencyHistogram.Snapshot getLatency, LatencyHistogram.Snapshot putLatency) {
+        super(localHitCount + remoteHitCount, missCount, remoteHitCount, loadFailureCount, evictionCount, getLatency, putLatency);
+        this.localHitCount = localHitCount;
+        this.remoteHitCount = remoteHitCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * @return number of lookups served by the local tier
+     */
+    public long getLocalHitCount() {
+        return localHitCount;
+    }
+
+    /**
+     * @return number of lookups not in the local tier that were served by the remote tier
+     */
+    public long getRemoteHitCount() {
+        return remoteHitCount;
+    }
+
+    /**
+     * @return number of invalidation messages received for the local tier
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * @return ratio of all the lookups served by the local tier
+     */
+    public double getLocalHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) localHitCount / requestCount;
+    }
+
+    /**
+     * @return ratio of the lookups that missed the local tier that were served by the remote tier
+     */
+    public double getRemoteHitRate() {
+        long remoteRequestCount = remoteHitCount + getMissCount();
+        return remoteRequestCount == 0 ? 1.0 : (double) remoteHitCount / remoteRequestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TieredCacheStats{" +
+                "localHitCount=" + localHitCount +
+                ", remoteHitCount=" + remoteHitCount +
+                ", invalidationCount=" + invalidationCount +
+                "} " + super.toString();
+    }
+}
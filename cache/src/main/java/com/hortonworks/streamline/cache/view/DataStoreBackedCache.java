@@ -22,6 +22,8 @@ import com.hortonworks.streamline.cache.Cache;
 import com.hortonworks.streamline.cache.LoadableCache;
 import com.hortonworks.streamline.cache.exception.CacheException;
 import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.CacheStatsCounter;
+import com.hortonworks.streamline.cache.stats.SimpleCacheStats;
 import com.hortonworks.streamline.cache.view.datastore.DataStoreReader;
 import com.hortonworks.streamline.cache.view.datastore.DataStoreWriter;
 import com.hortonworks.streamline.cache.view.io.loader.CacheLoader;
@@ -31,9 +33,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class DataStoreBackedCache<K,V> extends AbstractCache<K,V> implements LoadableCache<K,V> {
     private static final Logger LOG = LoggerFactory.getLogger(DataStoreBackedCache.class);
@@ -42,6 +46,7 @@ public class DataStoreBackedCache<K,V> extends AbstractCache<K,V> implements Loa
     private final CacheLoader<K, V> cacheLoader;
     private final CacheWriter<K, V> cacheWriter;
     private final DataStoreReader<K, V> dataStoreReader;
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
 
     public DataStoreBackedCache(Cache<K, V> cache, CacheLoader<K, V> cacheLoader, DataStoreReader<K, V> dataStoreReader,
                                 CacheWriter<K, V> cacheWriter) {
@@ -62,44 +67,68 @@ public class DataStoreBackedCache<K,V> extends AbstractCache<K,V> implements Loa
 
     @Override
     public V get(K key) throws CacheException {
+        final long start = System.nanoTime();
         V val = cache.get(key);
-        if (val == null && dataStoreReader != null) {     // in sync read through
-            val = dataStoreReader.read(key);
+        if (val != null) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+            if (dataStoreReader != null) {     // in sync read through
+                val = load(() -> dataStoreReader.read(key));
+                if (val != null) {
+                    statsCounter.recordLoads(1);
+                    cache.put(key, val);
+                }
+            }
         }
+        statsCounter.recordGetLatency(start);
         return val;
     }
 
     @Override
     public void put(K key, V val) {
+        final long start = System.nanoTime();
         cache.put(key, val);
         if (cacheWriter != null) {              // in sync write through
             cacheWriter.write(key, val);
         }
+        statsCounter.recordPutLatency(start);
     }
 
+    /**
+     * Reads the keys missing from the cache with one {@link DataStoreReader#readAll(Collection)} call,
+     * and puts the entries read in the cache
+     */
     @Override
     public Map<K, V> getAll(Collection<? extends K> keys) {  // TODO what if trying to load more keys than max number of keys that be kept in the cache ?
-        Map<K, V> present = cache.getAll(keys);
-        if (dataStoreReader != null) {
-            if (present == null || present.isEmpty()) {
-                present = dataStoreReader.readAll(keys);                  // in sync read through
-            } else if (present.size() < keys.size()) {
-                Set<K> notPresent = new HashSet<>(keys);
-                notPresent.removeAll(present.keySet());
-                Map<K, V> loaded = dataStoreReader.readAll(notPresent);   // in sync read through
+        final long start = System.nanoTime();
+        final Map<K, V> cached = cache.getAll(keys);
+        final Map<K, V> present = cached == null ? new HashMap<K, V>() : new HashMap<>(cached);
+        statsCounter.recordHits(present.size());
+        statsCounter.recordMisses(keys.size() - present.size());
+        if (dataStoreReader != null && present.size() < keys.size()) {
+            final Set<K> notPresent = new HashSet<>(keys);
+            notPresent.removeAll(present.keySet());
+            final Map<K, V> loaded = load(() -> dataStoreReader.readAll(notPresent));   // in sync read through
+            if (loaded != null && !loaded.isEmpty()) {
+                statsCounter.recordLoads(loaded.size());
+                cache.putAll(loaded);
                 present.putAll(loaded);
             }
+            LOG.debug("Read [{}] of [{}] keys non existing in cache from data store", loaded == null ? 0 : loaded.size(), notPresent.size());
         }
-//        LOG.debug("Entries existing in cache [{}]. Keys non existing in cache: [{}]", present, notPresent.removeAll(loaded));
+        statsCounter.recordGetLatency(start);
         return present;
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> entries) {
+        final long start = System.nanoTime();
         cache.putAll(entries);
         if (cacheWriter != null) {      // sync or async write, depending on the writing strategy chosen
             cacheWriter.writeAll(entries);
         }
+        statsCounter.recordPutLatency(start);
     }
 
     @Override
@@ -129,9 +158,16 @@ public class DataStoreBackedCache<K,V> extends AbstractCache<K,V> implements Loa
         return cache.size();
     }
 
+    /**
+     * Hits, misses and latencies are those seen by the callers of this cache, including the reads and writes
+     * through the data store. Evictions are those of the wrapped cache.
+     */
     @Override
     public CacheStats stats() {
-        return cache.stats();
+        final SimpleCacheStats stats = statsCounter.snapshot();
+        final CacheStats cacheStats = cache.stats();
+        return cacheStats == null ? stats : new SimpleCacheStats(stats.getHitCount(), stats.getMissCount(), stats.getLoadCount(),
+                stats.getLoadFailureCount(), cacheStats.getEvictionCount(), stats.getGetLatency(), stats.getPutLatency());
     }
 
     @Override
@@ -146,6 +182,15 @@ public class DataStoreBackedCache<K,V> extends AbstractCache<K,V> implements Loa
 
     // =========== Private helper methods ===========
 
+    private <T> T load(Supplier<T> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure();
+            throw e;
+        }
+    }
+
     private void validateArguments(Cache<K, V> cache, DataStoreReader<K, V> dataStore,
                                    CacheLoader<K, V> cacheLoader, DataStoreWriter<K, V> dataStoreWriter) {
         if (cache == null) {
@@ -28,6 +28,7 @@ public class CacheConfig {
     private ConnectionConfig connectionConfig;
     private DataStoreConfig dataStore;
     private ExpiryPolicy expiryPolicy;
+    private NearCacheConfig nearCacheConfig;
     List<ViewConfig> viewsConfig;
 
 
@@ -89,6 +90,19 @@ public class CacheConfig {
         this.expiryPolicy = expiryPolicy;
     }
 
+    /**
+     * @return near cache used by all the views, if not overridden for a particular view. Null for no near cache
+     */
+    @JsonProperty("near-cache")
+    public NearCacheConfig getNearCacheConfig() {
+        return nearCacheConfig;
+    }
+
+    @JsonProperty("near-cache")
+    public void setNearCacheConfig(NearCacheConfig nearCacheConfig) {
+        this.nearCacheConfig = nearCacheConfig;
+    }
+
     @JsonProperty("views")
     public List<ViewConfig> getViewsConfig() {
         return viewsConfig;
@@ -47,6 +47,51 @@ public class ConnectionConfig {
         this.port = port;
     }
 
+    public static class JdbcConnectionConfig extends ConnectionConfig {
+        private String url;
+        private String database;
+        private String user;
+        private String password;
+
+        public JdbcConnectionConfig() {
+        }
+
+        /**
+         * @return JDBC url of the data store. If null, the url is built from the host, port and database
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public void setDatabase(String database) {
+            this.database = database;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public void setUser(String user) {
+            this.user = user;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
     public static class RedisConnectionConfig extends ConnectionConfig {
         private Pool pool;
 
@@ -27,6 +27,9 @@ public class DataStoreConfig {
     private TypeConfig.CacheLoader cacheLoaderType;
     private TypeConfig.CacheReader cacheReader;
     private TypeConfig.CacheWriter cacheWriterType;
+    private String keyColumn;
+    private String valueColumn;
+    private Integer batchSize;
 
     public DataStoreConfig() {
     }
@@ -106,4 +109,43 @@ public class DataStoreConfig {
     public void setCacheWriterType(TypeConfig.CacheWriter cacheWriterType) {
         this.cacheWriterType = cacheWriterType;
     }
+
+    /**
+     * @return column of the namespace table holding the keys, null for the default
+     */
+    @JsonProperty("key-column")
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    @JsonProperty("key-column")
+    public void setKeyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * @return column of the namespace table holding the values, null for the default
+     */
+    @JsonProperty("value-column")
+    public String getValueColumn() {
+        return valueColumn;
+    }
+
+    @JsonProperty("value-column")
+    public void setValueColumn(String valueColumn) {
+        this.valueColumn = valueColumn;
+    }
+
+    /**
+     * @return maximum number of keys read, written or deleted with one statement, null for the default
+     */
+    @JsonProperty("batch-size")
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    @JsonProperty("batch-size")
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
 }
@@ -0,0 +1,66 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Configuration of the in process tier that fronts a Redis view
+ */
+public class NearCacheConfig {
+    private ExpiryPolicy expiryPolicy;
+    private int database;
+    private String keyspaceEvents;
+
+    /**
+     * @return bounds of the local tier, in number of entries and TTL
+     */
+    @JsonProperty("expiry-policy")
+    public ExpiryPolicy getExpiryPolicy() {
+        return expiryPolicy;
+    }
+
+    @JsonProperty("expiry-policy")
+    public void setExpiryPolicy(ExpiryPolicy expiryPolicy) {
+        this.expiryPolicy = expiryPolicy;
+    }
+
+    /**
+     * @return index of the Redis database whose keyspace notifications invalidate the local tier
+     */
+    public int getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    /**
+     * @return value of the Redis notify-keyspace-events setting to apply, null to keep the server configuration
+     */
+    @JsonProperty("keyspace-events")
+    public String getKeyspaceEvents() {
+        return keyspaceEvents;
+    }
+
+    @JsonProperty("keyspace-events")
+    public void setKeyspaceEvents(String keyspaceEvents) {
+        this.keyspaceEvents = keyspaceEvents;
+    }
+}
@@ -44,6 +44,8 @@ public class ViewConfig {
     public class RedisViewConfig extends ViewConfig {
         private TypeConfig.RedisDatatype redisDatatype;
         private String key;
+        private Integer batchSize;
+        private NearCacheConfig nearCacheConfig;
 
         @JsonProperty("type")
         public TypeConfig.RedisDatatype getRedisDatatype() {
@@ -62,5 +64,31 @@ public class ViewConfig {
         public void setKey(String key) {
             this.key = key;
         }
+
+        /**
+         * @return maximum number of keys sent in one multi-key command or pipeline, null for the default
+         */
+        @JsonProperty("batch-size")
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        @JsonProperty("batch-size")
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * @return in process tier fronting this view, overriding the near cache of the {@link CacheConfig}
+         */
+        @JsonProperty("near-cache")
+        public NearCacheConfig getNearCacheConfig() {
+            return nearCacheConfig;
+        }
+
+        @JsonProperty("near-cache")
+        public void setNearCacheConfig(NearCacheConfig nearCacheConfig) {
+            this.nearCacheConfig = nearCacheConfig;
+        }
     }
 }
@@ -0,0 +1,57 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.datastore.jdbc;
+
+import com.hortonworks.streamline.cache.exception.CacheException;
+import com.hortonworks.streamline.cache.view.Factory;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates connections from a pool. Connections must be closed to return them to the pool.
+ */
+public class JdbcConnectionFactory implements Factory<Connection>, AutoCloseable {
+    private final HikariDataSource dataSource;
+
+    public JdbcConnectionFactory(String jdbcUrl, String user, String password) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        if (user != null) {
+            hikariConfig.setUsername(user);
+            hikariConfig.setPassword(password);
+        }
+        this.dataSource = new HikariDataSource(hikariConfig);
+    }
+
+    @Override
+    public Connection create() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new CacheException("Exception occurred getting a connection", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.shutdown();
+    }
+}
@@ -0,0 +1,215 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.datastore.jdbc;
+
+import com.google.common.collect.Lists;
+import com.hortonworks.streamline.cache.exception.CacheException;
+import com.hortonworks.streamline.cache.view.Factory;
+import com.hortonworks.streamline.cache.view.datastore.AbstractDataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data store keeping every entry as a row of the table named after the namespace, with the key and the value in the
+ * configured columns. The key column must be the primary key. Keys and values are bound and read as JDBC objects,
+ * so their types must match the types of the columns.
+ * <p/>
+ * Multi-key operations run one statement per chunk of at most batchSize keys: an IN (...) query to read,
+ * a batched upsert to write and an IN (...) delete to delete, all on one connection and in one transaction.
+ * <p/>
+ * The data store owns its connection factory, closing the data store closes the factory if it is {@link AutoCloseable}.
+ */
+public abstract class JdbcDataStore<K, V> extends AbstractDataStore<K, V> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcDataStore.class);
+
+    public static final String DEFAULT_KEY_COLUMN = "id";
+    public static final String DEFAULT_VALUE_COLUMN = "value";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    protected final Factory<Connection> connFactory;
+    protected final String keyColumn;
+    protected final String valueColumn;
+    protected final int batchSize;
+
+    public JdbcDataStore(String nameSpace, Factory<Connection> connFactory, String keyColumn, String valueColumn, int batchSize) {
+        super(nameSpace);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.connFactory = connFactory;
+        this.keyColumn = keyColumn;
+        this.valueColumn = valueColumn;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return statement inserting the key and the value given as first and second parameters,
+     * or updating the value if the key exists
+     */
+    protected abstract String getUpsertSql();
+
+    @Override
+    public V read(K key) {
+        return readAll(Collections.singletonList(key)).get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, V> readAll(Collection<? extends K> keys) {
+        final Map<K, V> entries = new HashMap<>();
+        if (keys.isEmpty()) {
+            return entries;
+        }
+        try (Connection connection = connFactory.create()) {
+            for (List<K> chunk : Lists.partition(new ArrayList<K>(keys), batchSize)) {
+                final String sql = "SELECT " + keyColumn + ", " + valueColumn + " FROM " + getNameSpace()
+                        + " WHERE " + keyColumn + " IN (" + parameters(chunk.size()) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    setParameters(statement, chunk);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            entries.put((K) resultSet.getObject(1), (V) resultSet.getObject(2));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new CacheException("Exception occurred reading " + keys.size() + " keys from " + getNameSpace(), e);
+        }
+        LOG.debug("Read [{}] of [{}] keys from [{}]", entries.size(), keys.size(), getNameSpace());
+        return entries;
+    }
+
+    @Override
+    public void write(K key, V val) {
+        writeAll(Collections.singletonMap(key, val));
+    }
+
+    @Override
+    public void writeAll(Map<? extends K, ? extends V> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        executeInTransaction(entries.size(), connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(getUpsertSql())) {
+                int count = 0;
+                for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                    statement.setObject(1, entry.getKey());
+                    statement.setObject(2, entry.getValue());
+                    statement.addBatch();
+                    if (++count % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (count % batchSize != 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void delete(K key) {
+        deleteAll(Collections.singletonList(key));
+    }
+
+    @Override
+    public void deleteAll(Collection<? extends K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        executeInTransaction(keys.size(), connection -> {
+            for (List<K> chunk : Lists.partition(new ArrayList<K>(keys), batchSize)) {
+                final String sql = "DELETE FROM " + getNameSpace() + " WHERE " + keyColumn + " IN (" + parameters(chunk.size()) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    setParameters(statement, chunk);
+                    statement.executeUpdate();
+                }
+            }
+        });
+    }
+
+    /**
+     * Closes the connection factory, e.g. shuts down the pool of a {@link JdbcConnectionFactory}.
+     */
+    @Override
+    public void close() throws Exception {
+        if (connFactory instanceof AutoCloseable) {
+            ((AutoCloseable) connFactory).close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "nameSpace=" + getNameSpace() +
+                ", keyColumn=" + keyColumn +
+                ", valueColumn=" + valueColumn +
+                ", batchSize=" + batchSize +
+                '}';
+    }
+
+    // =========== Private helper methods ===========
+
+    private interface SqlWork {
+        void execute(Connection connection) throws SQLException;
+    }
+
+    private void executeInTransaction(int keyCount, SqlWork work) {
+        try (Connection connection = connFactory.create()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                work.execute(connection);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new CacheException("Exception occurred writing " + keyCount + " keys to " + getNameSpace(), e);
+        }
+    }
+
+    private static String parameters(int count) {
+        final StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    private static void setParameters(PreparedStatement statement, List<?> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setObject(i + 1, values.get(i));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.datastore.mysql;
+
+import com.hortonworks.streamline.cache.view.Factory;
+import com.hortonworks.streamline.cache.view.datastore.jdbc.JdbcDataStore;
+
+import java.sql.Connection;
+
+/**
+ * {@link JdbcDataStore} on MySQL. Add rewriteBatchedStatements=true to the JDBC url to send every batch of
+ * upserts as one multi row statement.
+ */
+public class MySqlDataStore<K,V> extends JdbcDataStore<K,V> {
+
+    public MySqlDataStore(String nameSpace, Factory<Connection> connFactory, String keyColumn, String valueColumn, int batchSize) {
+        super(nameSpace, connFactory, keyColumn, valueColumn, batchSize);
+    }
+
+    public static String getJdbcUrl(String host, String port, String database) {
+        return "jdbc:mysql://" + host + ":" + port + "/" + database;
+    }
+
+    @Override
+    protected String getUpsertSql() {
+        return "INSERT INTO " + getNameSpace() + " (" + keyColumn + ", " + valueColumn + ") VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE " + valueColumn + " = VALUES(" + valueColumn + ")";
+    }
+}
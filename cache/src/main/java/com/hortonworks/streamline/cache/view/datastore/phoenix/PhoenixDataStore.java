@@ -17,42 +17,27 @@
 
 package com.hortonworks.streamline.cache.view.datastore.phoenix;
 
-import com.hortonworks.streamline.cache.view.datastore.AbstractDataStore;
-import com.hortonworks.streamline.cache.view.datastore.DataStoreReader;
-import com.hortonworks.streamline.cache.view.datastore.DataStoreWriter;
+import com.hortonworks.streamline.cache.view.Factory;
+import com.hortonworks.streamline.cache.view.datastore.jdbc.JdbcDataStore;
 
-import java.util.Collection;
-import java.util.Map;
+import java.sql.Connection;
 
-//TODO Remove abstract and create Phoenix Implementation
-public class PhoenixDataStore<K,V> extends AbstractDataStore<K,V>
-        implements DataStoreReader<K,V>, DataStoreWriter<K,V> {
-
-    public PhoenixDataStore(String nameSpace) {
-        super(nameSpace);
-    }
-
-    public V read(K key) {
-        return null;
-    }
-
-    public Map<K, V> readAll(Collection<? extends K> keys){
-        return null;
-    }
-
-    public void write(K key, V val){
-
-    }
-
-    public void writeAll(Map<? extends K, ? extends V> entries){
+/**
+ * {@link JdbcDataStore} on Phoenix. The upserts of a transaction are buffered by the Phoenix client and sent
+ * to HBase on commit.
+ */
+public class PhoenixDataStore<K,V> extends JdbcDataStore<K,V> {
 
+    public PhoenixDataStore(String nameSpace, Factory<Connection> connFactory, String keyColumn, String valueColumn, int batchSize) {
+        super(nameSpace, connFactory, keyColumn, valueColumn, batchSize);
     }
 
-    public void delete(K key){
-
+    public static String getJdbcUrl(String zkHost, String zkPort) {
+        return "jdbc:phoenix:" + zkHost + ":" + zkPort;
     }
 
-    public void deleteAll(Collection<? extends K> keys){
-
+    @Override
+    protected String getUpsertSql() {
+        return "UPSERT INTO " + getNameSpace() + " (" + keyColumn + ", " + valueColumn + ") VALUES (?, ?)";
     }
 }
@@ -17,6 +17,107 @@
 
 package com.hortonworks.streamline.cache.view.impl.guava;
 
-public class GuavaCache<K,V> {
+import com.google.common.cache.CacheBuilder;
+import com.hortonworks.streamline.cache.AbstractCache;
+import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.CacheStatsCounter;
+import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
 
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * In process {@link Cache} bounded by the number of entries and the TTL of its {@link ExpiryPolicy}.
+ * A size bound in bytes is not supported.
+ */
+public class GuavaCache<K, V> extends AbstractCache<K, V> implements Cache<K, V> {
+    private final com.google.common.cache.Cache<K, V> guavaCache;
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+    public GuavaCache(ExpiryPolicy expiryPolicy) {
+        super(expiryPolicy);
+        this.guavaCache = buildCache(expiryPolicy);
+    }
+
+    private static <K, V> com.google.common.cache.Cache<K, V> buildCache(ExpiryPolicy expiryPolicy) {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (expiryPolicy != null) {
+            if (expiryPolicy.isSize()) {
+                throw new IllegalArgumentException("Size bound in bytes is not supported by " + GuavaCache.class.getSimpleName()
+                        + ". Use a bound in number of entries");
+            }
+            if (expiryPolicy.isEntries()) {
+                builder.maximumSize(expiryPolicy.getEntries());
+            }
+            if (expiryPolicy.isTtl()) {
+                builder.expireAfterWrite(expiryPolicy.getTtl().getCount(), expiryPolicy.getTtl().getUnit());
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public V get(K key) {
+        final long start = System.nanoTime();
+        final V val = guavaCache.getIfPresent(key);
+        statsCounter.recordGetLatency(start);
+        return val;
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        final long start = System.nanoTime();
+        final Map<K, V> present = guavaCache.getAllPresent(keys);
+        statsCounter.recordGetLatency(start);
+        return present;
+    }
+
+    @Override
+    public void put(K key, V val) {
+        final long start = System.nanoTime();
+        guavaCache.put(key, val);
+        statsCounter.recordPutLatency(start);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        final long start = System.nanoTime();
+        guavaCache.putAll(entries);
+        statsCounter.recordPutLatency(start);
+    }
+
+    @Override
+    public void remove(K key) {
+        guavaCache.invalidate(key);
+    }
+
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        guavaCache.invalidateAll(keys);
+    }
+
+    @Override
+    public void clear() {
+        guavaCache.invalidateAll();
+    }
+
+    @Override
+    public long size() {
+        return guavaCache.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        // hits, misses and evictions are counted by Guava
+        final com.google.common.cache.CacheStats stats = guavaCache.stats();
+        return statsCounter.snapshot(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    @Override
+    public String toString() {
+        return "GuavaCache{" +
+                "size=" + guavaCache.size() +
+                "} " + super.toString();
+    }
 }
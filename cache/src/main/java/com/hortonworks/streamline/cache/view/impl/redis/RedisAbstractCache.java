@@ -17,27 +17,59 @@
 
 package com.hortonworks.streamline.cache.view.impl.redis;
 
+import com.google.common.collect.Lists;
 import com.hortonworks.streamline.cache.AbstractCache;
 import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.exception.CacheException;
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.CacheStatsCounter;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.lambdaworks.redis.LettuceFutures;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.RedisFuture;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public abstract class RedisAbstractCache<K, V> extends AbstractCache<K, V> implements Cache<K, V> {
     public static final String REDIS_MAX_MEMORY = "maxmemory";
     public static final String REDIS_MAX_MEMORY_POLICY = "maxmemory-policy";
     public static final String REDIS_MAX_MEMORY_POLICY_ALL_KEYS_LRU = "allkeys-lru";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final long PIPELINE_TIMEOUT_SECS = 60;
 
     protected final RedisConnection<K, V> redisConnection;
+    protected final RedisAsyncConnection<K, V> redisAsyncConnection;
+    protected final int batchSize;
+    protected final CacheStatsCounter statsCounter = new CacheStatsCounter();
 
     public RedisAbstractCache(RedisConnection<K, V> redisConnection) {
         this(redisConnection, null);
     }
 
     public RedisAbstractCache(RedisConnection<K, V> redisConnection, ExpiryPolicy expiryPolicy) {
+        this(redisConnection, null, expiryPolicy, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param redisAsyncConnection connection used to pipeline the commands of the bulk operations. If null, the
+     *                             commands that can't be sent as one multi-key command are sent one at a time
+     * @param batchSize maximum number of keys sent in one multi-key command or in one pipeline
+     */
+    public RedisAbstractCache(RedisConnection<K, V> redisConnection, RedisAsyncConnection<K, V> redisAsyncConnection,
+                              ExpiryPolicy expiryPolicy, int batchSize) {
         super(expiryPolicy);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
         this.redisConnection = redisConnection;
+        this.redisAsyncConnection = redisAsyncConnection;
+        this.batchSize = batchSize;
         setMaxSize();
     }
 
@@ -48,18 +80,58 @@ public abstract class RedisAbstractCache<K, V> extends AbstractCache<K, V> imple
         }
     }
 
-    // TODO
     protected void setExpiryPolicy(K key) {
-        if (expiryPolicy.isTtl()) {
+        if (isTtl()) {
             redisConnection.expire(key, expiryPolicy.getTtl().getTtlSeconds());
         }
     }
 
     protected void setExpiryPolicy(Collection<? extends K> keys) {
-        if (expiryPolicy.isTtl()) {
+        if (isTtl()) {
             for (K key : keys) {
                 redisConnection.expire(key, expiryPolicy.getTtl().getTtlSeconds());
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Evictions are made by the Redis server and are not counted.
+     */
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    protected void recordGet(long startNanos, int hits, int requested) {
+        statsCounter.recordHits(hits);
+        statsCounter.recordMisses(requested - hits);
+        statsCounter.recordGetLatency(startNanos);
+    }
+
+    protected boolean isTtl() {
+        return expiryPolicy != null && expiryPolicy.isTtl();
+    }
+
+    protected long getTtlMillis() {
+        return expiryPolicy.getTtl().getUnit().toMillis(expiryPolicy.getTtl().getCount());
+    }
+
+    protected <T> List<List<T>> batches(Collection<? extends T> items) {
+        return Lists.partition(new ArrayList<T>(items), batchSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected K[] toArray(Collection<? extends K> keys) {
+        return keys.toArray((K[]) new Object[keys.size()]);
+    }
+
+    /**
+     * Waits for the replies of commands sent on {@link #redisAsyncConnection}. The commands are written without
+     * waiting for the replies of the previous ones, so a batch costs one round trip.
+     */
+    protected void awaitAll(List<RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(PIPELINE_TIMEOUT_SECS, TimeUnit.SECONDS, futures.toArray(new Future<?>[futures.size()]))) {
+            throw new CacheException("Timed out waiting for the replies of " + futures.size() + " pipelined commands");
+        }
+    }
+}
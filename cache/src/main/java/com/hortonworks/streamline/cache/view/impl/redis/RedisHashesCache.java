@@ -19,14 +19,17 @@ package com.hortonworks.streamline.cache.view.impl.redis;
 
 import com.hortonworks.streamline.cache.Cache;
 import com.hortonworks.streamline.cache.exception.CacheException;
-import com.hortonworks.streamline.cache.stats.CacheStats;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.RedisFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @SuppressWarnings("unchecked")
@@ -44,28 +47,84 @@ public class RedisHashesCache<K, V> extends RedisAbstractCache<K, V> implements
         this.key = key;
     }
 
+    public RedisHashesCache(RedisConnection<K, V> redisConnection, RedisAsyncConnection<K, V> redisAsyncConnection,
+                            K key, ExpiryPolicy expiryPolicy, int batchSize) {
+        super(redisConnection, redisAsyncConnection, expiryPolicy, batchSize);
+        this.key = key;
+    }
+
     @Override
     public V get(K field) throws CacheException {
-        return redisConnection.hget(key, field);
+        final long start = System.nanoTime();
+        final V val = redisConnection.hget(key, field);
+        recordGet(start, val == null ? 0 : 1, 1);
+        return val;
     }
 
+    /**
+     * Reads only the requested fields, with one HMGET per batch of fields.
+     */
     @Override
     public Map<K, V> getAll(Collection<? extends K> fields) {
-        Map<K, V> present = redisConnection.hgetall(key);
-        present.entrySet().retainAll(fields);
-        LOG.debug("Entries existing in cache [{}]. Keys non existing in cache: [{}]", present, fields.removeAll(present.keySet()));
+        final long start = System.nanoTime();
+        final Map<K, V> present = new HashMap<>();
+        for (List<K> batch : this.<K>batches(fields)) {
+            final List<V> vals = redisConnection.hmget(key, toArray(batch));
+            if (batch.size() != vals.size()) {
+                LOG.error("Number of fields [{}] does not match unexpected number of values [{}]. Skipping batch", batch.size(), vals.size());
+                continue;
+            }
+            for (int i = 0; i < vals.size(); i++) { // values come in order from Redis
+                if (vals.get(i) != null) {
+                    present.put(batch.get(i), vals.get(i));
+                }
+            }
+        }
+        LOG.debug("Entries existing in cache [{}]. Number of fields non existing in cache: [{}]", present, fields.size() - present.size());
+        recordGet(start, present.size(), fields.size());
         return present;
     }
 
+    /**
+     * With expiry, the expiry applies to the whole hash and is reset on every write.
+     */
     @Override
     public void put(K field, V val) {
+        final long start = System.nanoTime();
         redisConnection.hset(key, field, val);
+        setExpiryPolicy(key);
+        statsCounter.recordPutLatency(start);
         LOG.debug("Set (key, field, val) => ({},{})", key, field, val);
     }
 
+    /**
+     * Writes the entries with one HMSET per batch, pipelined with the expiry of the hash if there is an
+     * asynchronous connection.
+     */
     @Override
     public void putAll(Map<? extends K, ? extends V> entries) {
-        redisConnection.hmset(key, new HashMap<>(entries));
+        final long start = System.nanoTime();
+        final List<RedisFuture<?>> futures = new ArrayList<>();
+        for (List<Map.Entry<? extends K, ? extends V>> batch : this.<Map.Entry<? extends K, ? extends V>>batches(entries.entrySet())) {
+            final Map<K, V> fieldVals = new HashMap<>();
+            for (Map.Entry<? extends K, ? extends V> entry : batch) {
+                fieldVals.put(entry.getKey(), entry.getValue());
+            }
+            if (redisAsyncConnection != null) {
+                futures.add(redisAsyncConnection.hmset(key, fieldVals));
+            } else {
+                redisConnection.hmset(key, fieldVals);
+            }
+        }
+        if (redisAsyncConnection != null) {
+            if (isTtl()) {
+                futures.add(redisAsyncConnection.pexpire(key, getTtlMillis()));
+            }
+            awaitAll(futures);
+        } else {
+            setExpiryPolicy(key);
+        }
+        statsCounter.recordPutLatency(start);
     }
 
     @Override
@@ -75,7 +134,9 @@ public class RedisHashesCache<K, V> extends RedisAbstractCache<K, V> implements
 
     @Override
     public void removeAll(Collection<? extends K> fields) {
-        redisConnection.del(fields.toArray(((K[]) new Object[fields.size()])));
+        for (List<K> batch : this.<K>batches(fields)) {
+            redisConnection.hdel(key, toArray(batch));
+        }
     }
 
     @Override
@@ -87,9 +148,4 @@ public class RedisHashesCache<K, V> extends RedisAbstractCache<K, V> implements
     public long size() {
         return redisConnection.hlen(key);
     }
-
-    @Override
-    public CacheStats stats() {
-        return null;
-    }
 }
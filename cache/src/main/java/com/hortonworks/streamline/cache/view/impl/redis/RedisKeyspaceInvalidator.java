@@ -0,0 +1,115 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.impl.redis;
+
+import com.hortonworks.streamline.cache.exception.CacheException;
+import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.pubsub.RedisPubSubAdapter;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to the Redis keyspace notifications of one database and reports every key that is written, deleted,
+ * expired or evicted, e.g. to invalidate the entries of a near cache. The keys are decoded with the codec of the caches,
+ * so the listeners receive the same keys the caches use. One invalidator, hence one pub/sub connection, is meant to be
+ * shared by all the near caches of a database.
+ * <p/>
+ * Redis publishes keyspace notifications only if enabled with the {@value #NOTIFY_KEYSPACE_EVENTS} setting, which
+ * can be set when subscribing.
+ */
+public class RedisKeyspaceInvalidator<K, V> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RedisKeyspaceInvalidator.class);
+
+    public static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    // keyspace notifications of generic (del, expire), string and hash commands, expired and evicted keys
+    public static final String DEFAULT_KEYSPACE_EVENTS = "Kg$hxe";
+
+    private static final long SUBSCRIBE_TIMEOUT_SECS = 30;
+
+    private final RedisPubSubConnection<K, V> pubSubConnection;
+    private final RedisCodec<K, V> codec;
+    private final byte[] channelPrefix;
+    private final List<Consumer<K>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisKeyspaceInvalidator(RedisPubSubConnection<K, V> pubSubConnection, RedisCodec<K, V> codec, int database) {
+        this.pubSubConnection = pubSubConnection;
+        this.codec = codec;
+        this.channelPrefix = ("__keyspace@" + database + "__:").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param listener called with every key changed, from the thread of the pub/sub connection
+     */
+    public void addListener(Consumer<K> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param keyspaceEvents value of {@value #NOTIFY_KEYSPACE_EVENTS} to set before subscribing, or null to
+     *                       keep the server configuration. It replaces the value set by other clients
+     */
+    // psubscribe takes a generic varargs array of patterns
+    @SuppressWarnings("unchecked")
+    public void subscribe(String keyspaceEvents) {
+        try {
+            if (keyspaceEvents != null) {
+                pubSubConnection.configSet(NOTIFY_KEYSPACE_EVENTS, keyspaceEvents).get(SUBSCRIBE_TIMEOUT_SECS, TimeUnit.SECONDS);
+            }
+            pubSubConnection.addListener(new RedisPubSubAdapter<K, V>() {
+                @Override
+                public void message(K pattern, K channel, V message) {
+                    onMessage(channel);
+                }
+            });
+            final byte[] pattern = Arrays.copyOf(channelPrefix, channelPrefix.length + 1);
+            pattern[channelPrefix.length] = '*';
+            pubSubConnection.psubscribe(codec.decodeKey(ByteBuffer.wrap(pattern))).get(SUBSCRIBE_TIMEOUT_SECS, TimeUnit.SECONDS);
+            LOG.info("Subscribed to keyspace notifications [{}]", new String(pattern, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new CacheException("Exception occurred subscribing to the keyspace notifications", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pubSubConnection.close();
+    }
+
+    private void onMessage(K channel) {
+        final byte[] bytes = codec.encodeKey(channel);
+        if (bytes.length < channelPrefix.length
+                || !Arrays.equals(channelPrefix, Arrays.copyOf(bytes, channelPrefix.length))) {
+            LOG.debug("Ignoring message on unexpected channel [{}]", channel);
+            return;
+        }
+        final K key = codec.decodeKey(ByteBuffer.wrap(bytes, channelPrefix.length, bytes.length - channelPrefix.length));
+        LOG.debug("Key [{}] changed", key);
+        for (Consumer<K> listener : listeners) {
+            listener.accept(key);
+        }
+    }
+}
@@ -19,12 +19,15 @@ package com.hortonworks.streamline.cache.view.impl.redis;
 
 import com.hortonworks.streamline.cache.Cache;
 import com.hortonworks.streamline.cache.exception.CacheException;
-import com.hortonworks.streamline.cache.stats.CacheStats;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.RedisFuture;
+import com.lambdaworks.redis.protocol.SetArgs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -41,55 +44,101 @@ public class RedisStringsCache<K, V> extends RedisAbstractCache<K, V> implements
         super(redisConnection, expiryPolicy);
     }
 
+    public RedisStringsCache(RedisConnection<K, V> redisConnection, RedisAsyncConnection<K, V> redisAsyncConnection,
+                             ExpiryPolicy expiryPolicy, int batchSize) {
+        super(redisConnection, redisAsyncConnection, expiryPolicy, batchSize);
+    }
+
     @Override
     public V get(K key) throws CacheException {
-        return redisConnection.get(key);
+        final long start = System.nanoTime();
+        final V val = redisConnection.get(key);
+        recordGet(start, val == null ? 0 : 1, 1);
+        return val;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Map<K, V> getAll(Collection<? extends K> keys) {
-        final K[] ks = keys.toArray(((K[]) new Object[keys.size()]));
-        final List<V> vals = redisConnection.mget(ks);
+        final long start = System.nanoTime();
         final HashMap<K, V> present = new HashMap<>();
-
-        if (ks.length != vals.size()) {
-            LOG.error("Number of keys [{}] does not match unexpected number of values [{}]. Returning empty map");
-        } else {
-            for (int i = 0; i < vals.size(); i++) { // values come in order from Redis
-                final V val = vals.get(i);
-                if (val != null) {
-                    present.put(ks[i], val);
-                } else {
-                    LOG.debug("Key [{}] has null value. Skipping", ks[i]);
+        for (List<K> batch : this.<K>batches(keys)) {
+            final K[] ks = toArray(batch);
+            final List<V> vals = redisConnection.mget(ks);
+
+            if (ks.length != vals.size()) {
+                LOG.error("Number of keys [{}] does not match unexpected number of values [{}]. Skipping batch", ks.length, vals.size());
+            } else {
+                for (int i = 0; i < vals.size(); i++) { // values come in order from Redis
+                    final V val = vals.get(i);
+                    if (val != null) {
+                        present.put(ks[i], val);
+                    } else {
+                        LOG.debug("Key [{}] has null value. Skipping", ks[i]);
+                    }
                 }
             }
         }
-        LOG.debug("Entries existing in cache [{}]. Keys non existing in cache: [{}]", present, keys.removeAll(present.keySet()));
+        LOG.debug("Entries existing in cache [{}]. Number of keys non existing in cache: [{}]", present, keys.size() - present.size());
+        recordGet(start, present.size(), keys.size());
         return present;
     }
 
     @Override
     public void put(K key, V val) {
-        redisConnection.set(key, val);
-        LOG.debug("Set (key,val) => ({},{})", key, val);
+        final long start = System.nanoTime();
+        set(key, val);
+        statsCounter.recordPutLatency(start);
     }
 
+    /**
+     * Without expiry the entries are set with one MSET per batch. MSET can't set an expiry, so with expiry
+     * every entry is set with SET ... PX, pipelined per batch if there is an asynchronous connection.
+     */
     @Override
     public void putAll(Map<? extends K, ? extends V> entries) {
-        redisConnection.mset(new HashMap<>(entries));
+        final long start = System.nanoTime();
+        for (List<Map.Entry<? extends K, ? extends V>> batch : this.<Map.Entry<? extends K, ? extends V>>batches(entries.entrySet())) {
+            if (!isTtl()) {
+                final Map<K, V> kvs = new HashMap<>();
+                for (Map.Entry<? extends K, ? extends V> entry : batch) {
+                    kvs.put(entry.getKey(), entry.getValue());
+                }
+                redisConnection.mset(kvs);
+            } else if (redisAsyncConnection != null) {
+                final SetArgs setArgs = SetArgs.Builder.px(getTtlMillis());
+                final List<RedisFuture<?>> futures = new ArrayList<>(batch.size());
+                for (Map.Entry<? extends K, ? extends V> entry : batch) {
+                    futures.add(redisAsyncConnection.set(entry.getKey(), entry.getValue(), setArgs));
+                }
+                awaitAll(futures);
+            } else {
+                for (Map.Entry<? extends K, ? extends V> entry : batch) {
+                    set(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        statsCounter.recordPutLatency(start);
+    }
+
+    private void set(K key, V val) {
+        if (isTtl()) {
+            redisConnection.set(key, val, SetArgs.Builder.px(getTtlMillis()));
+        } else {
+            redisConnection.set(key, val);
+        }
+        LOG.debug("Set (key,val) => ({},{})", key, val);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void remove(K key) {
         redisConnection.del(key);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void removeAll(Collection<? extends K> keys) {
-        redisConnection.del(keys.toArray(((K[]) new Object[keys.size()])));
+        for (List<K> batch : this.<K>batches(keys)) {
+            redisConnection.del(toArray(batch));
+        }
     }
 
     @Override
@@ -103,11 +152,6 @@ public class RedisStringsCache<K, V> extends RedisAbstractCache<K, V> implements
 //        return redisConnection.keys("*").size();  //TODO
     }
 
-    @Override
-    public CacheStats stats() {
-        return null;
-    }
-
     public static class Builder<K, V> {
         private static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;     // 10 MBs
 
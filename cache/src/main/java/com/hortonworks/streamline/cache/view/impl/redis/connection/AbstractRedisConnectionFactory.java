@@ -18,9 +18,11 @@
 package com.hortonworks.streamline.cache.view.impl.redis.connection;
 
 import com.hortonworks.streamline.cache.view.Factory;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisClient;
 import com.lambdaworks.redis.RedisConnection;
 import com.lambdaworks.redis.codec.RedisCodec;
+import com.lambdaworks.redis.pubsub.RedisPubSubConnection;
 
 public abstract class AbstractRedisConnectionFactory<K,V> implements Factory<RedisConnection<K, V>> {
     protected final RedisClient redisClient;
@@ -38,4 +40,17 @@ public abstract class AbstractRedisConnectionFactory<K,V> implements Factory<Red
     public RedisCodec<K, V> getCodec() {
         return codec;
     }
+
+    /**
+     * @return an asynchronous connection, used by the caches to pipeline the commands of bulk operations
+     */
+    public abstract RedisAsyncConnection<K, V> createAsync();
+
+    /**
+     * @return a new publish/subscribe connection. These connections are never pooled because a subscribed connection
+     * can't run other commands
+     */
+    public RedisPubSubConnection<K, V> createPubSub() {
+        return redisClient.connectPubSub(codec);
+    }
 }
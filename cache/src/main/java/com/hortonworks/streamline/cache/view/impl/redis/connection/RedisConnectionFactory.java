@@ -17,6 +17,7 @@
 
 package com.hortonworks.streamline.cache.view.impl.redis.connection;
 
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisClient;
 import com.lambdaworks.redis.RedisConnection;
 import com.lambdaworks.redis.codec.RedisCodec;
@@ -30,4 +31,9 @@ public class RedisConnectionFactory<K,V> extends AbstractRedisConnectionFactory<
     public RedisConnection<K, V> create() {
         return redisClient.connect(codec);
     }
+
+    @Override
+    public RedisAsyncConnection<K, V> createAsync() {
+        return redisClient.connectAsync(codec);
+    }
 }
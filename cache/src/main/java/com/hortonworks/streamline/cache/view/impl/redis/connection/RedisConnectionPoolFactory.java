@@ -17,6 +17,7 @@
 
 package com.hortonworks.streamline.cache.view.impl.redis.connection;
 
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisClient;
 import com.lambdaworks.redis.RedisConnection;
 import com.lambdaworks.redis.codec.RedisCodec;
@@ -40,6 +41,11 @@ public class RedisConnectionPoolFactory<K,V> extends AbstractRedisConnectionFact
     }
 
     public RedisConnection<K, V> create() {
-        return redisClient.pool(codec, MAX_IDLE, MAX_ACTIVE).allocateConnection();
+        return redisClient.pool(codec, maxIdle, maxActive).allocateConnection();
+    }
+
+    @Override
+    public RedisAsyncConnection<K, V> createAsync() {
+        return redisClient.asyncPool(codec, maxIdle, maxActive).allocateConnection();
     }
 }
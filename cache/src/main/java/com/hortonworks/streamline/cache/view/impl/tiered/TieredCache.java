@@ -0,0 +1,287 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.cache.view.impl.tiered;
+
+import com.hortonworks.streamline.cache.AbstractCache;
+import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.LatencyHistogram;
+import com.hortonworks.streamline.cache.stats.TieredCacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Near cache that fronts a shared remote {@link Cache}, typically a Redis view, with a bounded in process {@link Cache}.
+ * Lookups are served by the local tier when possible and the entries read from the remote tier are kept locally.
+ * <p/>
+ * Writes go to the remote tier and invalidate the local entries, so the local tier never holds a value written by
+ * this instance before the remote tier has it. Writes made by other instances are propagated by calling
+ * {@link #invalidate(Object)} or {@link #invalidateAll()}, e.g. from the Redis keyspace notifications. The TTL of the
+ * local tier bounds how long a value can be stale if an invalidation message is lost.
+ */
+public class TieredCache<K, V> extends AbstractCache<K, V> implements Cache<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(TieredCache.class);
+
+    private final Cache<K, V> localCache;
+    private final Cache<K, V> remoteCache;
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    // incremented on every invalidation of a key of the stripe, or on every invalidation of all the keys, so that
+    // a value read from the remote tier concurrently with an invalidation of its key is not kept in the local tier
+    private final AtomicLongArray invalidationGenerations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final LongAdder localHitCount = new LongAdder();
+    private final LongAdder remoteHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+
+    public TieredCache(Cache<K, V> localCache, Cache<K, V> remoteCache) {
+        super(remoteCache == null ? null : remoteCache.getExpiryPolicy());
+        if (localCache == null || remoteCache == null) {
+            throw new IllegalArgumentException("Local and remote cache references cannot be null");
+        }
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        LOG.info("Created {}", this);
+    }
+
+    @Override
+    public V get(K key) {
+        final long start = System.nanoTime();
+        try {
+            return doGet(key);
+        } finally {
+            getLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private V doGet(K key) {
+        V val = localCache.get(key);
+        if (val != null) {
+            localHitCount.increment();
+            return val;
+        }
+
+        final long generation = invalidationGeneration.get();
+        final long keyGeneration = invalidationGenerations.get(stripe(key));
+        val = loadFromRemote(() -> remoteCache.get(key));
+        if (val == null) {
+            missCount.increment();
+        } else {
+            remoteHitCount.increment();
+            putLocal(generation, keyGeneration, key, val);
+        }
+        return val;
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        final long start = System.nanoTime();
+        try {
+            return doGetAll(keys);
+        } finally {
+            getLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private Map<K, V> doGetAll(Collection<? extends K> keys) {
+        final Map<K, V> present = new HashMap<>(localCache.getAll(keys));
+        localHitCount.add(present.size());
+
+        if (present.size() < keys.size()) {
+            final Set<K> notPresent = new LinkedHashSet<>(keys);
+            notPresent.removeAll(present.keySet());
+
+            final long generation = invalidationGeneration.get();
+            final long[] keyGenerations = getInvalidationGenerations();
+            final Map<K, V> loaded = loadFromRemote(() -> remoteCache.getAll(notPresent));
+            remoteHitCount.add(loaded.size());
+            missCount.add(notPresent.size() - loaded.size());
+            if (!loaded.isEmpty()) {
+                putLocal(generation, keyGenerations, loaded);
+            }
+            present.putAll(loaded);
+        }
+        return present;
+    }
+
+    @Override
+    public void put(K key, V val) {
+        final long start = System.nanoTime();
+        remoteCache.put(key, val);
+        invalidateLocal(key);
+        putLatency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        final long start = System.nanoTime();
+        remoteCache.putAll(entries);
+        invalidateLocal(entries.keySet());
+        putLatency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void remove(K key) {
+        remoteCache.remove(key);
+        invalidateLocal(key);
+    }
+
+    @Override
+    public void removeAll(Collection<? extends K> keys) {
+        remoteCache.removeAll(keys);
+        invalidateLocal(keys);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        invalidationGeneration.incrementAndGet();
+        localCache.clear();
+    }
+
+    @Override
+    public long size() {
+        return remoteCache.size();
+    }
+
+    /**
+     * Removes the key from the local tier only, because its value changed in the remote tier. The invalidations of
+     * keys the local tier does not hold only discard the loads of the key in progress and are not counted.
+     */
+    public void invalidate(K key) {
+        invalidationGenerations.incrementAndGet(stripe(key));
+        if (localCache.get(key) != null) {
+            localCache.remove(key);
+            invalidationCount.increment();
+        }
+    }
+
+    /**
+     * Removes all the entries from the local tier only
+     */
+    public void invalidateAll() {
+        invalidationGeneration.incrementAndGet();
+        localCache.clear();
+        invalidationCount.increment();
+    }
+
+    @Override
+    public CacheStats stats() {
+        final CacheStats localStats = localCache.stats();
+        return new TieredCacheStats(localHitCount.sum(), remoteHitCount.sum(), missCount.sum(), loadFailureCount.sum(),
+                localStats == null ? 0 : localStats.getEvictionCount(), invalidationCount.sum(),
+                getLatency.snapshot(), putLatency.snapshot());
+    }
+
+    public Cache<K, V> getLocalCache() {
+        return localCache;
+    }
+
+    public Cache<K, V> getRemoteCache() {
+        return remoteCache;
+    }
+
+    @Override
+    public String toString() {
+        return "TieredCache{" +
+                "localCache=" + localCache +
+                ", remoteCache=" + remoteCache +
+                "} " + super.toString();
+    }
+
+    // =========== Private helper methods ===========
+
+    private <T> T loadFromRemote(Supplier<T> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            loadFailureCount.increment();
+            throw e;
+        }
+    }
+
+    // an invalidation between the check and the put may have removed the key before it was put, so the put is undone
+    // if the generation moved. At worst this removes a fresher value, which is read again from the remote tier
+    private void putLocal(long generation, long keyGeneration, K key, V val) {
+        if (isValid(generation, keyGeneration, key)) {
+            localCache.put(key, val);
+            if (!isValid(generation, keyGeneration, key)) {
+                localCache.remove(key);
+            }
+        }
+    }
+
+    private void putLocal(long generation, long[] keyGenerations, Map<K, V> entries) {
+        final Map<K, V> valid = new HashMap<>(entries);
+        valid.keySet().removeIf(key -> !isValid(generation, keyGenerations[stripe(key)], key));
+        if (!valid.isEmpty()) {
+            localCache.putAll(valid);
+            final Set<K> invalidated = new HashSet<>(valid.keySet());
+            invalidated.removeIf(key -> isValid(generation, keyGenerations[stripe(key)], key));
+            if (!invalidated.isEmpty()) {
+                localCache.removeAll(invalidated);
+            }
+        }
+    }
+
+    private boolean isValid(long generation, long keyGeneration, K key) {
+        return generation == invalidationGeneration.get() && keyGeneration == invalidationGenerations.get(stripe(key));
+    }
+
+    private long[] getInvalidationGenerations() {
+        final long[] generations = new long[INVALIDATION_STRIPES];
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            generations[i] = invalidationGenerations.get(i);
+        }
+        return generations;
+    }
+
+    private static int stripe(Object key) {
+        final int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private void invalidateLocal(K key) {
+        invalidationGenerations.incrementAndGet(stripe(key));
+        localCache.remove(key);
+    }
+
+    private void invalidateLocal(Collection<? extends K> keys) {
+        for (K key : keys) {
+            invalidationGenerations.incrementAndGet(stripe(key));
+        }
+        localCache.removeAll(keys);
+    }
+}
@@ -14,91 +14,76 @@
   * limitations under the License.
  **/
 
-
 package com.hortonworks.streamline.cache.view.io.writer;
 
 import com.hortonworks.streamline.cache.view.datastore.DataStoreWriter;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-public class CacheWriterAsync<K, V> implements CacheWriter<K, V> {
-    private static final int DEFAULT_NUM_THREADS = 5;
 
-    private final DataStoreWriter<K, V> dataStoreWriter;
-    private final ExecutorService executorService;
+/**
+ * Writes to the data store through a {@link WriteBehindQueue}, so that repeated writes of a key are coalesced and
+ * flushed in batches with {@link DataStoreWriter#writeAll(Map)} and {@link DataStoreWriter#deleteAll(Collection)}.
+ */
+public class CacheWriterAsync<K, V> implements CacheWriter<K, V>, AutoCloseable {
+    private final WriteBehindQueue<K, V> queue;
 
     public CacheWriterAsync(DataStoreWriter<K, V> dataStoreWriter) {
-        this(dataStoreWriter, Executors.newFixedThreadPool(DEFAULT_NUM_THREADS));
+        this(new WriteBehindQueue<>("cache-writer", newFlusher(dataStoreWriter)));
     }
 
-    public CacheWriterAsync(DataStoreWriter<K, V> dataStoreWriter, ExecutorService executorService) {
-        this.dataStoreWriter = dataStoreWriter;
-        this.executorService = executorService;
+    public CacheWriterAsync(DataStoreWriter<K, V> dataStoreWriter, int partitions, int capacity, int batchSize,
+                            long maxDelayMs) {
+        this(new WriteBehindQueue<>("cache-writer", newFlusher(dataStoreWriter), partitions, capacity, batchSize, maxDelayMs));
+    }
+
+    private CacheWriterAsync(WriteBehindQueue<K, V> queue) {
+        this.queue = queue;
+    }
+
+    private static <K, V> WriteBehindQueue.Flusher<K, V> newFlusher(final DataStoreWriter<K, V> dataStoreWriter) {
+        return new WriteBehindQueue.Flusher<K, V>() {
+            @Override
+            public void flush(Map<K, V> writes, Collection<K> deletes) {
+                if (!writes.isEmpty()) {
+                    dataStoreWriter.writeAll(writes);
+                }
+                if (!deletes.isEmpty()) {
+                    dataStoreWriter.deleteAll(deletes);
+                }
+            }
+        };
     }
 
     public void write(final K key, final V val) {
-        executorService.submit(new DataStoreWriteRunnable(key, val));
+        queue.write(key, val);
     }
 
     public void writeAll(Map<? extends K, ? extends V> entries) {
-        executorService.submit(new DataStoreWriteRunnable(entries));
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            queue.write(entry.getKey(), entry.getValue());
+        }
     }
 
     public void delete(final K key) {
-        executorService.submit(new DataStoreDeleteRunnable(key));
+        queue.delete(key);
     }
 
     public void deleteAll(Collection<? extends K> keys) {
-        executorService.submit(new DataStoreDeleteRunnable(keys));
-    }
-
-    private class DataStoreWriteRunnable implements Runnable {
-        private Map<? extends K, ? extends V> entries;
-        private K key;
-        private V val;
-
-        public DataStoreWriteRunnable(K key, V val) {
-            this.key = key;
-            this.val = val;
-        }
-
-        public DataStoreWriteRunnable(Map<? extends K, ? extends V> entries) {
-            this.entries = entries;
-        }
-
-        @Override
-        public void run() {
-            if (entries != null) {
-                dataStoreWriter.writeAll(entries);
-            } else {
-                dataStoreWriter.write(key, val);
-            }
+        for (K key : keys) {
+            queue.delete(key);
         }
     }
 
-    private class DataStoreDeleteRunnable implements Runnable {
-        private Collection<? extends K> keys;
-        private K key;
-
-        public DataStoreDeleteRunnable(K key) {
-            this.key = key;
-        }
-
-        public DataStoreDeleteRunnable(Collection<? extends K> keys) {
-            this.keys = keys;
-        }
+    public WriteBehindQueue.Metrics getMetrics() {
+        return queue.getMetrics();
+    }
 
-        @Override
-        public void run() {
-            if (keys != null) {
-                dataStoreWriter.deleteAll(keys);
-            } else {
-                dataStoreWriter.delete(key);
-            }
-        }
+    /**
+     * Flushes the pending writes and deletes.
+     */
+    @Override
+    public void close() {
+        queue.close();
     }
 }
-
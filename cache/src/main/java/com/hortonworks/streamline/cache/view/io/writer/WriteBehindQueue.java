@@ -0,0 +1,473 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.io.writer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded write-behind queue that coalesces the pending writes and deletes of a key and flushes them in batches.
+ * <p>
+ * Keys are hash partitioned, each partition holds at most one pending operation per key and is flushed by a single
+ * thread, so the operations on a key reach the {@link Flusher} in the order they were submitted. A new write or
+ * delete of a key replaces its pending operation. A partition is flushed when it holds {@code batchSize} keys or when
+ * its oldest pending operation waited {@code maxDelayMs}. Submitting a new key to a full partition blocks until the
+ * partition is flushed. {@link #close()} flushes all the pending operations before returning, it is also run by a JVM
+ * shutdown hook so that the pending operations are not lost when the owner of the queue is never closed.
+ * </p>
+ * <p>
+ * A failed flush is retried {@code maxRetries} times with an exponential backoff, holding back the partition so that
+ * the operations still reach the {@link Flusher} in order. A batch that still fails is dropped and passed to
+ * {@link Flusher#onFailure(Map, Collection, RuntimeException)}, and counted in {@link Metrics#getDroppedCount()}.
+ * </p>
+ * @param <K>   Type of the key
+ * @param <V>   Type of the value
+ */
+public class WriteBehindQueue<K, V> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    public static final int DEFAULT_PARTITIONS = 5;
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_MAX_DELAY_MS = 100;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_RETRY_BACKOFF_MS = 100;
+
+    /**
+     * Applies a batch of coalesced operations, the keys of writes and deletes are disjoint.
+     */
+    public interface Flusher<K, V> {
+        void flush(Map<K, V> writes, Collection<K> deletes);
+
+        /**
+         * Called with a batch dropped after its last retry failed.
+         */
+        default void onFailure(Map<K, V> writes, Collection<K> deletes, RuntimeException e) {
+        }
+    }
+
+    private final Flusher<K, V> flusher;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final Partition[] partitions;
+    private final Thread[] threads;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedOps = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder droppedOps = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public WriteBehindQueue(String name, Flusher<K, V> flusher) {
+        this(name, flusher, DEFAULT_PARTITIONS, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY_MS);
+    }
+
+    /**
+     * @param name          name of the flusher threads
+     * @param partitions    number of partitions, each flushed by its own thread
+     * @param capacity      maximum number of pending keys per partition
+     * @param batchSize     maximum number of operations flushed at once
+     * @param maxDelayMs    maximum time an operation waits before its partition is flushed
+     */
+    public WriteBehindQueue(String name, Flusher<K, V> flusher, int partitions, int capacity, int batchSize,
+                            long maxDelayMs) {
+        this(name, flusher, partitions, capacity, batchSize, maxDelayMs, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF_MS);
+    }
+
+    /**
+     * @param maxRetries        number of times a failed flush is retried before its batch is dropped
+     * @param retryBackoffMs    delay before the first retry, doubled on each retry
+     */
+    @SuppressWarnings("unchecked")
+    public WriteBehindQueue(String name, Flusher<K, V> flusher, int partitions, int capacity, int batchSize,
+                            long maxDelayMs, int maxRetries, long retryBackoffMs) {
+        if (partitions <= 0 || capacity <= 0 || batchSize <= 0 || maxDelayMs < 0) {
+            throw new IllegalArgumentException("Partitions, capacity and batch size must be positive and max delay must not be negative");
+        }
+        if (maxRetries < 0 || retryBackoffMs < 0) {
+            throw new IllegalArgumentException("Max retries and retry backoff must not be negative");
+        }
+        this.flusher = flusher;
+        this.batchSize = Math.min(batchSize, capacity);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.partitions = new WriteBehindQueue.Partition[partitions];
+        this.threads = new Thread[partitions];
+        for (int i = 0; i < partitions; i++) {
+            final Partition partition = new Partition(capacity);
+            this.partitions[i] = partition;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    partition.run();
+                }
+            }, name + "-write-behind-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        // the flusher threads are daemons, so the pending operations are flushed on shutdown by the hook
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, name + "-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void write(K key, V val) {
+        submit(key, new Op<>(val, false));
+    }
+
+    public void delete(K key) {
+        submit(key, new Op<V>(null, true));
+    }
+
+    private void submit(K key, Op<V> op) {
+        try {
+            partitions[(key.hashCode() & Integer.MAX_VALUE) % partitions.length].submit(key, op);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the write behind queue", e);
+        }
+        submitted.increment();
+    }
+
+    /**
+     * Flushes the pending operations and stops the flusher threads.
+     */
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // the JVM is shutting down, the hook drains the queue as well
+        }
+        drain();
+    }
+
+    private void drain() {
+        closed = true;
+        // producers blocked on a full partition give up, the flushers drain what is pending
+        for (Partition partition : partitions) {
+            partition.wakeUp();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Interrupted while draining the write behind queue");
+                return;
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        long depth = 0;
+        for (Partition partition : partitions) {
+            depth += partition.size();
+        }
+        return new Metrics(depth, submitted.sum(), coalesced.sum(), flushes.sum(), flushedOps.sum(),
+                failedFlushes.sum(), droppedOps.sum(), flushNanos.sum(), maxFlushNanos.get());
+    }
+
+    private void flush(Map<K, V> writes, List<K> deletes) {
+        final long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                flusher.flush(writes, deletes);
+                break;
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                if (attempt < maxRetries && backOff(attempt)) {
+                    LOG.warn("Failed to flush {} writes and {} deletes, retrying", writes.size(), deletes.size(), e);
+                } else {
+                    dropped(writes, deletes, attempt + 1, e);
+                    break;
+                }
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        flushes.increment();
+        flushedOps.add(writes.size() + deletes.size());
+        flushNanos.add(elapsed);
+        long max;
+        while (elapsed > (max = maxFlushNanos.get()) && !maxFlushNanos.compareAndSet(max, elapsed)) {
+            // retry
+        }
+    }
+
+    // returns false if interrupted, the batch is then dropped
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt, 20));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void dropped(Map<K, V> writes, List<K> deletes, int attempts, RuntimeException e) {
+        droppedOps.add(writes.size() + deletes.size());
+        LOG.error("Failed to flush {} writes and {} deletes after {} attempts, dropping writes of keys {} and deletes of keys {}",
+                writes.size(), deletes.size(), attempts, writes.keySet(), deletes, e);
+        try {
+            flusher.onFailure(writes, deletes, e);
+        } catch (RuntimeException onFailureException) {
+            LOG.error("Failure handler of the write behind queue failed", onFailureException);
+        }
+    }
+
+    private static final class Op<V> {
+        private final V val;
+        private final boolean delete;
+        private long enqueuedNanos;
+
+        Op(V val, boolean delete) {
+            this.val = val;
+            this.delete = delete;
+        }
+    }
+
+    private final class Partition {
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition pendingChanged = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        // insertion ordered, so that the oldest operation is first
+        private final LinkedHashMap<K, Op<V>> pending = new LinkedHashMap<>();
+
+        Partition(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void submit(K key, Op<V> op) throws InterruptedException {
+            lock.lock();
+            try {
+                while (pending.size() >= capacity && !pending.containsKey(key) && !closed) {
+                    notFull.await();
+                }
+                // checked under the lock, so the flusher sees the operation before it exits
+                if (closed) {
+                    throw new IllegalStateException("Write behind queue is closed");
+                }
+                // a coalesced operation keeps the position and the age of the one it replaces
+                final Op<V> previous = pending.get(key);
+                if (previous != null) {
+                    op.enqueuedNanos = previous.enqueuedNanos;
+                    coalesced.increment();
+                } else {
+                    op.enqueuedNanos = System.nanoTime();
+                }
+                pending.put(key, op);
+                if (pending.size() == 1 || pending.size() >= batchSize) {
+                    pendingChanged.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wakeUp() {
+            lock.lock();
+            try {
+                pendingChanged.signal();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return pending.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void run() {
+            final Map<K, V> writes = new LinkedHashMap<>();
+            final List<K> deletes = new ArrayList<>();
+            while (true) {
+                lock.lock();
+                try {
+                    if (!awaitBatch()) {
+                        return;
+                    }
+                    final Iterator<Map.Entry<K, Op<V>>> it = pending.entrySet().iterator();
+                    for (int i = 0; i < batchSize && it.hasNext(); i++) {
+                        final Map.Entry<K, Op<V>> entry = it.next();
+                        if (entry.getValue().delete) {
+                            deletes.add(entry.getKey());
+                        } else {
+                            writes.put(entry.getKey(), entry.getValue().val);
+                        }
+                        it.remove();
+                    }
+                    notFull.signalAll();
+                } catch (InterruptedException e) {
+                    LOG.warn("Write behind flusher interrupted, {} pending operations are dropped", pending.size());
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+                flush(writes, deletes);
+                writes.clear();
+                deletes.clear();
+            }
+        }
+
+        // waits until a batch is full or the oldest operation is due, returns false once closed and drained
+        private boolean awaitBatch() throws InterruptedException {
+            while (pending.isEmpty()) {
+                if (closed) {
+                    return false;
+                }
+                pendingChanged.await();
+            }
+            while (pending.size() < batchSize && !closed) {
+                final long remaining = pending.values().iterator().next().enqueuedNanos + maxDelayNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                pendingChanged.awaitNanos(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Point in time snapshot of the counters of a {@link WriteBehindQueue}.
+     */
+    public static class Metrics {
+        private final long queueDepth;
+        private final long submittedCount;
+        private final long coalescedCount;
+        private final long flushCount;
+        private final long flushedCount;
+        private final long failedFlushCount;
+        private final long droppedCount;
+        private final long totalFlushNanos;
+        private final long maxFlushNanos;
+
+        Metrics(long queueDepth, long submittedCount, long coalescedCount, long flushCount, long flushedCount,
+                long failedFlushCount, long droppedCount, long totalFlushNanos, long maxFlushNanos) {
+            this.queueDepth = queueDepth;
+            this.submittedCount = submittedCount;
+            this.coalescedCount = coalescedCount;
+            this.flushCount = flushCount;
+            this.flushedCount = flushedCount;
+            this.failedFlushCount = failedFlushCount;
+            this.droppedCount = droppedCount;
+            this.totalFlushNanos = totalFlushNanos;
+            this.maxFlushNanos = maxFlushNanos;
+        }
+
+        /**
+         * @return number of operations waiting to be flushed
+         */
+        public long getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        /**
+         * @return number of submitted operations that replaced a pending operation of the same key
+         */
+        public long getCoalescedCount() {
+            return coalescedCount;
+        }
+
+        public double getCoalesceRate() {
+            return submittedCount == 0 ? 0.0 : (double) coalescedCount / submittedCount;
+        }
+
+        public long getFlushCount() {
+            return flushCount;
+        }
+
+        /**
+         * @return number of operations passed to the flusher
+         */
+        public long getFlushedCount() {
+            return flushedCount;
+        }
+
+        /**
+         * @return number of failed flush attempts, including the retried ones
+         */
+        public long getFailedFlushCount() {
+            return failedFlushCount;
+        }
+
+        /**
+         * @return number of operations dropped after their flush failed on every retry
+         */
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        public double getAverageFlushLatencyMs() {
+            return flushCount == 0 ? 0.0 : totalFlushNanos / 1_000_000.0 / flushCount;
+        }
+
+        public double getMaxFlushLatencyMs() {
+            return maxFlushNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "queueDepth=" + queueDepth +
+                    ", submittedCount=" + submittedCount +
+                    ", coalescedCount=" + coalescedCount +
+                    ", flushCount=" + flushCount +
+                    ", flushedCount=" + flushedCount +
+                    ", failedFlushCount=" + failedFlushCount +
+                    ", droppedCount=" + droppedCount +
+                    ", averageFlushLatencyMs=" + getAverageFlushLatencyMs() +
+                    ", maxFlushLatencyMs=" + getMaxFlushLatencyMs() +
+                    '}';
+        }
+    }
+}
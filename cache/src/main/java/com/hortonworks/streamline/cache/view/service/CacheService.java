@@ -18,14 +18,21 @@
 package com.hortonworks.streamline.cache.view.service;
 
 import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.stats.CacheStats;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
 import com.hortonworks.streamline.cache.view.config.TypeConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-public class CacheService<K,V> {
+public class CacheService<K,V> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheService.class);
+
     protected final ConcurrentMap<String, Cache<K,V>> caches = new ConcurrentHashMap<>();
 
     protected final String id;
@@ -86,7 +93,41 @@ public class CacheService<K,V> {
         return caches.keySet();
     }
 
+    /**
+     * @return statistics of each cache registered in this service, keyed by cache id. Caches not keeping statistics are left out
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        final Map<String, CacheStats> stats = new HashMap<>();
+        for (Map.Entry<String, Cache<K,V>> cache : caches.entrySet()) {
+            final CacheStats cacheStats = cache.getValue().stats();
+            if (cacheStats != null) {
+                stats.put(cache.getKey(), cacheStats);
+            }
+        }
+        return stats;
+    }
+
     public ExpiryPolicy getExpiryPolicy() {
         return expiryPolicy;
     }
+
+    /**
+     * Releases the resources held by the caches registered in this service. Subclasses release the resources they own.
+     */
+    @Override
+    public void close() {
+        for (Cache<K,V> cache : caches.values()) {
+            closeQuietly(cache);
+        }
+    }
+
+    protected static void closeQuietly(Object resource) {
+        if (resource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) resource).close();
+            } catch (Exception e) {
+                LOG.warn("Failed to close [{}]", resource, e);
+            }
+        }
+    }
 }
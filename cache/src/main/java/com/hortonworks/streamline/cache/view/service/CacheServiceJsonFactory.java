@@ -18,16 +18,21 @@
 package com.hortonworks.streamline.cache.view.service;
 
 import com.hortonworks.streamline.cache.view.Factory;
+import com.hortonworks.streamline.cache.view.config.CacheConfig;
 
+/**
+ * Creates the {@link CacheService} described by a {@link CacheConfig} parsed from the JSON configuration,
+ * including the near cache of its views if configured
+ */
 public class CacheServiceJsonFactory<K,V> implements Factory<CacheService<K,V>> {
-    @Override
-    public CacheService<K, V> create() {
-//        return new CacheService.Builder<K,V>(null,null).setCacheLoader(null).build();
+    private final CacheConfig cacheConfig;
 
-        return new CacheService.Builder<K, V>(null, null).setExpiryPolicy(null).build();
-//        return new CacheService<>(null, null);
+    public CacheServiceJsonFactory(CacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
     }
 
-    class Bar {}
-
+    @Override
+    public CacheService<K, V> create() {
+        return new RedisCacheServiceBuilder(cacheConfig).build();
+    }
 }
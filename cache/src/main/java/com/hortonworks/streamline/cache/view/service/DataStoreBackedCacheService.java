@@ -106,4 +106,16 @@ public class DataStoreBackedCacheService<K,V> extends CacheService<K,V> {
     public boolean isDataStoreBacked() {
         return dataStoreReader != null || cacheWriter != null || cacheLoaderFactory != null;
     }
+
+    /**
+     * Also flushes the pending writes of an asynchronous {@link CacheWriter} and closes the data store.
+     */
+    @Override
+    public void close() {
+        super.close();
+        closeQuietly(cacheWriter);
+        if (dataStoreReader != cacheWriter) {
+            closeQuietly(dataStoreReader);
+        }
+    }
 }
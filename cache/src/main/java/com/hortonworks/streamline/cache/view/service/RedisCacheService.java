@@ -17,20 +17,37 @@
 
 package com.hortonworks.streamline.cache.view.service;
 
+import com.hortonworks.streamline.cache.Cache;
 import com.hortonworks.streamline.cache.view.Factory;
 import com.hortonworks.streamline.cache.view.config.CacheConfig;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.hortonworks.streamline.cache.view.config.NearCacheConfig;
 import com.hortonworks.streamline.cache.view.config.TypeConfig;
 import com.hortonworks.streamline.cache.view.config.ViewConfig;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisAbstractCache;
+import com.hortonworks.streamline.cache.view.impl.guava.GuavaCache;
 import com.hortonworks.streamline.cache.view.impl.redis.RedisHashesCache;
+import com.hortonworks.streamline.cache.view.impl.redis.RedisKeyspaceInvalidator;
 import com.hortonworks.streamline.cache.view.impl.redis.RedisStringsCache;
+import com.hortonworks.streamline.cache.view.impl.redis.connection.AbstractRedisConnectionFactory;
+import com.hortonworks.streamline.cache.view.impl.tiered.TieredCache;
+import com.lambdaworks.redis.RedisAsyncConnection;
 import com.lambdaworks.redis.RedisConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class RedisCacheService<K,V> extends DataStoreBackedCacheService<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(RedisCacheService.class);
+
     private final Factory<RedisConnection<K,V>> connFactory;
+    // the near caches of a database share the pub/sub connection of one invalidator
+    private final Map<Integer, RedisKeyspaceInvalidator<K, V>> invalidators = new ConcurrentHashMap<>();
 
     private RedisCacheService(Builder<K,V> builder) {
         super(builder);
@@ -58,22 +75,27 @@ public class RedisCacheService<K,V> extends DataStoreBackedCacheService<K, V> {
         private void registerCaches(RedisCacheService<K, V> cacheService, CacheConfig cacheConfig) {
             List<ViewConfig> viewsConfig = cacheConfig.getViewsConfig();
             for (ViewConfig viewConfig : viewsConfig) {
-                registerCache(cacheService, viewConfig);
+                registerCache(cacheService, viewConfig, cacheConfig.getNearCacheConfig());
             }
         }
 
-        private void registerCache(RedisCacheService<K, V> cacheService, ViewConfig viewConfig) {
+        private void registerCache(RedisCacheService<K, V> cacheService, ViewConfig viewConfig, NearCacheConfig defaultNearCacheConfig) {
             final ExpiryPolicy expiryPolicy = viewConfig.getExpiryPolicy();
             final String id = viewConfig.getId();
-            final TypeConfig.RedisDatatype redisDatatype = ((ViewConfig.RedisViewConfig) viewConfig).getRedisDatatype();
+            final ViewConfig.RedisViewConfig redisViewConfig = (ViewConfig.RedisViewConfig) viewConfig;
+            final TypeConfig.RedisDatatype redisDatatype = redisViewConfig.getRedisDatatype();
+            final int batchSize = redisViewConfig.getBatchSize() != null
+                    ? redisViewConfig.getBatchSize() : RedisAbstractCache.DEFAULT_BATCH_SIZE;
+            final NearCacheConfig nearCacheConfig = redisViewConfig.getNearCacheConfig() != null
+                    ? redisViewConfig.getNearCacheConfig() : defaultNearCacheConfig;
 
             switch (redisDatatype) {
                 case STRINGS:
-                    cacheService.registerStringsCache(id, expiryPolicy);
+                    cacheService.registerStringsCache(id, expiryPolicy, batchSize, nearCacheConfig);
                     break;
                 case HASHES:
-                    String key = ((ViewConfig.RedisViewConfig) viewConfig).getKey();
-                    cacheService.registerHashesCache(id, (K) key, expiryPolicy);
+                    String key = redisViewConfig.getKey();
+                    cacheService.registerHashesCache(id, (K) key, expiryPolicy, batchSize, nearCacheConfig);
                     break;
                 default:
                     throw new IllegalStateException("Unsupported Redis type: " + redisDatatype
@@ -87,7 +109,31 @@ public class RedisCacheService<K,V> extends DataStoreBackedCacheService<K, V> {
     }
 
     public void registerHashesCache(String id, K key, ExpiryPolicy expiryPolicy) {
-        registerCache(id, createRedisHashesCache(key, expiryPolicy));
+        registerHashesCache(id, key, expiryPolicy, RedisAbstractCache.DEFAULT_BATCH_SIZE);
+    }
+
+    public void registerHashesCache(String id, K key, ExpiryPolicy expiryPolicy, int batchSize) {
+        registerHashesCache(id, key, expiryPolicy, batchSize, null);
+    }
+
+    /**
+     * @param nearCacheConfig if not null, the view is fronted by an in process cache invalidated by the
+     *                        keyspace notifications of the hash
+     */
+    public void registerHashesCache(String id, K key, ExpiryPolicy expiryPolicy, int batchSize, NearCacheConfig nearCacheConfig) {
+        final RedisHashesCache<K, V> redisCache = createRedisHashesCache(key, expiryPolicy, batchSize);
+        if (nearCacheConfig == null) {
+            registerCache(id, redisCache);
+        } else {
+            // notifications only carry the key of the hash, so any change to the hash invalidates all the fields
+            final TieredCache<K, V> tieredCache = createTieredCache(redisCache, nearCacheConfig);
+            subscribeInvalidations(nearCacheConfig, changedKey -> {
+                if (key.equals(changedKey)) {
+                    tieredCache.invalidateAll();
+                }
+            });
+            registerCache(id, tieredCache);
+        }
     }
 
     public void registerStringsCache(String id) {
@@ -95,7 +141,28 @@ public class RedisCacheService<K,V> extends DataStoreBackedCacheService<K, V> {
     }
 
     public void registerStringsCache(String id, ExpiryPolicy expiryPolicy) {
-        registerCache(id, createRedisStringsCache(expiryPolicy));
+        registerStringsCache(id, expiryPolicy, RedisAbstractCache.DEFAULT_BATCH_SIZE);
+    }
+
+    public void registerStringsCache(String id, ExpiryPolicy expiryPolicy, int batchSize) {
+        registerStringsCache(id, expiryPolicy, batchSize, null);
+    }
+
+    /**
+     * @param nearCacheConfig if not null, the view is fronted by an in process cache invalidated by the
+     *                        keyspace notifications of the keys
+     */
+    public void registerStringsCache(String id, ExpiryPolicy expiryPolicy, int batchSize, NearCacheConfig nearCacheConfig) {
+        final RedisStringsCache<K, V> redisCache = createRedisStringsCache(expiryPolicy, batchSize);
+        if (nearCacheConfig == null) {
+            registerCache(id, redisCache);
+        } else {
+            final TieredCache<K, V> tieredCache = createTieredCache(redisCache, nearCacheConfig);
+            // the notifications of all the keys of the database are received, the keys the near cache does not hold
+            // are ignored by the tiered cache
+            subscribeInvalidations(nearCacheConfig, tieredCache::invalidate);
+            registerCache(id, tieredCache);
+        }
     }
 
     public void registerDelegateCache(String id) {
@@ -106,13 +173,50 @@ public class RedisCacheService<K,V> extends DataStoreBackedCacheService<K, V> {
         return connFactory;
     }
 
-    private RedisHashesCache<K, V> createRedisHashesCache(K key, ExpiryPolicy expiryPolicy) {
+    private RedisHashesCache<K, V> createRedisHashesCache(K key, ExpiryPolicy expiryPolicy, int batchSize) {
         final ExpiryPolicy ep = expiryPolicy != null ? expiryPolicy : super.expiryPolicy;
-        return new RedisHashesCache<>(connFactory.create(), key, ep);
+        return new RedisHashesCache<>(connFactory.create(), createAsyncConnection(), key, ep, batchSize);
     }
 
-    private RedisStringsCache<K, V> createRedisStringsCache(ExpiryPolicy expiryPolicy) {
+    private RedisStringsCache<K, V> createRedisStringsCache(ExpiryPolicy expiryPolicy, int batchSize) {
         final ExpiryPolicy ep = expiryPolicy != null ? expiryPolicy : super.expiryPolicy;
-        return new RedisStringsCache<>(connFactory.create(), ep);
+        return new RedisStringsCache<>(connFactory.create(), createAsyncConnection(), ep, batchSize);
+    }
+
+    private TieredCache<K, V> createTieredCache(Cache<K, V> redisCache, NearCacheConfig nearCacheConfig) {
+        return new TieredCache<>(new GuavaCache<>(nearCacheConfig.getExpiryPolicy()), redisCache);
+    }
+
+    private void subscribeInvalidations(NearCacheConfig nearCacheConfig, Consumer<K> onKeyChanged) {
+        if (connFactory instanceof AbstractRedisConnectionFactory) {
+            final AbstractRedisConnectionFactory<K, V> factory = (AbstractRedisConnectionFactory<K, V>) connFactory;
+            // the keyspace events of the first near cache of the database are set
+            invalidators.computeIfAbsent(nearCacheConfig.getDatabase(), database -> {
+                final RedisKeyspaceInvalidator<K, V> invalidator = new RedisKeyspaceInvalidator<>(factory.createPubSub(),
+                        factory.getCodec(), database);
+                invalidator.subscribe(nearCacheConfig.getKeyspaceEvents());
+                return invalidator;
+            }).addListener(onKeyChanged);
+        } else {
+            LOG.warn("Connection factory [{}] does not support publish/subscribe. Near cache entries only expire by TTL", connFactory);
+        }
+    }
+
+    /**
+     * Also closes the pub/sub connections of the near caches.
+     */
+    @Override
+    public void close() {
+        super.close();
+        for (RedisKeyspaceInvalidator<K, V> invalidator : invalidators.values()) {
+            closeQuietly(invalidator);
+        }
+        invalidators.clear();
+    }
+
+    // the bulk operations are pipelined only if the factory provides asynchronous connections
+    private RedisAsyncConnection<K, V> createAsyncConnection() {
+        return connFactory instanceof AbstractRedisConnectionFactory
+                ? ((AbstractRedisConnectionFactory<K, V>) connFactory).createAsync() : null;
     }
 }
@@ -23,8 +23,11 @@ import com.hortonworks.streamline.cache.view.config.ConnectionConfig;
 import com.hortonworks.streamline.cache.view.config.DataStoreConfig;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
 import com.hortonworks.streamline.cache.view.config.TypeConfig;
-import com.hortonworks.streamline.cache.view.datastore.DataStoreReader;
+import com.hortonworks.streamline.cache.view.datastore.AbstractDataStore;
 import com.hortonworks.streamline.cache.view.datastore.DataStoreWriter;
+import com.hortonworks.streamline.cache.view.datastore.jdbc.JdbcConnectionFactory;
+import com.hortonworks.streamline.cache.view.datastore.jdbc.JdbcDataStore;
+import com.hortonworks.streamline.cache.view.datastore.mysql.MySqlDataStore;
 import com.hortonworks.streamline.cache.view.datastore.phoenix.PhoenixDataStore;
 import com.hortonworks.streamline.cache.view.impl.redis.connection.RedisConnectionFactory;
 import com.hortonworks.streamline.cache.view.impl.redis.connection.RedisConnectionPoolFactory;
@@ -51,10 +54,13 @@ public class RedisCacheServiceBuilder {
     }
 
     public void register() {
-        CacheServiceLocalRegistry.INSTANCE.register(new CacheServiceId(cacheConfig.getId()), getCacheService());
+        CacheServiceLocalRegistry.INSTANCE.register(new CacheServiceId(cacheConfig.getId()), build());
     }
 
-    private <T extends CacheService> T getCacheService()  {
+    /**
+     * @return the {@link CacheService} described by the {@link CacheConfig}, with all its views registered
+     */
+    public <T extends CacheService> T build()  {
         TypeConfig.Cache cacheType = cacheConfig.getCacheType();
         switch (cacheType) {
             case REDIS:
@@ -72,12 +78,14 @@ public class RedisCacheServiceBuilder {
     private RedisCacheService getRedisCacheService() {
         final String cacheServiceId = cacheConfig.getId();
         final TypeConfig.Cache cacheType = cacheConfig.getCacheType();
-        return (RedisCacheService) new RedisCacheService.Builder(cacheServiceId, cacheType, getRedisConnectionFactory())
-                .setCacheLoaderFactory(getCacheLoaderFactory())
-                .setCacheWriter(getCacheWriter(getDataStoreWriter(getNamespace())))
-                .setDataStoreReader(getDataStoreReader(getNamespace()))
-                .setExpiryPolicy(getExpiryPolicy())
-                .build();
+        // reads and writes share the connection pool of the data store
+        final AbstractDataStore dataStore = cacheConfig.getDataStore() == null ? null : getDataStore(getNamespace());
+        final RedisCacheService.Builder builder = new RedisCacheService.Builder(cacheServiceId, cacheType, getRedisConnectionFactory());
+        builder.setCacheLoaderFactory(getCacheLoaderFactory())
+                .setCacheWriter(getCacheWriter(dataStore))
+                .setDataStoreReader(dataStore)
+                .setExpiryPolicy(getExpiryPolicy());
+        return builder.build(cacheConfig);
     }
 
     private CacheService getGuavaCacheService() {
@@ -92,13 +100,21 @@ public class RedisCacheServiceBuilder {
         return cacheConfig.getDataStore().getNamespace();
     }
 
-    private DataStoreWriter getDataStoreWriter(String namespace) {
-        final TypeConfig.DataStore dataStoreType = cacheConfig.getDataStore().getDataStoreType();
+    private AbstractDataStore<Object, Object> getDataStore(String namespace) {
+        final DataStoreConfig dataStoreConfig = cacheConfig.getDataStore();
+        final TypeConfig.DataStore dataStoreType = dataStoreConfig.getDataStoreType();
+        final String keyColumn = dataStoreConfig.getKeyColumn() != null
+                ? dataStoreConfig.getKeyColumn() : JdbcDataStore.DEFAULT_KEY_COLUMN;
+        final String valueColumn = dataStoreConfig.getValueColumn() != null
+                ? dataStoreConfig.getValueColumn() : JdbcDataStore.DEFAULT_VALUE_COLUMN;
+        final int batchSize = dataStoreConfig.getBatchSize() != null
+                ? dataStoreConfig.getBatchSize() : JdbcDataStore.DEFAULT_BATCH_SIZE;
+
         switch (dataStoreType) {
             case PHOENIX:
-                return new PhoenixDataStore<>(namespace);
+                return new PhoenixDataStore<>(namespace, getJdbcConnectionFactory(dataStoreType), keyColumn, valueColumn, batchSize);
             case MYSQL:
-                return null;
+                return new MySqlDataStore<>(namespace, getJdbcConnectionFactory(dataStoreType), keyColumn, valueColumn, batchSize);
             case HBASE:
                 return null;
             default:
@@ -107,22 +123,35 @@ public class RedisCacheServiceBuilder {
         }
     }
 
-    private DataStoreReader<Object, Object> getDataStoreReader(String namespace) {
-        final TypeConfig.DataStore dataStoreType = cacheConfig.getDataStore().getDataStoreType();
-        switch (dataStoreType) {
-            case PHOENIX:
-                return new PhoenixDataStore<>(namespace);
-            case MYSQL:
-                return null;
-            case HBASE:
-                return null;
-            default:
-                throw new IllegalStateException("Invalid DataStore option. " + dataStoreType
-                        + ". Valid options are " + Arrays.toString(TypeConfig.DataStore.values()));
+    private JdbcConnectionFactory getJdbcConnectionFactory(TypeConfig.DataStore dataStoreType) {
+        final ConnectionConfig connectionConfig = cacheConfig.getDataStore().getConnectionConfig();
+        if (connectionConfig == null) {
+            throw new IllegalStateException("Connection configuration is required for data store " + dataStoreType);
         }
+
+        String url = null;
+        String database = null;
+        String user = null;
+        String password = null;
+        if (connectionConfig instanceof ConnectionConfig.JdbcConnectionConfig) {
+            final ConnectionConfig.JdbcConnectionConfig jdbcConfig = (ConnectionConfig.JdbcConnectionConfig) connectionConfig;
+            url = jdbcConfig.getUrl();
+            database = jdbcConfig.getDatabase();
+            user = jdbcConfig.getUser();
+            password = jdbcConfig.getPassword();
+        }
+        if (url == null) {
+            url = dataStoreType == TypeConfig.DataStore.MYSQL
+                    ? MySqlDataStore.getJdbcUrl(connectionConfig.getHost(), connectionConfig.getPort(), database)
+                    : PhoenixDataStore.getJdbcUrl(connectionConfig.getHost(), connectionConfig.getPort());
+        }
+        return new JdbcConnectionFactory(url, user, password);
     }
 
     private CacheWriter getCacheWriter(DataStoreWriter dataStoreWriter) {
+        if (dataStoreWriter == null) {
+            return null;
+        }
         final TypeConfig.CacheWriter cacheWriterType = cacheConfig.getDataStore().getCacheWriterType();
         switch (cacheWriterType) {
             case SYNC:
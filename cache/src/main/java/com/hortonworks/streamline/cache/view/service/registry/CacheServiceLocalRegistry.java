@@ -22,6 +22,7 @@ import com.hortonworks.streamline.cache.view.service.CacheServiceId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -46,4 +47,16 @@ public enum CacheServiceLocalRegistry implements CacheServiceRegistry {
     public <K,V> CacheService<K,V> getCacheService(CacheServiceId cacheServiceId) {
         return (CacheService<K, V>) serviceIdToService.get(cacheServiceId);
     }
+
+    public Set<CacheServiceId> getCacheServiceIds() {
+        return serviceIdToService.keySet();
+    }
+
+    public void unregister(CacheServiceId cacheServiceId) {
+        final CacheService<?,?> cacheService = serviceIdToService.remove(cacheServiceId);
+        if (cacheService != null) {
+            cacheService.close();
+            LOG.info("Unregistered and closed cache service [{}] with id [{}].", cacheService, cacheServiceId);
+        }
+    }
 }
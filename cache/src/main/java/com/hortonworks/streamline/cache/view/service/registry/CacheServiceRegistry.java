@@ -20,8 +20,17 @@ package com.hortonworks.streamline.cache.view.service.registry;
 import com.hortonworks.streamline.cache.view.service.CacheService;
 import com.hortonworks.streamline.cache.view.service.CacheServiceId;
 
+import java.util.Set;
+
 public interface CacheServiceRegistry {
     <K,V> void register(CacheServiceId cacheServiceId, CacheService<K,V> cacheService);
 
     <K,V> CacheService<K,V> getCacheService(CacheServiceId cacheServiceId);
+
+    Set<CacheServiceId> getCacheServiceIds();
+
+    /**
+     * Removes the service and closes it, flushing its pending writes.
+     */
+    void unregister(CacheServiceId cacheServiceId);
 }
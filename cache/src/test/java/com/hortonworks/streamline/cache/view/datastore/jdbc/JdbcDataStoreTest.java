@@ -0,0 +1,246 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.datastore.jdbc;
+
+import com.hortonworks.streamline.cache.exception.CacheException;
+import com.hortonworks.streamline.cache.view.DataStoreBackedCache;
+import com.hortonworks.streamline.cache.view.Factory;
+import com.hortonworks.streamline.cache.view.datastore.mysql.MySqlDataStore;
+import com.hortonworks.streamline.cache.view.datastore.phoenix.PhoenixDataStore;
+import com.hortonworks.streamline.cache.view.impl.guava.GuavaCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JdbcDataStoreTest {
+    private static final String UPSERT = "INSERT INTO devices (id, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)";
+
+    private final FakeDatabase database = new FakeDatabase();
+    private final JdbcDataStore<String, String> dataStore = new MySqlDataStore<>("devices", database, "id", "value", 2);
+
+    @Test
+    public void testReadAllInChunks() throws Exception {
+        database.table.put("k1", "v1");
+        database.table.put("k3", "v3");
+
+        Map<String, String> entries = dataStore.readAll(Arrays.asList("k1", "k2", "k3"));
+
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("v3", entries.get("k3"));
+        Assert.assertEquals(Arrays.asList(
+                "SELECT id, value FROM devices WHERE id IN (?,?) [k1, k2]",
+                "SELECT id, value FROM devices WHERE id IN (?) [k3]"), database.statements);
+        Assert.assertEquals(1, database.connections);
+        Assert.assertEquals(0, database.openConnections);
+    }
+
+    @Test
+    public void testWriteAllInBatches() throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("k1", "v1");
+        entries.put("k2", "v2");
+        entries.put("k3", "v3");
+
+        dataStore.writeAll(entries);
+
+        Assert.assertEquals(entries, database.table);
+        Assert.assertEquals(Arrays.asList(UPSERT + " [k1, v1, k2, v2]", UPSERT + " [k3, v3]"), database.statements);
+        Assert.assertEquals(1, database.commits);
+        Assert.assertTrue(database.autoCommit);
+        Assert.assertEquals(0, database.openConnections);
+    }
+
+    @Test
+    public void testDeleteAllInChunks() throws Exception {
+        database.table.put("k1", "v1");
+        database.table.put("k2", "v2");
+        database.table.put("k3", "v3");
+
+        dataStore.deleteAll(Arrays.asList("k1", "k2", "k3"));
+
+        Assert.assertTrue(database.table.isEmpty());
+        Assert.assertEquals(Arrays.asList(
+                "DELETE FROM devices WHERE id IN (?,?) [k1, k2]",
+                "DELETE FROM devices WHERE id IN (?) [k3]"), database.statements);
+        Assert.assertEquals(1, database.commits);
+    }
+
+    @Test
+    public void testFailedWriteIsRolledBack() throws Exception {
+        database.failBatches = true;
+        try {
+            dataStore.write("k1", "v1");
+            Assert.fail("the write should fail");
+        } catch (CacheException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+        Assert.assertEquals(0, database.commits);
+        Assert.assertEquals(1, database.rollbacks);
+        Assert.assertTrue(database.autoCommit);
+        Assert.assertEquals(0, database.openConnections);
+    }
+
+    @Test
+    public void testUpsertSql() throws Exception {
+        JdbcDataStore<String, String> phoenixDataStore = new PhoenixDataStore<>("devices", database, "id", "value", 2);
+        Assert.assertEquals("UPSERT INTO devices (id, value) VALUES (?, ?)", phoenixDataStore.getUpsertSql());
+        Assert.assertEquals(UPSERT, dataStore.getUpsertSql());
+    }
+
+    @Test
+    public void testCacheReadsMissingKeysThrough() throws Exception {
+        database.table.put("k2", "v2");
+        database.table.put("k3", "v3");
+        GuavaCache<String, String> cache = new GuavaCache<>(null);
+        cache.put("k1", "v1");
+        DataStoreBackedCache<String, String> dataStoreBackedCache = new DataStoreBackedCache<>(cache, null,
+                new MySqlDataStore<String, String>("devices", database, "id", "value", 10), null);
+
+        Map<String, String> entries = dataStoreBackedCache.getAll(Arrays.asList("k1", "k2", "k3", "k4"));
+
+        Assert.assertEquals(3, entries.size());
+        Assert.assertEquals(1, database.statements.size());
+        Assert.assertTrue(database.statements.get(0).startsWith("SELECT id, value FROM devices WHERE id IN (?,?,?)"));
+        Assert.assertEquals(1, dataStoreBackedCache.stats().getHitCount());
+        Assert.assertEquals(3, dataStoreBackedCache.stats().getMissCount());
+        // the entries read are cached
+        Assert.assertEquals("v3", cache.get("k3"));
+    }
+
+    @Test
+    public void testCloseClosesConnectionFactory() throws Exception {
+        dataStore.close();
+        Assert.assertTrue(database.closed);
+    }
+
+    /**
+     * Connection factory of a single table, recording the statements executed with their parameters.
+     */
+    private static class FakeDatabase implements Factory<Connection>, AutoCloseable {
+        private final Map<Object, Object> table = new HashMap<>();
+        private final List<String> statements = new ArrayList<>();
+        private int connections;
+        private int openConnections;
+        private int commits;
+        private int rollbacks;
+        private boolean autoCommit = true;
+        private boolean failBatches;
+        private boolean closed;
+
+        @Override
+        public Connection create() {
+            connections++;
+            openConnections++;
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                                return newStatement((String) args[0]);
+                            case "getAutoCommit":
+                                return autoCommit;
+                            case "setAutoCommit":
+                                autoCommit = (Boolean) args[0];
+                                return null;
+                            case "commit":
+                                commits++;
+                                return null;
+                            case "rollback":
+                                rollbacks++;
+                                return null;
+                            case "close":
+                                openConnections--;
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private PreparedStatement newStatement(String sql) {
+            final Map<Integer, Object> parameters = new HashMap<>();
+            final List<Object> batch = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setObject":
+                                parameters.put((Integer) args[0], args[1]);
+                                return null;
+                            case "addBatch":
+                                batch.add(parameters.get(1));
+                                batch.add(parameters.get(2));
+                                return null;
+                            case "executeBatch":
+                                if (failBatches) {
+                                    throw new SQLException("batch failed");
+                                }
+                                statements.add(sql + " " + batch);
+                                for (int i = 0; i < batch.size(); i += 2) {
+                                    table.put(batch.get(i), batch.get(i + 1));
+                                }
+                                batch.clear();
+                                return new int[0];
+                            case "executeQuery":
+                                statements.add(sql + " " + parameters.values());
+                                return newResultSet(parameters.values());
+                            case "executeUpdate":
+                                statements.add(sql + " " + parameters.values());
+                                table.keySet().removeAll(parameters.values());
+                                return parameters.size();
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet newResultSet(Iterable<Object> keys) {
+            final List<Object> rows = new ArrayList<>();
+            for (Object key : keys) {
+                if (table.containsKey(key)) {
+                    rows.add(key);
+                }
+            }
+            final int[] row = {-1};
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++row[0] < rows.size();
+                            case "getObject":
+                                final Object key = rows.get(row[0]);
+                                return (Integer) args[0] == 1 ? key : table.get(key);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.impl.redis;
+
+import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.lambdaworks.redis.RedisClient;
+import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RedisHashesCacheTest {
+    private static final String HASH_KEY = "hash";
+
+    private RedisStandIn redis;
+    private RedisClient redisClient;
+    private RedisConnection<String, String> connection;
+    private RedisHashesCache<String, String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        redis = new RedisStandIn();
+        redisClient = new RedisClient("127.0.0.1", redis.getPort());
+        Utf8StringCodec codec = new Utf8StringCodec();
+        connection = redisClient.connect(codec);
+        // batches of 2 fields
+        cache = new RedisHashesCache<>(connection, redisClient.connectAsync(codec), HASH_KEY,
+                new ExpiryPolicy(null, 0, null), 2);
+
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            hash.put("f" + i, "v" + i);
+        }
+        connection.hmset(HASH_KEY, hash);
+        redis.clearCommands();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        redisClient.shutdown();
+        redis.close();
+    }
+
+    @Test
+    public void testRemoveAllDeletesFields() throws Exception {
+        // a key named like a field is not touched
+        connection.set("f1", "string");
+
+        cache.removeAll(Arrays.asList("f1", "f2", "f3"));
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("f4", "v4");
+        expected.put("f5", "v5");
+        Assert.assertEquals(expected, connection.hgetall(HASH_KEY));
+        Assert.assertEquals("string", connection.get("f1"));
+        Assert.assertTrue(redis.getCommands("DEL").isEmpty());
+        Assert.assertEquals(2, redis.getCommands("HDEL").size());
+    }
+
+    @Test
+    public void testGetAllReadsRequestedFields() throws Exception {
+        Map<String, String> values = cache.getAll(Arrays.asList("f1", "f3", "missing", "f5", "f2"));
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("f1", "v1");
+        expected.put("f2", "v2");
+        expected.put("f3", "v3");
+        expected.put("f5", "v5");
+        Assert.assertEquals(expected, values);
+        Assert.assertTrue(redis.getCommands("HGETALL").isEmpty());
+        List<List<String>> hmgets = redis.getCommands("HMGET");
+        Assert.assertEquals(3, hmgets.size());
+        Assert.assertEquals(Arrays.asList("HMGET", HASH_KEY, "f1", "f3"), hmgets.get(0));
+        Assert.assertEquals(Arrays.asList("HMGET", HASH_KEY, "missing", "f5"), hmgets.get(1));
+        Assert.assertEquals(Arrays.asList("HMGET", HASH_KEY, "f2"), hmgets.get(2));
+    }
+}
@@ -0,0 +1,311 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.impl.redis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Minimal in-process Redis stand-in speaking the RESP protocol on the loopback interface. It implements only the
+ * string and hash commands used by the redis cache views and keeps everything in memory. The expiry requested for
+ * each key is recorded but never applied. The commands received are recorded as well, so that the tests can check the
+ * commands issued by the views, and the benchmarks measure the round trips and the command mix rather than a real server.
+ */
+public class RedisStandIn implements Closeable {
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ServerSocket serverSocket;
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> hashes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> expiryMillis = new ConcurrentHashMap<>();
+    private final List<List<String>> commands = Collections.synchronizedList(new ArrayList<List<String>>());
+    private final List<Socket> clients = Collections.synchronizedList(new ArrayList<Socket>());
+
+    public RedisStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "redis-stand-in-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the commands received with the given name, each with its arguments, in the order they were received
+     */
+    public List<List<String>> getCommands(String name) {
+        List<List<String>> named = new ArrayList<>();
+        synchronized (commands) {
+            for (List<String> command : commands) {
+                if (command.get(0).equalsIgnoreCase(name)) {
+                    named.add(command);
+                }
+            }
+        }
+        return named;
+    }
+
+    public void clearCommands() {
+        commands.clear();
+    }
+
+    /**
+     * @return the expiry in milliseconds last requested for the key, null if none
+     */
+    public Long getExpiryMillis(String key) {
+        return expiryMillis.get(key);
+    }
+
+    public boolean exists(String key) {
+        return strings.containsKey(key) || hashes.containsKey(key);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket client = serverSocket.accept();
+                client.setTcpNoDelay(true);
+                clients.add(client);
+                Thread handler = new Thread(() -> serve(client), "redis-stand-in-client");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            // server socket closed
+        }
+    }
+
+    private void serve(Socket client) {
+        try (InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+            while (true) {
+                execute(readCommand(in), out);
+                // replies of pipelined commands are written together
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client disconnected
+        }
+    }
+
+    private void execute(List<String> command, OutputStream out) throws IOException {
+        commands.add(command);
+        String name = command.get(0).toUpperCase(Locale.ENGLISH);
+        switch (name) {
+            case "PING":
+                writeString(out, "+PONG");
+                break;
+            case "GET":
+                writeBulk(out, strings.get(command.get(1)));
+                break;
+            case "SET":
+                strings.put(command.get(1), command.get(2));
+                expiryMillis.remove(command.get(1));
+                for (int i = 3; i + 1 < command.size(); i++) {
+                    if (command.get(i).equalsIgnoreCase("PX")) {
+                        expiryMillis.put(command.get(1), Long.parseLong(command.get(i + 1)));
+                    } else if (command.get(i).equalsIgnoreCase("EX")) {
+                        expiryMillis.put(command.get(1), Long.parseLong(command.get(i + 1)) * 1000);
+                    }
+                }
+                out.write(OK);
+                break;
+            case "MGET":
+                writeArrayHeader(out, command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    writeBulk(out, strings.get(command.get(i)));
+                }
+                break;
+            case "MSET":
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    strings.put(command.get(i), command.get(i + 1));
+                }
+                out.write(OK);
+                break;
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (strings.remove(command.get(i)) != null | hashes.remove(command.get(i)) != null) {
+                        removed++;
+                    }
+                    expiryMillis.remove(command.get(i));
+                }
+                writeLong(out, removed);
+                break;
+            }
+            case "EXPIRE":
+            case "PEXPIRE":
+                if (exists(command.get(1))) {
+                    long expiry = Long.parseLong(command.get(2));
+                    expiryMillis.put(command.get(1), name.equals("EXPIRE") ? expiry * 1000 : expiry);
+                    writeLong(out, 1);
+                } else {
+                    writeLong(out, 0);
+                }
+                break;
+            case "HGET":
+                writeBulk(out, hash(command.get(1)).get(command.get(2)));
+                break;
+            case "HSET":
+                writeLong(out, hash(command.get(1)).put(command.get(2), command.get(3)) == null ? 1 : 0);
+                break;
+            case "HMSET": {
+                Map<String, String> hash = hash(command.get(1));
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    hash.put(command.get(i), command.get(i + 1));
+                }
+                out.write(OK);
+                break;
+            }
+            case "HMGET": {
+                Map<String, String> hash = hash(command.get(1));
+                writeArrayHeader(out, command.size() - 2);
+                for (int i = 2; i < command.size(); i++) {
+                    writeBulk(out, hash.get(command.get(i)));
+                }
+                break;
+            }
+            case "HGETALL": {
+                Map<String, String> hash = hash(command.get(1));
+                List<String> entries = new ArrayList<>();
+                for (Map.Entry<String, String> entry : hash.entrySet()) {
+                    entries.add(entry.getKey());
+                    entries.add(entry.getValue());
+                }
+                writeArrayHeader(out, entries.size());
+                for (String entry : entries) {
+                    writeBulk(out, entry);
+                }
+                break;
+            }
+            case "HDEL": {
+                Map<String, String> hash = hash(command.get(1));
+                long removed = 0;
+                for (int i = 2; i < command.size(); i++) {
+                    if (hash.remove(command.get(i)) != null) {
+                        removed++;
+                    }
+                }
+                writeLong(out, removed);
+                break;
+            }
+            case "HLEN":
+                writeLong(out, hash(command.get(1)).size());
+                break;
+            case "CONFIG":
+            case "FLUSHDB":
+                out.write(OK);
+                break;
+            default:
+                writeString(out, "-ERR unknown command '" + name + "'");
+        }
+    }
+
+    private Map<String, String> hash(String key) {
+        return hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header.charAt(0) != '*') {
+            throw new IOException("Expected a multi bulk request but got " + header);
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            readLine(in);
+            command.add(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            sb.append((char) c);
+        }
+        in.read();
+        return sb.toString();
+    }
+
+    private static void writeString(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        writeString(out, ":" + value);
+    }
+
+    private static void writeArrayHeader(OutputStream out, int size) throws IOException {
+        writeString(out, "*" + size);
+    }
+
+    private static void writeBulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeString(out, "$-1");
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            writeString(out, "$" + bytes.length);
+            out.write(bytes);
+            out.write('\r');
+            out.write('\n');
+        }
+    }
+}
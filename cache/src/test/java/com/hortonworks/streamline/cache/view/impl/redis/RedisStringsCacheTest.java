@@ -0,0 +1,73 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.impl.redis;
+
+import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
+import com.lambdaworks.redis.RedisClient;
+import com.lambdaworks.redis.RedisConnection;
+import com.lambdaworks.redis.codec.Utf8StringCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class RedisStringsCacheTest {
+    private RedisStandIn redis;
+    private RedisClient redisClient;
+    private RedisConnection<String, String> connection;
+    private RedisStringsCache<String, String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        redis = new RedisStandIn();
+        redisClient = new RedisClient("127.0.0.1", redis.getPort());
+        Utf8StringCodec codec = new Utf8StringCodec();
+        connection = redisClient.connect(codec);
+        ExpiryPolicy ttl = new ExpiryPolicy(null, 0, null);
+        ttl.setTtl(ttl.new Ttl(600, TimeUnit.SECONDS));
+        // batches of 2 keys
+        cache = new RedisStringsCache<>(connection, redisClient.connectAsync(codec), ttl, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        redisClient.shutdown();
+        redis.close();
+    }
+
+    @Test
+    public void testPutAllWithTtlExpiresEveryKey() throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            entries.put("k" + i, "v" + i);
+        }
+
+        cache.putAll(entries);
+
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            Assert.assertEquals(entry.getValue(), connection.get(entry.getKey()));
+            Assert.assertEquals(Long.valueOf(TimeUnit.SECONDS.toMillis(600)), redis.getExpiryMillis(entry.getKey()));
+        }
+        // the expiry is set with the value, not by separate commands
+        Assert.assertEquals(5, redis.getCommands("SET").size());
+        Assert.assertTrue(redis.getCommands("EXPIRE").isEmpty());
+        Assert.assertTrue(redis.getCommands("PEXPIRE").isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.impl.tiered;
+
+import com.hortonworks.streamline.cache.stats.TieredCacheStats;
+import com.hortonworks.streamline.cache.view.impl.guava.GuavaCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+public class TieredCacheTest {
+    private final GuavaCache<String, Integer> local = new GuavaCache<>(null);
+    private final GuavaCache<String, Integer> remote = new GuavaCache<>(null);
+    private final TieredCache<String, Integer> cache = new TieredCache<>(local, remote);
+
+    @Test
+    public void testReadsPopulateLocalTier() throws Exception {
+        remote.put("k1", 1);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("k1"));
+        Assert.assertEquals(Integer.valueOf(1), local.get("k1"));
+        Assert.assertEquals(Integer.valueOf(1), cache.get("k1"));
+        Assert.assertNull(cache.get("k2"));
+
+        remote.put("k3", 3);
+        Map<String, Integer> all = cache.getAll(Arrays.asList("k1", "k2", "k3"));
+        Assert.assertEquals(2, all.size());
+        Assert.assertEquals(Integer.valueOf(3), local.get("k3"));
+
+        TieredCacheStats stats = (TieredCacheStats) cache.stats();
+        Assert.assertEquals(2, stats.getLocalHitCount());
+        Assert.assertEquals(2, stats.getRemoteHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(1.0 / 3, stats.getLocalHitRate(), 1e-9);
+        Assert.assertEquals(0.5, stats.getRemoteHitRate(), 0.0);
+    }
+
+    @Test
+    public void testWritesInvalidateLocalTier() throws Exception {
+        remote.put("k1", 1);
+        cache.get("k1");
+        cache.put("k1", 2);
+        Assert.assertNull(local.get("k1"));
+        Assert.assertEquals(Integer.valueOf(2), cache.get("k1"));
+
+        cache.putAll(Collections.singletonMap("k1", 3));
+        Assert.assertNull(local.get("k1"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("k1"));
+
+        cache.remove("k1");
+        Assert.assertNull(remote.get("k1"));
+        Assert.assertNull(cache.get("k1"));
+    }
+
+    @Test
+    public void testRemoteInvalidation() throws Exception {
+        remote.put("k1", 1);
+        remote.put("k2", 2);
+        cache.getAll(Arrays.asList("k1", "k2"));
+
+        // written by another instance
+        remote.put("k1", 10);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("k1"));
+        cache.invalidate("k1");
+        Assert.assertEquals(Integer.valueOf(10), cache.get("k1"));
+
+        remote.put("k2", 20);
+        cache.invalidateAll();
+        Assert.assertEquals(0, local.size());
+        Assert.assertEquals(Integer.valueOf(20), cache.get("k2"));
+        Assert.assertEquals(2, ((TieredCacheStats) cache.stats()).getInvalidationCount());
+    }
+
+    @Test
+    public void testInvalidationRacingWithLocalPut() throws Exception {
+        // the invalidation of a key lands between the generation check and the put of the value read remotely
+        final TieredCache<String, Integer>[] racing = new TieredCache[1];
+        GuavaCache<String, Integer> racingLocal = new GuavaCache<String, Integer>(null) {
+            @Override
+            public void put(String key, Integer val) {
+                racing[0].invalidate(key);
+                super.put(key, val);
+            }
+
+            @Override
+            public void putAll(Map<? extends String, ? extends Integer> entries) {
+                racing[0].invalidateAll();
+                super.putAll(entries);
+            }
+        };
+        racing[0] = new TieredCache<>(racingLocal, remote);
+        remote.put("k1", 1);
+        remote.put("k2", 2);
+
+        Assert.assertEquals(Integer.valueOf(1), racing[0].get("k1"));
+        Assert.assertNull(racingLocal.get("k1"));
+        Assert.assertEquals(2, racing[0].getAll(Arrays.asList("k1", "k2")).size());
+        Assert.assertEquals(0, racingLocal.size());
+    }
+
+    @Test
+    public void testUnrelatedInvalidationDuringLoad() throws Exception {
+        // another key changes while a key is read from the remote tier
+        final TieredCache<String, Integer>[] loading = new TieredCache[1];
+        GuavaCache<String, Integer> slowRemote = new GuavaCache<String, Integer>(null) {
+            @Override
+            public Integer get(String key) {
+                loading[0].invalidate("other");
+                return super.get(key);
+            }
+
+            @Override
+            public Map<String, Integer> getAll(Collection<? extends String> keys) {
+                loading[0].invalidate("other");
+                return super.getAll(keys);
+            }
+        };
+        loading[0] = new TieredCache<>(local, slowRemote);
+        slowRemote.put("k1", 1);
+        slowRemote.put("k2", 2);
+
+        Assert.assertEquals(Integer.valueOf(1), loading[0].get("k1"));
+        Assert.assertEquals(Integer.valueOf(1), local.get("k1"));
+        Assert.assertEquals(2, loading[0].getAll(Arrays.asList("k1", "k2")).size());
+        Assert.assertEquals(Integer.valueOf(2), local.get("k2"));
+        // the local tier does not hold the key
+        Assert.assertEquals(0, ((TieredCacheStats) loading[0].stats()).getInvalidationCount());
+    }
+}
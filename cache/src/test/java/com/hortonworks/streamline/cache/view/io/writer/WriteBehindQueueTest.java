@@ -0,0 +1,157 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.cache.view.io.writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WriteBehindQueueTest {
+
+    @Test
+    public void testCoalesce() throws Exception {
+        RecordingFlusher flusher = new RecordingFlusher();
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", flusher, 1, 100, 100, 60000);
+        queue.write("k1", 1);
+        queue.write("k1", 2);
+        queue.write("k2", 1);
+        queue.delete("k2");
+        queue.delete("k3");
+        queue.write("k3", 3);
+        queue.close();
+
+        Assert.assertEquals(1, flusher.batches.size());
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("k1", 2);
+        expected.put("k3", 3);
+        Assert.assertEquals(expected, flusher.batches.get(0));
+        Assert.assertEquals(Collections.singletonList("k2"), flusher.deletes.get(0));
+
+        WriteBehindQueue.Metrics metrics = queue.getMetrics();
+        Assert.assertEquals(6, metrics.getSubmittedCount());
+        Assert.assertEquals(3, metrics.getCoalescedCount());
+        Assert.assertEquals(3, metrics.getFlushedCount());
+        Assert.assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    public void testBatchSizeAndOrdering() throws Exception {
+        RecordingFlusher flusher = new RecordingFlusher();
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", flusher, 3, 20, 10, 1);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + (i % 50);
+            if (i % 7 == 0) {
+                queue.delete(key);
+                expected.remove(key);
+            } else {
+                queue.write(key, i);
+                expected.put(key, i);
+            }
+        }
+        queue.close();
+
+        Map<String, Integer> result = new HashMap<>();
+        synchronized (flusher) {
+            for (int i = 0; i < flusher.batches.size(); i++) {
+                Assert.assertTrue(flusher.batches.get(i).size() + flusher.deletes.get(i).size() <= 10);
+                result.putAll(flusher.batches.get(i));
+                for (String key : flusher.deletes.get(i)) {
+                    result.remove(key);
+                }
+            }
+        }
+        // every partition applies the operations of its keys in order, so the last operation wins
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void testFlushAfterMaxDelay() throws Exception {
+        RecordingFlusher flusher = new RecordingFlusher();
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", flusher, 1, 100, 100, 10);
+        queue.write("k1", 1);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (queue.getMetrics().getFlushCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(1, queue.getMetrics().getFlushCount());
+        queue.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterClose() throws Exception {
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", new RecordingFlusher());
+        queue.close();
+        queue.write("k1", 1);
+    }
+
+    @Test
+    public void testRetryFailedFlush() throws Exception {
+        RecordingFlusher flusher = new RecordingFlusher();
+        flusher.failures = 2;
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", flusher, 1, 100, 100, 60000, 3, 1);
+        queue.write("k1", 1);
+        queue.close();
+
+        Assert.assertEquals(Collections.singletonList(Collections.singletonMap("k1", 1)), flusher.batches);
+        Assert.assertTrue(flusher.dropped.isEmpty());
+        Assert.assertEquals(2, queue.getMetrics().getFailedFlushCount());
+        Assert.assertEquals(0, queue.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void testDropAfterRetries() throws Exception {
+        RecordingFlusher flusher = new RecordingFlusher();
+        flusher.failures = Integer.MAX_VALUE;
+        WriteBehindQueue<String, Integer> queue = new WriteBehindQueue<>("test", flusher, 1, 100, 100, 60000, 2, 1);
+        queue.write("k1", 1);
+        queue.delete("k2");
+        queue.close();
+
+        Assert.assertTrue(flusher.batches.isEmpty());
+        Assert.assertEquals(Collections.singletonList(Collections.singletonMap("k1", 1)), flusher.dropped);
+        Assert.assertEquals(3, queue.getMetrics().getFailedFlushCount());
+        Assert.assertEquals(2, queue.getMetrics().getDroppedCount());
+    }
+
+    private static class RecordingFlusher implements WriteBehindQueue.Flusher<String, Integer> {
+        private final List<Map<String, Integer>> batches = new ArrayList<>();
+        private final List<List<String>> deletes = new ArrayList<>();
+        private final List<Map<String, Integer>> dropped = new ArrayList<>();
+        private int failures;
+
+        @Override
+        public synchronized void flush(Map<String, Integer> writes, Collection<String> deletes) {
+            if (failures > 0) {
+                --failures;
+                throw new RuntimeException("failed flush");
+            }
+            this.batches.add(new HashMap<>(writes));
+            this.deletes.add(new ArrayList<>(deletes));
+        }
+
+        @Override
+        public synchronized void onFailure(Map<String, Integer> writes, Collection<String> deletes, RuntimeException e) {
+            dropped.add(new HashMap<>(writes));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.common;
+
+/**
+ * Field by which the results of a query are ordered, ascending unless {@code descending} is set.
+ */
+public class OrderByField {
+
+    private final String fieldName;
+    private final boolean descending;
+
+    private OrderByField(String fieldName, boolean descending) {
+        if (fieldName == null || fieldName.isEmpty()) {
+            throw new IllegalArgumentException("fieldName can not be empty");
+        }
+        this.fieldName = fieldName;
+        this.descending = descending;
+    }
+
+    public static OrderByField of(String fieldName) {
+        return new OrderByField(fieldName, false);
+    }
+
+    public static OrderByField of(String fieldName, boolean descending) {
+        return new OrderByField(fieldName, descending);
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        OrderByField that = (OrderByField) o;
+
+        if (descending != that.descending) return false;
+        return fieldName.equals(that.fieldName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = fieldName.hashCode();
+        result = 31 * result + (descending ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "fieldName='" + fieldName + '\'' +
+                ", descending=" + descending +
+                '}';
+    }
+}
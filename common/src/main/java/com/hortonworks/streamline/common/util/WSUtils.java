@@ -18,7 +18,9 @@ package com.hortonworks.streamline.common.util;
 
 import com.google.common.io.ByteStreams;
 import com.hortonworks.streamline.common.CollectionResponse;
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
+import com.hortonworks.streamline.common.exception.service.exception.request.BadRequestException;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MultivaluedMap;
@@ -44,6 +46,10 @@ public class WSUtils {
     public static final String NAME = "name";
     public static final String FROM_ID = "fromId";
     public static final String TO_ID = "toId";
+    public static final String OFFSET = "offset";
+    public static final String LIMIT = "limit";
+    public static final String ORDER_BY = "orderBy";
+    public static final int DEFAULT_PAGE_LIMIT = 100;
 
     private WSUtils() {
     }
@@ -80,6 +86,10 @@ public class WSUtils {
         );
     }
 
+    /**
+     * @return the query params to filter the entities by, the paging params ({@link #OFFSET}, {@link #LIMIT} and
+     * {@link #ORDER_BY}) excluded
+     */
     public static List<QueryParam> buildQueryParameters(MultivaluedMap<String, String> params) {
         if (params == null || params.isEmpty()) {
             return Collections.emptyList();
@@ -87,11 +97,86 @@ public class WSUtils {
 
         List<QueryParam> queryParams = new ArrayList<>();
         for (String param : params.keySet()) {
-            queryParams.add(new QueryParam(param, params.getFirst(param)));
+            if (!isPageParameter(param)) {
+                queryParams.add(new QueryParam(param, params.getFirst(param)));
+            }
         }
         return queryParams;
     }
 
+    private static boolean isPageParameter(String param) {
+        return OFFSET.equals(param) || LIMIT.equals(param) || ORDER_BY.equals(param);
+    }
+
+    /**
+     * @return whether the params ask for a page of the entities, with the {@link #OFFSET} or {@link #LIMIT} param
+     */
+    public static boolean isPageRequest(MultivaluedMap<String, String> params) {
+        return params != null && (params.containsKey(OFFSET) || params.containsKey(LIMIT));
+    }
+
+    /**
+     * @return the number of entities to skip, 0 by default
+     * @throws BadRequestException if the offset is not a non negative number
+     */
+    public static long getOffset(MultivaluedMap<String, String> params) {
+        final String offset = params.getFirst(OFFSET);
+        if (offset == null) {
+            return 0;
+        }
+        try {
+            final long value = Long.parseLong(offset);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // falls through
+        }
+        throw BadRequestException.message("Param [" + OFFSET + "] must be a non negative number, was [" + offset + "]");
+    }
+
+    /**
+     * @return the maximum number of entities of the page, {@link #DEFAULT_PAGE_LIMIT} by default
+     * @throws BadRequestException if the limit is not a positive number
+     */
+    public static int getLimit(MultivaluedMap<String, String> params) {
+        final String limit = params.getFirst(LIMIT);
+        if (limit == null) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        try {
+            final int value = Integer.parseInt(limit);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // falls through
+        }
+        throw BadRequestException.message("Param [" + LIMIT + "] must be a positive number, was [" + limit + "]");
+    }
+
+    /**
+     * @return the fields to order the page by, from the comma separated {@link #ORDER_BY} param where each field is
+     * ascending unless followed by {@code :desc}, e.g. {@code orderBy=name,timestamp:desc}
+     */
+    public static List<OrderByField> buildOrderByFields(MultivaluedMap<String, String> params) {
+        final String orderBy = params.getFirst(ORDER_BY);
+        if (orderBy == null || orderBy.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<OrderByField> orderByFields = new ArrayList<>();
+        for (String field : orderBy.split(",")) {
+            final String[] nameAndDirection = field.trim().split(":");
+            if (nameAndDirection.length > 2 || nameAndDirection[0].isEmpty()
+                    || (nameAndDirection.length == 2 && !nameAndDirection[1].matches("(?i)asc|desc"))) {
+                throw BadRequestException.message("Param [" + ORDER_BY + "] has an invalid field [" + field + "]");
+            }
+            orderByFields.add(OrderByField.of(nameAndDirection[0],
+                    nameAndDirection.length == 2 && "desc".equalsIgnoreCase(nameAndDirection[1])));
+        }
+        return orderByFields;
+    }
+
 
     public static List<QueryParam> buildTopologyIdAwareQueryParams(Long topologyId, UriInfo uriInfo) {
         List<QueryParam> queryParams = new ArrayList<>();
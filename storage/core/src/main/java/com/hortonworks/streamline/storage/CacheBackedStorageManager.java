@@ -15,32 +15,91 @@
  **/
 package com.hortonworks.streamline.storage;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
 import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.SimpleCacheStats;
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.storage.cache.impl.GuavaCache;
+import com.hortonworks.streamline.storage.cache.writer.StorageWriteBehind;
 import com.hortonworks.streamline.storage.cache.writer.StorageWriter;
 import com.hortonworks.streamline.storage.exception.StorageException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Created by hlouro on 8/7/15.
+ *
+ * Point lookups are served from the given {@link Cache}. The results of {@link #find(String, List)} and
+ * {@link #list(String)} are kept in a separate cache keyed by namespace and query params, bounded by the total number
+ * of cached storables. Each namespace has a generation which is bumped on every write to the namespace, results loaded
+ * under an older generation are never served. A writer persisting the writes later, like {@link StorageWriteBehind},
+ * bumps the generation again once they reach the dao, since a query between the write and its flush reads the dao
+ * without it.
  */
 
 public class CacheBackedStorageManager implements StorageManager {
+    public static final long DEFAULT_MAX_CACHED_QUERY_STORABLES = 10000;
+
     private final StorageWriter writer;
     private final Cache<StorableKey, Storable> cache;
     private final StorageManager dao;
+    private final com.google.common.cache.Cache<QueryKey, QueryResult> queryCache;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder queryHits = new LongAdder();
+    private final LongAdder queryMisses = new LongAdder();
+    private final LongAdder queryEvictions = new LongAdder();
 
     public CacheBackedStorageManager(Cache<StorableKey, Storable> cache, StorageWriter storageWriter) {
+        this(cache, storageWriter, DEFAULT_MAX_CACHED_QUERY_STORABLES);
+    }
+
+    public CacheBackedStorageManager(Cache<StorableKey, Storable> cache, StorageWriter storageWriter,
+                                     long maxCachedQueryStorables) {
         if (cache == null || storageWriter == null) {
             throw new IllegalArgumentException("Cache and storage writer objects must not be null");
         }
         this.cache = cache;
         this.dao = ((GuavaCache)cache).getDao();
         this.writer = storageWriter;
+        this.queryCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedQueryStorables)
+                .weigher(new Weigher<QueryKey, QueryResult>() {
+                    @Override
+                    public int weigh(QueryKey key, QueryResult value) {
+                        return value.storables.size() + 1;
+                    }
+                })
+                .removalListener(new RemovalListener<QueryKey, QueryResult>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<QueryKey, QueryResult> notification) {
+                        if (notification.wasEvicted()) {
+                            queryEvictions.increment();
+                        }
+                    }
+                })
+                .build();
+        storageWriter.setPersistListener(this::invalidateQueries);
     }
 
     @Override
@@ -53,6 +112,7 @@ public class CacheBackedStorageManager implements StorageManager {
     public void add(Storable storable) throws StorageException {
         writer.add(storable);
         cache.put(storable.getStorableKey(), storable);
+        invalidateQueries(storable.getNameSpace());
     }
 
     @Override
@@ -60,6 +120,7 @@ public class CacheBackedStorageManager implements StorageManager {
         writer.remove(key);
         final T oldVal = (T) cache.get(key);
         cache.remove(key);
+        invalidateQueries(key.getNameSpace());
         return oldVal;
     }
 
@@ -67,6 +128,7 @@ public class CacheBackedStorageManager implements StorageManager {
     public void addOrUpdate(Storable storable) throws StorageException {
         writer.addOrUpdate(storable);
         cache.put(storable.getStorableKey(), storable);
+        invalidateQueries(storable.getNameSpace());
     }
 
     @Override
@@ -74,22 +136,168 @@ public class CacheBackedStorageManager implements StorageManager {
         return (T) cache.get(key);
     }
 
-    @Override   //TODO:
-    public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams) throws StorageException {
-        //Adding workaround methods that calls dao until we figure out what needs to be in caching so the topologies can work.
-        return ((GuavaCache)cache).getDao().find(namespace, queryParams);
+    @Override
+    public void addAll(Collection<? extends Storable> storables) throws StorageException {
+        writer.addAll(storables);
+        cache.putAll(toMap(storables));
+        invalidateQueries(getNameSpaces(storables));
+    }
+
+    @Override
+    public void addOrUpdateAll(Collection<? extends Storable> storables) throws StorageException {
+        writer.addOrUpdateAll(storables);
+        cache.putAll(toMap(storables));
+        invalidateQueries(getNameSpaces(storables));
+    }
 
+    @Override
+    public <T extends Storable> Collection<T> removeAll(Collection<StorableKey> keys) throws StorageException {
+        final Map<StorableKey, T> oldVals = getAll(keys);
+        writer.removeAll(keys);
+        cache.removeAll(keys);
+        final Set<String> namespaces = new HashSet<>();
+        for (StorableKey key : keys) {
+            namespaces.add(key.getNameSpace());
+        }
+        invalidateQueries(namespaces);
+        return new ArrayList<>(oldVals.values());
     }
 
+    // loads the keys missing from the cache with a single lookup in the dao
     @Override
-    public <T extends Storable> Collection<T> list(String namespace) throws StorageException {
-        return dao.list(namespace);
+    public <T extends Storable> Map<StorableKey, T> getAll(Collection<StorableKey> keys) throws StorageException {
+        final Map<StorableKey, T> result = new HashMap<>((Map<StorableKey, T>) cache.getAll(keys));
+        if (result.size() < keys.size()) {
+            final List<StorableKey> missing = new ArrayList<>();
+            for (StorableKey key : keys) {
+                if (!result.containsKey(key)) {
+                    missing.add(key);
+                }
+            }
+            final Map<StorableKey, T> loaded = dao.getAll(missing);
+            cache.putAll(loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    private static Map<StorableKey, Storable> toMap(Collection<? extends Storable> storables) {
+        final Map<StorableKey, Storable> map = new HashMap<>();
+        for (Storable storable : storables) {
+            map.put(storable.getStorableKey(), storable);
+        }
+        return map;
+    }
+
+    private static Set<String> getNameSpaces(Collection<? extends Storable> storables) {
+        final Set<String> namespaces = new HashSet<>();
+        for (Storable storable : storables) {
+            namespaces.add(storable.getNameSpace());
+        }
+        return namespaces;
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> find(final String namespace, final List<QueryParam> queryParams) throws StorageException {
+        return query(new QueryKey(namespace, queryParams), new Supplier<Collection<T>>() {
+            @Override
+            public Collection<T> get() {
+                return dao.find(namespace, queryParams);
+            }
+        });
+    }
+
+    // pages and streams are read from the dao, they are meant for scans too large to be worth caching
+    @Override
+    public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams,
+                                                   List<OrderByField> orderByFields, long offset, int limit)
+            throws StorageException {
+        return dao.find(namespace, queryParams, orderByFields, offset, limit);
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(String namespace, List<QueryParam> queryParams) throws StorageException {
+        return dao.stream(namespace, queryParams);
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> list(final String namespace) throws StorageException {
+        return query(new QueryKey(namespace, null), new Supplier<Collection<T>>() {
+            @Override
+            public Collection<T> get() {
+                return dao.list(namespace);
+            }
+        });
+    }
+
+    // hits get copies of the cached storables so that callers modifying the results do not corrupt the cache
+    private <T extends Storable> Collection<T> query(QueryKey key, Supplier<Collection<T>> loader) {
+        final long generation = getGeneration(key.namespace);
+        final QueryResult cached = queryCache.getIfPresent(key);
+        if (cached != null && cached.generation == generation) {
+            queryHits.increment();
+            final List<T> result = new ArrayList<>(cached.storables.size());
+            for (Storable storable : cached.storables) {
+                result.add((T) copy(storable));
+            }
+            return result;
+        }
+        queryMisses.increment();
+        final Collection<T> loaded = loader.get();
+        if (loaded != null) {
+            final ImmutableList.Builder<Storable> snapshot = ImmutableList.builder();
+            for (T storable : loaded) {
+                snapshot.add(copy(storable));
+            }
+            // skip caching if a write happened while loading, the result may not reflect it
+            if (generation == getGeneration(key.namespace)) {
+                queryCache.put(key, new QueryResult(generation, snapshot.build()));
+            }
+        }
+        return loaded;
+    }
+
+    private static Storable copy(Storable storable) {
+        final Storable copy = StorableAccessor.of(storable.getClass()).newInstance();
+        copy.fromMap(storable.toMap());
+        return copy;
+    }
+
+    private long getGeneration(String namespace) {
+        final AtomicLong generation = generations.get(namespace);
+        return generation != null ? generation.get() : 0L;
+    }
+
+    private void invalidateQueries(String namespace) {
+        AtomicLong generation = generations.get(namespace);
+        if (generation == null) {
+            final AtomicLong zero = new AtomicLong();
+            generation = generations.putIfAbsent(namespace, zero);
+            if (generation == null) {
+                generation = zero;
+            }
+        }
+        generation.incrementAndGet();
+    }
+
+    private void invalidateQueries(Collection<String> namespaces) {
+        for (String namespace : namespaces) {
+            invalidateQueries(namespace);
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the cache of {@link #find(String, List)} and {@link #list(String)} results
+     */
+    public CacheStats getQueryCacheStats() {
+        return new SimpleCacheStats(queryHits.sum(), queryMisses.sum(), queryEvictions.sum());
     }
 
     @Override
     public void cleanup() throws StorageException {
 //        writer.removeAll();       // TODO:
         cache.clear();
+        queryCache.invalidateAll();
     }
 
     @Override
@@ -97,8 +305,71 @@ public class CacheBackedStorageManager implements StorageManager {
         return dao.nextId(namespace);
     }
 
+    @Override
+    public Long reserveIds(String namespace, int count) throws StorageException {
+        return dao.reserveIds(namespace, count);
+    }
+
     @Override
     public void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException {
         dao.registerStorables(classes);
     }
+
+    /**
+     * Namespace and query params of a cached query, params are sorted so that the same query in a different order
+     * hits the same entry. A null or empty list of params is equivalent to listing the namespace.
+     */
+    private static final class QueryKey {
+        private static final Comparator<QueryParam> PARAM_ORDER = new Comparator<QueryParam>() {
+            @Override
+            public int compare(QueryParam p1, QueryParam p2) {
+                int res = compare(p1.getName(), p2.getName());
+                return res != 0 ? res : compare(p1.getValue(), p2.getValue());
+            }
+
+            private int compare(String s1, String s2) {
+                if (s1 == null || s2 == null) {
+                    return s1 == null ? (s2 == null ? 0 : -1) : 1;
+                }
+                return s1.compareTo(s2);
+            }
+        };
+
+        private final String namespace;
+        private final List<QueryParam> queryParams;
+
+        QueryKey(String namespace, List<QueryParam> queryParams) {
+            this.namespace = namespace;
+            if (queryParams == null || queryParams.isEmpty()) {
+                this.queryParams = Collections.emptyList();
+            } else {
+                final List<QueryParam> sorted = new ArrayList<>(queryParams);
+                Collections.sort(sorted, PARAM_ORDER);
+                this.queryParams = Collections.unmodifiableList(sorted);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QueryKey that = (QueryKey) o;
+            return Objects.equals(namespace, that.namespace) && queryParams.equals(that.queryParams);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(namespace) + queryParams.hashCode();
+        }
+    }
+
+    private static final class QueryResult {
+        private final long generation;
+        private final List<Storable> storables;
+
+        QueryResult(long generation, List<Storable> storables) {
+            this.generation = generation;
+            this.storables = storables;
+        }
+    }
 }
@@ -0,0 +1,269 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.storage;
+
+import com.hortonworks.streamline.common.util.ReflectionHelper;
+import com.hortonworks.streamline.storage.catalog.AbstractStorable;
+import com.hortonworks.streamline.storage.exception.StorageException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Constructor, getters and setters of a {@link Storable} class, looked up once per class and bound with
+ * {@link LambdaMetafactory} so that mapping the storables from and to rows makes no reflective calls.
+ * <p>
+ * The accessors follow the same conventions as {@link ReflectionHelper}: the fields are the instance variables of the
+ * class and its super classes, each with a public {@code getXxx()} getter and {@code setXxx(T)} setters.
+ * </p>
+ */
+public final class StorableAccessor {
+    private static final ClassValue<StorableAccessor> ACCESSORS = new ClassValue<StorableAccessor>() {
+        @Override
+        protected StorableAccessor computeValue(Class<?> clazz) {
+            return new StorableAccessor(clazz);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final Supplier<Object> constructor;
+    private final Map<String, Class> fieldNamesToTypes;
+    private final Map<String, Function<Object, Object>> getters;
+    // setter name -> parameter type -> setter
+    private final Map<String, Map<Class<?>, BiConsumer<Object, Object>>> setters;
+    private final boolean defaultFromMap;
+
+    private StorableAccessor(Class<?> clazz) {
+        this.clazz = clazz;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final boolean bindable = isVisible(clazz);
+
+        Supplier<Object> constructor = null;
+        try {
+            if (Modifier.isPublic(clazz.getModifiers()) && !Modifier.isAbstract(clazz.getModifiers())) {
+                constructor = constructor(lookup, clazz.getConstructor(), bindable);
+            }
+        } catch (ReflectiveOperationException e) {
+            // no public no-arg constructor, newInstance fails
+        }
+        this.constructor = constructor;
+
+        this.fieldNamesToTypes = Collections.unmodifiableMap(ReflectionHelper.getFieldNamesToTypes(clazz));
+        final Map<String, Function<Object, Object>> getters = new HashMap<>();
+        for (String fieldName : fieldNamesToTypes.keySet()) {
+            try {
+                getters.put(fieldName, getter(lookup, clazz.getMethod("get" + StringUtils.capitalize(fieldName)), bindable));
+            } catch (ReflectiveOperationException e) {
+                // no getter, get fails for this field
+            }
+        }
+        this.getters = getters;
+
+        final Map<String, Map<Class<?>, BiConsumer<Object, Object>>> setters = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                try {
+                    setters.computeIfAbsent(method.getName(), name -> new HashMap<>())
+                            .put(method.getParameterTypes()[0], setter(lookup, method, bindable));
+                } catch (ReflectiveOperationException e) {
+                    // not accessible, set fails for this setter
+                }
+            }
+        }
+        this.setters = setters;
+
+        boolean defaultFromMap = false;
+        try {
+            defaultFromMap = clazz.getMethod("fromMap", Map.class).getDeclaringClass() == AbstractStorable.class;
+        } catch (NoSuchMethodException e) {
+            // not a storable
+        }
+        this.defaultFromMap = defaultFromMap;
+    }
+
+    /**
+     * @return the accessors of the given class, built on the first call for the class
+     */
+    public static StorableAccessor of(Class<?> clazz) {
+        return ACCESSORS.get(clazz);
+    }
+
+    /**
+     * @return a new instance created with the public no-arg constructor
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Storable> T newInstance() {
+        if (constructor == null) {
+            throw new StorageException("No public no-arg constructor in " + clazz);
+        }
+        return (T) constructor.get();
+    }
+
+    /**
+     * @return the names of all the instance variables of the class and its super classes, to their types
+     */
+    public Map<String, Class> getFieldNamesToTypes() {
+        return fieldNamesToTypes;
+    }
+
+    /**
+     * @return the value returned by the getter of the field
+     */
+    public Object get(String fieldName, Object target) {
+        final Function<Object, Object> getter = getters.get(fieldName);
+        if (getter == null) {
+            throw new StorageException(new NoSuchMethodException(clazz.getName() + ".get" + StringUtils.capitalize(fieldName) + "()"));
+        }
+        return getter.apply(target);
+    }
+
+    /**
+     * Sets the value with the setter of the field whose parameter is of the value's class.
+     */
+    public void set(String fieldName, Object target, Object value) {
+        getSetter(fieldName, value.getClass()).accept(target, value);
+    }
+
+    /**
+     * @return the setter of the field whose parameter is of the given type
+     */
+    public BiConsumer<Object, Object> getSetter(String fieldName, Class<?> type) {
+        final String setterName = "set" + StringUtils.capitalize(fieldName);
+        final Map<Class<?>, BiConsumer<Object, Object>> typeSetters = setters.get(setterName);
+        final BiConsumer<Object, Object> setter = typeSetters != null ? typeSetters.get(type) : null;
+        if (setter == null) {
+            throw new StorageException(new NoSuchMethodException(clazz.getName() + "." + setterName + "(" + type.getName() + ")"));
+        }
+        return setter;
+    }
+
+    /**
+     * @return true if the class populates its instances from maps with {@link AbstractStorable#fromMap(Map)}, in which
+     * case they can be populated field by field with the setters instead
+     */
+    public boolean hasDefaultFromMap() {
+        return defaultFromMap;
+    }
+
+    // the lambdas are defined in the class loader of this class, the classes it can not see get method handles
+    private static boolean isVisible(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, StorableAccessor.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> constructor(MethodHandles.Lookup lookup, Constructor<?> constructor,
+                                                boolean bindable) throws ReflectiveOperationException {
+        final MethodHandle handle = lookup.unreflectConstructor(constructor);
+        if (bindable) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class), handle, handle.type());
+                return (Supplier<Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // falls back to the method handle
+            }
+        }
+        final MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return generic.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(MethodHandles.Lookup lookup, Method method, boolean bindable)
+            throws ReflectiveOperationException {
+        final MethodHandle handle = lookup.unreflect(method);
+        if (bindable) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class), handle,
+                        MethodType.methodType(wrap(method.getReturnType()), method.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // falls back to the method handle
+            }
+        }
+        final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return target -> {
+            try {
+                return generic.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Method method, boolean bindable)
+            throws ReflectiveOperationException {
+        final MethodHandle handle = lookup.unreflect(method);
+        if (bindable) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), handle,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // falls back to the method handle
+            }
+        }
+        final MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (target, value) -> {
+            try {
+                generic.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new StorageException(e);
+    }
+}
@@ -29,7 +29,7 @@ import java.util.Map;
 public class StorableFactory {
     private static final Logger LOG = LoggerFactory.getLogger(StorableFactory.class);
 
-    private final Map<String, Class<? extends Storable>> nameSpaceWithClass = new HashMap<>();
+    private final Map<String, StorableAccessor> nameSpaceWithAccessor = new HashMap<>();
 
     public StorableFactory() {
     }
@@ -41,11 +41,12 @@ public class StorableFactory {
 
                 LOG.info("Storable class [{}] is getting registered with namespace [{}]", clazz, nameSpace);
 
-                if(nameSpaceWithClass.containsKey(nameSpace)) {
+                if(nameSpaceWithAccessor.containsKey(nameSpace)) {
                     throw new IllegalArgumentException("NameSpace ["+nameSpace+"] is already registered");
                 }
 
-                nameSpaceWithClass.put(nameSpace, clazz);
+                // the accessors are built once, here
+                nameSpaceWithAccessor.put(nameSpace, StorableAccessor.of(clazz));
             } catch (InstantiationException | IllegalAccessException e) {
                 throw new RuntimeException(e);
             }
@@ -53,14 +54,17 @@ public class StorableFactory {
     }
 
     public Storable create(String nameSpace) {
-        if (!nameSpaceWithClass.containsKey(nameSpace)) {
-            throw new IllegalArgumentException("No factory supported with the given namespace: " + nameSpace);
-        }
+        return getAccessor(nameSpace).newInstance();
+    }
 
-        try {
-            return nameSpaceWithClass.get(nameSpace).newInstance();
-        } catch (InstantiationException  | IllegalAccessException e) {
-            throw new RuntimeException(e);
+    /**
+     * @return the accessors of the storable class registered with the given namespace
+     */
+    public StorableAccessor getAccessor(String nameSpace) {
+        final StorableAccessor accessor = nameSpaceWithAccessor.get(nameSpace);
+        if (accessor == null) {
+            throw new IllegalArgumentException("No factory supported with the given namespace: " + nameSpace);
         }
+        return accessor;
     }
 }
@@ -15,12 +15,14 @@
  **/
 package com.hortonworks.streamline.storage;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.storage.exception.StorageException;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * TODO: All the methods are very restrictive and needs heavy synchronization to get right but my assumption is that
@@ -67,6 +69,43 @@ public interface StorageManager {
      */
     void addOrUpdate(Storable storable) throws StorageException;
 
+    /**
+     * Adds the storables to storage layer, as {@link #add(Storable)} does for each of them. Implementations write the
+     * storables in as few round trips as they can.
+     *
+     * @param storables the storables to add
+     * @throws StorageException
+     */
+    void addAll(Collection<? extends Storable> storables) throws StorageException;
+
+    /**
+     * Adds or updates the storables, as {@link #addOrUpdate(Storable)} does for each of them. Implementations write
+     * the storables in as few round trips as they can.
+     *
+     * @param storables the storables to add or update
+     * @throws StorageException
+     */
+    void addOrUpdateAll(Collection<? extends Storable> storables) throws StorageException;
+
+    /**
+     * Removes the {@link Storable} objects identified by the keys, as {@link #remove(StorableKey)} does for each of
+     * them. The keys that do not exist are ignored.
+     *
+     * @param keys of the {@link Storable} objects to remove
+     * @return the objects that got removed
+     * @throws StorageException
+     */
+    <T extends Storable> Collection<T> removeAll(Collection<StorableKey> keys) throws StorageException;
+
+    /**
+     * Gets the storable entities with the given keys, as {@link #get(StorableKey)} does for each of them.
+     *
+     * @param keys the keys to look up
+     * @return the storable entities found, by key. The keys with no storable entity are absent from the map.
+     * @throws StorageException
+     */
+    <T extends Storable> Map<StorableKey, T> getAll(Collection<StorableKey> keys) throws StorageException;
+
     /**
      * Gets the storable entity by using {@code Storable.getPrimaryKey()} as lookup key, return null if no storable entity with
      * the supplied key is found.
@@ -93,6 +132,35 @@ public interface StorageManager {
      */
     <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams) throws StorageException;
 
+    /**
+     * Gets a page of the storable entities in the namespace matching the query params, as
+     * {@link #find(String, List)} does, ordered by the given fields. Without order by fields the entities are ordered
+     * by their primary key, so that consecutive pages neither skip nor repeat entities.
+     *
+     * @param namespace
+     * @param queryParams the query params, all the entities of the namespace if null or empty
+     * @param orderByFields the fields to order the entities by
+     * @param offset number of entities to skip
+     * @param limit maximum number of entities to return
+     * @return the entities of the page, in order
+     * @throws StorageException
+     */
+    <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams,
+                                            List<OrderByField> orderByFields, long offset, int limit)
+            throws StorageException;
+
+    /**
+     * Streams the storable entities in the namespace matching the query params, as {@link #find(String, List)}
+     * does, without loading them all in memory. The stream holds storage resources, like a database cursor, until it
+     * is closed so it must be used in a try-with-resources block.
+     *
+     * @param namespace
+     * @param queryParams the query params, all the entities of the namespace if null or empty
+     * @return the stream of the entities
+     * @throws StorageException
+     */
+    <T extends Storable> Stream<T> stream(String namespace, List<QueryParam> queryParams) throws StorageException;
+
     /**
      * Lists all {@link Storable} objects existing in the given namespace. If no entity is found, and empty list will be returned.
      * @param namespace
@@ -110,6 +178,17 @@ public interface StorageManager {
 
     Long nextId(String namespace) throws StorageException;
 
+    /**
+     * Reserves a block of {@code count} consecutive ids in the namespace atomically.
+     * The ids of a block are never handed out again, by this or any other instance, nor after a restart.
+     *
+     * @param namespace
+     * @param count number of ids to reserve
+     * @return the first id of the block
+     * @throws StorageException
+     */
+    Long reserveIds(String namespace, int count) throws StorageException;
+
     /**
      * Registers a Collection of {@link Storable}} classes to be used in {@link StorableFactory} for creating instances
      * of a given namespace.
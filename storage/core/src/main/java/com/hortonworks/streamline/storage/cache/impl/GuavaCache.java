@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.hortonworks.streamline.cache.Cache;
 import com.hortonworks.streamline.cache.exception.NonexistentStorableKeyException;
 import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.CacheStatsCounter;
 import com.hortonworks.streamline.cache.view.config.ExpiryPolicy;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
@@ -42,14 +43,22 @@ public class GuavaCache implements Cache<StorableKey, Storable> {
     private static final Logger log = LoggerFactory.getLogger(GuavaCache.class);
     private final StorageManager dao;
     private final LoadingCache<StorableKey, Storable> guavaCache;
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
 
     public GuavaCache(final StorageManager dao, CacheBuilder guavaCacheBuilder) {
         this.dao = dao;
         this.guavaCache = guavaCacheBuilder.build(new CacheLoader<StorableKey, Storable>() {
             @Override
             public Storable load(StorableKey key) throws StorageException, NonexistentStorableKeyException {
-                Storable val = dao.get(key);
+                final Storable val;
+                try {
+                    val = dao.get(key);
+                } catch (StorageException e) {
+                    statsCounter.recordLoadFailure();
+                    throw e;
+                }
                 if (val != null) {
+                    statsCounter.recordLoads(1);
                     return val;
                 }
                 throw new NonexistentStorableKeyException("Nonexistent key : [" + key + "]");
@@ -58,6 +67,15 @@ public class GuavaCache implements Cache<StorableKey, Storable> {
     }
 
     public Storable get(StorableKey key) {
+        final long start = System.nanoTime();
+        try {
+            return get0(key);
+        } finally {
+            statsCounter.recordGetLatency(start);
+        }
+    }
+
+    private Storable get0(StorableKey key) {
         Storable val = null;
         try {
             val = guavaCache.get(key);
@@ -77,15 +95,22 @@ public class GuavaCache implements Cache<StorableKey, Storable> {
     }
 
     public Map<StorableKey, Storable> getAll(Collection<? extends StorableKey> keys) {
-        return guavaCache.getAllPresent(keys);
+        final long start = System.nanoTime();
+        final Map<StorableKey, Storable> present = guavaCache.getAllPresent(keys);
+        statsCounter.recordGetLatency(start);
+        return present;
     }
 
     public void put(StorableKey key, Storable val) {
+        final long start = System.nanoTime();
         guavaCache.put(key, val);
+        statsCounter.recordPutLatency(start);
     }
 
     public void putAll(Map<? extends StorableKey, ? extends Storable> map) {
+        final long start = System.nanoTime();
         guavaCache.putAll(map);
+        statsCounter.recordPutLatency(start);
     }
 
     public void remove(StorableKey key) {
@@ -105,9 +130,10 @@ public class GuavaCache implements Cache<StorableKey, Storable> {
         return guavaCache.size();
     }
 
-    //TODO
+    // hits, misses and evictions are only recorded by Guava when the cache builder enables recordStats
     public CacheStats stats() {
-        return null;
+        final com.google.common.cache.CacheStats stats = guavaCache.stats();
+        return statsCounter.snapshot(stats.hitCount(), stats.missCount(), stats.evictionCount());
     }
 
     @Override
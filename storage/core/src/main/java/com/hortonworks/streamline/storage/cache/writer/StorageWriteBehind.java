@@ -15,81 +15,117 @@
  **/
 package com.hortonworks.streamline.storage.cache.writer;
 
+import com.hortonworks.streamline.cache.view.io.writer.WriteBehindQueue;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Created by hlouro on 8/7/15.
+ *
+ * Writes go through a {@link WriteBehindQueue}: the pending writes of a storable are coalesced, and they are flushed
+ * in batches with {@link StorageManager#addOrUpdateAll(Collection)} and {@link StorageManager#removeAll(Collection)}.
+ * Since failures can't be reported to the caller, {@link #add(Storable)} is written as an add or update.
  */
-public class StorageWriteBehind implements StorageWriter {
-    private static final int NUM_THREADS = 5;
-    private final StorageManager dao;
-    private final ExecutorService executorService;
+public class StorageWriteBehind implements StorageWriter, AutoCloseable {
+    private final DaoFlusher flusher;
+    private final WriteBehindQueue<StorableKey, Storable> queue;
 
     public StorageWriteBehind(StorageManager dao) {
-        this(dao, Executors.newFixedThreadPool(NUM_THREADS));
+        this.flusher = new DaoFlusher(dao);
+        this.queue = new WriteBehindQueue<>("storage-writer", flusher);
     }
 
-    public StorageWriteBehind(StorageManager dao, ExecutorService executorService) {
-        this.dao = dao;
-        this.executorService = executorService;
+    public StorageWriteBehind(StorageManager dao, int partitions, int capacity, int batchSize, long maxDelayMs) {
+        this.flusher = new DaoFlusher(dao);
+        this.queue = new WriteBehindQueue<>("storage-writer", flusher, partitions, capacity, batchSize, maxDelayMs);
+    }
+
+    private static class DaoFlusher implements WriteBehindQueue.Flusher<StorableKey, Storable> {
+        private final StorageManager dao;
+        private volatile Consumer<Collection<String>> persistListener;
+
+        DaoFlusher(StorageManager dao) {
+            this.dao = dao;
+        }
+
+        @Override
+        public void flush(Map<StorableKey, Storable> writes, Collection<StorableKey> deletes) {
+            if (!writes.isEmpty()) {
+                dao.addOrUpdateAll(new ArrayList<>(writes.values()));
+            }
+            if (!deletes.isEmpty()) {
+                dao.removeAll(deletes);
+            }
+            final Consumer<Collection<String>> listener = persistListener;
+            if (listener != null) {
+                final Set<String> namespaces = new HashSet<>();
+                for (StorableKey key : writes.keySet()) {
+                    namespaces.add(key.getNameSpace());
+                }
+                for (StorableKey key : deletes) {
+                    namespaces.add(key.getNameSpace());
+                }
+                listener.accept(namespaces);
+            }
+        }
     }
 
     public void add(Storable storable) {
-        executorService.submit(new AddCallable(storable));
+        queue.write(storable.getStorableKey(), storable);
     }
 
     public void addOrUpdate(Storable storable) {
-        executorService.submit(new AddOrUpdateCallable(storable));
+        queue.write(storable.getStorableKey(), storable);
     }
 
+    // the removed storable is not known until the delete is flushed
     public Object remove(StorableKey key) {
-        return executorService.submit(new DeleteCallable(key));
+        queue.delete(key);
+        return null;
     }
 
-    // ======= Callables for async writing to the Storage Layer =============
-
-    private class AddCallable implements Callable<Storable> {
-        private final Storable storable;
-
-        AddCallable(Storable storable) {
-            this.storable = storable;
-        }
-
-        public Storable call() throws Exception {
-            dao.add(storable);
-            return null;    //TODO since not returning value, perhaps we can use runnable
+    public void addAll(Collection<? extends Storable> storables) {
+        for (Storable storable : storables) {
+            add(storable);
         }
     }
 
-    private class AddOrUpdateCallable implements Callable<Storable> {
-        private final Storable storable;
-
-        AddOrUpdateCallable(Storable storable) {
-            this.storable = storable;
+    public void addOrUpdateAll(Collection<? extends Storable> storables) {
+        for (Storable storable : storables) {
+            addOrUpdate(storable);
         }
+    }
 
-        public Storable call() throws Exception {
-            dao.addOrUpdate(storable);
-            return null;    //TODO since not returning value, perhaps we can use runnable
+    public Object removeAll(Collection<StorableKey> keys) {
+        for (StorableKey key : keys) {
+            queue.delete(key);
         }
+        return null;
     }
 
-    private class DeleteCallable implements Callable<Storable> {
-        private final StorableKey key;
-
-        DeleteCallable(StorableKey key) {
-            this.key = key;
-        }
+    // called from the flushing threads, after the batch is written to the dao
+    @Override
+    public void setPersistListener(Consumer<Collection<String>> listener) {
+        flusher.persistListener = listener;
+    }
 
-        public Storable call() throws Exception {
-            return dao.remove(key);
-        }
+    public WriteBehindQueue.Metrics getMetrics() {
+        return queue.getMetrics();
     }
 
+    /**
+     * Flushes the pending writes and deletes.
+     */
+    @Override
+    public void close() {
+        queue.close();
+    }
 }
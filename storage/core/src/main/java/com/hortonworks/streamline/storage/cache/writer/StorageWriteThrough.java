@@ -19,6 +19,8 @@ import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
 
+import java.util.Collection;
+
 /**
  * Created by hlouro on 8/7/15.
  */
@@ -40,4 +42,16 @@ public class StorageWriteThrough implements StorageWriter {
     public Object remove(StorableKey key) {
         return dao.remove(key);
     }
+
+    public void addAll(Collection<? extends Storable> storables) {
+        dao.addAll(storables);
+    }
+
+    public void addOrUpdateAll(Collection<? extends Storable> storables) {
+        dao.addOrUpdateAll(storables);
+    }
+
+    public Object removeAll(Collection<StorableKey> keys) {
+        return dao.removeAll(keys);
+    }
 }
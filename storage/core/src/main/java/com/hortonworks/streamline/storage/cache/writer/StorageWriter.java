@@ -18,6 +18,9 @@ package com.hortonworks.streamline.storage.cache.writer;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
 
+import java.util.Collection;
+import java.util.function.Consumer;
+
 /**
  * Created by hlouro on 8/7/15.
  */
@@ -27,4 +30,17 @@ public interface StorageWriter {
     void addOrUpdate(Storable storable);
 
     Object remove(StorableKey key);
+
+    void addAll(Collection<? extends Storable> storables);
+
+    void addOrUpdateAll(Collection<? extends Storable> storables);
+
+    Object removeAll(Collection<StorableKey> keys);
+
+    /**
+     * Sets the listener called with the namespaces of the writes once they are persisted, by writers that persist
+     * them after the write methods return. The other writers have persisted the writes when the write methods return.
+     */
+    default void setPersistListener(Consumer<Collection<String>> listener) {
+    }
 }
@@ -18,19 +18,17 @@ package com.hortonworks.streamline.storage.catalog;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.common.exception.ParserException;
-import com.hortonworks.streamline.common.util.ReflectionHelper;
 import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessor;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.exception.StorageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Default implementations go here
@@ -53,17 +51,13 @@ public abstract class AbstractStorable implements Storable {
      * @return
      */
     public Map<String, Object> toMap() {
-        Set<String> instanceVariableNames = ReflectionHelper.getFieldNamesToTypes(this.getClass()).keySet();
+        StorableAccessor accessor = StorableAccessor.of(this.getClass());
         Map<String, Object> fieldToVal = new HashMap<>();
-        for(String fieldName : instanceVariableNames) {
-            try {
-                Object val = ReflectionHelper.invokeGetter(fieldName, this);
-                fieldToVal.put(fieldName, val);
-                if(LOG.isTraceEnabled()) {
-                    LOG.trace("toMap: Adding fieldName {} = {} ", fieldName, val);
-                }
-            } catch (NoSuchMethodException|InvocationTargetException|IllegalAccessException e) {
-                throw new StorageException(e);
+        for(String fieldName : accessor.getFieldNamesToTypes().keySet()) {
+            Object val = accessor.get(fieldName, this);
+            fieldToVal.put(fieldName, val);
+            if(LOG.isTraceEnabled()) {
+                LOG.trace("toMap: Adding fieldName {} = {} ", fieldName, val);
             }
         }
 
@@ -77,13 +71,10 @@ public abstract class AbstractStorable implements Storable {
      * @return
      */
     public Storable fromMap(Map<String, Object> map) {
+        StorableAccessor accessor = StorableAccessor.of(this.getClass());
         for(Map.Entry<String, Object> entry: map.entrySet()) {
-            try {
-                if(entry.getValue() != null) {
-                    ReflectionHelper.invokeSetter(entry.getKey(), this, entry.getValue());
-                }
-            } catch (NoSuchMethodException|InvocationTargetException|IllegalAccessException e) {
-                throw new StorageException(e);
+            if(entry.getValue() != null) {
+                accessor.set(entry.getKey(), this, entry.getValue());
             }
         }
         return this;
@@ -96,12 +87,12 @@ public abstract class AbstractStorable implements Storable {
      */
     @JsonIgnore
     public Schema getSchema() {
-        Map<String, Class> fieldNamesToTypes = ReflectionHelper.getFieldNamesToTypes(this.getClass());
+        StorableAccessor accessor = StorableAccessor.of(this.getClass());
         List<Schema.Field> fields = new ArrayList<>();
 
-        for(Map.Entry<String, Class> entry : fieldNamesToTypes.entrySet()) {
+        for(Map.Entry<String, Class> entry : accessor.getFieldNamesToTypes().entrySet()) {
             try {
-                Object val = ReflectionHelper.invokeGetter(entry.getKey(), this);
+                Object val = accessor.get(entry.getKey(), this);
                 Schema.Type type;
                 if(val != null) {
                     type = Schema.fromJavaType(val);
@@ -112,7 +103,7 @@ public abstract class AbstractStorable implements Storable {
                 if(LOG.isTraceEnabled()) {
                     LOG.trace("getSchema: Adding {} = {} ", entry.getKey(), type);
                 }
-            } catch (NoSuchMethodException|InvocationTargetException|IllegalAccessException|ParserException e) {
+            } catch (ParserException e) {
                 throw new StorageException(e);
             }
         }
@@ -17,6 +17,7 @@
 package com.hortonworks.streamline.storage.impl.jdbc;
 
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.storage.PrimaryKey;
@@ -32,15 +33,23 @@ import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.factory.Pho
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory.QueryExecutor;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.MetadataHelper;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlSelectQuery;
+import com.hortonworks.streamline.storage.impl.jdbc.util.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
 //Use unique constraints on respective columns of a table for handling concurrent inserts etc.
 public class JdbcStorageManager implements StorageManager {
@@ -48,6 +57,8 @@ public class JdbcStorageManager implements StorageManager {
     public static final String DB_TYPE = "db.type";
 
     private final StorableFactory storableFactory = new StorableFactory();
+    // sql type of each column of the namespaces queried by find, by lower case column name
+    private final ConcurrentMap<String, Map<String, Integer>> columnTypes = new ConcurrentHashMap<>();
     private QueryExecutor queryExecutor;
 
     public JdbcStorageManager() {
@@ -88,6 +99,74 @@ public class JdbcStorageManager implements StorageManager {
         queryExecutor.insertOrUpdate(storable);
     }
 
+    @Override
+    public void addAll(Collection<? extends Storable> storables) throws StorageException {
+        log.debug("Adding [{}] storables", storables.size());
+        final List<StorableKey> keys = new ArrayList<>(storables.size());
+        for (Storable storable : storables) {
+            keys.add(storable.getStorableKey());
+        }
+        final Map<StorableKey, Storable> existing = getAll(keys);
+
+        final List<Storable> toAdd = new ArrayList<>(storables.size());
+        for (Storable storable : storables) {
+            final StorableKey key = storable.getStorableKey();
+            final Storable existingStorable = existing.get(key);
+            if (existingStorable == null) {
+                toAdd.add(storable);
+                // the keys without value are issued while adding, they never clash
+                if (!hasNullValue(key)) {
+                    existing.put(key, storable);
+                }
+            } else if (!existingStorable.equals(storable)) {
+                throw new AlreadyExistsException("Another instance with same id = " + storable.getPrimaryKey()
+                        + " exists with different value in namespace " + storable.getNameSpace()
+                        + ". Consider using addOrUpdate method if you always want to overwrite.");
+            }
+        }
+        addOrUpdateAll(toAdd);
+    }
+
+    @Override
+    public void addOrUpdateAll(Collection<? extends Storable> storables) throws StorageException {
+        log.debug("Adding or updating [{}] storables", storables.size());
+        if (!storables.isEmpty()) {
+            queryExecutor.insertOrUpdateAll(storables);
+        }
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> removeAll(Collection<StorableKey> keys) throws StorageException {
+        final Map<StorableKey, T> oldVals = getAll(keys);
+        if (!oldVals.isEmpty()) {
+            log.debug("Removing storable keys [{}]", oldVals.keySet());
+            queryExecutor.deleteAll(oldVals.keySet());
+        }
+        return oldVals.values();
+    }
+
+    @Override
+    public <T extends Storable> Map<StorableKey, T> getAll(Collection<StorableKey> keys) throws StorageException {
+        log.debug("Searching entries for [{}] storable keys", keys.size());
+        final Set<StorableKey> lookupKeys = new LinkedHashSet<>();
+        for (StorableKey key : keys) {
+            if (!hasNullValue(key)) {
+                lookupKeys.add(key);
+            }
+        }
+
+        final Map<StorableKey, T> entries = new HashMap<>();
+        if (!lookupKeys.isEmpty()) {
+            for (T entry : queryExecutor.<T>selectAll(lookupKeys)) {
+                final StorableKey key = entry.getStorableKey();
+                if (lookupKeys.contains(key)) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return entries;
+    }
+
     @Override
     public <T extends Storable> T get(StorableKey key) throws StorageException {
         log.debug("Searching entry for storable key [{}]", key);
@@ -120,12 +199,62 @@ public class JdbcStorageManager implements StorageManager {
                 entries = queryExecutor.select(storableKey);
             }
         } catch (Exception e) {
+            // the columns are looked up again in case the schema of the namespace changed
+            columnTypes.remove(namespace);
             throw new StorageException(e);
         }
         log.debug("Querying table = [{}]\n\t filter = [{}]\n\t returned [{}]", namespace, queryParams, entries);
         return entries;
     }
 
+    @Override
+    public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams,
+                                                   List<OrderByField> orderByFields, long offset, int limit)
+            throws StorageException {
+        log.debug("Searching for page [{}, {}] of entries in table [{}] that match queryParams [{}] ordered by [{}]",
+                offset, limit, namespace, queryParams, orderByFields);
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset can not be negative and limit must be positive");
+        }
+
+        Collection<T> entries = Collections.emptyList();
+        try {
+            final List<OrderByField> pageOrder = getOrderByFields(namespace, orderByFields);
+            if (queryParams == null || queryParams.isEmpty()) {
+                entries = queryExecutor.select(namespace, pageOrder, offset, limit);
+            } else {
+                StorableKey storableKey = buildStorableKey(namespace, queryParams);
+                if (storableKey != null) {
+                    entries = queryExecutor.select(storableKey, pageOrder, offset, limit);
+                }
+            }
+        } catch (Exception e) {
+            // the columns are looked up again in case the schema of the namespace changed
+            columnTypes.remove(namespace);
+            throw new StorageException(e);
+        }
+        log.debug("Querying table = [{}]\n\t filter = [{}]\n\t returned [{}] entries", namespace, queryParams, entries.size());
+        return entries;
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(String namespace, List<QueryParam> queryParams)
+            throws StorageException {
+        log.debug("Streaming entries in table [{}] that match queryParams [{}]", namespace, queryParams);
+        if (queryParams == null || queryParams.isEmpty()) {
+            return queryExecutor.stream(namespace);
+        }
+
+        final StorableKey storableKey;
+        try {
+            storableKey = buildStorableKey(namespace, queryParams);
+        } catch (Exception e) {
+            columnTypes.remove(namespace);
+            throw new StorageException(e);
+        }
+        return storableKey != null ? queryExecutor.<T>stream(storableKey) : Stream.<T>empty();
+    }
+
     @Override
     public <T extends Storable> Collection<T> list(String namespace) throws StorageException {
         log.debug("Listing entries for table [{}]", namespace);
@@ -136,6 +265,7 @@ public class JdbcStorageManager implements StorageManager {
 
     @Override
     public void cleanup() throws StorageException {
+        columnTypes.clear();
         queryExecutor.cleanup();
     }
 
@@ -147,13 +277,27 @@ public class JdbcStorageManager implements StorageManager {
         return queryExecutor.nextId(namespace);
     }
 
+    @Override
+    public Long reserveIds(String namespace, int count) {
+        log.debug("Reserving [{}] ids for table [{}]", count, namespace);
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        return queryExecutor.reserveIds(namespace, count);
+    }
+
     @Override
     public void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException {
         storableFactory.addStorableClasses(classes);
+        columnTypes.clear();
     }
 
     // private helper methods
 
+    private static boolean hasNullValue(StorableKey key) {
+        return key.getPrimaryKey().getFieldsToVal().containsValue(null);
+    }
+
     /**
      * Query parameters are typically specified for a column or key in a database table or storage namespace. Therefore, we build
      * the {@link StorableKey} from the list of query parameters, and then can use {@link SqlSelectQuery} builder to generate the query using
@@ -164,19 +308,24 @@ public class JdbcStorageManager implements StorageManager {
      */
     private StorableKey buildStorableKey(String namespace, List<QueryParam> queryParams) throws Exception {
         final Map<Schema.Field, Object> fieldsToVal = new HashMap<>();
-        final Connection connection = queryExecutor.getConnection();
         StorableKey storableKey = null;
 
         try {
+            final Map<String, Integer> namespaceColumnTypes = getColumnTypes(namespace);
             for (QueryParam qp : queryParams) {
-                int queryTimeoutSecs = queryExecutor.getConfig().getQueryTimeoutSecs();
-                if (!MetadataHelper.isColumnInNamespace(connection, queryTimeoutSecs, namespace, qp.getName())) {
+                final Integer sqlType = namespaceColumnTypes.get(qp.getName().toLowerCase(Locale.ROOT));
+                if (sqlType == null) {
                     log.warn("Query parameter [{}] does not exist for namespace [{}]. Query parameter ignored.", qp.getName(), namespace);
                 } else {
                     final String val = qp.getValue();
-                    final Schema.Type typeOfVal = Schema.Type.getTypeOfVal(val);
-                    fieldsToVal.put(new Schema.Field(qp.getName(), typeOfVal),
-                        typeOfVal.getJavaType().getConstructor(String.class).newInstance(val)); // instantiates object of the appropriate type
+                    Schema.Type type = Util.getSchemaType(sqlType);
+                    Object value = type != null ? parseValue(type, val) : null;
+                    if (value == null) {
+                        // no type matches the column, the type is inferred from the value
+                        type = Schema.Type.getTypeOfVal(val);
+                        value = type.getJavaType().getConstructor(String.class).newInstance(val); // instantiates object of the appropriate type
+                    }
+                    fieldsToVal.put(new Schema.Field(qp.getName(), type), value);
                 }
             }
 
@@ -191,13 +340,83 @@ public class JdbcStorageManager implements StorageManager {
         } catch (Exception e) {
             log.debug("Exception occurred when attempting to generate StorableKey from QueryParam", e);
             throw new IllegalQueryParameterException(e);
-        } finally {
-            queryExecutor.closeConnection(connection);
         }
 
         return storableKey;
     }
 
+    /**
+     * @return the given order by fields, or the primary key fields of the namespace if there is none
+     * @throws IllegalQueryParameterException if a field is not a column of the namespace, so that only column names
+     * end up in the query
+     */
+    private List<OrderByField> getOrderByFields(String namespace, List<OrderByField> orderByFields) throws Exception {
+        if (orderByFields == null || orderByFields.isEmpty()) {
+            final List<OrderByField> primaryKeyOrder = new ArrayList<>();
+            for (Schema.Field field : storableFactory.create(namespace).getPrimaryKey().getFieldsToVal().keySet()) {
+                primaryKeyOrder.add(OrderByField.of(field.getName()));
+            }
+            return primaryKeyOrder;
+        }
+        final Map<String, Integer> namespaceColumnTypes = getColumnTypes(namespace);
+        for (OrderByField orderByField : orderByFields) {
+            if (!namespaceColumnTypes.containsKey(orderByField.getFieldName().toLowerCase(Locale.ROOT))) {
+                throw new IllegalQueryParameterException("Order by field [" + orderByField.getFieldName()
+                        + "] does not exist for namespace [" + namespace + "]");
+            }
+        }
+        return orderByFields;
+    }
+
+    /**
+     * @return the sql type of each column in the namespace, read from the database metadata the first time the
+     * namespace is queried
+     */
+    private Map<String, Integer> getColumnTypes(String namespace) throws Exception {
+        Map<String, Integer> namespaceColumnTypes = columnTypes.get(namespace);
+        if (namespaceColumnTypes == null) {
+            final Connection connection = queryExecutor.getConnection();
+            try {
+                int queryTimeoutSecs = queryExecutor.getConfig().getQueryTimeoutSecs();
+                namespaceColumnTypes = MetadataHelper.getColumnTypes(connection, queryTimeoutSecs, namespace);
+            } finally {
+                queryExecutor.closeConnection(connection);
+            }
+            columnTypes.put(namespace, namespaceColumnTypes);
+        }
+        return namespaceColumnTypes;
+    }
+
+    /**
+     * @return the value of the given type, or null if the value is not of that type
+     */
+    private static Object parseValue(Schema.Type type, String val) {
+        try {
+            switch (type) {
+                case BOOLEAN:
+                    return "true".equalsIgnoreCase(val) || "false".equalsIgnoreCase(val) ? Boolean.valueOf(val) : null;
+                case BYTE:
+                    return Byte.valueOf(val);
+                case SHORT:
+                    return Short.valueOf(val);
+                case INTEGER:
+                    return Integer.valueOf(val);
+                case LONG:
+                    return Long.valueOf(val);
+                case FLOAT:
+                    return Float.valueOf(val);
+                case DOUBLE:
+                    return Double.valueOf(val);
+                case STRING:
+                    return val;
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Initializes this instance with {@link QueryExecutor} created from the given {@code properties}.
      * Some of these properties are jdbcDriverClass, jdbcUrl, queryTimeoutInSecs.
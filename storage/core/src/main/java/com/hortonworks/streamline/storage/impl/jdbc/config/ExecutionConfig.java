@@ -27,14 +27,30 @@ import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.Prepa
  * This class should be immutable as the configuration should not change after passed in to the configurable objects
  **/
 public class ExecutionConfig {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final int queryTimeoutSecs;
+    private final int fetchSize;
 
     // Replace constructors with Builder pattern as more configuration options become available
     public ExecutionConfig(int queryTimeoutSecs) {
+        this(queryTimeoutSecs, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param fetchSize number of rows fetched from the database at once by the queries that stream their results.
+     *                  MySQL Connector/J honours it only with the {@code useCursorFetch=true} connection property
+     */
+    public ExecutionConfig(int queryTimeoutSecs, int fetchSize) {
         this.queryTimeoutSecs = queryTimeoutSecs;
+        this.fetchSize = fetchSize;
     }
 
     public int getQueryTimeoutSecs() {
         return queryTimeoutSecs;
     }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
 }
@@ -17,20 +17,22 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.factory;
 
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
 import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
 import com.hortonworks.streamline.storage.impl.jdbc.connection.HikariCPConnectionBuilder;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.query.MySqlIdBlockQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.query.MySqlInsertUpdateDuplicate;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory.AbstractQueryExecutor;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlInsertQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlQuery;
-import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.PreparedStatementBuilder;
 import com.hortonworks.streamline.storage.impl.jdbc.util.Util;
 import com.zaxxer.hikari.HikariConfig;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -56,11 +58,10 @@ public class MySqlExecutor extends AbstractQueryExecutor {
     /**
      * @param config Object that contains arbitrary configuration that may be needed for any of the steps of the query execution process
      * @param connectionBuilder Object that establishes the connection to the database
-     * @param cacheBuilder Guava cache configuration. The maximum number of entries in cache (open connections)
-     *                     must not exceed the maximum number of open database connections allowed
+     * @param statementCacheSize Maximum number of prepared statements cached per database connection
      */
-    public MySqlExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, CacheBuilder<SqlQuery, PreparedStatementBuilder> cacheBuilder) {
-        super(config, connectionBuilder, cacheBuilder);
+    public MySqlExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, int statementCacheSize) {
+        super(config, connectionBuilder, statementCacheSize);
     }
 
     // ============= Public API methods =============
@@ -75,12 +76,37 @@ public class MySqlExecutor extends AbstractQueryExecutor {
         insertOrUpdateWithUniqueId(storable, new MySqlInsertUpdateDuplicate(storable));
     }
 
+    @Override
+    public void insertOrUpdateAll(Collection<? extends Storable> storables) {
+        final List<Storable> withoutId = new ArrayList<>();
+        final List<SqlQuery> withoutIdQueries = new ArrayList<>();
+        final List<SqlQuery> withIdQueries = new ArrayList<>();
+        for (Storable storable : storables) {
+            if (hasId(storable)) {
+                withIdQueries.add(new MySqlInsertUpdateDuplicate(storable));
+            } else {
+                withoutId.add(storable);
+                withoutIdQueries.add(new MySqlInsertUpdateDuplicate(storable));
+            }
+        }
+        executeBatchUpdate(withIdQueries, false);
+        final List<Long> ids = executeBatchUpdate(withoutIdQueries, true);
+        for (int i = 0; i < withoutId.size(); i++) {
+            withoutId.get(i).setId(ids.get(i));
+        }
+    }
+
     @Override
     public Long nextId(String namespace) {
         // We intentionally return null. Please refer the class javadoc for more details.
         return null;
     }
 
+    @Override
+    public Long reserveIds(String namespace, int count) {
+        return new MySqlIdBlockQuery(namespace, count, connectionBuilder, queryTimeoutSecs).reserve();
+    }
+
     public static MySqlExecutor createExecutor(Map<String, Object> jdbcProps) {
         Util.validateJDBCProperties(jdbcProps, Lists.newArrayList("dataSourceClassName", "dataSource.url"));
 
@@ -98,13 +124,37 @@ public class MySqlExecutor extends AbstractQueryExecutor {
             }
         }
 
+        int statementCacheSize = 0;
+        if(jdbcProps.containsKey("cacheSize")) {
+            statementCacheSize = (Integer) jdbcProps.get("cacheSize");
+        }
+
+        int fetchSize = ExecutionConfig.DEFAULT_FETCH_SIZE;
+        if(jdbcProps.containsKey("fetchSize")) {
+            fetchSize = (Integer) jdbcProps.get("fetchSize");
+            if(fetchSize < 0) {
+                throw new IllegalArgumentException("fetchSize property can not be negative");
+            }
+        }
+
         Properties properties = new Properties();
         properties.putAll(jdbcProps);
+        // not a HikariCP property
+        properties.remove("cacheSize");
+        properties.remove("fetchSize");
         HikariConfig hikariConfig = new HikariConfig(properties);
 
         HikariCPConnectionBuilder connectionBuilder = new HikariCPConnectionBuilder(hikariConfig);
-        ExecutionConfig executionConfig = new ExecutionConfig(queryTimeOutInSecs);
-        return new MySqlExecutor(executionConfig, connectionBuilder);
+        ExecutionConfig executionConfig = new ExecutionConfig(queryTimeOutInSecs, fetchSize);
+        return new MySqlExecutor(executionConfig, connectionBuilder, statementCacheSize);
+    }
+
+    private boolean hasId(Storable storable) {
+        try {
+            return storable.getId() != null;
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
     }
 
     private void insertOrUpdateWithUniqueId(final Storable storable, final SqlQuery sqlQuery) {
@@ -0,0 +1,130 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.query;
+
+import com.hortonworks.streamline.storage.exception.StorageException;
+import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.PreparedStatementBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Query to reserve a block of ids of a namespace in MySQL.
+ * <p>
+ * The next free id of each namespace is kept in the {@code id_blocks} table, a reservation is the update of that row.
+ * The reservations of a namespace are serialized by a MySQL named lock.
+ * </p>
+ * <p>
+ * The first reservation of a namespace seeds its row above the ids issued before, from both {@code MAX(id)} of the
+ * table and its auto increment counter. The counter covers the ids which are not in the table any more, e.g. the ids
+ * of {@code topology_components} were taken from its counter by inserting and deleting a row, and are used by the
+ * source, processor and sink tables. The statistics of the table are refreshed first, since MySQL 8 caches the
+ * {@code AUTO_INCREMENT} of information_schema.
+ * </p>
+ */
+public class MySqlIdBlockQuery {
+    private static final Logger log = LoggerFactory.getLogger(MySqlIdBlockQuery.class);
+    private static final String ID_BLOCKS_TABLE = "id_blocks";
+    private static final int LOCK_TIMEOUT_SECS = 10;
+
+    private final String namespace;
+    private final int count;
+    private final ConnectionBuilder connectionBuilder;
+    private final ExecutionConfig config;
+
+    public MySqlIdBlockQuery(String namespace, int count, ConnectionBuilder connectionBuilder, int queryTimeoutSecs) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        this.namespace = namespace;
+        this.count = count;
+        this.connectionBuilder = connectionBuilder;
+        this.config = new ExecutionConfig(queryTimeoutSecs);
+    }
+
+    /**
+     * @return the first id of the reserved block
+     */
+    public Long reserve() {
+        final String lockName = "'" + ID_BLOCKS_TABLE + "." + namespace + "'";
+        try (Connection connection = connectionBuilder.getConnection()) {
+            if (queryForLong(connection, "SELECT GET_LOCK(" + lockName + ", " + LOCK_TIMEOUT_SECS + ")") != 1) {
+                throw new StorageException("Timed out waiting for the id block lock of [" + namespace + "]");
+            }
+            try {
+                final long firstId = reserve(connection);
+                log.debug("Reserved ids [{}, {}) for [{}]", firstId, firstId + count, namespace);
+                return firstId;
+            } finally {
+                queryForLong(connection, "SELECT RELEASE_LOCK(" + lockName + ")");
+            }
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    // called with the lock of the namespace held
+    private long reserve(Connection connection) throws SQLException {
+        long firstId = queryForLong(connection, "SELECT COALESCE(MAX(nextId), 0) FROM " + ID_BLOCKS_TABLE
+                + " WHERE namespace = '" + namespace + "'");
+        if (firstId == 0) {
+            firstId = getFirstFreeId(connection);
+            log.info("Seeding the id blocks of [{}] from id [{}]", namespace, firstId);
+        }
+        executeUpdate(connection, "INSERT INTO " + ID_BLOCKS_TABLE + " (namespace, nextId) VALUES ('" + namespace + "', "
+                + (firstId + count) + ") ON DUPLICATE KEY UPDATE nextId = VALUES(nextId)");
+        return firstId;
+    }
+
+    private long getFirstFreeId(Connection connection) throws SQLException {
+        execute(connection, "ANALYZE TABLE " + namespace);
+        final long autoIncrement = queryForLong(connection, "SELECT COALESCE(MAX(AUTO_INCREMENT), 1) FROM information_schema.TABLES"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '" + namespace + "'");
+        return Math.max(autoIncrement, queryForLong(connection, "SELECT COALESCE(MAX(id), 0) FROM " + namespace) + 1);
+    }
+
+    private long queryForLong(Connection connection, String sql) throws SQLException {
+        final MySqlQuery query = new MySqlQuery(sql);
+        try (PreparedStatement statement = PreparedStatementBuilder.of(connection, config, query).getPreparedStatement(query);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new StorageException("No result for [" + sql + "]");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        final MySqlQuery query = new MySqlQuery(sql);
+        try (PreparedStatement statement = PreparedStatementBuilder.of(connection, config, query).getPreparedStatement(query)) {
+            statement.execute();
+        }
+    }
+
+    private void executeUpdate(Connection connection, String sql) throws SQLException {
+        final MySqlQuery query = new MySqlQuery(sql);
+        try (PreparedStatement statement = PreparedStatementBuilder.of(connection, config, query).getPreparedStatement(query)) {
+            statement.executeUpdate();
+        }
+    }
+}
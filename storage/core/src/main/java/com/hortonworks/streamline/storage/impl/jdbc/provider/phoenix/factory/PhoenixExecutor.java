@@ -15,25 +15,29 @@
  **/
 package com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.factory;
 
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
 import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
 import com.hortonworks.streamline.storage.impl.jdbc.connection.HikariCPConnectionBuilder;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixDeleteQuery;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixSelectKeysQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixSelectQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixSequenceIdQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixUpsertQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory.AbstractQueryExecutor;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlQuery;
-import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.PreparedStatementBuilder;
 import com.hortonworks.streamline.storage.impl.jdbc.util.Util;
 import com.zaxxer.hikari.HikariConfig;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * SQL query executor for Phoenix.
@@ -50,8 +54,8 @@ public class PhoenixExecutor extends AbstractQueryExecutor {
         super(config, connectionBuilder);
     }
 
-    public PhoenixExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, CacheBuilder<SqlQuery, PreparedStatementBuilder> cacheBuilder) {
-        super(config, connectionBuilder, cacheBuilder);
+    public PhoenixExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, int statementCacheSize) {
+        super(config, connectionBuilder, statementCacheSize);
     }
 
     @Override
@@ -61,19 +65,20 @@ public class PhoenixExecutor extends AbstractQueryExecutor {
 
     @Override
     public void insertOrUpdate(Storable storable) {
-        try {
-            Long id = storable.getId();
-            if (id == null) {
-                id = nextId(storable.getNameSpace());
-                storable.setId(id);
-            }
-        } catch (UnsupportedOperationException e) {
-            // no-op
-        }
-
+        setIdIfAbsent(storable);
         executeUpdate(new PhoenixUpsertQuery(storable));
     }
 
+    @Override
+    public void insertOrUpdateAll(Collection<? extends Storable> storables) {
+        List<SqlQuery> sqlQueries = new ArrayList<>(storables.size());
+        for (Storable storable : storables) {
+            setIdIfAbsent(storable);
+            sqlQueries.add(new PhoenixUpsertQuery(storable));
+        }
+        executeBatchUpdate(sqlQueries, false);
+    }
+
     @Override
     public <T extends Storable> Collection<T> select(String namespace) {
         return executeQuery(namespace, new PhoenixSelectQuery(namespace));
@@ -84,17 +89,74 @@ public class PhoenixExecutor extends AbstractQueryExecutor {
         return executeQuery(storableKey.getNameSpace(), new PhoenixSelectQuery(storableKey));
     }
 
+    @Override
+    public <T extends Storable> Collection<T> select(String namespace, List<OrderByField> orderByFields, long offset, int limit) {
+        return skip(executeQuery(namespace, new PhoenixSelectQuery(namespace, orderByFields, offset, limit)), offset);
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> select(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit) {
+        return skip(executeQuery(storableKey.getNameSpace(), new PhoenixSelectQuery(storableKey, orderByFields, offset, limit)), offset);
+    }
+
+    // PhoenixSelectQuery selects the rows before the page too, as Phoenix has no OFFSET
+    private static <T> Collection<T> skip(Collection<T> rows, long offset) {
+        return offset == 0 ? rows : rows.stream().skip(offset).collect(Collectors.toList());
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(String namespace) {
+        return executeStreamingQuery(namespace, new PhoenixSelectQuery(namespace));
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(StorableKey storableKey) {
+        return executeStreamingQuery(storableKey.getNameSpace(), new PhoenixSelectQuery(storableKey));
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> selectAll(Collection<StorableKey> storableKeys) {
+        return executeQuery(storableKeys, PhoenixSelectKeysQuery::new);
+    }
+
     @Override
     public void delete(StorableKey storableKey) {
         executeUpdate(new PhoenixDeleteQuery(storableKey));
     }
 
+    @Override
+    public void deleteAll(Collection<StorableKey> storableKeys) {
+        List<SqlQuery> sqlQueries = new ArrayList<>(storableKeys.size());
+        for (StorableKey storableKey : storableKeys) {
+            sqlQueries.add(new PhoenixDeleteQuery(storableKey));
+        }
+        executeBatchUpdate(sqlQueries, false);
+    }
+
     @Override
     public Long nextId(String namespace) {
         PhoenixSequenceIdQuery phoenixSequenceIdQuery = new PhoenixSequenceIdQuery(namespace, connectionBuilder, queryTimeoutSecs);
         return phoenixSequenceIdQuery.getNextID();
     }
 
+    @Override
+    public Long reserveIds(String namespace, int count) {
+        PhoenixSequenceIdQuery phoenixSequenceIdQuery = new PhoenixSequenceIdQuery(namespace, connectionBuilder, queryTimeoutSecs);
+        return phoenixSequenceIdQuery.getNextIDs(count);
+    }
+
+    private void setIdIfAbsent(Storable storable) {
+        try {
+            Long id = storable.getId();
+            if (id == null) {
+                id = nextId(storable.getNameSpace());
+                storable.setId(id);
+            }
+        } catch (UnsupportedOperationException e) {
+            // no-op
+        }
+    }
+
     public static PhoenixExecutor createExecutor(Map<String, Object> jdbcProps) throws Exception {
         Util.validateJDBCProperties(jdbcProps, Lists.newArrayList("jdbcDriverClass", "jdbcUrl"));
 
@@ -117,12 +179,20 @@ public class PhoenixExecutor extends AbstractQueryExecutor {
         hikariConfig.setJdbcUrl(jdbcUrl);
 
         final HikariCPConnectionBuilder connectionBuilder = new HikariCPConnectionBuilder(hikariConfig);
-        final ExecutionConfig executionConfig = new ExecutionConfig(queryTimeOutInSecs);
-        CacheBuilder cacheBuilder = null;
+        int statementCacheSize = 0;
         if(jdbcProps.containsKey("cacheSize")) {
-            cacheBuilder = CacheBuilder.newBuilder().maximumSize((Integer)jdbcProps.get("cacheSize"));
+            statementCacheSize = (Integer) jdbcProps.get("cacheSize");
+        }
+
+        int fetchSize = ExecutionConfig.DEFAULT_FETCH_SIZE;
+        if(jdbcProps.containsKey("fetchSize")) {
+            fetchSize = (Integer) jdbcProps.get("fetchSize");
+            if(fetchSize < 0) {
+                throw new IllegalArgumentException("fetchSize property can not be negative");
+            }
         }
-        return new PhoenixExecutor(executionConfig, connectionBuilder, cacheBuilder);
+        final ExecutionConfig executionConfig = new ExecutionConfig(queryTimeOutInSecs, fetchSize);
+        return new PhoenixExecutor(executionConfig, connectionBuilder, statementCacheSize);
     }
 
 }
@@ -0,0 +1,38 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query;
+
+import com.hortonworks.streamline.storage.PrimaryKey;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.AbstractStorableKeysQuery;
+
+import java.util.Collection;
+
+/**
+ *
+ */
+public class PhoenixSelectKeysQuery extends AbstractStorableKeysQuery {
+
+    public PhoenixSelectKeysQuery(String nameSpace, Collection<PrimaryKey> primaryKeys) {
+        super(nameSpace, primaryKeys);
+    }
+
+    @Override
+    protected void setParameterizedSql() {
+        sql = "SELECT * FROM " + tableName + " WHERE " + getInClause("\"%s\"");
+        log.debug(sql);
+    }
+}
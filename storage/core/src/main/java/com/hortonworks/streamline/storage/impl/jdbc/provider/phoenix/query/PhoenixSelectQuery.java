@@ -15,11 +15,16 @@
  **/
 package com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.AbstractStorableKeyQuery;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
- *
+ * Phoenix 4.7 has no OFFSET clause, a page starting at {@code offset} selects the first {@code offset + limit} rows
+ * and the executor skips the first {@code offset} of them.
  */
 public class PhoenixSelectQuery extends AbstractStorableKeyQuery {
 
@@ -31,6 +36,14 @@ public class PhoenixSelectQuery extends AbstractStorableKeyQuery {
         super(storableKey);
     }
 
+    public PhoenixSelectQuery(String nameSpace, List<OrderByField> orderByFields, long offset, int limit) {
+        super(nameSpace, orderByFields, offset, limit);
+    }
+
+    public PhoenixSelectQuery(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit) {
+        super(storableKey, orderByFields, offset, limit);
+    }
+
     @Override
     protected void setParameterizedSql() {
         sql = "SELECT * FROM " + tableName;
@@ -38,6 +51,17 @@ public class PhoenixSelectQuery extends AbstractStorableKeyQuery {
         if (columns != null) {
             sql += " WHERE " + join(getColumnNames(columns, "\"%s\" = ?"), " AND ");
         }
+        sql += getOrderByClause("\"%s\"");
+        if (limit > 0) {
+            sql += " LIMIT ?";
+        }
         log.debug(sql);
     }
+
+    @Override
+    public List<Object> getPageParameters() {
+        return limit > 0
+                ? Collections.<Object>singletonList((int) Math.min(offset, Integer.MAX_VALUE - limit) + limit)
+                : Collections.emptyList();
+    }
 }
@@ -48,6 +48,19 @@ public class PhoenixSequenceIdQuery {
     }
 
     public Long getNextID() {
+        return getNextIDs(1);
+    }
+
+    /**
+     * Allocates a block of {@code count} values of the sequence of the namespace at once, with the bulk allocation
+     * of phoenix sequences ({@code NEXT <n> VALUES FOR}).
+     *
+     * @return the first value of the block
+     */
+    public Long getNextIDs(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
         // this is kind of work around as there is no direct support in phoenix to get next sequence-id without using any tables,
         // it involves 3 roundtrips to phoenix/hbase (inefficient but there is a limitation from phoenix!).
         // SEQUENCE can be used for such columns in UPSERT queries directly but to get a simple sequence-id involves all this.
@@ -56,7 +69,7 @@ public class PhoenixSequenceIdQuery {
         // delete that entry from the table.
         long nextId = 0;
         UUID uuid = UUID.randomUUID();
-        PhoenixSqlQuery updateQuery = new PhoenixSqlQuery("UPSERT INTO " + SEQUENCE_TABLE + "(\""+ID+"\", \"" + namespace + "\") VALUES('" + uuid + "', NEXT VALUE FOR " + namespace + "_sequence)");
+        PhoenixSqlQuery updateQuery = new PhoenixSqlQuery("UPSERT INTO " + SEQUENCE_TABLE + "(\""+ID+"\", \"" + namespace + "\") VALUES('" + uuid + "', " + nextValues(count) + " FOR " + namespace + "_sequence)");
         PhoenixSqlQuery selectQuery = new PhoenixSqlQuery("SELECT \"" + namespace + "\" FROM " + SEQUENCE_TABLE + " WHERE \"" + ID + "\"='" + uuid + "'");
         PhoenixSqlQuery deleteQuery = new PhoenixSqlQuery("DELETE FROM " + SEQUENCE_TABLE + " WHERE \"id\"='" + uuid + "'");
 
@@ -70,7 +83,7 @@ public class PhoenixSequenceIdQuery {
             } else {
                 throw new RuntimeException("No sequence-id created for the current sequence of [" + namespace + "]");
             }
-            log.debug("Generated sequence id [{}] for [{}]", nextId, namespace);
+            log.debug("Generated sequence id [{}] of [{}] ids for [{}]", nextId, count, namespace);
             int deleteResult = PreparedStatementBuilder.of(connection, new ExecutionConfig(queryTimeoutSecs), deleteQuery).getPreparedStatement(deleteQuery).executeUpdate();
             if (deleteResult == 0) {
                 log.error("Could not delete entry in " + SEQUENCE_TABLE + " for value [{}]", namespace, uuid);
@@ -85,6 +98,10 @@ public class PhoenixSequenceIdQuery {
         return nextId;
     }
 
+    private static String nextValues(int count) {
+        return count == 1 ? "NEXT VALUE" : "NEXT " + count + " VALUES";
+    }
+
     static class PhoenixSqlQuery extends AbstractSqlQuery {
 
         public PhoenixSqlQuery(String sql) {
@@ -15,11 +15,14 @@
  **/
 package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Lists;
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.SimpleCacheStats;
+import com.hortonworks.streamline.common.OrderByField;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.PrimaryKey;
 import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessor;
 import com.hortonworks.streamline.storage.StorableFactory;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.exception.StorageException;
@@ -28,8 +31,10 @@ import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlDeleteQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlInsertQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlQuery;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlSelectKeysQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlSelectQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.PreparedStatementBuilder;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement.StatementCache;
 import com.hortonworks.streamline.storage.impl.jdbc.util.Util;
 
 import java.sql.Connection;
@@ -45,33 +50,53 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
  */
 public abstract class AbstractQueryExecutor implements QueryExecutor {
+    // statements sent to the database at once by executeBatchUpdate
+    private static final int BATCH_SIZE = 500;
+    // keys looked up by each query of selectAll
+    private static final int MAX_KEYS_PER_QUERY = 500;
 
     protected final ExecutionConfig config;
     protected final int queryTimeoutSecs;
     protected final ConnectionBuilder connectionBuilder;
     protected final List<Connection> activeConnections;
 
-    private final Cache<SqlQuery, PreparedStatementBuilder> cache;
+    private final StatementCache statementCache;
+    private final LongAdder connectionRequests = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final AtomicLong maxConnectionWaitNanos = new AtomicLong();
     private StorableFactory storableFactory;
 
     public AbstractQueryExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder) {
-        this(config, connectionBuilder, null);
+        this(config, connectionBuilder, 0);
     }
 
-    public AbstractQueryExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, CacheBuilder<SqlQuery, PreparedStatementBuilder> cacheBuilder) {
+    /**
+     * @param statementCacheSize maximum number of prepared statements cached per database connection, 0 disables
+     *                           the cache
+     */
+    public AbstractQueryExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder, int statementCacheSize) {
         this.connectionBuilder = connectionBuilder;
         this.config = config;
-        cache = cacheBuilder != null ? buildCache(cacheBuilder) : null;
+        statementCache = statementCacheSize > 0 ? new StatementCache(config, statementCacheSize) : null;
         this.queryTimeoutSecs = config.getQueryTimeoutSecs();
         activeConnections = Collections.synchronizedList(new ArrayList<Connection>());
     }
@@ -80,11 +105,22 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
     public abstract void insertOrUpdate(Storable storable);
 
+    public abstract void insertOrUpdateAll(Collection<? extends Storable> storables);
+
     @Override
     public void delete(StorableKey storableKey) {
         executeUpdate(new SqlDeleteQuery(storableKey));
     }
 
+    @Override
+    public void deleteAll(Collection<StorableKey> storableKeys) {
+        List<SqlQuery> sqlQueries = new ArrayList<>(storableKeys.size());
+        for (StorableKey storableKey : storableKeys) {
+            sqlQueries.add(new SqlDeleteQuery(storableKey));
+        }
+        executeBatchUpdate(sqlQueries, false);
+    }
+
     @Override
     public <T extends Storable> Collection<T> select(final String namespace) {
         return executeQuery(namespace, new SqlSelectQuery(namespace));
@@ -95,15 +131,44 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         return executeQuery(storableKey.getNameSpace(), new SqlSelectQuery(storableKey));
     }
 
+    @Override
+    public <T extends Storable> Collection<T> select(String namespace, List<OrderByField> orderByFields, long offset, int limit) {
+        return executeQuery(namespace, new SqlSelectQuery(namespace, orderByFields, offset, limit));
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> select(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit) {
+        return executeQuery(storableKey.getNameSpace(), new SqlSelectQuery(storableKey, orderByFields, offset, limit));
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(String namespace) {
+        return executeStreamingQuery(namespace, new SqlSelectQuery(namespace));
+    }
+
+    @Override
+    public <T extends Storable> Stream<T> stream(StorableKey storableKey) {
+        return executeStreamingQuery(storableKey.getNameSpace(), new SqlSelectQuery(storableKey));
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> selectAll(Collection<StorableKey> storableKeys) {
+        return executeQuery(storableKeys, SqlSelectKeysQuery::new);
+    }
+
     public abstract Long nextId(String namespace);
 
+    public abstract Long reserveIds(String namespace, int count);
+
     public ExecutionConfig getConfig() {
         return config;
     }
 
     @Override
     public Connection getConnection() {
+        final long start = System.nanoTime();
         Connection connection = connectionBuilder.getConnection();
+        recordConnectionWait(System.nanoTime() - start);
         log.debug("Opened connection {}", connection);
         activeConnections.add(connection);
         return connection;
@@ -123,14 +188,47 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
     public void cleanup() {
         if (isCacheEnabled()) {
-            cache.invalidateAll();
-        } else {
-            closeAllOpenConnections();
+            statementCache.clear();
         }
+        closeAllOpenConnections();
     }
 
     private boolean isCacheEnabled() {
-        return cache != null;
+        return statementCache != null;
+    }
+
+    private void recordConnectionWait(long nanos) {
+        connectionRequests.increment();
+        connectionWaitNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxConnectionWaitNanos.get()) && !maxConnectionWaitNanos.compareAndSet(max, nanos)) {
+            // retry
+        }
+    }
+
+    /**
+     * @return hits and misses of the prepared statement cache, all zero if the cache is disabled
+     */
+    public CacheStats getStatementCacheStats() {
+        return isCacheEnabled() ? statementCache.stats() : new SimpleCacheStats(0, 0, 0);
+    }
+
+    /**
+     * @return number of connections borrowed from the connection builder
+     */
+    public long getConnectionRequestCount() {
+        return connectionRequests.sum();
+    }
+
+    /**
+     * @return total time spent waiting for connections from the connection builder
+     */
+    public long getConnectionWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(connectionWaitNanos.sum());
+    }
+
+    public long getMaxConnectionWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxConnectionWaitNanos.get());
     }
 
 
@@ -149,21 +247,6 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         }
     }
 
-    private Cache<SqlQuery, PreparedStatementBuilder> buildCache(CacheBuilder<SqlQuery, PreparedStatementBuilder> cacheBuilder) {
-        return cacheBuilder.removalListener(new RemovalListener<SqlQuery, PreparedStatementBuilder>() {
-            /** Closes and removes the database connection when the entry is removed from cache */
-            @Override
-            public void onRemoval(RemovalNotification<SqlQuery, PreparedStatementBuilder> notification) {
-                final PreparedStatementBuilder val = notification.getValue();
-                log.debug("Removing entry from cache and closing connection [key:{}, val: {}]", notification.getKey(), val);
-                log.debug("Cache size: {}", cache.size());
-                if (val != null) {
-                    closeConnection(val.getConnection());
-                }
-            }
-        }).build();
-    }
-
     @Override
     public void setStorableFactory(StorableFactory storableFactory) {
         if(this.storableFactory != null) {
@@ -176,6 +259,19 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
     // =============== Private helper Methods ===============
 
+    /**
+     * @return the builder of the statement for the query on the connection, from the statement cache if enabled
+     */
+    protected PreparedStatementBuilder getPreparedStatementBuilder(Connection connection, SqlQuery sqlQuery,
+                                                                   boolean returnGeneratedKeys) throws SQLException {
+        if (isCacheEnabled()) {
+            return statementCache.get(connection, sqlQuery, returnGeneratedKeys);
+        }
+        return returnGeneratedKeys
+                ? PreparedStatementBuilder.supportReturnGeneratedKeys(connection, config, sqlQuery)
+                : PreparedStatementBuilder.of(connection, config, sqlQuery);
+    }
+
     protected void executeUpdate(SqlQuery sqlBuilder) {
         new QueryExecution(sqlBuilder).executeUpdate();
     }
@@ -188,6 +284,121 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         return new QueryExecution(sqlBuilder).executeQuery(namespace);
     }
 
+    /**
+     * Executes the query with the fetch size of the config and maps the rows to storables as the stream is consumed.
+     * The connection and the result set are released when the stream is closed.
+     */
+    protected <T extends Storable> Stream<T> executeStreamingQuery(String namespace, SqlQuery sqlBuilder) {
+        return new QueryExecution(sqlBuilder).executeStreamingQuery(namespace);
+    }
+
+    /**
+     * Looks up the keys with one query per namespace and key columns, or more for many keys.
+     *
+     * @param queryFactory creates the query for the given namespace and keys
+     */
+    protected <T extends Storable> Collection<T> executeQuery(Collection<StorableKey> storableKeys,
+                                                              BiFunction<String, List<PrimaryKey>, SqlQuery> queryFactory) {
+        final Map<String, Map<Set<Schema.Field>, List<PrimaryKey>>> keysByColumns = new LinkedHashMap<>();
+        for (StorableKey storableKey : storableKeys) {
+            Map<Set<Schema.Field>, List<PrimaryKey>> namespaceKeys = keysByColumns.get(storableKey.getNameSpace());
+            if (namespaceKeys == null) {
+                namespaceKeys = new LinkedHashMap<>();
+                keysByColumns.put(storableKey.getNameSpace(), namespaceKeys);
+            }
+            final PrimaryKey primaryKey = storableKey.getPrimaryKey();
+            List<PrimaryKey> primaryKeys = namespaceKeys.get(primaryKey.getFieldsToVal().keySet());
+            if (primaryKeys == null) {
+                primaryKeys = new ArrayList<>();
+                namespaceKeys.put(primaryKey.getFieldsToVal().keySet(), primaryKeys);
+            }
+            primaryKeys.add(primaryKey);
+        }
+
+        final Collection<T> result = new ArrayList<>();
+        for (Map.Entry<String, Map<Set<Schema.Field>, List<PrimaryKey>>> namespaceKeys : keysByColumns.entrySet()) {
+            for (List<PrimaryKey> primaryKeys : namespaceKeys.getValue().values()) {
+                for (List<PrimaryKey> partition : Lists.partition(primaryKeys, MAX_KEYS_PER_QUERY)) {
+                    result.addAll(this.<T>executeQuery(namespaceKeys.getKey(),
+                            queryFactory.apply(namespaceKeys.getKey(), partition)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes the updates in a single transaction, as one JDBC batch per distinct statement.
+     *
+     * @param returnGeneratedKeys whether to return the key generated by each update
+     * @return the generated keys, in the order of the updates, if {@code returnGeneratedKeys} is set
+     */
+    protected List<Long> executeBatchUpdate(List<? extends SqlQuery> sqlQueries, boolean returnGeneratedKeys) {
+        final List<Long> generatedKeys = new ArrayList<>();
+        if (sqlQueries.isEmpty()) {
+            return generatedKeys;
+        }
+        final Map<String, List<SqlQuery>> queriesBySql = new LinkedHashMap<>();
+        for (SqlQuery sqlQuery : sqlQueries) {
+            List<SqlQuery> queries = queriesBySql.get(sqlQuery.getParametrizedSql());
+            if (queries == null) {
+                queries = new ArrayList<>();
+                queriesBySql.put(sqlQuery.getParametrizedSql(), queries);
+            }
+            queries.add(sqlQuery);
+        }
+
+        final Map<SqlQuery, Long> keysByQuery = new HashMap<>();
+        final Connection connection = getConnection();
+        try {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (List<SqlQuery> queries : queriesBySql.values()) {
+                    final PreparedStatementBuilder preparedStatementBuilder =
+                            getPreparedStatementBuilder(connection, queries.get(0), returnGeneratedKeys);
+                    // a cached statement may hold the batch of a failed execution
+                    preparedStatementBuilder.clearBatch();
+                    for (List<SqlQuery> batch : Lists.partition(queries, BATCH_SIZE)) {
+                        PreparedStatement preparedStatement = null;
+                        for (SqlQuery sqlQuery : batch) {
+                            preparedStatement = preparedStatementBuilder.getPreparedStatement(sqlQuery);
+                            preparedStatement.addBatch();
+                        }
+                        preparedStatement.executeBatch();
+                        if (returnGeneratedKeys) {
+                            try (ResultSet resultSet = preparedStatement.getGeneratedKeys()) {
+                                for (SqlQuery sqlQuery : batch) {
+                                    if (!resultSet.next()) {
+                                        throw new StorageException("No key generated for " + sqlQuery);
+                                    }
+                                    keysByQuery.put(sqlQuery, resultSet.getLong(1));
+                                }
+                            }
+                        }
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            closeConnection(connection);
+        }
+        if (returnGeneratedKeys) {
+            for (SqlQuery sqlQuery : sqlQueries) {
+                generatedKeys.add(keysByQuery.get(sqlQuery));
+            }
+        }
+        return generatedKeys;
+    }
+
+    // borrows a connection from the connection builder for every execution
     protected class QueryExecution {
         private final SqlQuery sqlBuilder;
         private Connection connection;
@@ -198,50 +409,81 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
         <T extends Storable> Collection<T> executeQuery(String namespace) {
             Collection<T> result;
-            try {
-                ResultSet resultSet = getPreparedStatement().executeQuery();
+            try (ResultSet resultSet = getPreparedStatement(false).executeQuery()) {
                 result = getStorablesFromResultSet(resultSet, namespace);
-            } catch (SQLException | ExecutionException e) {
+            } catch (SQLException e) {
                 throw new StorageException(e);
             } finally {
-                // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
-                    closeConn();
-                }
+                closeConn();
             }
             return result;
         }
 
-        void executeUpdate() {
+        <T extends Storable> Stream<T> executeStreamingQuery(String namespace) {
+            final ResultSet resultSet;
             try {
-                getPreparedStatement().executeUpdate();
-            } catch (SQLException | ExecutionException e) {
+                final PreparedStatement preparedStatement = getPreparedStatement(false);
+                preparedStatement.setFetchSize(config.getFetchSize());
+                resultSet = preparedStatement.executeQuery();
+            } catch (SQLException e) {
+                closeConn();
                 throw new StorageException(e);
-            } finally {
-                // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
+            } catch (RuntimeException e) {
+                closeConn();
+                throw e;
+            }
+            final StorableRowMapper<T> rowMapper = new StorableRowMapper<>(namespace);
+            final Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(rowMapper.map(resultSet));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new StorageException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    resultSet.close();
+                } catch (SQLException e) {
+                    log.error("Failed to close result set of query [{}]", sqlBuilder, e);
+                } finally {
                     closeConn();
                 }
+            });
+        }
+
+        void executeUpdate() {
+            try {
+                getPreparedStatement(false).executeUpdate();
+            } catch (SQLException e) {
+                throw new StorageException(e);
+            } finally {
+                closeConn();
             }
         }
 
         Long executeUpdateWithReturningGeneratedKey() {
             try {
-                PreparedStatement pstmt = getPreparedStatementWithSetReturningGeneratedKey();
+                PreparedStatement pstmt = getPreparedStatement(true);
                 pstmt.executeUpdate();
-                ResultSet generatedKeys = pstmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    return generatedKeys.getLong(1);
-                } else {
-                    return null;
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        return generatedKeys.getLong(1);
+                    } else {
+                        return null;
+                    }
                 }
-            } catch (SQLException | ExecutionException e) {
+            } catch (SQLException e) {
                 throw new StorageException(e);
             } finally {
-                // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
-                    closeConn();
-                }
+                closeConn();
             }
 
         }
@@ -252,96 +494,22 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
         // ====== private helper methods ======
 
-        private PreparedStatement getPreparedStatement() throws ExecutionException, SQLException {
-            PreparedStatementBuilder preparedStatementBuilder = null;
-
-            if (isCacheEnabled()) {
-                preparedStatementBuilder = cache.get(sqlBuilder, new PreparedStatementBuilderCallable(sqlBuilder, false));
-            } else {
-                connection = getConnection();
-                preparedStatementBuilder = PreparedStatementBuilder.of(connection, config, sqlBuilder);
-            }
-            return preparedStatementBuilder.getPreparedStatement(sqlBuilder);
-        }
-
-        private PreparedStatement getPreparedStatementWithSetReturningGeneratedKey() throws ExecutionException, SQLException {
-            PreparedStatementBuilder preparedStatementBuilder = null;
-
-            if (isCacheEnabled()) {
-                preparedStatementBuilder = cache.get(sqlBuilder, new PreparedStatementBuilderCallable(sqlBuilder, true));
-            } else {
-                connection = getConnection();
-                preparedStatementBuilder = PreparedStatementBuilder.supportReturnGeneratedKeys(connection, config, sqlBuilder);
-            }
-            return preparedStatementBuilder.getPreparedStatement(sqlBuilder);
-        }
-
-        /** This callable is instantiated and called the first time every key:val entry is inserted into the cache */
-        private class PreparedStatementBuilderCallable implements Callable<PreparedStatementBuilder> {
-            private final SqlQuery sqlBuilder;
-            private final boolean returnGeneratedKeys;
-
-            private PreparedStatementBuilderCallable(SqlQuery sqlBuilder, boolean returnGeneratedKeys) {
-                this.sqlBuilder = sqlBuilder;
-                this.returnGeneratedKeys = returnGeneratedKeys;
-            }
-
-            public PreparedStatementBuilderCallable of(SqlQuery sqlBuilder) {
-                return new PreparedStatementBuilderCallable(sqlBuilder, false);
-            }
-
-            public PreparedStatementBuilderCallable supportReturnGeneratedKeys(SqlQuery sqlBuilder) {
-                return new PreparedStatementBuilderCallable(sqlBuilder, true);
-            }
-
-            @Override
-            public PreparedStatementBuilder call() throws Exception {
-                // opens a new connection which remains open for as long as this entry is in the cache
-                final PreparedStatementBuilder preparedStatementBuilder;
-                if (returnGeneratedKeys) {
-                    preparedStatementBuilder = PreparedStatementBuilder.supportReturnGeneratedKeys(getConnection(), config, sqlBuilder);
-                } else {
-                    preparedStatementBuilder = PreparedStatementBuilder.of(getConnection(), config, sqlBuilder);
-                }
-                log.debug("Loading cache with [key: {}, val: {}]", sqlBuilder, preparedStatementBuilder);
-                return preparedStatementBuilder;
-            }
+        private PreparedStatement getPreparedStatement(boolean returnGeneratedKeys) throws SQLException {
+            connection = getConnection();
+            return getPreparedStatementBuilder(connection, sqlBuilder, returnGeneratedKeys).getPreparedStatement(sqlBuilder);
         }
 
         private <T extends Storable> Collection<T> getStorablesFromResultSet(ResultSet resultSet, String nameSpace) {
             final Collection<T> storables = new ArrayList<>();
-            // maps contains the data to populate the state of Storable objects
-            final List<Map<String, Object>> maps = getMapsFromResultSet(resultSet);
-            if (maps != null && !maps.isEmpty()) {
-                for (Map<String, Object> map : maps) {
-                    if (map != null) {
-                        T storable = newStorableInstance(nameSpace);
-                        storable.fromMap(map);      // populates the Storable object state
-                        storables.add(storable);
-                    }
-                }
-            }
-            return storables;
-        }
-
-        // returns null for empty ResultSet or ResultSet with no rows
-        private List<Map<String, Object>> getMapsFromResultSet(ResultSet resultSet) {
-            List<Map<String, Object>> maps = null;
-
+            final StorableRowMapper<T> rowMapper = new StorableRowMapper<>(nameSpace);
             try {
-                boolean next = resultSet.next();
-                if(next) {
-                    maps = new LinkedList<>();
-                    ResultSetMetaData rsMetadata = resultSet.getMetaData();
-                    do {
-                        Map<String, Object> map = newMapWithRowContents(resultSet, rsMetadata);
-                        maps.add(map);
-                    } while(resultSet.next());
+                while (resultSet.next()) {
+                    storables.add(rowMapper.map(resultSet));
                 }
             } catch (SQLException e) {
                 log.error("Exception occurred while processing result set.", e);
             }
-            return maps;
+            return storables;
         }
 
         private <T extends Storable> T newStorableInstance(String nameSpace) {
@@ -354,40 +522,89 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
             for (int i = 1 ; i <= columnCount; i++) {
                 final String columnLabel = rsMetadata.getColumnLabel(i);
-                final int columnType = rsMetadata.getColumnType(i);
-                final Class columnJavaType = Util.getJavaType(columnType);
-
-                if (columnJavaType.equals(String.class)) {
-                    map.put(columnLabel, resultSet.getString(columnLabel));
-                } else if (columnJavaType.equals(Integer.class)) {
-                    map.put(columnLabel, resultSet.getInt(columnLabel));
-                } else if (columnJavaType.equals(Double.class)) {
-                    map.put(columnLabel, resultSet.getDouble(columnLabel));
-                } else if (columnJavaType.equals(Float.class)) {
-                    map.put(columnLabel, resultSet.getFloat(columnLabel));
-                } else if (columnJavaType.equals(Short.class)) {
-                    map.put(columnLabel, resultSet.getShort(columnLabel));
-                } else if (columnJavaType.equals(Boolean.class)) {
-                    map.put(columnLabel, resultSet.getBoolean(columnLabel));
-                } else if (columnJavaType.equals(byte[].class)) {
-                    map.put(columnLabel, resultSet.getBytes(columnLabel));
-                } else if (columnJavaType.equals(Long.class)) {
-                    map.put(columnLabel, resultSet.getLong(columnLabel));
-                } else if (columnJavaType.equals(Date.class)) {
-                    map.put(columnLabel, resultSet.getDate(columnLabel));
-                } else if (columnJavaType.equals(Time.class)) {
-                    map.put(columnLabel, resultSet.getTime(columnLabel));
-                } else if (columnJavaType.equals(Timestamp.class)) {
-                    map.put(columnLabel, resultSet.getTimestamp(columnLabel));
-                } else {
-                    throw new StorageException("type =  [" + columnType + "] for column [" + columnLabel + "] not supported.");
-                }
+                final Class columnJavaType = Util.getJavaType(rsMetadata.getColumnType(i));
+                map.put(columnLabel, getColumnValue(resultSet, i, columnLabel, columnJavaType));
             }
             if (log.isDebugEnabled()) {
                 log.debug("Row for ResultSet [{}] with metadata [{}] generated Map [{}]", resultSet, rsMetadata, map);
             }
             return map;
         }
+
+        /**
+         * Maps the rows of a result set to storables, one row at a time. The storables are populated column by
+         * column, as AbstractStorable.fromMap would with the row maps, unless they override fromMap.
+         */
+        private class StorableRowMapper<T extends Storable> {
+            private final String nameSpace;
+            private final StorableAccessor accessor;
+            private String[] columnLabels;
+            private Class[] columnJavaTypes;
+            private BiConsumer<Object, Object>[] setters;
+
+            StorableRowMapper(String nameSpace) {
+                this.nameSpace = nameSpace;
+                this.accessor = storableFactory.getAccessor(nameSpace);
+            }
+
+            T map(ResultSet resultSet) throws SQLException {
+                if (!accessor.hasDefaultFromMap()) {
+                    final T storable = newStorableInstance(nameSpace);
+                    storable.fromMap(newMapWithRowContents(resultSet, resultSet.getMetaData()));
+                    return storable;
+                }
+                if (columnLabels == null) {
+                    final ResultSetMetaData rsMetadata = resultSet.getMetaData();
+                    final int columnCount = rsMetadata.getColumnCount();
+                    columnLabels = new String[columnCount + 1];
+                    columnJavaTypes = new Class[columnCount + 1];
+                    setters = new BiConsumer[columnCount + 1];
+                    for (int i = 1; i <= columnCount; i++) {
+                        columnLabels[i] = rsMetadata.getColumnLabel(i);
+                        columnJavaTypes[i] = Util.getJavaType(rsMetadata.getColumnType(i));
+                    }
+                }
+                final T storable = accessor.newInstance();
+                for (int i = 1; i < columnLabels.length; i++) {
+                    final Object value = getColumnValue(resultSet, i, columnLabels[i], columnJavaTypes[i]);
+                    if (value != null) {
+                        if (setters[i] == null) {
+                            setters[i] = accessor.getSetter(columnLabels[i], columnJavaTypes[i]);
+                        }
+                        setters[i].accept(storable, value);
+                    }
+                }
+                return storable;
+            }
+        }
+
+        private Object getColumnValue(ResultSet resultSet, int index, String columnLabel, Class columnJavaType) throws SQLException {
+            if (columnJavaType.equals(String.class)) {
+                return resultSet.getString(index);
+            } else if (columnJavaType.equals(Integer.class)) {
+                return resultSet.getInt(index);
+            } else if (columnJavaType.equals(Double.class)) {
+                return resultSet.getDouble(index);
+            } else if (columnJavaType.equals(Float.class)) {
+                return resultSet.getFloat(index);
+            } else if (columnJavaType.equals(Short.class)) {
+                return resultSet.getShort(index);
+            } else if (columnJavaType.equals(Boolean.class)) {
+                return resultSet.getBoolean(index);
+            } else if (columnJavaType.equals(byte[].class)) {
+                return resultSet.getBytes(index);
+            } else if (columnJavaType.equals(Long.class)) {
+                return resultSet.getLong(index);
+            } else if (columnJavaType.equals(Date.class)) {
+                return resultSet.getDate(index);
+            } else if (columnJavaType.equals(Time.class)) {
+                return resultSet.getTime(index);
+            } else if (columnJavaType.equals(Timestamp.class)) {
+                return resultSet.getTimestamp(index);
+            } else {
+                throw new StorageException("type =  [" + columnJavaType + "] for column [" + columnLabel + "] not supported.");
+            }
+        }
     }
 
 }
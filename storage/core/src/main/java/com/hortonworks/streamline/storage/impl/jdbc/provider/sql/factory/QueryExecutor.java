@@ -17,6 +17,7 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableFactory;
 import com.hortonworks.streamline.storage.StorableKey;
@@ -27,6 +28,8 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Exposes CRUD and other useful operations to the persistence storage
@@ -49,6 +52,16 @@ public interface QueryExecutor {
      */
     void delete(StorableKey storableKey);
 
+    /**
+     * Inserts or updates the specified {@link Storable}s in storage, in batches
+     */
+    void insertOrUpdateAll(Collection<? extends Storable> storables);
+
+    /**
+     * Deletes the specified {@link StorableKey}s from storage, in batches
+     */
+    void deleteAll(Collection<StorableKey> storableKeys);
+
     /**
      * @return all entries in the given namespace
      */
@@ -59,6 +72,36 @@ public interface QueryExecutor {
      */
     <T extends Storable> Collection<T> select(StorableKey storableKey);
 
+    /**
+     * @return the page of the entries in the given namespace starting at {@code offset}, of at most {@code limit}
+     * entries ordered by the given fields
+     */
+    <T extends Storable> Collection<T> select(String namespace, List<OrderByField> orderByFields, long offset, int limit);
+
+    /**
+     * @return the page of the entries that match the specified {@link StorableKey} starting at {@code offset}, of at
+     * most {@code limit} entries ordered by the given fields
+     */
+    <T extends Storable> Collection<T> select(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit);
+
+    /**
+     * @return all entries in the given namespace, read through a cursor as the stream is consumed. The stream holds
+     * a connection until it is closed
+     */
+    <T extends Storable> Stream<T> stream(String namespace);
+
+    /**
+     * @return all entries that match the specified {@link StorableKey}, read through a cursor as the stream is
+     * consumed. The stream holds a connection until it is closed
+     */
+    <T extends Storable> Stream<T> stream(StorableKey storableKey);
+
+    /**
+     * @return all entries that match any of the specified {@link StorableKey}s, which must identify their entries
+     * by the same columns in each namespace
+     */
+    <T extends Storable> Collection<T> selectAll(Collection<StorableKey> storableKeys);
+
     /**
      * @return The next available id for the autoincrement column in the specified {@code namespace}
      * @exception NonIncrementalColumnException if {@code namespace} has no autoincrement column
@@ -66,6 +109,15 @@ public interface QueryExecutor {
      */
     Long nextId(String namespace);
 
+    /**
+     * Reserves a block of {@code count} consecutive ids in the specified {@code namespace}, with a single atomic
+     * update. The ids are never issued again by later blocks. The first block starts above the ids already issued,
+     * the rows of a namespace whose ids are reserved in blocks are then expected to be inserted with an id.
+     *
+     * @return the first id of the block
+     */
+    Long reserveIds(String namespace, int count);
+
     /**
      * @return an open connection to the underlying storage
      */
@@ -16,11 +16,20 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.storage.StorableKey;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 
 public abstract class AbstractStorableKeyQuery extends AbstractSqlQuery {
+    protected List<OrderByField> orderByFields = Collections.emptyList();
+    protected long offset;
+    protected int limit;
+
     public AbstractStorableKeyQuery(String nameSpace) {
         tableName = nameSpace;
         setParameterizedSql();
@@ -32,4 +41,98 @@ public abstract class AbstractStorableKeyQuery extends AbstractSqlQuery {
         columns = new LinkedList<>(storableKey.getPrimaryKey().getFieldsToVal().keySet());
         setParameterizedSql();
     }
+
+    /**
+     * Query on the page of the namespace starting at {@code offset}, of at most {@code limit} rows ordered by the
+     * given fields. A limit of 0 means no limit.
+     */
+    public AbstractStorableKeyQuery(String nameSpace, List<OrderByField> orderByFields, long offset, int limit) {
+        tableName = nameSpace;
+        setPage(orderByFields, offset, limit);
+        setParameterizedSql();
+    }
+
+    public AbstractStorableKeyQuery(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit) {
+        tableName = storableKey.getNameSpace();
+        primaryKey = storableKey.getPrimaryKey();
+        columns = new LinkedList<>(storableKey.getPrimaryKey().getFieldsToVal().keySet());
+        setPage(orderByFields, offset, limit);
+        setParameterizedSql();
+    }
+
+    private void setPage(List<OrderByField> orderByFields, long offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit can not be negative");
+        }
+        this.orderByFields = new ArrayList<>(orderByFields);
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the values of the page parameters, which follow the primary key parameters in the parametrized sql.
+     * The limit and the offset are parameters so that all the pages of a query share the same prepared statement.
+     */
+    public List<Object> getPageParameters() {
+        return limit > 0 ? Arrays.<Object>asList(limit, offset) : Collections.emptyList();
+    }
+
+    /**
+     * if formatter != null applies the formatter to the order by column names. Examples of output are:
+     * <p/>
+     * no order by fields and no limit ==> empty string
+     * <p/>
+     * formatter == "%s" ==> " ORDER BY colName1 ASC, colName2 DESC LIMIT ? OFFSET ?"
+     */
+    protected String getOrderByAndLimitClause(String formatter) {
+        final StringBuilder clause = new StringBuilder(getOrderByClause(formatter));
+        if (limit > 0) {
+            clause.append(" LIMIT ? OFFSET ?");
+        }
+        return clause.toString();
+    }
+
+    /**
+     * if formatter != null applies the formatter to the order by column names. Examples of output are:
+     * <p/>
+     * no order by fields ==> empty string
+     * <p/>
+     * formatter == "%s" ==> " ORDER BY colName1 ASC, colName2 DESC"
+     */
+    protected String getOrderByClause(String formatter) {
+        final StringBuilder clause = new StringBuilder();
+        if (!orderByFields.isEmpty()) {
+            final List<String> orderBy = new ArrayList<>(orderByFields.size());
+            for (OrderByField orderByField : orderByFields) {
+                final String columnName = formatter == null
+                        ? orderByField.getFieldName()
+                        : String.format(formatter, orderByField.getFieldName());
+                orderBy.add(columnName + (orderByField.isDescending() ? " DESC" : " ASC"));
+            }
+            clause.append(" ORDER BY ").append(join(orderBy, ", "));
+        }
+        return clause.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+
+        AbstractStorableKeyQuery that = (AbstractStorableKeyQuery) o;
+
+        if (offset != that.offset) return false;
+        if (limit != that.limit) return false;
+        return orderByFields.equals(that.orderByFields);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + orderByFields.hashCode();
+        result = 31 * result + (int) (offset ^ (offset >>> 32));
+        result = 31 * result + limit;
+        return result;
+    }
 }
@@ -0,0 +1,79 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query;
+
+import com.hortonworks.streamline.storage.PrimaryKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Query on several {@link PrimaryKey}s of a namespace at once. All the keys must have the same columns.
+ */
+public abstract class AbstractStorableKeysQuery extends AbstractSqlQuery {
+    protected final List<PrimaryKey> primaryKeys;
+
+    public AbstractStorableKeysQuery(String nameSpace, Collection<PrimaryKey> primaryKeys) {
+        if (primaryKeys.isEmpty()) {
+            throw new IllegalArgumentException("At least one primary key is required");
+        }
+        tableName = nameSpace;
+        this.primaryKeys = new ArrayList<>(primaryKeys);
+        columns = new LinkedList<>(this.primaryKeys.get(0).getFieldsToVal().keySet());
+        setParameterizedSql();
+    }
+
+    public List<PrimaryKey> getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    /**
+     * if formatter != null applies the formatter to the column names. Examples of output are:
+     * <p/>
+     * one column ==> colName1 IN (?,?,?)
+     * <p/>
+     * several columns ==> (colName1, colName2) IN ((?,?),(?,?),(?,?))
+     */
+    protected String getInClause(String formatter) {
+        final String keyColumns = join(getColumnNames(columns, formatter), ", ");
+        if (columns.size() == 1) {
+            return keyColumns + " IN (" + getBindVariables("?,", primaryKeys.size()) + ")";
+        }
+        return "(" + keyColumns + ") IN (" + getBindVariables("(" + getBindVariables("?,", columns.size()) + "),",
+                primaryKeys.size()) + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+
+        AbstractStorableKeysQuery that = (AbstractStorableKeysQuery) o;
+
+        return primaryKeys.equals(that.primaryKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + primaryKeys.hashCode();
+        return result;
+    }
+}
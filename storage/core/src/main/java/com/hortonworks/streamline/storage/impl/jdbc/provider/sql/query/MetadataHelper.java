@@ -25,6 +25,9 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Static stateless class that provides useful metadata information
@@ -33,17 +36,24 @@ public class MetadataHelper {
     private static final Logger log = LoggerFactory.getLogger(MetadataHelper.class);
 
     public static boolean isColumnInNamespace(Connection connection, int queryTimeoutSecs, String namespace, String columnName) throws SQLException {
+        return getColumnTypes(connection, queryTimeoutSecs, namespace).containsKey(columnName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the {@link java.sql.Types} of all the columns in the namespace, by lower case column name
+     */
+    public static Map<String, Integer> getColumnTypes(Connection connection, int queryTimeoutSecs, String namespace) throws SQLException {
         final ResultSetMetaData rsMetadata = PreparedStatementBuilder.of(connection, new ExecutionConfig(queryTimeoutSecs),
                 new SqlSelectQuery(namespace)).getMetaData();
 
         final int columnCount = rsMetadata.getColumnCount();
+        final Map<String, Integer> columnTypes = new HashMap<>();
 
         for (int i = 1; i <= columnCount; i++) {
-            if (rsMetadata.getColumnName(i).equalsIgnoreCase(columnName)) {
-                return true;
-            }
+            columnTypes.put(rsMetadata.getColumnName(i).toLowerCase(Locale.ROOT), rsMetadata.getColumnType(i));
         }
-        return false;
+        log.debug("Columns of namespace [{}] are [{}]", namespace, columnTypes);
+        return columnTypes;
     }
 
 }
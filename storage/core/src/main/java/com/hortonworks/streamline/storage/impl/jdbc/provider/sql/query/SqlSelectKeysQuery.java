@@ -0,0 +1,35 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query;
+
+import com.hortonworks.streamline.storage.PrimaryKey;
+
+import java.util.Collection;
+
+public class SqlSelectKeysQuery extends AbstractStorableKeysQuery {
+
+    public SqlSelectKeysQuery(String nameSpace, Collection<PrimaryKey> primaryKeys) {
+        super(nameSpace, primaryKeys);
+    }
+
+    // "SELECT * FROM DB.TABLE WHERE (C1, C2) IN ((?,?), (?,?))"
+    @Override
+    protected void setParameterizedSql() {
+        sql = "SELECT * FROM " + tableName + " WHERE " + getInClause(null);
+        log.debug(sql);
+    }
+}
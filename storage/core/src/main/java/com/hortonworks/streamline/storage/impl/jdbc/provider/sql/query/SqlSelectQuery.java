@@ -16,8 +16,11 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.storage.StorableKey;
 
+import java.util.List;
+
 public class SqlSelectQuery extends AbstractStorableKeyQuery {
     public SqlSelectQuery(String nameSpace) {
         super(nameSpace);   // super.columns == null => no where clause filtering
@@ -27,7 +30,15 @@ public class SqlSelectQuery extends AbstractStorableKeyQuery {
         super(storableKey);     // super.columns != null => do where clause filtering on PrimaryKey
     }
 
-    // "SELECT * FROM DB.TABLE [WHERE C1 = ?, C2 = ?]"
+    public SqlSelectQuery(String nameSpace, List<OrderByField> orderByFields, long offset, int limit) {
+        super(nameSpace, orderByFields, offset, limit);
+    }
+
+    public SqlSelectQuery(StorableKey storableKey, List<OrderByField> orderByFields, long offset, int limit) {
+        super(storableKey, orderByFields, offset, limit);
+    }
+
+    // "SELECT * FROM DB.TABLE [WHERE C1 = ?, C2 = ?] [ORDER BY C1 ASC] [LIMIT ? OFFSET ?]"
     @Override
     protected void setParameterizedSql() {
         sql = "SELECT * FROM " + tableName;
@@ -35,6 +46,7 @@ public class SqlSelectQuery extends AbstractStorableKeyQuery {
         if (columns != null) {
             sql += " WHERE " + join(getColumnNames(columns, "%s = ?"), " AND ");
         }
+        sql += getOrderByAndLimitClause("%s");
         log.debug(sql);
     }
 }
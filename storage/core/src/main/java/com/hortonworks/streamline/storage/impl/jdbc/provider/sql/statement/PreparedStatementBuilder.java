@@ -18,9 +18,11 @@
 package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement;
 
 import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.PrimaryKey;
 import com.hortonworks.streamline.storage.exception.MalformedQueryException;
 import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.AbstractStorableKeyQuery;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.AbstractStorableKeysQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.AbstractStorableSqlQuery;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlQuery;
 import org.slf4j.Logger;
@@ -49,7 +51,7 @@ public class PreparedStatementBuilder {
     private PreparedStatement preparedStatement;
     private final SqlQuery sqlBuilder;
     private final ExecutionConfig config;
-    private int numPrepStmtParams;                          // Number of prepared statement parameters
+    private int numPrepStmtParams;                          // Number of prepared statement parameters, page excluded
 
     /**
      * Creates a {@link PreparedStatement} for which calls to method {@code getPreparedStatement}
@@ -127,6 +129,10 @@ public class PreparedStatementBuilder {
         }
         log.debug("{} ? query parameters found for {} ", groupCount, sqlBuilder.getParametrizedSql());
 
+        // the limit and offset parameters come last
+        if (sqlBuilder instanceof AbstractStorableKeyQuery) {
+            groupCount -= ((AbstractStorableKeyQuery) sqlBuilder).getPageParameters().size();
+        }
         assertIsNumColumnsMultipleOfNumParameters(sqlBuilder, groupCount);
 
         numPrepStmtParams = groupCount;
@@ -159,6 +165,9 @@ public class PreparedStatementBuilder {
         // If more types become available consider subclassing instead of going with this approach, which was chosen here for simplicity
         if (sqlBuilder instanceof AbstractStorableKeyQuery) {
             setStorableKeyPreparedStatement(sqlBuilder);
+            setPagePreparedStatement((AbstractStorableKeyQuery) sqlBuilder);
+        } else if (sqlBuilder instanceof AbstractStorableKeysQuery) {
+            setStorableKeysPreparedStatement((AbstractStorableKeysQuery) sqlBuilder);
         } else if (sqlBuilder instanceof AbstractStorableSqlQuery) {
             setStorablePreparedStatement(sqlBuilder);
         }
@@ -182,6 +191,25 @@ public class PreparedStatementBuilder {
         }
     }
 
+    private void setPagePreparedStatement(AbstractStorableKeyQuery sqlBuilder) throws SQLException {
+        int index = numPrepStmtParams + 1;
+        for (Object value : sqlBuilder.getPageParameters()) {
+            preparedStatement.setObject(index++, value);
+        }
+    }
+
+    // the columns of each key in turn
+    private void setStorableKeysPreparedStatement(AbstractStorableKeysQuery sqlBuilder) throws SQLException {
+        final List<Schema.Field> columns = sqlBuilder.getColumns();
+        int index = 1;
+        for (PrimaryKey primaryKey : sqlBuilder.getPrimaryKeys()) {
+            Map<Schema.Field, Object> columnsToValues = primaryKey.getFieldsToVal();
+            for (Schema.Field column : columns) {
+                setPreparedStatementParams(preparedStatement, column.getType(), index++, columnsToValues.get(column));
+            }
+        }
+    }
+
     private void setStorablePreparedStatement(SqlQuery sqlBuilder) throws SQLException {
         final List<Schema.Field> columns = sqlBuilder.getColumns();
 
@@ -207,6 +235,18 @@ public class PreparedStatementBuilder {
         return preparedStatement.getMetaData();
     }
 
+    public void clearBatch() throws SQLException {
+        preparedStatement.clearBatch();
+    }
+
+    public boolean isClosed() throws SQLException {
+        return preparedStatement.isClosed();
+    }
+
+    public void close() throws SQLException {
+        preparedStatement.close();
+    }
+
     @Override
     public String toString() {
         return "PreparedStatementBuilder{" +
@@ -0,0 +1,198 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement;
+
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.cache.stats.SimpleCacheStats;
+import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the {@link PreparedStatementBuilder}s of each physical database connection, with an LRU of at most
+ * {@code maxStatementsPerConnection} statements per connection.
+ * <p>
+ * Connections are borrowed from the pool for each execution, so the statements are prepared on the physical
+ * connection unwrapped from the pooled one, which keeps them open when the connection goes back to the pool. A pooled
+ * connection is used by a single thread until it is returned, so is its LRU. The statements of the connections closed
+ * by the pool are dropped when a new connection is seen.
+ * </p>
+ */
+public class StatementCache {
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    private final ExecutionConfig config;
+    private final int maxStatementsPerConnection;
+    private final ConcurrentMap<Connection, ConnectionStatements> statements = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatementCache(ExecutionConfig config, int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection <= 0) {
+            throw new IllegalArgumentException("Maximum number of statements per connection must be positive");
+        }
+        this.config = config;
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * @return the cached builder for the sql of the query on the connection, prepared if not cached yet
+     */
+    public PreparedStatementBuilder get(Connection connection, SqlQuery sqlQuery,
+                                        boolean returnGeneratedKeys) throws SQLException {
+        final Connection physicalConnection = unwrap(connection);
+        ConnectionStatements connectionStatements = statements.get(physicalConnection);
+        if (connectionStatements == null) {
+            removeClosedConnections();
+            final ConnectionStatements newStatements = new ConnectionStatements();
+            connectionStatements = statements.putIfAbsent(physicalConnection, newStatements);
+            if (connectionStatements == null) {
+                connectionStatements = newStatements;
+            }
+        }
+        return connectionStatements.get(physicalConnection, sqlQuery, returnGeneratedKeys);
+    }
+
+    public CacheStats stats() {
+        return new SimpleCacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Closes all the cached statements.
+     */
+    public void clear() {
+        for (Iterator<ConnectionStatements> it = statements.values().iterator(); it.hasNext(); ) {
+            it.next().close();
+            it.remove();
+        }
+    }
+
+    private static Connection unwrap(Connection connection) {
+        try {
+            return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+        } catch (SQLException e) {
+            return connection;
+        }
+    }
+
+    private void removeClosedConnections() {
+        for (Iterator<Map.Entry<Connection, ConnectionStatements>> it = statements.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<Connection, ConnectionStatements> entry = it.next();
+            if (isClosed(entry.getKey())) {
+                log.debug("Removing the statements of closed connection {}", entry.getKey());
+                entry.getValue().close();
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static final class StatementKey {
+        private final String sql;
+        private final boolean returnGeneratedKeys;
+
+        StatementKey(String sql, boolean returnGeneratedKeys) {
+            this.sql = sql;
+            this.returnGeneratedKeys = returnGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            StatementKey that = (StatementKey) o;
+            return returnGeneratedKeys == that.returnGeneratedKeys && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + (returnGeneratedKeys ? 1 : 0);
+        }
+    }
+
+    /**
+     * Access ordered, the least recently used statement is closed once there are too many.
+     */
+    private final class ConnectionStatements extends LinkedHashMap<StatementKey, PreparedStatementBuilder> {
+        ConnectionStatements() {
+            super(16, 0.75f, true);
+        }
+
+        synchronized PreparedStatementBuilder get(Connection connection, SqlQuery sqlQuery,
+                                                  boolean returnGeneratedKeys) throws SQLException {
+            final StatementKey key = new StatementKey(sqlQuery.getParametrizedSql(), returnGeneratedKeys);
+            PreparedStatementBuilder builder = get(key);
+            if (builder != null && !builder.isClosed()) {
+                hits.increment();
+                return builder;
+            }
+            misses.increment();
+            builder = returnGeneratedKeys
+                    ? PreparedStatementBuilder.supportReturnGeneratedKeys(connection, config, sqlQuery)
+                    : PreparedStatementBuilder.of(connection, config, sqlQuery);
+            put(key, builder);
+            return builder;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatementBuilder> eldest) {
+            if (size() > maxStatementsPerConnection) {
+                evictions.increment();
+                close(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void close() {
+            final List<PreparedStatementBuilder> builders = new ArrayList<>(values());
+            clear();
+            for (PreparedStatementBuilder builder : builders) {
+                close(builder);
+            }
+        }
+
+        private void close(PreparedStatementBuilder builder) {
+            try {
+                builder.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close prepared statement {}", builder, e);
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.util;
 
+import com.hortonworks.streamline.common.Schema;
+
 import java.lang.reflect.Field;
 import java.sql.Date;
 import java.sql.Time;
@@ -75,6 +77,40 @@ public class Util {
         }
     }
 
+    /**
+     * @return the {@link Schema.Type} of the values of the given sql type, or null for the types that have none, e.g. dates
+     */
+    public static Schema.Type getSchemaType(int sqlType) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.CLOB:
+                return Schema.Type.STRING;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return Schema.Type.BINARY;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return Schema.Type.BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return Schema.Type.SHORT;
+            case Types.INTEGER:
+                return Schema.Type.INTEGER;
+            case Types.BIGINT:
+                return Schema.Type.LONG;
+            case Types.REAL:
+                return Schema.Type.FLOAT;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return Schema.Type.DOUBLE;
+            default:
+                return null;
+        }
+    }
+
     public static void validateJDBCProperties(Map<String, Object> jdbcProps, List<String> propertyNames) {
         if(jdbcProps == null || jdbcProps.isEmpty()) {
             throw new IllegalArgumentException("jdbc properties can neither be null nor empty");
@@ -13,14 +13,16 @@
   * See the License for the specific language governing permissions and
   * limitations under the License.
  **/
-
 package com.hortonworks.streamline.storage.impl.memory;
 
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
+import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.common.util.ReflectionHelper;
 import com.hortonworks.streamline.storage.PrimaryKey;
 import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessor;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
 import com.hortonworks.streamline.storage.exception.AlreadyExistsException;
@@ -28,113 +30,310 @@ import com.hortonworks.streamline.storage.exception.StorageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
-//TODO: The synchronization is broken right now, so all the methods don't guarantee the semantics as described in the interface.
+/**
+ * Keeps the storables of each namespace in a map guarded by a read write lock, so that every method is atomic with
+ * respect to the namespaces it touches.
+ * <p>
+ * {@link #find(String, List)} uses hash indexes on the queried fields. Indexes are created with
+ * {@link #createIndex(String, String)}, or automatically once a field was queried a number of times in a namespace
+ * (the {@link #INDEX_QUERY_THRESHOLD} property, 3 by default), and are maintained by every write.
+ * </p>
+ */
 public class InMemoryStorageManager implements StorageManager {
     private static final Logger LOG = LoggerFactory.getLogger(InMemoryStorageManager.class);
 
-    private final ConcurrentHashMap<String, ConcurrentHashMap<PrimaryKey, Storable>> storageMap = new ConcurrentHashMap<>();
+    public static final String INDEX_QUERY_THRESHOLD = "indexQueryThreshold";
+    private static final int DEFAULT_INDEX_QUERY_THRESHOLD = 3;
+
+    private final ConcurrentHashMap<String, Table> storageMap = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicLong> sequenceMap = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Class<?>> nameSpaceClassMap = new ConcurrentHashMap<>();
+    private volatile int indexQueryThreshold = DEFAULT_INDEX_QUERY_THRESHOLD;
 
     @Override
     public void init(Map<String, Object> properties) {
-
+        if (properties != null && properties.get(INDEX_QUERY_THRESHOLD) != null) {
+            indexQueryThreshold = Integer.parseInt(properties.get(INDEX_QUERY_THRESHOLD).toString());
+        }
     }
 
     @Override
     public void add(Storable storable) throws AlreadyExistsException {
-        final Storable existing = get(storable.getStorableKey());
-
-        if (existing == null) {
-            addOrUpdate(storable);
-        } else if (!existing.equals(storable)) {
-            throw new AlreadyExistsException("Another instance with same id = " + storable.getPrimaryKey()
-                    + " exists with different value in namespace " + storable.getNameSpace()
-                    + " Consider using addOrUpdate method if you always want to overwrite.");
+        final Table table = getOrCreateTable(storable.getNameSpace());
+        final PrimaryKey id = storable.getPrimaryKey();
+        table.lock.writeLock().lock();
+        try {
+            final Storable existing = table.rows.get(id);
+            if (existing == null) {
+                table.put(id, storable);
+            } else if (!existing.equals(storable)) {
+                throw new AlreadyExistsException("Another instance with same id = " + storable.getPrimaryKey()
+                        + " exists with different value in namespace " + storable.getNameSpace()
+                        + " Consider using addOrUpdate method if you always want to overwrite.");
+            }
+        } finally {
+            table.lock.writeLock().unlock();
         }
     }
 
     @Override
     public <T extends Storable> T remove(StorableKey key) throws StorageException {
-        if (storageMap.containsKey(key.getNameSpace())) {
-            return (T) storageMap.get(key.getNameSpace()).remove(key.getPrimaryKey());
+        final Table table = storageMap.get(key.getNameSpace());
+        if (table == null) {
+            return null;
+        }
+        table.lock.writeLock().lock();
+        try {
+            return (T) table.remove(key.getPrimaryKey());
+        } finally {
+            table.lock.writeLock().unlock();
         }
-        return null;
     }
 
     @Override
     public void addOrUpdate(Storable storable) {
-        String namespace = storable.getNameSpace();
-        PrimaryKey id = storable.getPrimaryKey();
-        if (!storageMap.containsKey(namespace)) {
-            storageMap.putIfAbsent(namespace, new ConcurrentHashMap<PrimaryKey, Storable>());
-            nameSpaceClassMap.putIfAbsent(namespace, storable.getClass());
+        final Table table = getOrCreateTable(storable.getNameSpace());
+        table.lock.writeLock().lock();
+        try {
+            table.put(storable.getPrimaryKey(), storable);
+        } finally {
+            table.lock.writeLock().unlock();
         }
-        storageMap.get(namespace).put(id, storable);
     }
 
     @Override
     public <T extends Storable> T get(StorableKey key) throws StorageException {
-        return storageMap.containsKey(key.getNameSpace())
-                ? (T) storageMap.get(key.getNameSpace()).get(key.getPrimaryKey())
-                : null;
+        final Table table = storageMap.get(key.getNameSpace());
+        if (table == null) {
+            return null;
+        }
+        table.lock.readLock().lock();
+        try {
+            return (T) table.rows.get(key.getPrimaryKey());
+        } finally {
+            table.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addAll(Collection<? extends Storable> storables) throws StorageException {
+        for (Storable storable : storables) {
+            add(storable);
+        }
+    }
+
+    @Override
+    public void addOrUpdateAll(Collection<? extends Storable> storables) throws StorageException {
+        for (Storable storable : storables) {
+            addOrUpdate(storable);
+        }
+    }
+
+    @Override
+    public <T extends Storable> Collection<T> removeAll(Collection<StorableKey> keys) throws StorageException {
+        List<T> removed = new ArrayList<>();
+        for (StorableKey key : keys) {
+            T storable = remove(key);
+            if (storable != null) {
+                removed.add(storable);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public <T extends Storable> Map<StorableKey, T> getAll(Collection<StorableKey> keys) throws StorageException {
+        Map<StorableKey, T> result = new HashMap<>();
+        for (StorableKey key : keys) {
+            T storable = get(key);
+            if (storable != null) {
+                result.put(key, storable);
+            }
+        }
+        return result;
     }
 
     /**
-     * Uses reflection to query the field or the method. Assumes
-     * a public getXXX method is available to get the field value.
+     * Creates a hash index on the given field of the storables in the namespace, unless it already exists.
      */
-    private boolean matches(Storable val, List<QueryParam> queryParams, Class<?> clazz) {
-        Object fieldValue;
-        boolean res = true;
-            for (QueryParam qp : queryParams) {
-                try {
-                    fieldValue = ReflectionHelper.invokeGetter(qp.name, val);
-                    if (!fieldValue.toString().equals(qp.value)) {
-                        return false;
+    public void createIndex(String namespace, String fieldName) {
+        final Table table = getOrCreateTable(namespace);
+        table.lock.writeLock().lock();
+        try {
+            table.createIndex(fieldName);
+        } finally {
+            table.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Assumes a public getXXX method is available to get the field value.
+     */
+    private static boolean matches(Storable val, List<QueryParam> queryParams) {
+        for (QueryParam qp : queryParams) {
+            final String fieldValue = getFieldValue(val, qp.getName());
+            if (fieldValue == null || !fieldValue.equals(qp.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // string form of the field value as compared with the query params, null if the field is null or can't be read
+    private static String getFieldValue(Storable storable, String fieldName) {
+        final Object fieldValue = getFieldObject(storable, fieldName);
+        return fieldValue != null ? fieldValue.toString() : null;
+    }
+
+    private static Object getFieldObject(Storable storable, String fieldName) {
+        try {
+            final StorableAccessor accessor = StorableAccessor.of(storable.getClass());
+            return accessor.getFieldNamesToTypes().containsKey(fieldName)
+                    ? accessor.get(fieldName, storable)
+                    : ReflectionHelper.invokeGetter(fieldName, storable);
+        } catch (ReflectiveOperationException | StorageException e) {
+            LOG.error("FAILED to invoke getter for query param {} , is your param name correct?", fieldName, e);
+            return null;
+        }
+    }
+
+    // orders the storables by the values of the fields, nulls first, as a database would
+    private static Comparator<Storable> comparing(final List<OrderByField> orderByFields) {
+        return new Comparator<Storable>() {
+            @Override
+            public int compare(Storable s1, Storable s2) {
+                for (OrderByField orderByField : orderByFields) {
+                    final int result = compareValues(getFieldObject(s1, orderByField.getFieldName()),
+                            getFieldObject(s2, orderByField.getFieldName()));
+                    if (result != 0) {
+                        return orderByField.isDescending() ? -result : result;
                     }
-                } catch (InvocationTargetException | NoSuchMethodException | IllegalAccessException e) {
-                    LOG.error("FAILED to invoke getter for query param {} , is your param name correct?", qp.getName(), e);
-                    return false;
                 }
+                return 0;
             }
-        return res;
+        };
+    }
+
+    private static int compareValues(Object v1, Object v2) {
+        if (v1 == null || v2 == null) {
+            return v1 == null ? (v2 == null ? 0 : -1) : 1;
+        }
+        if (v1 instanceof Comparable && v1.getClass().equals(v2.getClass())) {
+            return ((Comparable<Object>) v1).compareTo(v2);
+        }
+        return v1.toString().compareTo(v2.toString());
     }
 
     public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams) throws StorageException {
-        Collection<T> result = new ArrayList<>();
         if (queryParams == null) {
-            result = list(namespace);
-        } else {
-            Class<?> clazz = nameSpaceClassMap.get(namespace);
-            if (clazz != null) {
-                Map<PrimaryKey, Storable> storableMap = storageMap.get(namespace);
-                if (storableMap != null) {
-                    for (Storable val : storableMap.values()) {
-                        if (matches(val, queryParams, clazz)) {
-                            result.add((T) val);
-                        }
+            return list(namespace);
+        }
+        final Table table = storageMap.get(namespace);
+        if (table == null) {
+            return new ArrayList<>();
+        }
+        for (QueryParam qp : queryParams) {
+            if (table.countQuery(qp.getName()) == indexQueryThreshold) {
+                LOG.debug("Creating index on field {} of namespace {}", qp.getName(), namespace);
+                createIndex(namespace, qp.getName());
+            }
+        }
+
+        Collection<T> result = new ArrayList<>();
+        table.lock.readLock().lock();
+        try {
+            // probes the most selective index, the candidates are checked against all the params
+            Set<PrimaryKey> candidates = null;
+            for (QueryParam qp : queryParams) {
+                final Index index = table.indexes.get(qp.getName());
+                if (index != null) {
+                    final Set<PrimaryKey> ids = index.get(qp.getValue());
+                    if (candidates == null || ids.size() < candidates.size()) {
+                        candidates = ids;
                     }
                 }
             }
+            if (candidates != null) {
+                for (PrimaryKey id : candidates) {
+                    final Storable val = table.rows.get(id);
+                    if (matches(val, queryParams)) {
+                        result.add((T) val);
+                    }
+                }
+            } else {
+                for (Storable val : table.rows.values()) {
+                    if (matches(val, queryParams)) {
+                        result.add((T) val);
+                    }
+                }
+            }
+        } finally {
+            table.lock.readLock().unlock();
         }
         return result;
     }
 
+    @Override
+    public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams,
+                                                   List<OrderByField> orderByFields, long offset, int limit)
+            throws StorageException {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset can not be negative and limit must be positive");
+        }
+        final List<T> storables = new ArrayList<>(queryParams == null || queryParams.isEmpty()
+                ? this.<T>list(namespace)
+                : this.<T>find(namespace, queryParams));
+        if (storables.isEmpty()) {
+            return storables;
+        }
+        List<OrderByField> pageOrder = orderByFields;
+        if (pageOrder == null || pageOrder.isEmpty()) {
+            pageOrder = new ArrayList<>();
+            for (Schema.Field field : storables.get(0).getPrimaryKey().getFieldsToVal().keySet()) {
+                pageOrder.add(OrderByField.of(field.getName()));
+            }
+        }
+        Collections.sort(storables, comparing(pageOrder));
+        final int fromIndex = (int) Math.min(offset, storables.size());
+        return new ArrayList<>(storables.subList(fromIndex, (int) Math.min((long) fromIndex + limit, storables.size())));
+    }
+
+    // the storables are in memory already, the stream is only there for the callers written against the interface
+    @Override
+    public <T extends Storable> Stream<T> stream(String namespace, List<QueryParam> queryParams) throws StorageException {
+        final Collection<T> storables = queryParams == null || queryParams.isEmpty()
+                ? this.<T>list(namespace)
+                : this.<T>find(namespace, queryParams);
+        return storables.stream();
+    }
 
     @Override
     public <T extends Storable> Collection<T> list(String namespace) throws StorageException {
-        return storageMap.containsKey(namespace)
-                ? (Collection<T>) storageMap.get(namespace).values() : Collections.<T>emptyList();
+        final Table table = storageMap.get(namespace);
+        if (table == null) {
+            return Collections.<T>emptyList();
+        }
+        table.lock.readLock().lock();
+        try {
+            return new ArrayList<>((Collection<T>) table.rows.values());
+        } finally {
+            table.lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -147,6 +346,18 @@ public class InMemoryStorageManager implements StorageManager {
      */
     @Override
     public Long nextId(String namespace) {
+        return getSequence(namespace).incrementAndGet();
+    }
+
+    @Override
+    public Long reserveIds(String namespace, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        return getSequence(namespace).addAndGet(count) - count + 1;
+    }
+
+    private AtomicLong getSequence(String namespace) {
         AtomicLong cur = sequenceMap.get(namespace);
         if (cur == null) {
             AtomicLong zero = new AtomicLong();
@@ -155,11 +366,109 @@ public class InMemoryStorageManager implements StorageManager {
                 cur = zero;
             }
         }
-        return cur.incrementAndGet();
+        return cur;
     }
 
     @Override
     public void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException {
     }
 
+    private Table getOrCreateTable(String namespace) {
+        Table table = storageMap.get(namespace);
+        if (table == null) {
+            final Table newTable = new Table();
+            table = storageMap.putIfAbsent(namespace, newTable);
+            if (table == null) {
+                table = newTable;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Storables of a namespace with their indexes, guarded by the lock.
+     */
+    private static final class Table {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<PrimaryKey, Storable> rows = new HashMap<>();
+        private final Map<String, Index> indexes = new HashMap<>();
+        private final ConcurrentHashMap<String, AtomicInteger> queryCounts = new ConcurrentHashMap<>();
+
+        void put(PrimaryKey id, Storable storable) {
+            rows.put(id, storable);
+            for (Map.Entry<String, Index> entry : indexes.entrySet()) {
+                entry.getValue().put(id, getFieldValue(storable, entry.getKey()));
+            }
+        }
+
+        Storable remove(PrimaryKey id) {
+            final Storable removed = rows.remove(id);
+            if (removed != null) {
+                for (Index index : indexes.values()) {
+                    index.remove(id);
+                }
+            }
+            return removed;
+        }
+
+        void createIndex(String fieldName) {
+            if (!indexes.containsKey(fieldName)) {
+                final Index index = new Index();
+                for (Map.Entry<PrimaryKey, Storable> entry : rows.entrySet()) {
+                    index.put(entry.getKey(), getFieldValue(entry.getValue(), fieldName));
+                }
+                indexes.put(fieldName, index);
+            }
+        }
+
+        int countQuery(String fieldName) {
+            AtomicInteger count = queryCounts.get(fieldName);
+            if (count == null) {
+                final AtomicInteger zero = new AtomicInteger();
+                count = queryCounts.putIfAbsent(fieldName, zero);
+                if (count == null) {
+                    count = zero;
+                }
+            }
+            return count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Primary keys of the storables by the string value of a field. The value each key was indexed with is kept, so
+     * that it is removed from the right bucket even if the storable was modified in place.
+     */
+    private static final class Index {
+        private final Map<String, Set<PrimaryKey>> idsByValue = new HashMap<>();
+        private final Map<PrimaryKey, String> valueById = new HashMap<>();
+
+        void put(PrimaryKey id, String value) {
+            remove(id);
+            if (value != null) {
+                valueById.put(id, value);
+                Set<PrimaryKey> ids = idsByValue.get(value);
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    idsByValue.put(value, ids);
+                }
+                ids.add(id);
+            }
+        }
+
+        void remove(PrimaryKey id) {
+            final String value = valueById.remove(id);
+            if (value != null) {
+                final Set<PrimaryKey> ids = idsByValue.get(value);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByValue.remove(value);
+                }
+            }
+        }
+
+        Set<PrimaryKey> get(String value) {
+            final Set<PrimaryKey> ids = idsByValue.get(value);
+            return ids != null ? ids : Collections.<PrimaryKey>emptySet();
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.util;
+
+import com.hortonworks.streamline.storage.StorageManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out ids of a namespace from blocks reserved with {@link StorageManager#reserveIds(String, int)}, so that the
+ * storage is called once for {@code blockSize} ids. Every block is reserved atomically by the storage, so the ids are
+ * unique across threads, allocators and restarts. The unused ids of the current block are lost on restart, which
+ * leaves gaps in the ids.
+ */
+public class BlockIdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final StorageManager storageManager;
+    private final int blockSize;
+    private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public BlockIdAllocator(StorageManager storageManager) {
+        this(storageManager, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdAllocator(StorageManager storageManager, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.storageManager = storageManager;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return the next id of the given namespace
+     */
+    public Long nextId(String namespace) {
+        Block block = blocks.computeIfAbsent(namespace, x -> new Block());
+        synchronized (block) {
+            if (block.next == block.end) {
+                block.next = storageManager.reserveIds(namespace, blockSize);
+                block.end = block.next + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    private static class Block {
+        private long next;
+        private long end;
+    }
+}
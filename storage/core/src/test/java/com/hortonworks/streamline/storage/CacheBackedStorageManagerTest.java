@@ -0,0 +1,196 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.storage;
+
+import com.google.common.cache.CacheBuilder;
+import com.hortonworks.streamline.common.QueryParam;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.cache.impl.GuavaCache;
+import com.hortonworks.streamline.storage.cache.writer.StorageWriteBehind;
+import com.hortonworks.streamline.storage.cache.writer.StorageWriteThrough;
+import com.hortonworks.streamline.storage.catalog.AbstractStorable;
+import com.hortonworks.streamline.storage.impl.memory.InMemoryStorageManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheBackedStorageManagerTest {
+    private CountingStorageManager dao;
+    private CacheBackedStorageManager storageManager;
+
+    @Before
+    public void setup() {
+        dao = new CountingStorageManager();
+        storageManager = newStorageManager(CacheBackedStorageManager.DEFAULT_MAX_CACHED_QUERY_STORABLES);
+        storageManager.add(new Device(1L, 10L, "d1"));
+        storageManager.add(new Device(2L, 10L, "d2"));
+        storageManager.add(new Device(3L, 20L, "d3"));
+    }
+
+    @Test
+    public void testFindIsCached() throws Exception {
+        Assert.assertEquals(2, storageManager.find(Device.NAME_SPACE, QueryParam.params("topologyId", "10")).size());
+        Assert.assertEquals(2, storageManager.find(Device.NAME_SPACE, QueryParam.params("topologyId", "10")).size());
+        Assert.assertEquals(1, storageManager.find(Device.NAME_SPACE,
+                QueryParam.params("name", "d1", "topologyId", "10")).size());
+        // same params in a different order
+        Assert.assertEquals(1, storageManager.find(Device.NAME_SPACE,
+                QueryParam.params("topologyId", "10", "name", "d1")).size());
+        Assert.assertEquals(3, storageManager.list(Device.NAME_SPACE).size());
+        Assert.assertEquals(3, storageManager.find(Device.NAME_SPACE, Collections.<QueryParam>emptyList()).size());
+
+        Assert.assertEquals(3, dao.queries.get());
+        Assert.assertEquals(3, storageManager.getQueryCacheStats().getHitCount());
+        Assert.assertEquals(3, storageManager.getQueryCacheStats().getMissCount());
+    }
+
+    @Test
+    public void testWritesInvalidateNameSpace() throws Exception {
+        List<QueryParam> params = QueryParam.params("topologyId", "10");
+        Assert.assertEquals(2, storageManager.find(Device.NAME_SPACE, params).size());
+
+        storageManager.addOrUpdate(new Device(3L, 10L, "d3"));
+        Assert.assertEquals(3, storageManager.find(Device.NAME_SPACE, params).size());
+
+        storageManager.remove(new Device(1L, 10L, "d1").getStorableKey());
+        Assert.assertEquals(2, storageManager.find(Device.NAME_SPACE, params).size());
+
+        List<StorableKey> keys = new ArrayList<>();
+        keys.add(new Device(2L, 10L, "d2").getStorableKey());
+        keys.add(new Device(3L, 10L, "d3").getStorableKey());
+        storageManager.removeAll(keys);
+        Assert.assertTrue(storageManager.find(Device.NAME_SPACE, params).isEmpty());
+        Assert.assertEquals(4, dao.queries.get());
+    }
+
+    @Test
+    public void testCachedResultsAreCopies() throws Exception {
+        List<QueryParam> params = QueryParam.params("topologyId", "20");
+        storageManager.find(Device.NAME_SPACE, params);
+        Collection<Device> found = storageManager.find(Device.NAME_SPACE, params);
+        found.iterator().next().setName("modified");
+
+        Collection<Device> result = storageManager.find(Device.NAME_SPACE, params);
+        Assert.assertEquals("d3", result.iterator().next().getName());
+        Assert.assertEquals(1, dao.queries.get());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        storageManager = newStorageManager(3);
+        storageManager.list(Device.NAME_SPACE);
+        storageManager.find(Device.NAME_SPACE, QueryParam.params("topologyId", "20"));
+        Assert.assertEquals(1, storageManager.getQueryCacheStats().getEvictionCount());
+    }
+
+    @Test
+    public void testWriteBehindInvalidatesOnFlush() throws Exception {
+        final StorageWriteBehind writer = new StorageWriteBehind(dao, 1, 100, 100, 60000);
+        storageManager = new CacheBackedStorageManager(new GuavaCache(dao, CacheBuilder.newBuilder()), writer);
+        List<QueryParam> params = QueryParam.params("topologyId", "20");
+
+        storageManager.addOrUpdate(new Device(4L, 20L, "d4"));
+        // the write is still queued, the result read from the dao does not have it
+        Assert.assertEquals(1, storageManager.find(Device.NAME_SPACE, params).size());
+
+        writer.close();
+        Assert.assertEquals(2, storageManager.find(Device.NAME_SPACE, params).size());
+        Assert.assertEquals(2, dao.queries.get());
+    }
+
+    private CacheBackedStorageManager newStorageManager(long maxCachedQueryStorables) {
+        return new CacheBackedStorageManager(new GuavaCache(dao, CacheBuilder.newBuilder()), new StorageWriteThrough(dao),
+                maxCachedQueryStorables);
+    }
+
+    private static class CountingStorageManager extends InMemoryStorageManager {
+        private final AtomicInteger queries = new AtomicInteger();
+
+        @Override
+        public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams) {
+            queries.incrementAndGet();
+            return super.find(namespace, queryParams);
+        }
+
+        @Override
+        public <T extends Storable> Collection<T> list(String namespace) {
+            queries.incrementAndGet();
+            return super.list(namespace);
+        }
+    }
+
+    public static class Device extends AbstractStorable {
+        private static final String NAME_SPACE = "device";
+
+        private Long id;
+        private Long topologyId;
+        private String name;
+
+        public Device() {
+        }
+
+        Device(Long id, Long topologyId, String name) {
+            this.id = id;
+            this.topologyId = topologyId;
+            this.name = name;
+        }
+
+        @Override
+        public String getNameSpace() {
+            return NAME_SPACE;
+        }
+
+        @Override
+        public PrimaryKey getPrimaryKey() {
+            return new PrimaryKey(Collections.<Schema.Field, Object>singletonMap(new Schema.Field("id", Schema.Type.LONG), id));
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Long getTopologyId() {
+            return topologyId;
+        }
+
+        public void setTopologyId(Long topologyId) {
+            this.topologyId = topologyId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
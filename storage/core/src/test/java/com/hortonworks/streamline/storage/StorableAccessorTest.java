@@ -0,0 +1,133 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.storage;
+
+import com.hortonworks.streamline.storage.catalog.AbstractStorable;
+import com.hortonworks.streamline.storage.exception.StorageException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class StorableAccessorTest {
+
+    @Test
+    public void testToMapFromMap() throws Exception {
+        Device device = new Device();
+        device.setId(1L);
+        device.setName("device");
+        device.setCount(3);
+
+        Map<String, Object> map = device.toMap();
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id", 1L);
+        expected.put("name", "device");
+        expected.put("count", 3);
+        expected.put("enabled", null);
+        Assert.assertEquals(expected, map);
+
+        map.put("enabled", true);
+        Device result = (Device) StorableAccessor.of(Device.class).<Device>newInstance().fromMap(map);
+        Assert.assertEquals(Long.valueOf(1L), result.getId());
+        Assert.assertEquals("device", result.getName());
+        Assert.assertEquals(3, result.getCount());
+        Assert.assertTrue(result.getEnabled());
+    }
+
+    @Test
+    public void testSetter() throws Exception {
+        StorableAccessor accessor = StorableAccessor.of(Device.class);
+        Device device = new Device();
+        accessor.getSetter("count", Integer.class).accept(device, 5);
+        accessor.set("name", device, "name");
+        Assert.assertEquals(5, device.getCount());
+        Assert.assertEquals("name", accessor.get("name", device));
+        Assert.assertSame(accessor, StorableAccessor.of(Device.class));
+    }
+
+    @Test(expected = StorageException.class)
+    public void testMissingSetter() throws Exception {
+        StorableAccessor.of(Device.class).set("name", new Device(), 1L);
+    }
+
+    @Test
+    public void testDefaultFromMap() throws Exception {
+        Assert.assertTrue(StorableAccessor.of(Device.class).hasDefaultFromMap());
+        Assert.assertFalse(StorableAccessor.of(CustomDevice.class).hasDefaultFromMap());
+    }
+
+    public static class Device extends AbstractStorable {
+        private Long id;
+        private String name;
+        private int count;
+        private Boolean enabled;
+
+        @Override
+        public String getNameSpace() {
+            return "device";
+        }
+
+        @Override
+        public PrimaryKey getPrimaryKey() {
+            return null;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class CustomDevice extends Device {
+        @Override
+        public Storable fromMap(Map<String, Object> map) {
+            setName((String) map.get("name"));
+            return this;
+        }
+    }
+}
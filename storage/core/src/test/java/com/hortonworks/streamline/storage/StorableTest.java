@@ -20,7 +20,9 @@ import com.hortonworks.streamline.common.Schema;
 import org.junit.Assert;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +95,47 @@ public class StorableTest {
         Assert.assertTrue(found.contains(storable3));
     }
 
+    /**
+     * Same as {@link #test()} with the bulk operations.
+     */
+    public void testBulk() {
+        final Storable storable1 = storableList.get(0);
+        final Storable storable2 = storableList.get(1);
+        final Storable storable3 = storableList.get(2);
+        final Storable storable4 = storableList.get(3);
+        final List<StorableKey> keys = Arrays.asList(storable1.getStorableKey(), storable3.getStorableKey(),
+                storable4.getStorableKey());
+
+        // test getAll nonexistent keys
+        Assert.assertTrue(getStorageManager().getAll(keys).isEmpty());
+
+        //test addAll, getAll
+        getStorageManager().addAll(Arrays.asList(storable1, storable3, storable4));
+        Map<StorableKey, Storable> found = getStorageManager().getAll(keys);
+        Assert.assertEquals(3, found.size());
+        Assert.assertEquals(storable1, found.get(storable1.getStorableKey()));
+        Assert.assertEquals(storable3, found.get(storable3.getStorableKey()));
+        Assert.assertEquals(storable4, found.get(storable4.getStorableKey()));
+
+        // adding equal storables is a no-op
+        getStorageManager().addAll(Collections.singletonList(storable1));
+        Assert.assertEquals(storable1, getStorageManager().get(storable1.getStorableKey()));
+
+        //test addOrUpdateAll with the second item which has the same primary key value as the first item.
+        getStorageManager().addOrUpdateAll(Arrays.asList(storable2, storable3));
+        Assert.assertEquals(storable2, getStorageManager().get(storable2.getStorableKey()));
+
+        //test removeAll, removing it again is ignored
+        Collection<Storable> removed = getStorageManager().removeAll(Collections.singletonList(storable4.getStorableKey()));
+        Assert.assertEquals(Collections.singletonList(storable4), new ArrayList<>(removed));
+        Assert.assertNull(getStorageManager().get(storable4.getStorableKey()));
+        Assert.assertTrue(getStorageManager().removeAll(Collections.singletonList(storable4.getStorableKey())).isEmpty());
+
+        final Set<Storable> expected = new HashSet<>(Arrays.asList(storable2, storable3));
+        Assert.assertEquals(expected, new HashSet<>(getStorageManager().list(getNameSpace())));
+        Assert.assertEquals(expected, new HashSet<>(getStorageManager().getAll(keys).values()));
+    }
+
     public void close() {
         getStorageManager().cleanup();
     }
@@ -0,0 +1,205 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.storage.impl.jdbc;
+
+import com.hortonworks.streamline.common.QueryParam;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessorTest.Device;
+import com.hortonworks.streamline.storage.exception.StorageException;
+import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.factory.MySqlExecutor;
+import com.hortonworks.streamline.storage.impl.jdbc.util.Util;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JdbcStorageManagerTest {
+    private final FakeDatabase database = new FakeDatabase();
+    private JdbcStorageManager storageManager;
+
+    @Before
+    public void setUp() throws Exception {
+        storageManager = new JdbcStorageManager(new MySqlExecutor(new ExecutionConfig(-1), database.connectionBuilder()));
+        storageManager.registerStorables(Collections.<Class<? extends Storable>>singletonList(Device.class));
+    }
+
+    @Test
+    public void testColumnTypesLookedUpOncePerNamespace() throws Exception {
+        storageManager.find("device", QueryParam.params("name", "123"));
+        storageManager.find("device", QueryParam.params("id", "7", "unknown", "x"));
+
+        Assert.assertEquals(1, database.metadataLookups);
+        Assert.assertEquals(2, database.statements.size());
+        // the values are typed by their column, the parameter that is not a column is ignored
+        Assert.assertEquals(Arrays.asList("setString 123", "setLong 7"), database.parameters);
+    }
+
+    @Test
+    public void testValueTypeInferredWithoutMatchingColumnType() throws Exception {
+        storageManager.find("device", QueryParam.params("count", "abc"));
+        storageManager.find("device", QueryParam.params("created", "10"));
+
+        Assert.assertEquals(Arrays.asList("setString abc", "setByte 10"), database.parameters);
+    }
+
+    @Test
+    public void testColumnTypesLookedUpAgainAfterFailure() throws Exception {
+        storageManager.find("device", QueryParam.params("name", "a"));
+        database.failQueries = true;
+        try {
+            storageManager.find("device", QueryParam.params("name", "a"));
+            Assert.fail("StorageException expected");
+        } catch (StorageException e) {
+            // expected
+        }
+        database.failQueries = false;
+        storageManager.find("device", QueryParam.params("name", "a"));
+
+        Assert.assertEquals(2, database.metadataLookups);
+    }
+
+    @Test
+    public void testGetSchemaType() throws Exception {
+        Assert.assertEquals(Schema.Type.STRING, Util.getSchemaType(Types.VARCHAR));
+        Assert.assertEquals(Schema.Type.BINARY, Util.getSchemaType(Types.VARBINARY));
+        Assert.assertEquals(Schema.Type.BOOLEAN, Util.getSchemaType(Types.BIT));
+        Assert.assertEquals(Schema.Type.SHORT, Util.getSchemaType(Types.TINYINT));
+        Assert.assertEquals(Schema.Type.INTEGER, Util.getSchemaType(Types.INTEGER));
+        Assert.assertEquals(Schema.Type.LONG, Util.getSchemaType(Types.BIGINT));
+        Assert.assertEquals(Schema.Type.FLOAT, Util.getSchemaType(Types.REAL));
+        Assert.assertEquals(Schema.Type.DOUBLE, Util.getSchemaType(Types.FLOAT));
+        Assert.assertNull(Util.getSchemaType(Types.TIMESTAMP));
+    }
+
+    /**
+     * Records the metadata lookups, queries and parameters of the device table, the queries return no rows.
+     */
+    private static class FakeDatabase {
+        private static final List<String> COLUMNS = Arrays.asList("id", "name", "count", "created");
+        private static final List<Integer> COLUMN_TYPES = Arrays.asList(Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.TIMESTAMP);
+
+        private final List<String> statements = new ArrayList<>();
+        private final List<String> parameters = new ArrayList<>();
+        private int metadataLookups;
+        private boolean failQueries;
+
+        ConnectionBuilder<Object> connectionBuilder() {
+            return new ConnectionBuilder<Object>() {
+                @Override
+                public void prepare() {
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return newConnection();
+                }
+
+                @Override
+                public Object getConfig() {
+                    return null;
+                }
+
+                @Override
+                public void cleanup() {
+                }
+            };
+        }
+
+        private Connection newConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                                return newStatement((String) args[0]);
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement newStatement(String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && args.length == 2) {
+                            parameters.add(method.getName() + " " + args[1]);
+                            return null;
+                        }
+                        switch (method.getName()) {
+                            case "getMetaData":
+                                metadataLookups++;
+                                return newMetaData();
+                            case "executeQuery":
+                                if (failQueries) {
+                                    throw new SQLException("Failed query " + sql);
+                                }
+                                statements.add(sql);
+                                return newResultSet();
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSetMetaData newMetaData() {
+            return (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnCount":
+                                return COLUMNS.size();
+                            case "getColumnName":
+                            case "getColumnLabel":
+                                return COLUMNS.get((Integer) args[0] - 1);
+                            case "getColumnType":
+                                return COLUMN_TYPES.get((Integer) args[0] - 1);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet newResultSet() {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return false;
+                            case "getMetaData":
+                                return newMetaData();
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
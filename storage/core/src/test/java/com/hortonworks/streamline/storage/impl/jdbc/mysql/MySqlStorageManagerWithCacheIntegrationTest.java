@@ -17,7 +17,6 @@
 
 package com.hortonworks.streamline.storage.impl.jdbc.mysql;
 
-import com.google.common.cache.CacheBuilder;
 import com.hortonworks.streamline.common.test.IntegrationTest;
 import com.hortonworks.streamline.storage.impl.jdbc.JdbcStorageManagerIntegrationTest;
 import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
@@ -52,13 +51,8 @@ public abstract class MySqlStorageManagerWithCacheIntegrationTest extends JdbcSt
     private void setFields(ConnectionBuilder connectionBuilder, Database db) {
         JdbcStorageManagerIntegrationTest.connectionBuilder = connectionBuilder;
         jdbcStorageManager =  createJdbcStorageManager(new MySqlExecutor(
-                new ExecutionConfig(-1), connectionBuilder, newGuavaCacheBuilder()));
+                new ExecutionConfig(-1), connectionBuilder, 3));
         database = db;
     }
 
-    private static CacheBuilder newGuavaCacheBuilder() {
-        final long maxSize = 3;
-        return  CacheBuilder.newBuilder().maximumSize(maxSize);
-    }
-
 }
@@ -15,7 +15,6 @@
  **/
 package com.hortonworks.streamline.storage.impl.jdbc.phoenix;
 
-import com.google.common.cache.CacheBuilder;
 import com.hortonworks.streamline.common.test.HBaseIntegrationTest;
 import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
 import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.factory.PhoenixExecutor;
@@ -30,8 +29,7 @@ public abstract  class PhoenixStorageManagerWithCacheIntegrationTest extends Pho
 
     public PhoenixStorageManagerWithCacheIntegrationTest() {
         setConnectionBuilder();
-        CacheBuilder  cacheBuilder = CacheBuilder.newBuilder().maximumSize(3);
-        jdbcStorageManager = createJdbcStorageManager(new PhoenixExecutor(new ExecutionConfig(-1), connectionBuilder, cacheBuilder));
+        jdbcStorageManager = createJdbcStorageManager(new PhoenixExecutor(new ExecutionConfig(-1), connectionBuilder, 3));
 
     }
 }
\ No newline at end of file
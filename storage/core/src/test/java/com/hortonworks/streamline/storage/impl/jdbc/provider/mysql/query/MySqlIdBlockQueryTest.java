@@ -0,0 +1,166 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.query;
+
+import com.hortonworks.streamline.storage.exception.StorageException;
+import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MySqlIdBlockQueryTest {
+    private static final String LOCK = "SELECT GET_LOCK('id_blocks.topology_components', 10)";
+    private static final String UNLOCK = "SELECT RELEASE_LOCK('id_blocks.topology_components')";
+    private static final String NEXT_ID = "SELECT COALESCE(MAX(nextId), 0) FROM id_blocks WHERE namespace = 'topology_components'";
+    private static final String ANALYZE = "ANALYZE TABLE topology_components";
+    private static final String AUTO_INCREMENT = "SELECT COALESCE(MAX(AUTO_INCREMENT), 1) FROM information_schema.TABLES"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'topology_components'";
+    private static final String MAX_ID = "SELECT COALESCE(MAX(id), 0) FROM topology_components";
+
+    private final FakeDatabase database = new FakeDatabase();
+
+    @Test
+    public void testFirstBlockStartsAboveExistingComponents() throws Exception {
+        // the ids of the existing sources, processors and sinks were taken from the counter of the empty
+        // topology_components table
+        database.results(LOCK, 1L).results(NEXT_ID, 0L).results(AUTO_INCREMENT, 58L).results(MAX_ID, 0L).results(UNLOCK, 1L);
+
+        Assert.assertEquals(58L, (long) reserve(100));
+        Assert.assertEquals(Arrays.asList(LOCK, NEXT_ID, ANALYZE, AUTO_INCREMENT, MAX_ID,
+                "INSERT INTO id_blocks (namespace, nextId) VALUES ('topology_components', 158) ON DUPLICATE KEY UPDATE nextId = VALUES(nextId)",
+                UNLOCK), database.statements);
+    }
+
+    @Test
+    public void testFirstBlockStartsAboveMaxId() throws Exception {
+        // the auto increment counter was reset on restart
+        database.results(LOCK, 1L).results(NEXT_ID, 0L).results(AUTO_INCREMENT, 1L).results(MAX_ID, 41L).results(UNLOCK, 1L);
+
+        Assert.assertEquals(42L, (long) reserve(100));
+        Assert.assertTrue(database.statements.contains(
+                "INSERT INTO id_blocks (namespace, nextId) VALUES ('topology_components', 142) ON DUPLICATE KEY UPDATE nextId = VALUES(nextId)"));
+    }
+
+    @Test
+    public void testNextBlockStartsAfterReservedIds() throws Exception {
+        database.results(LOCK, 1L).results(NEXT_ID, 142L).results(UNLOCK, 1L);
+
+        Assert.assertEquals(142L, (long) reserve(100));
+        Assert.assertEquals(Arrays.asList(LOCK, NEXT_ID,
+                "INSERT INTO id_blocks (namespace, nextId) VALUES ('topology_components', 242) ON DUPLICATE KEY UPDATE nextId = VALUES(nextId)",
+                UNLOCK), database.statements);
+    }
+
+    @Test
+    public void testLockTimeout() throws Exception {
+        database.results(LOCK, 0L);
+        try {
+            reserve(10);
+            Assert.fail("the reservation should time out");
+        } catch (StorageException e) {
+            Assert.assertEquals(Arrays.asList(LOCK), database.statements);
+        }
+    }
+
+    private Long reserve(int count) {
+        return new MySqlIdBlockQuery("topology_components", count, database.connectionBuilder(), -1).reserve();
+    }
+
+    /**
+     * Records the statements executed and answers the queries with the values given for their sql, in order.
+     */
+    private static class FakeDatabase {
+        private final List<String> statements = new ArrayList<>();
+        private final Map<String, Deque<Long>> results = new HashMap<>();
+
+        FakeDatabase results(String sql, Long... values) {
+            results.put(sql, new ArrayDeque<>(Arrays.asList(values)));
+            return this;
+        }
+
+        ConnectionBuilder<Object> connectionBuilder() {
+            return new ConnectionBuilder<Object>() {
+                @Override
+                public void prepare() {
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return newConnection();
+                }
+
+                @Override
+                public Object getConfig() {
+                    return null;
+                }
+
+                @Override
+                public void cleanup() {
+                }
+            };
+        }
+
+        private Connection newConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> method.getName().equals("prepareStatement") ? newStatement((String) args[0]) : null);
+        }
+
+        private PreparedStatement newStatement(String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "executeQuery":
+                                statements.add(sql);
+                                return newResultSet(results.get(sql).removeFirst());
+                            case "execute":
+                                statements.add(sql);
+                                return true;
+                            case "executeUpdate":
+                                statements.add(sql);
+                                return 1;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet newResultSet(long value) {
+            boolean[] read = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return !read[0] && (read[0] = true);
+                            case "getLong":
+                                return value;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
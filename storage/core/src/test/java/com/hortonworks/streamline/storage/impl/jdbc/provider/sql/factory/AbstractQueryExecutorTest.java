@@ -0,0 +1,197 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.factory;
+
+import com.hortonworks.streamline.storage.Storable;
+import com.hortonworks.streamline.storage.StorableAccessorTest.Device;
+import com.hortonworks.streamline.storage.StorableFactory;
+import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.streamline.storage.impl.jdbc.connection.ConnectionBuilder;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.mysql.factory.MySqlExecutor;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.factory.PhoenixExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AbstractQueryExecutorTest {
+    private final FakeDatabase database = new FakeDatabase();
+    private StorableFactory storableFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        storableFactory = new StorableFactory();
+        storableFactory.addStorableClasses(Collections.<Class<? extends Storable>>singletonList(Device.class));
+    }
+
+    @Test
+    public void testStreamReleasesResourcesOnClose() throws Exception {
+        database.rows(1L, 2L, 3L);
+        final MySqlExecutor executor = new MySqlExecutor(new ExecutionConfig(-1, 2), database.connectionBuilder());
+        executor.setStorableFactory(storableFactory);
+
+        try (Stream<Device> devices = executor.stream("device")) {
+            final Iterator<Device> iterator = devices.iterator();
+            Assert.assertEquals(1L, (long) iterator.next().getId());
+            // the rows are read as the stream is consumed, the query is still open
+            Assert.assertFalse(database.resultSetClosed);
+            Assert.assertFalse(database.connectionClosed);
+        }
+
+        Assert.assertEquals(Arrays.asList("SELECT * FROM device"), database.statements);
+        Assert.assertEquals(2, database.fetchSize);
+        Assert.assertTrue(database.resultSetClosed);
+        Assert.assertTrue(database.connectionClosed);
+    }
+
+    @Test
+    public void testPhoenixPageSkipsRowsBeforeOffset() throws Exception {
+        database.rows(1L, 2L, 3L, 4L);
+        final PhoenixExecutor executor = new PhoenixExecutor(new ExecutionConfig(-1), database.connectionBuilder());
+        executor.setStorableFactory(storableFactory);
+
+        final Collection<Device> page = executor.select("device", Collections.emptyList(), 2, 2);
+
+        Assert.assertEquals(Arrays.asList("SELECT * FROM device LIMIT ?"), database.statements);
+        Assert.assertEquals(Collections.<Object>singletonList(4), database.parameters);
+        Assert.assertEquals(Arrays.asList(3L, 4L), page.stream().map(Device::getId).collect(Collectors.toList()));
+        Assert.assertTrue(database.connectionClosed);
+    }
+
+    /**
+     * Records the queries executed and answers them with rows of a single id column.
+     */
+    private static class FakeDatabase {
+        private final List<String> statements = new ArrayList<>();
+        private final List<Object> parameters = new ArrayList<>();
+        private List<Long> ids = Collections.emptyList();
+        private int fetchSize;
+        private boolean resultSetClosed;
+        private boolean connectionClosed;
+
+        FakeDatabase rows(Long... ids) {
+            this.ids = Arrays.asList(ids);
+            return this;
+        }
+
+        ConnectionBuilder<Object> connectionBuilder() {
+            return new ConnectionBuilder<Object>() {
+                @Override
+                public void prepare() {
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return newConnection();
+                }
+
+                @Override
+                public Object getConfig() {
+                    return null;
+                }
+
+                @Override
+                public void cleanup() {
+                }
+            };
+        }
+
+        private Connection newConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                                return newStatement((String) args[0]);
+                            case "close":
+                                connectionClosed = true;
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement newStatement(String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setFetchSize":
+                                fetchSize = (Integer) args[0];
+                                return null;
+                            case "setObject":
+                                parameters.add(args[1]);
+                                return null;
+                            case "executeQuery":
+                                statements.add(sql);
+                                return newResultSet();
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private ResultSet newResultSet() {
+            final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnCount":
+                                return 1;
+                            case "getColumnLabel":
+                                return "id";
+                            case "getColumnType":
+                                return Types.BIGINT;
+                            default:
+                                return null;
+                        }
+                    });
+            final int[] row = {-1};
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++row[0] < ids.size();
+                            case "getMetaData":
+                                return metaData;
+                            case "getLong":
+                                return ids.get(row[0]);
+                            case "close":
+                                resultSetClosed = true;
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
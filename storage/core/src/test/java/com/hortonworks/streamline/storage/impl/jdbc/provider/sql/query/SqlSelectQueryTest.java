@@ -0,0 +1,66 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query;
+
+import com.hortonworks.streamline.common.OrderByField;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.PrimaryKey;
+import com.hortonworks.streamline.storage.StorableKey;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.phoenix.query.PhoenixSelectQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SqlSelectQueryTest {
+    private static final List<OrderByField> ORDER_BY = Arrays.asList(OrderByField.of("name"), OrderByField.of("id", true));
+
+    @Test
+    public void testPage() throws Exception {
+        SqlSelectQuery query = new SqlSelectQuery("device", ORDER_BY, 20, 10);
+        Assert.assertEquals("SELECT * FROM device ORDER BY name ASC, id DESC LIMIT ? OFFSET ?", query.getParametrizedSql());
+        Assert.assertEquals(Arrays.<Object>asList(10, 20L), query.getPageParameters());
+        query = new SqlSelectQuery(deviceKey(), ORDER_BY, 0, 10);
+        Assert.assertEquals("SELECT * FROM device WHERE id = ? ORDER BY name ASC, id DESC LIMIT ? OFFSET ?",
+                query.getParametrizedSql());
+        Assert.assertEquals(Arrays.<Object>asList(10, 0L), query.getPageParameters());
+        query = new SqlSelectQuery("device", ORDER_BY, 0, 0);
+        Assert.assertEquals("SELECT * FROM device ORDER BY name ASC, id DESC", query.getParametrizedSql());
+        Assert.assertTrue(query.getPageParameters().isEmpty());
+        // all the pages share the statement
+        Assert.assertEquals(new SqlSelectQuery("device", ORDER_BY, 20, 10).getParametrizedSql(),
+                new SqlSelectQuery("device", ORDER_BY, 40, 50).getParametrizedSql());
+    }
+
+    @Test
+    public void testPhoenixPageHasNoOffset() throws Exception {
+        PhoenixSelectQuery query = new PhoenixSelectQuery("device", ORDER_BY, 20, 10);
+        Assert.assertEquals("SELECT * FROM device ORDER BY \"name\" ASC, \"id\" DESC LIMIT ?", query.getParametrizedSql());
+        Assert.assertEquals(Collections.<Object>singletonList(30), query.getPageParameters());
+        query = new PhoenixSelectQuery(deviceKey(), ORDER_BY, 0, 10);
+        Assert.assertEquals("SELECT * FROM device WHERE \"id\" = ? ORDER BY \"name\" ASC, \"id\" DESC LIMIT ?",
+                query.getParametrizedSql());
+        Assert.assertEquals(Collections.<Object>singletonList(10), query.getPageParameters());
+        Assert.assertEquals(Collections.<Object>singletonList(Integer.MAX_VALUE),
+                new PhoenixSelectQuery("device", Collections.emptyList(), Long.MAX_VALUE - 1, 10).getPageParameters());
+    }
+
+    private static StorableKey deviceKey() {
+        return new StorableKey("device", new PrimaryKey(Collections.singletonMap(Schema.Field.of("id", Schema.Type.LONG), 1L)));
+    }
+}
@@ -0,0 +1,161 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+
+package com.hortonworks.streamline.storage.impl.jdbc.provider.sql.statement;
+
+import com.hortonworks.streamline.cache.stats.CacheStats;
+import com.hortonworks.streamline.common.OrderByField;
+import com.hortonworks.streamline.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.streamline.storage.impl.jdbc.provider.sql.query.SqlSelectQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.List;
+
+public class StatementCacheTest {
+    private final StatementCache statementCache = new StatementCache(new ExecutionConfig(-1), 2);
+
+    @Test
+    public void testStatementsAreCachedPerPhysicalConnection() throws Exception {
+        FakeConnection physical = new FakeConnection();
+        Connection pooled1 = new FakeConnection(physical).connection;
+        Connection pooled2 = new FakeConnection(physical).connection;
+
+        PreparedStatementBuilder builder = statementCache.get(pooled1, new SqlSelectQuery("topology"), false);
+        Assert.assertSame(builder, statementCache.get(pooled2, new SqlSelectQuery("topology"), false));
+        Assert.assertNotSame(builder, statementCache.get(pooled2, new SqlSelectQuery("topology"), true));
+        Assert.assertNotSame(builder, statementCache.get(new FakeConnection().connection, new SqlSelectQuery("topology"), false));
+
+        CacheStats stats = statementCache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(3, stats.getMissCount());
+        Assert.assertEquals(2, physical.prepared);
+    }
+
+    @Test
+    public void testPagesShareStatement() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        List<OrderByField> orderBy = Collections.singletonList(OrderByField.of("id"));
+        PreparedStatementBuilder builder = statementCache.get(connection.connection,
+                new SqlSelectQuery("topology", orderBy, 0, 10), false);
+        Assert.assertSame(builder, statementCache.get(connection.connection,
+                new SqlSelectQuery("topology", orderBy, 10, 10), false));
+        Assert.assertSame(builder, statementCache.get(connection.connection,
+                new SqlSelectQuery("topology", orderBy, 20, 5), false));
+        Assert.assertEquals(1, connection.prepared);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsClosed() throws Exception {
+        Connection connection = new FakeConnection().connection;
+        PreparedStatementBuilder topology = statementCache.get(connection, new SqlSelectQuery("topology"), false);
+        PreparedStatementBuilder source = statementCache.get(connection, new SqlSelectQuery("topology_source"), false);
+        statementCache.get(connection, new SqlSelectQuery("topology"), false);
+        statementCache.get(connection, new SqlSelectQuery("topology_sink"), false);
+
+        Assert.assertFalse(topology.isClosed());
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(1, statementCache.stats().getEvictionCount());
+
+        statementCache.clear();
+        Assert.assertTrue(topology.isClosed());
+    }
+
+    @Test
+    public void testClosedStatementIsPreparedAgain() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        PreparedStatementBuilder builder = statementCache.get(connection.connection, new SqlSelectQuery("topology"), false);
+        builder.close();
+        Assert.assertNotSame(builder, statementCache.get(connection.connection, new SqlSelectQuery("topology"), false));
+        Assert.assertEquals(2, connection.prepared);
+    }
+
+    /**
+     * Connection prepared statements only track whether they are closed, pooled connections unwrap to the physical one.
+     */
+    private static class FakeConnection implements InvocationHandler {
+        private final FakeConnection physical;
+        private final Connection connection;
+        private int prepared;
+        private boolean closed;
+
+        FakeConnection() {
+            this(null);
+        }
+
+        FakeConnection(FakeConnection physical) {
+            this.physical = physical;
+            this.connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "isWrapperFor":
+                    return true;
+                case "unwrap":
+                    return physical != null ? physical.connection : connection;
+                case "prepareStatement":
+                    prepared++;
+                    return newStatement();
+                case "isClosed":
+                    return closed;
+                case "close":
+                    closed = true;
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        }
+
+        private static PreparedStatement newStatement() {
+            final boolean[] closed = new boolean[1];
+            return (PreparedStatement) Proxy.newProxyInstance(FakeConnection.class.getClassLoader(),
+                    new Class[]{PreparedStatement.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            switch (method.getName()) {
+                                case "isClosed":
+                                    return closed[0];
+                                case "close":
+                                    closed[0] = true;
+                                    return null;
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "equals":
+                                    return proxy == args[0];
+                                case "toString":
+                                    return "FakePreparedStatement";
+                                default:
+                                    return null;
+                            }
+                        }
+                    });
+        }
+    }
+}
@@ -16,13 +16,24 @@
 
 package com.hortonworks.streamline.storage.impl.memory;
 
+import com.hortonworks.streamline.common.OrderByField;
+import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.storage.AbstractStoreManagerTest;
+import com.hortonworks.streamline.storage.CacheBackedStorageManagerTest.Device;
 import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorageManager;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public abstract class InMemoryStorageManagerTest extends AbstractStoreManagerTest {
     private final StorageManager storageManager = new InMemoryStorageManager();
@@ -38,4 +49,96 @@ public abstract class InMemoryStorageManagerTest extends AbstractStoreManagerTes
         Assert.assertTrue(found.isEmpty());
     }
 
+    @Test
+    public void testFind_IndexedFields_SameResultsAsScan() {
+        InMemoryStorageManager indexed = new InMemoryStorageManager();
+        indexed.init(Collections.<String, Object>singletonMap(InMemoryStorageManager.INDEX_QUERY_THRESHOLD, 1));
+        InMemoryStorageManager scanned = new InMemoryStorageManager();
+        scanned.init(Collections.<String, Object>singletonMap(InMemoryStorageManager.INDEX_QUERY_THRESHOLD, 0));
+        for (long i = 0; i < 100; i++) {
+            indexed.add(newDevice(i, i % 10, "d" + (i % 3)));
+            scanned.add(newDevice(i, i % 10, "d" + (i % 3)));
+        }
+        indexed.createIndex("device", "name");
+
+        assertFind(indexed, scanned, 10, "topologyId", "3");
+        assertFind(indexed, scanned, 4, "topologyId", "3", "name", "d0");
+
+        // updates and removes are reflected in the index
+        indexed.addOrUpdate(newDevice(3L, 4L, "d0"));
+        scanned.addOrUpdate(newDevice(3L, 4L, "d0"));
+        indexed.remove(newDevice(13L, 3L, "d1").getStorableKey());
+        scanned.remove(newDevice(13L, 3L, "d1").getStorableKey());
+        assertFind(indexed, scanned, 8, "topologyId", "3");
+        assertFind(indexed, scanned, 11, "topologyId", "4");
+        assertFind(indexed, scanned, 0, "topologyId", "42");
+    }
+
+    @Test
+    public void testFind_Page_OrderedAndBounded() {
+        InMemoryStorageManager storageManager = new InMemoryStorageManager();
+        for (long i = 0; i < 25; i++) {
+            storageManager.add(newDevice(i, i % 5, "d" + (i % 3)));
+        }
+
+        // ordered by primary key without order by fields, the pages cover all devices once
+        List<Long> ids = new ArrayList<>();
+        for (long offset = 0; offset < 30; offset += 10) {
+            ids.addAll(getIdList(storageManager.<Storable>find("device", null, null, offset, 10)));
+        }
+        Assert.assertEquals(25, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i), ids.get(i));
+        }
+
+        Collection<Storable> page = storageManager.find("device", QueryParam.params("topologyId", "1"),
+                Arrays.asList(OrderByField.of("name", true), OrderByField.of("id")), 1, 3);
+        Assert.assertEquals(Arrays.asList(1L, 16L, 6L), getIdList(page));
+    }
+
+    @Test
+    public void testStream_SameResultsAsFind() {
+        InMemoryStorageManager storageManager = new InMemoryStorageManager();
+        for (long i = 0; i < 20; i++) {
+            storageManager.add(newDevice(i, i % 4, "d" + i));
+        }
+        try (Stream<Storable> devices = storageManager.stream("device", QueryParam.params("topologyId", "2"))) {
+            Assert.assertEquals(getIds(storageManager.<Storable>find("device", QueryParam.params("topologyId", "2"))),
+                    devices.map(Storable::getId).collect(Collectors.toSet()));
+        }
+        try (Stream<Storable> devices = storageManager.stream("device", null)) {
+            Assert.assertEquals(20, devices.count());
+        }
+    }
+
+    private static List<Long> getIdList(Collection<Storable> storables) {
+        List<Long> ids = new ArrayList<>();
+        for (Storable storable : storables) {
+            ids.add(storable.getId());
+        }
+        return ids;
+    }
+
+    private static void assertFind(StorageManager indexed, StorageManager scanned, int expectedSize, String... params) {
+        Set<Long> ids = getIds(indexed.<Storable>find("device", QueryParam.params(params)));
+        Assert.assertEquals(expectedSize, ids.size());
+        Assert.assertEquals(getIds(scanned.<Storable>find("device", QueryParam.params(params))), ids);
+    }
+
+    private static Set<Long> getIds(Collection<Storable> storables) {
+        Set<Long> ids = new HashSet<>();
+        for (Storable storable : storables) {
+            ids.add(storable.getId());
+        }
+        return ids;
+    }
+
+    private static Device newDevice(Long id, Long topologyId, String name) {
+        Device device = new Device();
+        device.setId(id);
+        device.setTopologyId(topologyId);
+        device.setName(name);
+        return device;
+    }
+
 }
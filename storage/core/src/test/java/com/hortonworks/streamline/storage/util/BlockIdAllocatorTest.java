@@ -0,0 +1,85 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.storage.util;
+
+import com.hortonworks.streamline.storage.StorageManager;
+import com.hortonworks.streamline.storage.impl.memory.InMemoryStorageManager;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BlockIdAllocatorTest {
+    private static final String NAMESPACE = "topology_components";
+
+    @Test
+    public void testUniqueIdsAcrossThreads() throws Exception {
+        final BlockIdAllocator allocator = new BlockIdAllocator(new InMemoryStorageManager(), 7);
+        final int threads = 8;
+        final int idsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() {
+                        List<Long> ids = new ArrayList<>();
+                        for (int j = 0; j < idsPerThread; j++) {
+                            ids.add(allocator.nextId(NAMESPACE));
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get());
+            }
+            assertEquals(threads * idsPerThread, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNoCollisionsAfterRestart() throws Exception {
+        StorageManager storageManager = new InMemoryStorageManager();
+        BlockIdAllocator allocator = new BlockIdAllocator(storageManager, 10);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 15; i++) {
+            ids.add(allocator.nextId(NAMESPACE));
+        }
+        // a new allocator starts from a new block, the rest of the previous block is skipped
+        BlockIdAllocator restarted = new BlockIdAllocator(storageManager, 10);
+        Long id = restarted.nextId(NAMESPACE);
+        assertEquals(Long.valueOf(21), id);
+        assertTrue(ids.add(id));
+        // the plain sequence of the namespace does not hand out reserved ids either
+        assertEquals(Long.valueOf(31), storageManager.nextId(NAMESPACE));
+        assertEquals(Long.valueOf(1), allocator.nextId("other"));
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.hortonworks.streamline.streams.catalog.service;
 
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.common.util.FileStorage;
 import com.hortonworks.streamline.registries.tag.client.TagClient;
@@ -92,6 +93,11 @@ public class CatalogService {
         return dao.find(FILE_NAMESPACE, queryParams);
     }
 
+    public Collection<FileInfo> listFiles(List<QueryParam> queryParams, List<OrderByField> orderByFields,
+                                          long offset, int limit) {
+        return dao.find(FILE_NAMESPACE, queryParams, orderByFields, offset, limit);
+    }
+
     public FileInfo getFile(Long jarId) {
         FileInfo file = new FileInfo();
         file.setId(jarId);
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
+import com.hortonworks.streamline.storage.util.BlockIdAllocator;
 import com.hortonworks.streamline.streams.catalog.Cluster;
 import com.hortonworks.streamline.streams.catalog.Component;
 import com.hortonworks.streamline.streams.catalog.Namespace;
@@ -51,11 +52,13 @@ public class EnvironmentService {
     private static final String NAMESPACE_SERVICE_CLUSTER_MAPPING_NAMESPACE = new NamespaceServiceClusterMapping().getNameSpace();
 
     private final StorageManager dao;
+    private final BlockIdAllocator idAllocator;
     private final ClusterImporter clusterImporter;
     private final List<ContainingNamespaceAwareContainer> containers;
 
     public EnvironmentService(StorageManager dao) {
         this.dao = dao;
+        this.idAllocator = new BlockIdAllocator(dao);
         this.clusterImporter = new ClusterImporter(this);
         this.containers = new ArrayList<>();
     }
@@ -70,7 +73,7 @@ public class EnvironmentService {
 
     public Service initializeService(Cluster cluster, String serviceName) {
         Service service = new Service();
-        service.setId(this.dao.nextId(SERVICE_NAMESPACE));
+        service.setId(this.idAllocator.nextId(SERVICE_NAMESPACE));
         service.setName(serviceName);
         service.setClusterId(cluster.getId());
         service.setTimestamp(System.currentTimeMillis());
@@ -79,7 +82,7 @@ public class EnvironmentService {
 
     public Component initializeComponent(Service service, String componentName, List<String> hosts) {
         Component component = new Component();
-        component.setId(this.dao.nextId(COMPONENT_NAMESPACE));
+        component.setId(this.idAllocator.nextId(COMPONENT_NAMESPACE));
         component.setName(componentName);
         component.setServiceId(service.getId());
         component.setTimestamp(System.currentTimeMillis());
@@ -90,7 +93,7 @@ public class EnvironmentService {
     public ServiceConfiguration initializeServiceConfiguration(ObjectMapper objectMapper, Long serviceId,
                                                                String confType, String actualFileName, Map<String, Object> configuration) throws JsonProcessingException {
         ServiceConfiguration conf = new ServiceConfiguration();
-        conf.setId(this.dao.nextId(SERVICE_CONFIGURATION_NAMESPACE));
+        conf.setId(this.idAllocator.nextId(SERVICE_CONFIGURATION_NAMESPACE));
         conf.setName(confType);
         conf.setServiceId(serviceId);
         conf.setFilename(actualFileName);
@@ -157,7 +160,7 @@ public class EnvironmentService {
 
     public Service addService(Service service) {
         if (service.getId() == null) {
-            service.setId(this.dao.nextId(SERVICE_NAMESPACE));
+            service.setId(this.idAllocator.nextId(SERVICE_NAMESPACE));
         }
         if (service.getTimestamp() == null) {
             service.setTimestamp(System.currentTimeMillis());
@@ -213,7 +216,7 @@ public class EnvironmentService {
 
     public Service addOrUpdateService(Long clusterId, Long componentId, Service service) {
         service.setClusterId(clusterId);
-        service.setId(componentId);
+        service.setId(componentId != null ? componentId : this.idAllocator.nextId(SERVICE_NAMESPACE));
         if (service.getTimestamp() == null) {
             service.setTimestamp(System.currentTimeMillis());
         }
@@ -223,7 +226,7 @@ public class EnvironmentService {
 
     public Component addComponent(Component component) {
         if (component.getId() == null) {
-            component.setId(this.dao.nextId(COMPONENT_NAMESPACE));
+            component.setId(this.idAllocator.nextId(COMPONENT_NAMESPACE));
         }
         if (component.getTimestamp() == null) {
             component.setTimestamp(System.currentTimeMillis());
@@ -275,7 +278,7 @@ public class EnvironmentService {
 
     public Component addOrUpdateComponent(Long serviceId, Long componentId, Component component) {
         component.setServiceId(serviceId);
-        component.setId(componentId);
+        component.setId(componentId != null ? componentId : this.idAllocator.nextId(COMPONENT_NAMESPACE));
         if (component.getTimestamp() == null) {
             component.setTimestamp(System.currentTimeMillis());
         }
@@ -323,7 +326,7 @@ public class EnvironmentService {
 
     public ServiceConfiguration addServiceConfiguration(ServiceConfiguration serviceConfiguration) {
         if (serviceConfiguration.getId() == null) {
-            serviceConfiguration.setId(this.dao.nextId(SERVICE_CONFIGURATION_NAMESPACE));
+            serviceConfiguration.setId(this.idAllocator.nextId(SERVICE_CONFIGURATION_NAMESPACE));
         }
         if (serviceConfiguration.getTimestamp() == null) {
             serviceConfiguration.setTimestamp(System.currentTimeMillis());
@@ -340,7 +343,8 @@ public class EnvironmentService {
     public ServiceConfiguration addOrUpdateServiceConfiguration(Long serviceId, Long serviceConfigurationId,
                                                                 ServiceConfiguration serviceConfiguration) {
         serviceConfiguration.setServiceId(serviceId);
-        serviceConfiguration.setId(serviceConfigurationId);
+        serviceConfiguration.setId(serviceConfigurationId != null ? serviceConfigurationId
+                : this.idAllocator.nextId(SERVICE_CONFIGURATION_NAMESPACE));
         if (serviceConfiguration.getTimestamp() == null) {
             serviceConfiguration.setTimestamp(System.currentTimeMillis());
         }
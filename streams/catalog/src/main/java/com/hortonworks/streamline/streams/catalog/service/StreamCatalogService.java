@@ -32,8 +32,10 @@ import com.hortonworks.streamline.common.util.Utils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import com.hortonworks.streamline.common.ComponentTypes;
+import com.hortonworks.streamline.common.OrderByField;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.common.exception.DuplicateEntityException;
 import com.hortonworks.streamline.common.util.FileStorage;
 import com.hortonworks.streamline.common.util.ProxyUtil;
 import com.hortonworks.streamline.common.util.WSUtils;
@@ -42,6 +44,7 @@ import com.hortonworks.streamline.storage.Storable;
 import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
 import com.hortonworks.streamline.storage.exception.StorageException;
+import com.hortonworks.streamline.storage.util.BlockIdAllocator;
 import com.hortonworks.streamline.storage.util.StorageUtils;
 import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.catalog.BranchRuleInfo;
@@ -101,6 +104,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -152,11 +156,13 @@ public class StreamCatalogService {
     private static final String CLONE_SUFFIX = "-clone";
 
     private final StorageManager dao;
+    private final BlockIdAllocator idAllocator;
     private final FileStorage fileStorage;
     private final TopologyDagBuilder topologyDagBuilder;
 
     public StreamCatalogService(StorageManager dao, FileStorage fileStorage, MLModelRegistryClient modelRegistryClient) {
         this.dao = dao;
+        this.idAllocator = new BlockIdAllocator(dao);
         dao.registerStorables(getStorableClasses());
         this.fileStorage = fileStorage;
         this.topologyDagBuilder = new TopologyDagBuilder(this, modelRegistryClient);
@@ -228,6 +234,12 @@ public class StreamCatalogService {
         return dao.find(TOPOLOGY_VERSIONINFO_NAMESPACE, queryParams);
     }
 
+    public Collection<TopologyVersionInfo> listTopologyVersionInfos(List<QueryParam> queryParams,
+                                                                    List<OrderByField> orderByFields,
+                                                                    long offset, int limit) {
+        return dao.find(TOPOLOGY_VERSIONINFO_NAMESPACE, queryParams, orderByFields, offset, limit);
+    }
+
 
     public Optional<TopologyVersionInfo> getCurrentTopologyVersionInfo(Long topologyId) {
         Collection<TopologyVersionInfo> versions = listTopologyVersionInfos(
@@ -308,23 +320,28 @@ public class StreamCatalogService {
      * Lists the 'CURRENT' version of topologies
      */
     public Collection<Topology> listTopologies() {
-        List<Topology> topologies = new ArrayList<>();
+        Map<Long, TopologyVersionInfo> currentVersions = new HashMap<>();
         for (TopologyVersionInfo version: listCurrentTopologyVersionInfos()) {
-            topologies.addAll(listTopologies(version.getId()));
+            currentVersions.put(version.getId(), version);
+        }
+        List<Topology> topologies = new ArrayList<>();
+        if (!currentVersions.isEmpty()) {
+            for (Topology topology : this.dao.<Topology>list(TOPOLOGY_NAMESPACE)) {
+                TopologyVersionInfo version = currentVersions.get(topology.getVersionId());
+                if (version != null) {
+                    topology.setVersionTimestamp(version.getTimestamp());
+                    topologies.add(topology);
+                }
+            }
         }
-        return topologies;
-    }
-
-    private Collection<Topology> listTopologies(Long versionId) {
-        Collection<Topology> topologies = this.dao.find(TOPOLOGY_NAMESPACE, versionIdQueryParam(versionId));
-        Long versionTimestamp = getVersionTimestamp(versionId);
-        topologies.forEach(x -> x.setVersionTimestamp(versionTimestamp));
         return topologies;
     }
 
     public Collection<Topology> listTopologies(List<QueryParam> queryParams) {
         Collection<Topology> topologies = this.dao.find(TOPOLOGY_NAMESPACE, queryParams);
-        topologies.forEach(t -> t.setVersionTimestamp(getVersionTimestamp(t.getVersionId())));
+        Map<Long, Long> versionTimestamps = new HashMap<>();
+        topologies.forEach(t -> t.setVersionTimestamp(
+                versionTimestamps.computeIfAbsent(t.getVersionId(), this::getVersionTimestamp)));
         return topologies;
     }
 
@@ -503,46 +520,32 @@ public class StreamCatalogService {
         }
 
         // sources, output streams
-        Collection<TopologySource> sources = listTopologySources(topologyIdVersionIdQueryParams);
-        for (TopologySource source : sources) {
-            addTopologySource(topologyId, newVersionId, new TopologySource(source));
-        }
+        addTopologySources(topologyId, newVersionId, listTopologySources(topologyIdVersionIdQueryParams).stream()
+                .map(TopologySource::new).collect(Collectors.toList()));
 
         // processors, output streams
-        Collection<TopologyProcessor> processors = listTopologyProcessors(topologyIdVersionIdQueryParams);
-        for (TopologyProcessor processor: processors) {
-            addTopologyProcessor(topologyId, newVersionId, new TopologyProcessor(processor));
-        }
+        addTopologyProcessors(topologyId, newVersionId, listTopologyProcessors(topologyIdVersionIdQueryParams).stream()
+                .map(TopologyProcessor::new).collect(Collectors.toList()));
 
         // add sinks
-        Collection<TopologySink> sinks = listTopologySinks(topologyIdVersionIdQueryParams);
-        for (TopologySink sink : sinks) {
-            addTopologySink(topologyId, newVersionId, new TopologySink(sink));
-        }
+        addTopologySinks(topologyId, newVersionId, listTopologySinks(topologyIdVersionIdQueryParams).stream()
+                .map(TopologySink::new).collect(Collectors.toList()));
 
         // branch rules
-        Collection<BranchRuleInfo> branchRuleInfos = listBranchRules(topologyIdVersionIdQueryParams);
-        for (BranchRuleInfo branchRuleInfo: branchRuleInfos) {
-            addBranchRule(topologyId, newVersionId, new BranchRuleInfo(branchRuleInfo));
-        }
+        addBranchRules(topologyId, newVersionId, listBranchRules(topologyIdVersionIdQueryParams).stream()
+                .map(BranchRuleInfo::new).collect(Collectors.toList()));
 
         // windowed rules
-        Collection<WindowInfo> windowInfos = listWindows(topologyIdVersionIdQueryParams);
-        for (WindowInfo windowInfo: windowInfos) {
-            addWindow(topologyId, newVersionId, new WindowInfo(windowInfo));
-        }
+        addWindows(topologyId, newVersionId, listWindows(topologyIdVersionIdQueryParams).stream()
+                .map(WindowInfo::new).collect(Collectors.toList()));
 
         // rules
-        Collection<RuleInfo> ruleInfos = listRules(topologyIdVersionIdQueryParams);
-        for (RuleInfo ruleInfo: ruleInfos) {
-            addRule(topologyId, newVersionId, new RuleInfo(ruleInfo));
-        }
+        addRules(topologyId, newVersionId, listRules(topologyIdVersionIdQueryParams).stream()
+                .map(RuleInfo::new).collect(Collectors.toList()));
 
         // add edges
-        Collection<TopologyEdge> edges = listTopologyEdges(topologyIdVersionIdQueryParams);
-        for (TopologyEdge edge: edges) {
-            addTopologyEdge(topologyId, newVersionId, new TopologyEdge(edge));
-        }
+        addTopologyEdges(topologyId, newVersionId, listTopologyEdges(topologyIdVersionIdQueryParams).stream()
+                .map(TopologyEdge::new).collect(Collectors.toList()));
     }
 
     public Topology addOrUpdateTopology(Long topologyId, Topology topology) {
@@ -593,20 +596,60 @@ public class StreamCatalogService {
         return topologyData;
     }
 
-    private List<Long> importOutputStreams(Long newTopologyId, Map<Long, Long> oldToNewStreamIds, List<StreamInfo> streams) {
-        List<Long> importedOutputStreamIds = new ArrayList<>();
-        for (StreamInfo stream : streams) {
-            Long oldId = stream.getId();
-            Long newId = oldToNewStreamIds.get(oldId);
-            if (newId == null) {
-                stream.setId(null);
-                StreamInfo addedStreamInfo = addStreamInfo(newTopologyId, stream);
-                newId = addedStreamInfo.getId();
-                oldToNewStreamIds.put(oldId, newId);
+    // adds the streams of all the components at once, a stream output by several components is added once
+    private void importOutputStreams(Long newTopologyId, Long versionId, Map<Long, Long> oldToNewStreamIds,
+                                     List<? extends TopologyOutputComponent> outputComponents) {
+        Map<Long, StreamInfo> streamsToAdd = new LinkedHashMap<>();
+        List<List<Long>> oldOutputStreamIds = new ArrayList<>();
+        for (TopologyOutputComponent outputComponent : outputComponents) {
+            List<Long> oldIds = new ArrayList<>();
+            for (StreamInfo stream : outputComponent.getOutputStreams()) {
+                oldIds.add(stream.getId());
+                if (!oldToNewStreamIds.containsKey(stream.getId())) {
+                    streamsToAdd.putIfAbsent(stream.getId(), stream);
+                }
             }
-            importedOutputStreamIds.add(newId);
+            oldOutputStreamIds.add(oldIds);
+        }
+        List<StreamInfo> streams = new ArrayList<>(streamsToAdd.values());
+        oldToNewStreamIds.putAll(getOldToNewIds(clearIds(streams), addStreamInfos(newTopologyId, versionId, streams)));
+
+        for (int i = 0; i < outputComponents.size(); i++) {
+            outputComponents.get(i).setOutputStreamIds(oldOutputStreamIds.get(i).stream()
+                    .map(oldToNewStreamIds::get).collect(Collectors.toList()));
+            outputComponents.get(i).setOutputStreams(null);
+        }
+    }
+
+    // assigns the ids of the added entities to their old ids, the entities are added in order
+    private static <T extends Storable> Map<Long, Long> getOldToNewIds(List<Long> oldIds, List<T> added) {
+        Map<Long, Long> oldToNewIds = new HashMap<>();
+        for (int i = 0; i < oldIds.size(); i++) {
+            oldToNewIds.put(oldIds.get(i), added.get(i).getId());
+        }
+        return oldToNewIds;
+    }
+
+    private static <T extends Storable> List<Long> clearIds(List<T> storables) {
+        List<Long> oldIds = new ArrayList<>();
+        for (T storable : storables) {
+            oldIds.add(storable.getId());
+            storable.setId(null);
+        }
+        return oldIds;
+    }
+
+    // looks up each type and sub type once per import
+    private TopologyComponentBundle getCurrentTopologyComponentBundle(Map<String, TopologyComponentBundle> bundles,
+                                                                      TopologyComponentBundle.TopologyComponentType type,
+                                                                      String subType) {
+        String key = type + "/" + subType;
+        TopologyComponentBundle bundle = bundles.get(key);
+        if (bundle == null) {
+            bundle = getCurrentTopologyComponentBundle(type, subType);
+            bundles.put(key, bundle);
         }
-        return importedOutputStreamIds;
+        return bundle;
     }
 
     private TopologyComponentBundle getCurrentTopologyComponentBundle(TopologyComponentBundle.TopologyComponentType type, String subType) {
@@ -621,70 +664,46 @@ public class StreamCatalogService {
     }
 
     private Topology doImportTopology(Topology newTopology, TopologyData topologyData) throws Exception {
+        Long topologyId = newTopology.getId();
+        Long versionId = getCurrentVersionId(topologyId);
         List<TopologySource> topologySources = topologyData.getSources();
         Map<Long, Long> oldToNewComponentIds = new HashMap<>();
-        Map<Long, Long> oldToNewRuleIds = new HashMap<>();
-        Map<Long, Long> oldToNewWindowIds = new HashMap<>();
-        Map<Long, Long> oldToNewBranchRuleIds = new HashMap<>();
         Map<Long, Long> oldToNewStreamIds = new HashMap<>();
+        Map<String, TopologyComponentBundle> bundles = new HashMap<>();
 
-        // import source streams
-        for (TopologySource topologySource : topologySources) {
-            topologySource.setOutputStreamIds(importOutputStreams(newTopology.getId(),
-                    oldToNewStreamIds, topologySource.getOutputStreams()));
-            topologySource.setOutputStreams(null);
-        }
-
-        // import processor streams
-        for (TopologyProcessor topologyProcessor : topologyData.getProcessors()) {
-            topologyProcessor.setOutputStreamIds(importOutputStreams(newTopology.getId(),
-                    oldToNewStreamIds, topologyProcessor.getOutputStreams()));
-            topologyProcessor.setOutputStreams(null);
-        }
+        // import source and processor streams
+        importOutputStreams(topologyId, versionId, oldToNewStreamIds, topologySources);
+        importOutputStreams(topologyId, versionId, oldToNewStreamIds, topologyData.getProcessors());
 
         // import rules
-        for (RuleInfo rule : topologyData.getRules()) {
-            Long currentId = rule.getId();
-            rule.setId(null);
-            RuleInfo addedRule = addRule(newTopology.getId(), rule);
-            oldToNewRuleIds.put(currentId, addedRule.getId());
-        }
+        List<RuleInfo> rules = topologyData.getRules();
+        Map<Long, Long> oldToNewRuleIds = getOldToNewIds(clearIds(rules), addRules(topologyId, versionId, rules));
 
         // import windowed rules
-        for (WindowInfo window : topologyData.getWindows()) {
-            Long currentId = window.getId();
-            window.setId(null);
-            WindowInfo addedWindow = addWindow(newTopology.getId(), window);
-            oldToNewWindowIds.put(currentId, addedWindow.getId());
-        }
+        List<WindowInfo> windows = topologyData.getWindows();
+        Map<Long, Long> oldToNewWindowIds = getOldToNewIds(clearIds(windows), addWindows(topologyId, versionId, windows));
 
         // import branch rules
-        for (BranchRuleInfo branchRule : topologyData.getBranchRules()) {
-            Long currentId = branchRule.getId();
-            branchRule.setId(null);
-            BranchRuleInfo addedBranchRule = addBranchRule(newTopology.getId(), branchRule);
-            oldToNewBranchRuleIds.put(currentId, addedBranchRule.getId());
-        }
+        List<BranchRuleInfo> branchRules = topologyData.getBranchRules();
+        Map<Long, Long> oldToNewBranchRuleIds = getOldToNewIds(clearIds(branchRules),
+                addBranchRules(topologyId, versionId, branchRules));
 
         // import sources
         for (TopologySource topologySource : topologySources) {
-            Long oldComponentId = topologySource.getId();
-            topologySource.setId(null);
-            topologySource.setTopologyId(newTopology.getId());
-            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(
+            topologySource.setTopologyId(topologyId);
+            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(bundles,
                     TopologyComponentBundle.TopologyComponentType.SOURCE,
                     topologyData.getBundleIdToType().get(topologySource.getTopologyComponentBundleId().toString()));
             topologySource.setTopologyComponentBundleId(bundle.getId());
-            addTopologySource(newTopology.getId(), topologySource);
-            oldToNewComponentIds.put(oldComponentId, topologySource.getId());
         }
+        oldToNewComponentIds.putAll(getOldToNewIds(clearIds(topologySources),
+                addTopologySources(topologyId, versionId, topologySources)));
 
         // import processors
-        for (TopologyProcessor topologyProcessor : topologyData.getProcessors()) {
-            Long oldComponentId = topologyProcessor.getId();
-            topologyProcessor.setId(null);
-            topologyProcessor.setTopologyId(newTopology.getId());
-            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(
+        List<TopologyProcessor> topologyProcessors = topologyData.getProcessors();
+        for (TopologyProcessor topologyProcessor : topologyProcessors) {
+            topologyProcessor.setTopologyId(topologyId);
+            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(bundles,
                     TopologyComponentBundle.TopologyComponentType.PROCESSOR,
                     topologyData.getBundleIdToType().get(topologyProcessor.getTopologyComponentBundleId().toString()));
             topologyProcessor.setTopologyComponentBundleId(bundle.getId());
@@ -701,22 +720,21 @@ public class StreamCatalogService {
                 }
                 topologyProcessor.getConfig().setAny(RulesProcessor.CONFIG_KEY_RULES, updatedRuleIds);
             });
-            addTopologyProcessor(newTopology.getId(), topologyProcessor);
-            oldToNewComponentIds.put(oldComponentId, topologyProcessor.getId());
         }
+        oldToNewComponentIds.putAll(getOldToNewIds(clearIds(topologyProcessors),
+                addTopologyProcessors(topologyId, versionId, topologyProcessors)));
 
         // import sinks
-        for (TopologySink topologySink : topologyData.getSinks()) {
-            topologySink.setTopologyId(newTopology.getId());
-            Long currentId = topologySink.getId();
-            topologySink.setId(null);
-            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(
+        List<TopologySink> topologySinks = topologyData.getSinks();
+        for (TopologySink topologySink : topologySinks) {
+            topologySink.setTopologyId(topologyId);
+            TopologyComponentBundle bundle = getCurrentTopologyComponentBundle(bundles,
                     TopologyComponentBundle.TopologyComponentType.SINK,
                     topologyData.getBundleIdToType().get(topologySink.getTopologyComponentBundleId().toString()));
             topologySink.setTopologyComponentBundleId(bundle.getId());
-            addTopologySink(newTopology.getId(), topologySink);
-            oldToNewComponentIds.put(currentId, topologySink.getId());
         }
+        oldToNewComponentIds.putAll(getOldToNewIds(clearIds(topologySinks),
+                addTopologySinks(topologyId, versionId, topologySinks)));
 
         // import edges
         for (TopologyEdge topologyEdge : topologyData.getEdges()) {
@@ -726,11 +744,11 @@ public class StreamCatalogService {
                 streamGrouping.setStreamId(newStreamId);
             }
             topologyEdge.setId(null);
-            topologyEdge.setTopologyId(newTopology.getId());
+            topologyEdge.setTopologyId(topologyId);
             topologyEdge.setFromId(oldToNewComponentIds.get(topologyEdge.getFromId()));
             topologyEdge.setToId(oldToNewComponentIds.get(topologyEdge.getToId()));
-            addTopologyEdge(newTopology.getId(), topologyEdge);
         }
+        addTopologyEdges(topologyId, versionId, topologyData.getEdges());
 
         // import topology editor metadata
         TopologyEditorMetadata topologyEditorMetadata = topologyData.getTopologyEditorMetadata();
@@ -1091,12 +1109,7 @@ public class StreamCatalogService {
      * Similar to Table per concrete class hibernate strategy.
      */
     private Long getNextTopologyComponentId() {
-        TopologyComponent component = new TopologyComponent();
-        Long id = dao.nextId(TOPOLOGY_COMPONENT_NAMESPACE);
-        component.setId(id);
-        dao.add(component);
-        dao.remove(component.getStorableKey());
-        return component.getId();
+        return idAllocator.nextId(TOPOLOGY_COMPONENT_NAMESPACE);
     }
 
     /*
@@ -1131,6 +1144,28 @@ public class StreamCatalogService {
                         TopologyProcessor.NAME, topologyProcessor.getName()));
     }
 
+    /*
+     * Batch counterpart of the checks above, the storables of the batch are also checked
+     * against each other since none of them is stored yet.
+     */
+    private static <T extends Storable> void ensureUnique(Collection<T> storables, Collection<T> existing,
+                                                          Function<T, Object> keyFn) {
+        Map<Object, Long> ids = new HashMap<>();
+        for (T storable : existing) {
+            ids.put(keyFn.apply(storable), storable.getId());
+        }
+        for (T storable : storables) {
+            Object key = keyFn.apply(storable);
+            if (ids.containsKey(key)) {
+                Long id = ids.get(key);
+                if (id == null || !id.equals(storable.getId())) {
+                    throw new DuplicateEntityException("Entity with '" + key + "' already exists");
+                }
+            }
+            ids.put(key, storable.getId());
+        }
+    }
+
     public TopologySource addTopologySource(Long topologyId, TopologySource topologySource) {
         return addTopologySource(topologyId, getCurrentVersionId(topologyId), topologySource);
     }
@@ -1151,6 +1186,32 @@ public class StreamCatalogService {
         return topologySource;
     }
 
+    private List<TopologySource> addTopologySources(Long topologyId, Long versionId, List<TopologySource> topologySources) {
+        if (topologySources.isEmpty()) {
+            return topologySources;
+        }
+        for (TopologySource topologySource : topologySources) {
+            if (topologySource.getId() == null) {
+                topologySource.setId(getNextTopologyComponentId());
+            }
+            topologySource.setVersionId(versionId);
+            topologySource.setTopologyId(topologyId);
+        }
+        ensureUnique(topologySources, dao.<TopologySource>find(TOPOLOGY_SOURCE_NAMESPACE,
+                WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null)), TopologySource::getName);
+        addTopologyOutputComponents(topologyId, versionId, topologySources);
+        List<TopologySourceStreamMapping> mappings = new ArrayList<>();
+        for (TopologySource topologySource : topologySources) {
+            for (Long outputStreamId : topologySource.getOutputStreamIds()) {
+                mappings.add(new TopologySourceStreamMapping(topologySource.getId(), versionId, outputStreamId));
+            }
+        }
+        dao.addAll(mappings);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        topologySources.forEach(topologySource -> topologySource.setVersionTimestamp(timestamp));
+        return topologySources;
+    }
+
     private List<StreamInfo> addTopologyOutputComponent(TopologyOutputComponent outputComponent) {
         List<StreamInfo> streamInfos;
         if (outputComponent.getOutputStreams() != null) {
@@ -1173,6 +1234,52 @@ public class StreamCatalogService {
         return streamInfos;
     }
 
+    // adds the new output streams of all the components and looks up the referenced ones at once
+    private void addTopologyOutputComponents(Long topologyId, Long versionId,
+                                             List<? extends TopologyOutputComponent> outputComponents) {
+        List<StreamInfo> newStreams = new ArrayList<>();
+        Set<StorableKey> streamKeys = new HashSet<>();
+        for (TopologyOutputComponent outputComponent : outputComponents) {
+            if (outputComponent.getOutputStreams() != null) {
+                newStreams.addAll(outputComponent.getOutputStreams());
+            } else if (outputComponent.getOutputStreamIds() != null) {
+                for (Long outputStreamId : outputComponent.getOutputStreamIds()) {
+                    streamKeys.add(getStreamInfoKey(outputStreamId, versionId));
+                }
+            }
+        }
+        addStreamInfos(topologyId, versionId, newStreams);
+        Map<StorableKey, StreamInfo> existingStreams = dao.getAll(streamKeys);
+
+        for (TopologyOutputComponent outputComponent : outputComponents) {
+            if (outputComponent.getOutputStreams() != null) {
+                outputComponent.setOutputStreamIds(outputComponent.getOutputStreams().stream()
+                        .map(StreamInfo::getId).collect(Collectors.toList()));
+            } else if (outputComponent.getOutputStreamIds() != null) {
+                List<StreamInfo> streamInfos = new ArrayList<>();
+                for (Long outputStreamId : outputComponent.getOutputStreamIds()) {
+                    StreamInfo streamInfo = existingStreams.get(getStreamInfoKey(outputStreamId, versionId));
+                    if (streamInfo == null || !streamInfo.getTopologyId().equals(topologyId)) {
+                        throw new IllegalArgumentException("Output stream with id '" + outputStreamId + "' does not exist.");
+                    }
+                    streamInfos.add(streamInfo);
+                }
+                outputComponent.setOutputStreams(streamInfos);
+            } else {
+                outputComponent.setOutputStreams(Collections.<StreamInfo>emptyList());
+                outputComponent.setOutputStreamIds(Collections.<Long>emptyList());
+            }
+        }
+        dao.addAll(outputComponents);
+    }
+
+    private StorableKey getStreamInfoKey(Long streamId, Long versionId) {
+        StreamInfo streamInfo = new StreamInfo();
+        streamInfo.setId(streamId);
+        streamInfo.setVersionId(versionId);
+        return new StorableKey(STREAMINFO_NAMESPACE, streamInfo.getPrimaryKey());
+    }
+
     private List<StreamInfo> getOutputStreams(Long topologyId, Long versionId, List<Long> outputStreamIds) {
         List<StreamInfo> streamInfos = new ArrayList<>();
         for (Long outputStreamId : outputStreamIds) {
@@ -1327,38 +1434,13 @@ public class StreamCatalogService {
 
     private Collection<TopologyProcessor> fillProcessorStreams(Collection<TopologyProcessor> processors) {
         if (processors != null) {
-            for (TopologyProcessor processor : processors) {
-                List<StreamInfo> streamInfos = getOutputStreams(processor);
-                processor.setOutputStreams(streamInfos);
-                processor.setOutputStreamIds(new ArrayList<>(Collections2.transform(streamInfos, new Function<StreamInfo, Long>() {
-                    @Nullable
-                    @Override
-                    public Long apply(@Nullable StreamInfo input) {
-                        return input.getId();
-                    }
-                })));
-            }
+            fillOutputStreams(processors, TOPOLOGY_PROCESSOR_STREAM_MAPPING_NAMESPACE,
+                    TopologyProcessorStreamMapping.FIELD_VERSION_ID, TopologyProcessorStreamMapping::getProcessorId,
+                    TopologyProcessorStreamMapping::getStreamId);
         }
         return processors;
     }
 
-    private List<StreamInfo> getOutputStreams(TopologyProcessor topologyProcessor) {
-        List<StreamInfo> streams = new ArrayList<>();
-        if (topologyProcessor != null) {
-            QueryParam qp1 = new QueryParam(TopologyProcessorStreamMapping.FIELD_PROCESSOR_ID,
-                    String.valueOf(topologyProcessor.getId()));
-            QueryParam qp2 = new QueryParam(TopologyProcessorStreamMapping.FIELD_VERSION_ID,
-                    String.valueOf(topologyProcessor.getVersionId()));
-            for (TopologyProcessorStreamMapping mapping : listTopologyProcessorStreamMapping(ImmutableList.of(qp1, qp2))) {
-                StreamInfo streamInfo = getStreamInfo(topologyProcessor.getTopologyId(), mapping.getStreamId(), topologyProcessor.getVersionId());
-                if (streamInfo != null) {
-                    streams.add(streamInfo);
-                }
-            }
-        }
-        return streams;
-    }
-
     private void fillSourceStreams(TopologySource source) {
         if (source != null) {
             fillSourceStreams(Collections.singletonList(source));
@@ -1367,36 +1449,57 @@ public class StreamCatalogService {
 
     private Collection<TopologySource> fillSourceStreams(Collection<TopologySource> sources) {
         if (sources != null) {
-            for (TopologySource source : sources) {
-                List<StreamInfo> streamInfos = getOutputStreams(source);
-                source.setOutputStreams(streamInfos);
-                source.setOutputStreamIds(new ArrayList<>(Collections2.transform(streamInfos, new Function<StreamInfo, Long>() {
-                    @Nullable
-                    @Override
-                    public Long apply(@Nullable StreamInfo input) {
-                        return input.getId();
-                    }
-                })));
-            }
+            fillOutputStreams(sources, TOPOLOGY_SOURCE_STREAM_MAPPING_NAMESPACE,
+                    TopologySourceStreamMapping.FIELD_VERSION_ID, TopologySourceStreamMapping::getSourceId,
+                    TopologySourceStreamMapping::getStreamId);
         }
         return sources;
     }
 
-    private List<StreamInfo> getOutputStreams(TopologySource topologySource) {
-        List<StreamInfo> streams = new ArrayList<>();
-        if (topologySource != null) {
-            QueryParam qp1 = new QueryParam(TopologySourceStreamMapping.FIELD_SOURCE_ID,
-                    String.valueOf(topologySource.getId()));
-            QueryParam qp2 = new QueryParam(TopologySourceStreamMapping.FIELD_VERSION_ID,
-                    String.valueOf(topologySource.getVersionId()));
-            for (TopologySourceStreamMapping mapping : listTopologySourceStreamMapping(ImmutableList.of(qp1, qp2))) {
-                StreamInfo streamInfo = getStreamInfo(topologySource.getTopologyId(), mapping.getStreamId(), topologySource.getVersionId());
-                if (streamInfo != null) {
-                    streams.add(streamInfo);
+    /*
+     * Sets the output streams of the components. The stream mappings and the streams are
+     * loaded once per version, with one query each, and joined with the components in memory.
+     */
+    private <T extends TopologyOutputComponent, M extends Storable> void fillOutputStreams(
+            Collection<T> components, String mappingNamespace, String mappingVersionField,
+            Function<M, Long> componentIdOf, Function<M, Long> streamIdOf) {
+        Map<Long, List<T>> componentsByVersion = new LinkedHashMap<>();
+        for (T component : components) {
+            componentsByVersion.computeIfAbsent(component.getVersionId(), x -> new ArrayList<>()).add(component);
+        }
+        for (Map.Entry<Long, List<T>> entry : componentsByVersion.entrySet()) {
+            Long versionId = entry.getKey();
+            Collection<M> mappings = dao.find(mappingNamespace,
+                    Collections.singletonList(new QueryParam(mappingVersionField, String.valueOf(versionId))));
+            Map<Long, List<Long>> streamIdsByComponent = new HashMap<>();
+            for (M mapping : mappings) {
+                streamIdsByComponent.computeIfAbsent(componentIdOf.apply(mapping), x -> new ArrayList<>())
+                        .add(streamIdOf.apply(mapping));
+            }
+            Map<Long, StreamInfo> streamsById = mappings.isEmpty()
+                    ? Collections.<Long, StreamInfo>emptyMap() : getStreamInfosById(versionId);
+            for (T component : entry.getValue()) {
+                List<StreamInfo> streamInfos = new ArrayList<>();
+                for (Long streamId : streamIdsByComponent.getOrDefault(component.getId(), Collections.<Long>emptyList())) {
+                    StreamInfo streamInfo = streamsById.get(streamId);
+                    if (streamInfo != null && streamInfo.getTopologyId().equals(component.getTopologyId())) {
+                        streamInfos.add(streamInfo);
+                    }
                 }
+                component.setOutputStreams(streamInfos);
+                component.setOutputStreamIds(streamInfos.stream().map(StreamInfo::getId).collect(Collectors.toList()));
             }
         }
-        return streams;
+    }
+
+    private Map<Long, StreamInfo> getStreamInfosById(Long versionId) {
+        Long versionTimestamp = getVersionTimestamp(versionId);
+        Map<Long, StreamInfo> streamsById = new HashMap<>();
+        for (StreamInfo streamInfo : listStreamInfos(versionIdQueryParam(versionId))) {
+            streamInfo.setVersionTimestamp(versionTimestamp);
+            streamsById.put(streamInfo.getId(), streamInfo);
+        }
+        return streamsById;
     }
 
     public TopologySink getTopologySink(Long topologyId, Long sinkId) {
@@ -1433,6 +1536,25 @@ public class StreamCatalogService {
         return topologySink;
     }
 
+    private List<TopologySink> addTopologySinks(Long topologyId, Long versionId, List<TopologySink> topologySinks) {
+        if (topologySinks.isEmpty()) {
+            return topologySinks;
+        }
+        for (TopologySink topologySink : topologySinks) {
+            if (topologySink.getId() == null) {
+                topologySink.setId(getNextTopologyComponentId());
+            }
+            topologySink.setVersionId(versionId);
+            topologySink.setTopologyId(topologyId);
+        }
+        ensureUnique(topologySinks, dao.<TopologySink>find(TOPOLOGY_SINK_NAMESPACE,
+                WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null)), TopologySink::getName);
+        dao.addAll(topologySinks);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        topologySinks.forEach(topologySink -> topologySink.setVersionTimestamp(timestamp));
+        return topologySinks;
+    }
+
     public TopologySink addOrUpdateTopologySink(Long topologyId, Long id, TopologySink topologySink) {
         Long currentTopologyVersionId = getCurrentVersionId(topologyId);
         topologySink.setId(id);
@@ -1511,6 +1633,33 @@ public class StreamCatalogService {
         return topologyProcessor;
     }
 
+    private List<TopologyProcessor> addTopologyProcessors(Long topologyId, Long versionId,
+                                                          List<TopologyProcessor> topologyProcessors) {
+        if (topologyProcessors.isEmpty()) {
+            return topologyProcessors;
+        }
+        for (TopologyProcessor topologyProcessor : topologyProcessors) {
+            if (topologyProcessor.getId() == null) {
+                topologyProcessor.setId(getNextTopologyComponentId());
+            }
+            topologyProcessor.setVersionId(versionId);
+            topologyProcessor.setTopologyId(topologyId);
+        }
+        ensureUnique(topologyProcessors, dao.<TopologyProcessor>find(TOPOLOGY_PROCESSOR_NAMESPACE,
+                WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null)), TopologyProcessor::getName);
+        addTopologyOutputComponents(topologyId, versionId, topologyProcessors);
+        List<TopologyProcessorStreamMapping> mappings = new ArrayList<>();
+        for (TopologyProcessor topologyProcessor : topologyProcessors) {
+            for (Long outputStreamId : topologyProcessor.getOutputStreamIds()) {
+                mappings.add(new TopologyProcessorStreamMapping(topologyProcessor.getId(), versionId, outputStreamId));
+            }
+        }
+        dao.addAll(mappings);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        topologyProcessors.forEach(topologyProcessor -> topologyProcessor.setVersionTimestamp(timestamp));
+        return topologyProcessors;
+    }
+
     public TopologyProcessor addOrUpdateTopologyProcessor(Long topologyId, Long id, TopologyProcessor topologyProcessor) {
         Long currentTopologyVersionId = getCurrentVersionId(topologyId);
         topologyProcessor.setId(id);
@@ -1650,6 +1799,29 @@ public class StreamCatalogService {
         return topologyEdge;
     }
 
+    private List<TopologyEdge> addTopologyEdges(Long topologyId, Long versionId, List<TopologyEdge> topologyEdges) {
+        if (topologyEdges.isEmpty()) {
+            return topologyEdges;
+        }
+        Set<List<Long>> fromToIds = new HashSet<>();
+        for (TopologyEdge topologyEdge : topologyEdges) {
+            if (topologyEdge.getId() == null) {
+                topologyEdge.setId(dao.nextId(TOPOLOGY_EDGE_NAMESPACE));
+            }
+            topologyEdge.setVersionId(versionId);
+            topologyEdge.setTopologyId(topologyId);
+            validateEdge(topologyEdge);
+            checkDuplicateEdge(topologyEdge);
+            if (!fromToIds.add(Arrays.asList(topologyEdge.getFromId(), topologyEdge.getToId()))) {
+                throw new IllegalArgumentException("Edge already exists between source and destination, use update api");
+            }
+        }
+        dao.addAll(topologyEdges);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        topologyEdges.forEach(topologyEdge -> topologyEdge.setVersionTimestamp(timestamp));
+        return topologyEdges;
+    }
+
     // validate from, to and stream ids of the edge
     private void validateEdge(TopologyEdge edge) {
         TopologySource source = getTopologySource(edge.getTopologyId(), edge.getFromId(), edge.getVersionId());
@@ -1855,6 +2027,29 @@ public class StreamCatalogService {
         return streamInfo;
     }
 
+    private List<StreamInfo> addStreamInfos(Long topologyId, Long versionId, List<StreamInfo> streamInfos) {
+        if (streamInfos.isEmpty()) {
+            return streamInfos;
+        }
+        long timestamp = System.currentTimeMillis();
+        for (StreamInfo streamInfo : streamInfos) {
+            if (streamInfo.getId() == null) {
+                streamInfo.setId(dao.nextId(STREAMINFO_NAMESPACE));
+            }
+            streamInfo.setVersionTimestamp(timestamp);
+            streamInfo.setVersionId(versionId);
+            streamInfo.setTopologyId(topologyId);
+            if (streamInfo.getFields().isEmpty()) {
+                throw new IllegalArgumentException("Stream with empty fields: " + streamInfo);
+            }
+        }
+        ensureUnique(streamInfos, listStreamInfos(WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null)),
+                StreamInfo::getStreamId);
+        dao.addAll(streamInfos);
+        updateVersionTimestamp(versionId, timestamp);
+        return streamInfos;
+    }
+
     public StreamInfo addOrUpdateStreamInfo(Long topologyId, Long id, StreamInfo stream) {
         stream.setId(id);
         Long currentVersionId = getCurrentVersionId(topologyId);
@@ -1917,6 +2112,26 @@ public class StreamCatalogService {
         return ruleInfo;
     }
 
+    private List<RuleInfo> addRules(Long topologyId, Long versionId, List<RuleInfo> ruleInfos) throws Exception {
+        if (ruleInfos.isEmpty()) {
+            return ruleInfos;
+        }
+        for (RuleInfo ruleInfo : ruleInfos) {
+            if (ruleInfo.getId() == null) {
+                ruleInfo.setId(dao.nextId(TOPOLOGY_RULEINFO_NAMESPACE));
+            }
+            ruleInfo.setVersionId(versionId);
+            ruleInfo.setTopologyId(topologyId);
+            String parsedRuleStr = parseAndSerialize(ruleInfo);
+            LOG.debug("ParsedRuleStr {}", parsedRuleStr);
+            ruleInfo.setParsedRuleStr(parsedRuleStr);
+        }
+        dao.addAll(ruleInfos);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        ruleInfos.forEach(ruleInfo -> ruleInfo.setVersionTimestamp(timestamp));
+        return ruleInfos;
+    }
+
     public RuleInfo getRule(Long topologyId, Long ruleId) throws Exception {
         return getRule(topologyId, ruleId, getCurrentVersionId(topologyId));
     }
@@ -1995,6 +2210,27 @@ public class StreamCatalogService {
         return branchRuleInfo;
     }
 
+    private List<BranchRuleInfo> addBranchRules(Long topologyId, Long versionId,
+                                                List<BranchRuleInfo> branchRuleInfos) throws Exception {
+        if (branchRuleInfos.isEmpty()) {
+            return branchRuleInfos;
+        }
+        for (BranchRuleInfo branchRuleInfo : branchRuleInfos) {
+            if (branchRuleInfo.getId() == null) {
+                branchRuleInfo.setId(dao.nextId(TOPOLOGY_BRANCHRULEINFO_NAMESPACE));
+            }
+            branchRuleInfo.setTopologyId(topologyId);
+            branchRuleInfo.setVersionId(versionId);
+            String parsedRuleStr = parseAndSerialize(branchRuleInfo);
+            LOG.debug("ParsedRuleStr {}", parsedRuleStr);
+            branchRuleInfo.setParsedRuleStr(parsedRuleStr);
+        }
+        dao.addAll(branchRuleInfos);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        branchRuleInfos.forEach(branchRuleInfo -> branchRuleInfo.setVersionTimestamp(timestamp));
+        return branchRuleInfos;
+    }
+
     public BranchRuleInfo getBranchRule(Long topologyId, Long ruleId) throws Exception {
         return getBranchRule(topologyId, ruleId, getCurrentVersionId(topologyId));
     }
@@ -2057,6 +2293,26 @@ public class StreamCatalogService {
         return windowInfo;
     }
 
+    private List<WindowInfo> addWindows(Long topologyId, Long versionId, List<WindowInfo> windowInfos) throws Exception {
+        if (windowInfos.isEmpty()) {
+            return windowInfos;
+        }
+        for (WindowInfo windowInfo : windowInfos) {
+            if (windowInfo.getId() == null) {
+                windowInfo.setId(dao.nextId(TOPOLOGY_WINDOWINFO_NAMESPACE));
+            }
+            windowInfo.setTopologyId(topologyId);
+            windowInfo.setVersionId(versionId);
+            String parsedRuleStr = parseAndSerialize(windowInfo);
+            LOG.debug("ParsedRuleStr {}", parsedRuleStr);
+            windowInfo.setParsedRuleStr(parsedRuleStr);
+        }
+        dao.addAll(windowInfos);
+        long timestamp = updateVersionTimestamp(versionId).getTimestamp();
+        windowInfos.forEach(windowInfo -> windowInfo.setVersionTimestamp(timestamp));
+        return windowInfos;
+    }
+
     public WindowInfo getWindow(Long topologyId, Long windowId) throws Exception {
         return getWindow(topologyId, windowId, getCurrentVersionId(topologyId));
     }
@@ -2272,6 +2528,11 @@ public class StreamCatalogService {
         return dao.find(UDF_NAMESPACE, queryParams);
     }
 
+    public Collection<UDFInfo> listUDFs(List<QueryParam> queryParams, List<OrderByField> orderByFields,
+                                        long offset, int limit) {
+        return dao.find(UDF_NAMESPACE, queryParams, orderByFields, offset, limit);
+    }
+
     public UDFInfo getUDF(Long id) {
         UDFInfo udfInfo = new UDFInfo();
         udfInfo.setId(id);
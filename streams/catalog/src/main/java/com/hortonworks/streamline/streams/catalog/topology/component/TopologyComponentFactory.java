@@ -104,33 +104,45 @@ public class TopologyComponentFactory {
         providerMap = builder.build();
     }
 
-    public StreamlineSource getStreamlineSource(TopologySource topologySource) {
-        StreamlineSource source = getStreamlineComponent(StreamlineSource.class, topologySource);
+    public StreamlineSource getStreamlineSource(TopologySource topologySource,
+                                                TopologyComponentBundle topologyComponentBundle) {
+        StreamlineSource source = getStreamlineComponent(StreamlineSource.class, topologySource, topologyComponentBundle);
         source.addOutputStreams(createOutputStreams(topologySource));
         return source;
     }
 
-    public StreamlineProcessor getStreamlineProcessor(TopologyProcessor topologyProcessor) {
-        StreamlineProcessor processor = getStreamlineComponent(StreamlineProcessor.class, topologyProcessor);
+    public StreamlineProcessor getStreamlineProcessor(TopologyProcessor topologyProcessor,
+                                                      TopologyComponentBundle topologyComponentBundle) {
+        StreamlineProcessor processor = getStreamlineComponent(StreamlineProcessor.class, topologyProcessor,
+                topologyComponentBundle);
         if (processor.getOutputStreams() == null || processor.getOutputStreams().isEmpty()) {
             processor.addOutputStreams(createOutputStreams(topologyProcessor));
         }
         return processor;
     }
 
-    public StreamlineSink getStreamlineSink(TopologySink topologySink) {
-        return getStreamlineComponent(StreamlineSink.class, topologySink);
+    public StreamlineSink getStreamlineSink(TopologySink topologySink, TopologyComponentBundle topologyComponentBundle) {
+        return getStreamlineComponent(StreamlineSink.class, topologySink, topologyComponentBundle);
     }
 
-    public Edge getStreamlineEdge(TopologyEdge topologyEdge) {
+    /**
+     * Creates the edge between the given components. The streams of the edge are looked up in
+     * {@code streams} (keyed by the stream info id) and loaded from the catalog only if missing.
+     */
+    public Edge getStreamlineEdge(TopologyEdge topologyEdge, OutputComponent from, InputComponent to,
+                                  Map<Long, StreamInfo> streams) {
         Edge edge = new Edge();
         edge.setId(topologyEdge.getId().toString());
-        edge.setFrom(getOutputComponent(topologyEdge));
-        edge.setTo(getInputComponent(topologyEdge));
+        edge.setFrom(from);
+        edge.setTo(to);
         Set<StreamGrouping> streamGroupings = new HashSet<>();
         for (TopologyEdge.StreamGrouping streamGrouping : topologyEdge.getStreamGroupings()) {
-            Stream stream = getStream(catalogService.getStreamInfo(topologyEdge.getTopologyId(),
-                    streamGrouping.getStreamId(), topologyEdge.getVersionId()));
+            StreamInfo streamInfo = streams.get(streamGrouping.getStreamId());
+            if (streamInfo == null) {
+                streamInfo = catalogService.getStreamInfo(topologyEdge.getTopologyId(),
+                        streamGrouping.getStreamId(), topologyEdge.getVersionId());
+            }
+            Stream stream = getStream(streamInfo);
             Stream.Grouping grouping = Stream.Grouping.valueOf(streamGrouping.getGrouping().name());
             streamGroupings.add(new StreamGrouping(stream, grouping, streamGrouping.getFields()));
         }
@@ -138,19 +150,14 @@ public class TopologyComponentFactory {
         return edge;
     }
 
-    private TopologyComponentBundle getTopologyComponentBundle (TopologyComponent topologyComponent) {
-        TopologyComponentBundle topologyComponentBundle = catalogService.getTopologyComponentBundle(topologyComponent.getTopologyComponentBundleId());
+    private <T extends StreamlineComponent> T getStreamlineComponent(Class<T> clazz,
+                                                                     TopologyComponent topologyComponent,
+                                                                     TopologyComponentBundle topologyComponentBundle) {
         if (topologyComponentBundle == null) {
             String msg = "TopologyComponentBundle not found for topologyComponent " + topologyComponent;
             LOG.debug(msg);
             throw new RuntimeException(msg);
         }
-        return topologyComponentBundle;
-    }
-
-    private <T extends StreamlineComponent> T getStreamlineComponent(Class<T> clazz,
-                                                                     TopologyComponent topologyComponent) {
-        TopologyComponentBundle topologyComponentBundle = getTopologyComponentBundle(topologyComponent);
         StreamlineComponent component = getProvider(clazz, topologyComponentBundle.getSubType())
                 .create(topologyComponent);
         component.setId(topologyComponent.getId().toString());
@@ -161,34 +168,6 @@ public class TopologyComponentFactory {
         return clazz.cast(component);
     }
 
-    private OutputComponent getOutputComponent(TopologyEdge topologyEdge) {
-        TopologySource topologySource;
-        TopologyProcessor topologyProcessor;
-        if ((topologySource = catalogService.getTopologySource(topologyEdge.getTopologyId(), topologyEdge.getFromId(),
-                topologyEdge.getVersionId())) != null) {
-            return getStreamlineSource(topologySource);
-        } else if ((topologyProcessor = catalogService.getTopologyProcessor(topologyEdge.getTopologyId(), topologyEdge.getFromId(),
-                topologyEdge.getVersionId())) != null) {
-            return getStreamlineProcessor(topologyProcessor);
-        } else {
-            throw new IllegalArgumentException("Invalid from id for edge " + topologyEdge);
-        }
-    }
-
-    private InputComponent getInputComponent(TopologyEdge topologyEdge) {
-        TopologySink topologySink;
-        TopologyProcessor topologyProcessor;
-        if ((topologySink = catalogService.getTopologySink(topologyEdge.getTopologyId(), topologyEdge.getToId(),
-                topologyEdge.getVersionId())) != null) {
-            return getStreamlineSink(topologySink);
-        } else if ((topologyProcessor = catalogService.getTopologyProcessor(topologyEdge.getTopologyId(), topologyEdge.getToId(),
-                topologyEdge.getVersionId())) != null) {
-            return getStreamlineProcessor(topologyProcessor);
-        } else {
-            throw new IllegalArgumentException("Invalid to id for edge " + topologyEdge);
-        }
-    }
-
     public Stream getStream(StreamInfo streamInfo) {
         return new Stream(streamInfo.getStreamId(), streamInfo.getFields());
     }
@@ -238,6 +217,13 @@ public class TopologyComponentFactory {
 
     private Set<Stream> createOutputStreams(TopologyOutputComponent outputComponent) {
         Set<Stream> outputStreams = new HashSet<>();
+        if (outputComponent.getOutputStreams() != null) {
+            // already loaded with the component
+            for (StreamInfo streamInfo : outputComponent.getOutputStreams()) {
+                outputStreams.add(getStream(streamInfo));
+            }
+            return outputStreams;
+        }
         for (Long id : outputComponent.getOutputStreamIds()) {
             outputStreams.add(getStream(catalogService.getStreamInfo(outputComponent.getTopologyId(), id, outputComponent.getVersionId())));
         }
@@ -447,6 +433,8 @@ public class TopologyComponentFactory {
 
                 boolean processAll = component.getConfig().getBoolean(RulesProcessor.CONFIG_PROCESS_ALL, true);
                 processor.setProcessAll(processAll);
+                processor.setIndexRules(component.getConfig().getBoolean(RulesProcessor.CONFIG_INDEX_RULES, false));
+                processor.setIncrementalWindow(component.getConfig().getBoolean(RulesProcessor.CONFIG_INCREMENTAL_WINDOW, false));
 
                 Object ruleList = component.getConfig().getAny(RulesProcessor.CONFIG_KEY_RULES);
                 List<Long> ruleIds = objectMapper.convertValue(ruleList, new TypeReference<List<Long>>() {
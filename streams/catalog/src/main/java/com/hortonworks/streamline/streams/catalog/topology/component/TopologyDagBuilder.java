@@ -16,63 +16,124 @@
 package com.hortonworks.streamline.streams.catalog.topology.component;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.hortonworks.streamline.common.QueryParam;
 import com.hortonworks.streamline.registries.model.client.MLModelRegistryClient;
+import com.hortonworks.streamline.streams.catalog.StreamInfo;
 import com.hortonworks.streamline.streams.catalog.Topology;
 import com.hortonworks.streamline.streams.catalog.TopologyComponent;
 import com.hortonworks.streamline.streams.catalog.TopologyEdge;
+import com.hortonworks.streamline.streams.catalog.TopologyOutputComponent;
 import com.hortonworks.streamline.streams.catalog.TopologyProcessor;
 import com.hortonworks.streamline.streams.catalog.TopologySink;
 import com.hortonworks.streamline.streams.catalog.TopologySource;
 import com.hortonworks.streamline.streams.catalog.service.StreamCatalogService;
+import com.hortonworks.streamline.streams.catalog.topology.TopologyComponentBundle;
+import com.hortonworks.streamline.streams.layout.component.InputComponent;
+import com.hortonworks.streamline.streams.layout.component.OutputComponent;
+import com.hortonworks.streamline.streams.layout.component.StreamlineProcessor;
+import com.hortonworks.streamline.streams.layout.component.StreamlineSink;
+import com.hortonworks.streamline.streams.layout.component.StreamlineSource;
 import com.hortonworks.streamline.streams.layout.component.TopologyDag;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Builds the {@link TopologyDag} of a topology version. The components, edges and streams of the version are
+ * loaded with one query per namespace and joined in memory.
+ * <p>
+ * The built dags are cached by version id and version timestamp. Every change to the components of a version
+ * updates the version timestamp, so a changed version gets a new dag. The entries expire after a while since
+ * the component bundles are not part of the version. The returned dag is shared by the callers and must not be
+ * modified.
+ * </p>
+ */
 public class TopologyDagBuilder {
+    private static final int MAX_CACHED_DAGS = 100;
+    private static final int CACHE_EXPIRY_MINUTES = 10;
+
     private final StreamCatalogService catalogService;
     private final TopologyComponentFactory factory;
+    private final Cache<DagKey, TopologyDag> dagCache;
 
     public TopologyDagBuilder(StreamCatalogService catalogService, MLModelRegistryClient modelRegistryClient) {
         this.catalogService = catalogService;
         factory = new TopologyComponentFactory(catalogService, modelRegistryClient);
+        dagCache = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_DAGS)
+                .expireAfterWrite(CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+                .build();
     }
 
     public TopologyDag getDag(Topology topology) {
         try {
-            TopologyDag dag = new TopologyDag();
-            addSources(dag, topology);
-            addProcessors(dag, topology);
-            addSinks(dag, topology);
-            addEdges(dag, topology);
-            return dag;
+            DagKey key = new DagKey(topology.getVersionId(), catalogService.getVersionTimestamp(topology.getVersionId()));
+            return dagCache.get(key, () -> buildDag(topology));
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
-    private void addSources(TopologyDag dag, Topology topology) throws Exception {
-        for (TopologySource topologySource : catalogService.listTopologySources(queryParam(topology))) {
-            dag.add(factory.getStreamlineSource(topologySource));
+    private TopologyDag buildDag(Topology topology) throws Exception {
+        List<QueryParam> queryParams = queryParam(topology);
+        Map<Long, TopologyComponentBundle> bundles = new HashMap<>();
+        Map<Long, StreamInfo> streams = new HashMap<>();
+        Map<Long, OutputComponent> outputComponents = new HashMap<>();
+        Map<Long, InputComponent> inputComponents = new HashMap<>();
+        TopologyDag dag = new TopologyDag();
+        for (TopologySource topologySource : catalogService.listTopologySources(queryParams)) {
+            StreamlineSource source = factory.getStreamlineSource(topologySource, getBundle(bundles, topologySource));
+            dag.add(source);
+            outputComponents.put(topologySource.getId(), source);
+            addStreams(streams, topologySource);
         }
-    }
-
-    private void addProcessors(TopologyDag dag, Topology topology) throws Exception {
-        for (TopologyProcessor topologyProcessor : catalogService.listTopologyProcessors(queryParam(topology))) {
-            dag.add(factory.getStreamlineProcessor(topologyProcessor));
+        for (TopologyProcessor topologyProcessor : catalogService.listTopologyProcessors(queryParams)) {
+            StreamlineProcessor processor = factory.getStreamlineProcessor(topologyProcessor,
+                    getBundle(bundles, topologyProcessor));
+            dag.add(processor);
+            outputComponents.put(topologyProcessor.getId(), processor);
+            inputComponents.put(topologyProcessor.getId(), processor);
+            addStreams(streams, topologyProcessor);
         }
+        for (TopologySink topologySink : catalogService.listTopologySinks(queryParams)) {
+            StreamlineSink sink = factory.getStreamlineSink(topologySink, getBundle(bundles, topologySink));
+            dag.add(sink);
+            inputComponents.put(topologySink.getId(), sink);
+        }
+        for (TopologyEdge topologyEdge : catalogService.listTopologyEdges(queryParams)) {
+            OutputComponent from = outputComponents.get(topologyEdge.getFromId());
+            if (from == null) {
+                throw new IllegalArgumentException("Invalid from id for edge " + topologyEdge);
+            }
+            InputComponent to = inputComponents.get(topologyEdge.getToId());
+            if (to == null) {
+                throw new IllegalArgumentException("Invalid to id for edge " + topologyEdge);
+            }
+            dag.addEdge(factory.getStreamlineEdge(topologyEdge, from, to, streams));
+        }
+        return dag;
     }
 
-    private void addSinks(TopologyDag dag, Topology topology) throws Exception {
-        for (TopologySink topologySink : catalogService.listTopologySinks(queryParam(topology))) {
-            dag.add(factory.getStreamlineSink(topologySink));
-        }
+    // the components of a topology share a handful of bundles
+    private TopologyComponentBundle getBundle(Map<Long, TopologyComponentBundle> bundles, TopologyComponent component) {
+        return bundles.computeIfAbsent(component.getTopologyComponentBundleId(), catalogService::getTopologyComponentBundle);
     }
 
-    private void addEdges(TopologyDag dag, Topology topology) throws Exception {
-        for (TopologyEdge topologyEdge: catalogService.listTopologyEdges(queryParam(topology))) {
-            dag.addEdge(factory.getStreamlineEdge(topologyEdge));
+    private void addStreams(Map<Long, StreamInfo> streams, TopologyOutputComponent component) {
+        if (component.getOutputStreams() != null) {
+            for (StreamInfo streamInfo : component.getOutputStreams()) {
+                streams.put(streamInfo.getId(), streamInfo);
+            }
         }
     }
 
@@ -82,4 +143,27 @@ public class TopologyDagBuilder {
         queryParams.add(new QueryParam(TopologyComponent.VERSIONID, topology.getVersionId().toString()));
         return queryParams;
     }
+
+    private static final class DagKey {
+        private final Long versionId;
+        private final Long versionTimestamp;
+
+        private DagKey(Long versionId, Long versionTimestamp) {
+            this.versionId = versionId;
+            this.versionTimestamp = versionTimestamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DagKey dagKey = (DagKey) o;
+            return Objects.equals(versionId, dagKey.versionId) && Objects.equals(versionTimestamp, dagKey.versionTimestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(versionId, versionTimestamp);
+        }
+    }
 }
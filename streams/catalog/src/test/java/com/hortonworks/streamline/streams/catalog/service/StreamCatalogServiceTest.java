@@ -15,14 +15,30 @@
  **/
 package com.hortonworks.streamline.streams.catalog.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hortonworks.streamline.common.Config;
+import com.hortonworks.streamline.common.QueryParam;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.common.util.WSUtils;
+import com.hortonworks.streamline.storage.impl.memory.InMemoryStorageManager;
 import com.hortonworks.streamline.streams.catalog.Projection;
+import com.hortonworks.streamline.streams.catalog.StreamInfo;
+import com.hortonworks.streamline.streams.catalog.TopologyComponent;
+import com.hortonworks.streamline.streams.catalog.TopologyEdge;
+import com.hortonworks.streamline.streams.catalog.TopologyEditorMetadata;
+import com.hortonworks.streamline.streams.catalog.TopologyOutputComponent;
+import com.hortonworks.streamline.streams.catalog.TopologyProcessor;
+import com.hortonworks.streamline.streams.catalog.TopologySink;
+import com.hortonworks.streamline.streams.catalog.TopologySource;
+import com.hortonworks.streamline.streams.catalog.topology.TopologyComponentBundle;
+import com.hortonworks.streamline.streams.catalog.topology.TopologyData;
+import com.hortonworks.streamline.streams.layout.component.Stream;
 import mockit.Expectations;
 import mockit.Injectable;
 import mockit.Tested;
 import mockit.integration.junit4.JMockit;
 import com.hortonworks.streamline.common.util.FileStorage;
 import com.hortonworks.streamline.registries.model.client.MLModelRegistryClient;
-import com.hortonworks.streamline.storage.StorableKey;
 import com.hortonworks.streamline.storage.StorageManager;
 import com.hortonworks.streamline.streams.catalog.Topology;
 import com.hortonworks.streamline.streams.catalog.TopologyVersionInfo;
@@ -34,12 +50,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(JMockit.class)
@@ -72,20 +90,11 @@ public class StreamCatalogServiceTest {
                 .collect(Collectors.toList());
 
         new Expectations() {{
-            dao.find(withEqual(new Topology().getNameSpace()), withAny(new ArrayList<>()));
+            dao.list(withEqual(new Topology().getNameSpace()));
             result = topologies;
 
             dao.find(withEqual(new TopologyVersionInfo().getNameSpace()), withAny(new ArrayList<>()));
             result = versions;
-
-            dao.get(withEqual(new StorableKey(versions.get(0).getNameSpace(), versions.get(0).getPrimaryKey())));
-            result = versions.get(0);
-
-            dao.get(withEqual(new StorableKey(versions.get(1).getNameSpace(), versions.get(1).getPrimaryKey())));
-            result = versions.get(1);
-
-            dao.get(withEqual(new StorableKey(versions.get(2).getNameSpace(), versions.get(2).getPrimaryKey())));
-            result = versions.get(2);
         }};
 
         Collection<Topology> result = streamCatalogService.listTopologies();
@@ -118,6 +127,136 @@ public class StreamCatalogServiceTest {
         return topologyVersionInfo;
     }
 
+    @Test
+    public void testImportAndCloneTopologyVersion() throws Exception {
+        InMemoryStorageManager storageManager = new InMemoryStorageManager();
+        StreamCatalogService catalogService = new StreamCatalogService(storageManager, fileStorage, modelRegistryClient);
+        storageManager.add(createBundle(10L, TopologyComponentBundle.TopologyComponentType.SOURCE, "KAFKA"));
+        storageManager.add(createBundle(20L, TopologyComponentBundle.TopologyComponentType.PROCESSOR, "NORMALIZATION"));
+        storageManager.add(createBundle(30L, TopologyComponentBundle.TopologyComponentType.SINK, "HDFS"));
+
+        // two sources feeding a processor which feeds a sink, the ids are the ones of the exported topology
+        TopologyData topologyData = new TopologyData();
+        topologyData.setTopologyName("imported");
+        topologyData.addBundleIdToType("10", "KAFKA");
+        topologyData.addBundleIdToType("20", "NORMALIZATION");
+        topologyData.addBundleIdToType("30", "HDFS");
+        topologyData.addSource(createComponent(new TopologySource(), 1L, "source1", 10L, createStream(100L, "stream1")));
+        topologyData.addSource(createComponent(new TopologySource(), 2L, "source2", 10L, createStream(101L, "stream2")));
+        topologyData.addProcessor(createComponent(new TopologyProcessor(), 3L, "processor", 20L, createStream(102L, "stream3")));
+        topologyData.addSink(createComponent(new TopologySink(), 4L, "sink", 30L, null));
+        topologyData.addEdge(createEdge(1L, 3L, 100L));
+        topologyData.addEdge(createEdge(2L, 3L, 101L));
+        topologyData.addEdge(createEdge(3L, 4L, 102L));
+        TopologyEditorMetadata.TopologyUIData uiData = new TopologyEditorMetadata.TopologyUIData();
+        uiData.setSources(Arrays.asList(createCoordinates(1L), createCoordinates(2L)));
+        uiData.setProcessors(Collections.singletonList(createCoordinates(3L)));
+        uiData.setSinks(Collections.singletonList(createCoordinates(4L)));
+        TopologyEditorMetadata metadata = new TopologyEditorMetadata();
+        metadata.setData(new ObjectMapper().writeValueAsString(uiData));
+        topologyData.setMetadata(metadata);
+
+        Topology topology = catalogService.importTopology(1L, topologyData);
+        Long versionId = catalogService.getCurrentVersionId(topology.getId());
+        assertTopology(catalogService, topology.getId(), versionId);
+
+        // save the current version and clone it to a new current version, the ids are retained
+        TopologyVersionInfo savedVersion = catalogService.getTopologyVersionInfo(versionId);
+        savedVersion.setName("V1");
+        catalogService.addOrUpdateTopologyVersionInfo(versionId, savedVersion);
+        catalogService.cloneTopologyVersion(topology.getId(), versionId);
+        Long clonedVersionId = catalogService.getCurrentVersionId(topology.getId());
+        assertNotEquals(versionId, clonedVersionId);
+        assertTopology(catalogService, topology.getId(), clonedVersionId);
+        assertEquals(idsByName(listComponents(catalogService, topology.getId(), versionId)),
+                idsByName(listComponents(catalogService, topology.getId(), clonedVersionId)));
+    }
+
+    // checks that the edges connect the components by name through the streams of their source components
+    private void assertTopology(StreamCatalogService catalogService, Long topologyId, Long versionId) throws Exception {
+        List<QueryParam> queryParams = WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null);
+        Map<Long, TopologyComponent> components = new HashMap<>();
+        listComponents(catalogService, topologyId, versionId).forEach(c -> components.put(c.getId(), c));
+        assertEquals(4, components.size());
+        Map<Long, String> streamIds = new HashMap<>();
+        catalogService.listStreamInfos(queryParams).forEach(s -> streamIds.put(s.getId(), s.getStreamId()));
+        assertEquals(3, streamIds.size());
+
+        List<String> edges = new ArrayList<>();
+        for (TopologyEdge edge : catalogService.listTopologyEdges(queryParams)) {
+            TopologyOutputComponent from = (TopologyOutputComponent) components.get(edge.getFromId());
+            Long streamId = edge.getStreamGroupings().get(0).getStreamId();
+            assertTrue(from.getOutputStreamIds().contains(streamId));
+            edges.add(from.getName() + "-" + streamIds.get(streamId) + "->" + components.get(edge.getToId()).getName());
+        }
+        Collections.sort(edges);
+        assertEquals(Arrays.asList("processor-stream3->sink", "source1-stream1->processor", "source2-stream2->processor"), edges);
+    }
+
+    private List<TopologyComponent> listComponents(StreamCatalogService catalogService, Long topologyId, Long versionId) {
+        List<QueryParam> queryParams = WSUtils.buildTopologyIdAndVersionIdAwareQueryParams(topologyId, versionId, null);
+        List<TopologyComponent> components = new ArrayList<>();
+        components.addAll(catalogService.listTopologySources(queryParams));
+        components.addAll(catalogService.listTopologyProcessors(queryParams));
+        components.addAll(catalogService.listTopologySinks(queryParams));
+        return components;
+    }
+
+    private Map<String, Long> idsByName(List<TopologyComponent> components) {
+        return components.stream().collect(Collectors.toMap(TopologyComponent::getName, TopologyComponent::getId));
+    }
+
+    private TopologyComponentBundle createBundle(Long id, TopologyComponentBundle.TopologyComponentType type, String subType) {
+        TopologyComponentBundle bundle = new TopologyComponentBundle();
+        bundle.setId(id);
+        bundle.setName(subType);
+        bundle.setType(type);
+        bundle.setSubType(subType);
+        bundle.setStreamingEngine("STORM");
+        bundle.setBuiltin(true);
+        bundle.setTimestamp(System.currentTimeMillis());
+        return bundle;
+    }
+
+    private <T extends TopologyComponent> T createComponent(T component, Long id, String name, Long bundleId, StreamInfo outputStream) {
+        component.setId(id);
+        component.setName(name);
+        component.setTopologyComponentBundleId(bundleId);
+        component.setConfig(new Config());
+        if (outputStream != null) {
+            ((TopologyOutputComponent) component).setOutputStreams(Collections.singletonList(outputStream));
+        }
+        return component;
+    }
+
+    private StreamInfo createStream(Long id, String streamId) {
+        StreamInfo streamInfo = new StreamInfo();
+        streamInfo.setId(id);
+        streamInfo.setStreamId(streamId);
+        streamInfo.setFields(Collections.singletonList(Schema.Field.of("f1", Schema.Type.STRING)));
+        return streamInfo;
+    }
+
+    private TopologyEdge createEdge(Long fromId, Long toId, Long streamId) {
+        TopologyEdge.StreamGrouping streamGrouping = new TopologyEdge.StreamGrouping();
+        streamGrouping.setStreamId(streamId);
+        streamGrouping.setGrouping(Stream.Grouping.SHUFFLE);
+        TopologyEdge edge = new TopologyEdge();
+        edge.setId(fromId * 10 + toId);
+        edge.setFromId(fromId);
+        edge.setToId(toId);
+        edge.setStreamGroupings(Collections.singletonList(streamGrouping));
+        return edge;
+    }
+
+    private TopologyEditorMetadata.TopologyComponentUICordinates createCoordinates(Long id) {
+        TopologyEditorMetadata.TopologyComponentUICordinates coordinates = new TopologyEditorMetadata.TopologyComponentUICordinates();
+        coordinates.setId(id);
+        coordinates.setX(0.0);
+        coordinates.setY(0.0);
+        return coordinates;
+    }
+
     @Test
     public void testGetCloneSuffix() {
         assertEquals("foo-clone", streamCatalogService.getNextCloneName("foo"));
@@ -0,0 +1,187 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.catalog.topology.component;
+
+import com.hortonworks.streamline.common.Config;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.storage.impl.memory.InMemoryStorageManager;
+import com.hortonworks.streamline.streams.catalog.StreamInfo;
+import com.hortonworks.streamline.streams.catalog.Topology;
+import com.hortonworks.streamline.streams.catalog.TopologyComponent;
+import com.hortonworks.streamline.streams.catalog.TopologyEdge;
+import com.hortonworks.streamline.streams.catalog.TopologyOutputComponent;
+import com.hortonworks.streamline.streams.catalog.TopologyProcessor;
+import com.hortonworks.streamline.streams.catalog.TopologySink;
+import com.hortonworks.streamline.streams.catalog.TopologySource;
+import com.hortonworks.streamline.streams.catalog.service.StreamCatalogService;
+import com.hortonworks.streamline.streams.catalog.topology.TopologyComponentBundle;
+import com.hortonworks.streamline.streams.layout.component.Component;
+import com.hortonworks.streamline.streams.layout.component.Edge;
+import com.hortonworks.streamline.streams.layout.component.Stream;
+import com.hortonworks.streamline.streams.layout.component.StreamlineProcessor;
+import com.hortonworks.streamline.streams.layout.component.StreamlineSink;
+import com.hortonworks.streamline.streams.layout.component.StreamlineSource;
+import com.hortonworks.streamline.streams.layout.component.TopologyDag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TopologyDagBuilderTest {
+    private static final Long SOURCE_BUNDLE_ID = 1L;
+    private static final Long PROCESSOR_BUNDLE_ID = 2L;
+    private static final Long SINK_BUNDLE_ID = 3L;
+
+    private StreamCatalogService catalogService;
+    private TopologyDagBuilder dagBuilder;
+    private Topology topology;
+    private TopologySource source;
+    private TopologyProcessor processor;
+
+    @Before
+    public void setup() {
+        InMemoryStorageManager storageManager = new InMemoryStorageManager();
+        catalogService = new StreamCatalogService(storageManager, null, null);
+        storageManager.add(createBundle(SOURCE_BUNDLE_ID, TopologyComponentBundle.TopologyComponentType.SOURCE));
+        storageManager.add(createBundle(PROCESSOR_BUNDLE_ID, TopologyComponentBundle.TopologyComponentType.PROCESSOR));
+        storageManager.add(createBundle(SINK_BUNDLE_ID, TopologyComponentBundle.TopologyComponentType.SINK));
+        dagBuilder = new TopologyDagBuilder(catalogService, null);
+
+        // source -> processor -> sink
+        Topology newTopology = new Topology();
+        newTopology.setName("topology");
+        newTopology.setNamespaceId(1L);
+        topology = catalogService.addTopology(newTopology);
+        source = catalogService.addTopologySource(topology.getId(),
+                createComponent(new TopologySource(), "source", SOURCE_BUNDLE_ID, createStream("stream1")));
+        processor = catalogService.addTopologyProcessor(topology.getId(),
+                createComponent(new TopologyProcessor(), "processor", PROCESSOR_BUNDLE_ID, createStream("stream2")));
+        TopologySink sink = catalogService.addTopologySink(topology.getId(),
+                createComponent(new TopologySink(), "sink", SINK_BUNDLE_ID, null));
+        catalogService.addTopologyEdge(topology.getId(), createEdge(source, processor));
+        catalogService.addTopologyEdge(topology.getId(), createEdge(processor, sink));
+    }
+
+    @Test
+    public void testGetDag() throws Exception {
+        TopologyDag dag = dagBuilder.getDag(topology);
+
+        assertEquals(Arrays.asList("processor", "sink", "source"), getNames(dag.getComponents()));
+        StreamlineSource streamlineSource = (StreamlineSource) getComponent(dag, "source");
+        StreamlineProcessor streamlineProcessor = (StreamlineProcessor) getComponent(dag, "processor");
+        StreamlineSink streamlineSink = (StreamlineSink) getComponent(dag, "sink");
+        assertEquals(Collections.singleton("stream1"), getStreamIds(streamlineSource.getOutputStreams()));
+        assertEquals(Collections.singleton("stream2"), getStreamIds(streamlineProcessor.getOutputStreams()));
+
+        // the edges reference the components of the dag and the output streams of their source
+        assertEquals(2, dag.getAllEdges().size());
+        Edge sourceEdge = dag.getEdgesFrom(streamlineSource).get(0);
+        assertSame(streamlineProcessor, sourceEdge.getTo());
+        assertEquals(Collections.singleton("stream1"), getGroupingStreamIds(sourceEdge));
+        Edge processorEdge = dag.getEdgesFrom(streamlineProcessor).get(0);
+        assertSame(streamlineSink, processorEdge.getTo());
+        assertEquals(Collections.singleton("stream2"), getGroupingStreamIds(processorEdge));
+        assertEquals(Collections.singletonList(processorEdge), dag.getEdgesTo(streamlineSink));
+    }
+
+    @Test
+    public void testDagCachedPerVersionTimestamp() throws Exception {
+        TopologyDag dag = dagBuilder.getDag(topology);
+        assertSame(dag, dagBuilder.getDag(topology));
+
+        // a change to the version bumps its timestamp and the dag is built again
+        TopologySink sink = catalogService.addTopologySink(topology.getId(),
+                createComponent(new TopologySink(), "sink2", SINK_BUNDLE_ID, null));
+        catalogService.addTopologyEdge(topology.getId(), createEdge(processor, sink));
+        Long versionId = topology.getVersionId();
+        catalogService.updateVersionTimestamp(versionId, catalogService.getVersionTimestamp(versionId) + 1);
+
+        TopologyDag rebuilt = dagBuilder.getDag(topology);
+        assertNotSame(dag, rebuilt);
+        assertEquals(Arrays.asList("processor", "sink", "sink2", "source"), getNames(rebuilt.getComponents()));
+        assertEquals(3, rebuilt.getAllEdges().size());
+        assertEquals(Arrays.asList("processor", "sink", "source"), getNames(dag.getComponents()));
+        assertSame(rebuilt, dagBuilder.getDag(topology));
+    }
+
+    private TopologyComponentBundle createBundle(Long id, TopologyComponentBundle.TopologyComponentType type) {
+        TopologyComponentBundle bundle = new TopologyComponentBundle();
+        bundle.setId(id);
+        bundle.setName("TEST_" + type);
+        bundle.setType(type);
+        bundle.setSubType("TEST_" + type);
+        bundle.setStreamingEngine("STORM");
+        bundle.setBuiltin(true);
+        bundle.setTimestamp(System.currentTimeMillis());
+        return bundle;
+    }
+
+    private <T extends TopologyComponent> T createComponent(T component, String name, Long bundleId, StreamInfo outputStream) {
+        component.setName(name);
+        component.setTopologyComponentBundleId(bundleId);
+        component.setConfig(new Config());
+        if (outputStream != null) {
+            ((TopologyOutputComponent) component).setOutputStreams(Collections.singletonList(outputStream));
+        }
+        return component;
+    }
+
+    private StreamInfo createStream(String streamId) {
+        StreamInfo streamInfo = new StreamInfo();
+        streamInfo.setStreamId(streamId);
+        streamInfo.setFields(Collections.singletonList(Schema.Field.of("f1", Schema.Type.STRING)));
+        return streamInfo;
+    }
+
+    private TopologyEdge createEdge(TopologyOutputComponent from, TopologyComponent to) {
+        TopologyEdge.StreamGrouping streamGrouping = new TopologyEdge.StreamGrouping();
+        streamGrouping.setStreamId(from.getOutputStreamIds().get(0));
+        streamGrouping.setGrouping(Stream.Grouping.SHUFFLE);
+        TopologyEdge edge = new TopologyEdge();
+        edge.setFromId(from.getId());
+        edge.setToId(to.getId());
+        edge.setStreamGroupings(Collections.singletonList(streamGrouping));
+        return edge;
+    }
+
+    private Component getComponent(TopologyDag dag, String name) {
+        return dag.getComponents().stream().filter(c -> c.getName().equals(name)).findFirst().get();
+    }
+
+    private List<String> getNames(Iterable<? extends Component> components) {
+        List<String> names = new ArrayList<>();
+        components.forEach(c -> names.add(c.getName()));
+        Collections.sort(names);
+        return names;
+    }
+
+    private Set<String> getStreamIds(Set<Stream> streams) {
+        return streams.stream().map(Stream::getId).collect(Collectors.toSet());
+    }
+
+    private Set<String> getGroupingStreamIds(Edge edge) {
+        return edge.getStreamGroupings().stream().map(g -> g.getStream().getId()).collect(Collectors.toSet());
+    }
+}
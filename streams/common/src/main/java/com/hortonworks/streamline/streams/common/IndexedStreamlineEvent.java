@@ -0,0 +1,397 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.common;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A {@link StreamlineEvent} that keeps its fields and values in an array indexed by a shared
+ * {@link StreamlineEventLayout} instead of a per event hash map.
+ * <p>
+ * Events created via {@link #addFieldsAndValues(Map)} that only add new fields do not copy the values
+ * of this event, they refer to it and hold just the added values. Like {@link StreamlineEventImpl}
+ * the fieldsAndValues are immutable, and since a null slot marks an absent field null values are
+ * never part of the map.
+ * </p>
+ */
+public final class IndexedStreamlineEvent extends AbstractMap<String, Object> implements StreamlineEvent {
+    // events chained deeper than this are flattened into a single values array
+    private static final int MAX_CHAIN_DEPTH = 4;
+
+    private final StreamlineEventLayout layout;
+    // values for the slots [base, layout.size()), slots below base are looked up in the parent
+    private final Object[] values;
+    private final IndexedStreamlineEvent parent;
+    private final int base;
+    private final int depth;
+    private final int size;
+    private final Map<String, Object> header;
+    private final String sourceStream;
+    private final Map<String, Object> auxiliaryFieldsAndValues;
+    private final String dataSourceId;
+    private final String id;
+    private transient Set<Entry<String, Object>> entrySet;
+
+    /**
+     * Creates an IndexedStreamlineEvent with given keyValues, dataSourceId and a random UUID as the id.
+     * Fields that are not part of the layout are appended to it and fields with null values are treated as absent.
+     */
+    public IndexedStreamlineEvent(StreamlineEventLayout layout, Map<String, Object> keyValues, String dataSourceId) {
+        this(layout, keyValues, dataSourceId, UUID.randomUUID().toString(), new HashMap<>(),
+                StreamlineEventImpl.DEFAULT_SOURCE_STREAM, null);
+    }
+
+    /**
+     * Creates an IndexedStreamlineEvent with given keyValues, dataSourceId, id, header, sourceStream and auxiliary fields.
+     * Fields that are not part of the layout are appended to it and fields with null values are treated as absent.
+     */
+    public IndexedStreamlineEvent(StreamlineEventLayout layout, Map<String, Object> keyValues, String dataSourceId, String id,
+                                  Map<String, Object> header, String sourceStream, Map<String, Object> auxiliaryFieldsAndValues) {
+        this(layout.extend(keyValues.keySet()), toValues(layout.extend(keyValues.keySet()), keyValues),
+                dataSourceId, id, header, sourceStream, auxiliaryFieldsAndValues);
+    }
+
+    /**
+     * Creates an IndexedStreamlineEvent with the values at the corresponding slots of the layout, a null
+     * value means the field is absent. The values array is not copied and must not be modified afterwards.
+     */
+    public IndexedStreamlineEvent(StreamlineEventLayout layout, Object[] values, String dataSourceId, String id,
+                                  Map<String, Object> header, String sourceStream) {
+        this(layout, values, dataSourceId, id, header, sourceStream, null);
+    }
+
+    /**
+     * Creates an IndexedStreamlineEvent with the values at the corresponding slots of the layout, a null
+     * value means the field is absent. The event gets a random UUID as the id.
+     */
+    public IndexedStreamlineEvent(StreamlineEventLayout layout, Object[] values, String dataSourceId) {
+        this(layout, values, dataSourceId, UUID.randomUUID().toString(), new HashMap<>(), StreamlineEventImpl.DEFAULT_SOURCE_STREAM);
+    }
+
+    /**
+     * Creates an IndexedStreamlineEvent with the values at the corresponding slots of the layout and the given
+     * auxiliary fields, a null value means the field is absent. The values array is not copied and must not be
+     * modified afterwards.
+     */
+    public IndexedStreamlineEvent(StreamlineEventLayout layout, Object[] values, String dataSourceId, String id,
+                                  Map<String, Object> header, String sourceStream, Map<String, Object> auxiliaryFieldsAndValues) {
+        checkLength(layout, values);
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                ++count;
+            }
+        }
+        this.layout = layout;
+        this.values = values;
+        this.parent = null;
+        this.base = 0;
+        this.depth = 0;
+        this.size = count;
+        this.dataSourceId = dataSourceId;
+        this.id = id;
+        this.header = header;
+        this.sourceStream = sourceStream;
+        this.auxiliaryFieldsAndValues = auxiliaryFieldsAndValues != null ? new HashMap<>(auxiliaryFieldsAndValues) : new HashMap<>();
+    }
+
+    /*
+     * Creates a copy of 'other' with the given layout and values. If 'parent' is non null the values
+     * hold only the slots starting at parent's layout size.
+     */
+    private IndexedStreamlineEvent(IndexedStreamlineEvent other, StreamlineEventLayout layout, IndexedStreamlineEvent parent,
+                                   Object[] values, int size, Map<String, Object> header) {
+        this.layout = layout;
+        this.values = values;
+        this.parent = parent;
+        this.base = parent != null ? parent.layout.size() : 0;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+        this.size = size;
+        this.header = header;
+        this.sourceStream = other.sourceStream;
+        this.auxiliaryFieldsAndValues = new HashMap<>(other.auxiliaryFieldsAndValues);
+        this.dataSourceId = other.dataSourceId;
+        this.id = other.id;
+    }
+
+    private static Object[] toValues(StreamlineEventLayout layout, Map<String, Object> keyValues) {
+        Object[] values = new Object[layout.size()];
+        for (Map.Entry<String, Object> entry : keyValues.entrySet()) {
+            values[layout.indexOf(entry.getKey())] = entry.getValue();
+        }
+        return values;
+    }
+
+    private static void checkLength(StreamlineEventLayout layout, Object[] values) {
+        if (values.length != layout.size()) {
+            throw new IllegalArgumentException("Expected " + layout.size() + " values for " + layout + " but got " + values.length);
+        }
+    }
+
+    public StreamlineEventLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns the value at the given slot of the layout or null if the field is absent.
+     */
+    public Object getValue(int index) {
+        IndexedStreamlineEvent event = this;
+        while (index < event.base) {
+            event = event.parent;
+        }
+        return event.values[index - event.base];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = layout.indexOf(key);
+        return index >= 0 ? getValue(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> result = entrySet;
+        if (result == null) {
+            entrySet = result = new EntrySet();
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getAuxiliaryFieldsAndValues() {
+        return auxiliaryFieldsAndValues;
+    }
+
+    @Override
+    public void addAuxiliaryFieldAndValue(String field, Object value) {
+        auxiliaryFieldsAndValues.put(field, value);
+    }
+
+    @Override
+    public Map<String, Object> getHeader() {
+        return header;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDataSourceId() {
+        String res = dataSourceId;
+        if (res == null) {
+            Object dataSourceIds = header.get("dataSourceIds");
+            if (dataSourceIds instanceof List) {
+                res = Joiner.on(",").join(Collections2.filter((List) dataSourceIds, new Predicate() {
+                    @Override
+                    public boolean apply(Object input) {
+                        return input != null;
+                    }
+                }));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public String getSourceStream() {
+        return sourceStream;
+    }
+
+    /**
+     * Returns a new Streamline event with the given fieldsAndValues added to the existing fieldsAndValues.
+     * If none of the fields are already present the returned event shares the values of this event.
+     *
+     * @param fieldsAndValues the map of fieldsAndValues to add
+     * @return the new StreamlineEvent
+     */
+    @Override
+    public StreamlineEvent addFieldsAndValues(Map<String, Object> fieldsAndValues) {
+        Objects.requireNonNull(fieldsAndValues, "keyValues is null");
+        if (fieldsAndValues.isEmpty()) {
+            return new IndexedStreamlineEvent(this, layout, parent, values, size, header);
+        }
+        StreamlineEventLayout newLayout = layout.extend(fieldsAndValues.keySet());
+        boolean overwrites = newLayout.size() - layout.size() < fieldsAndValues.size();
+        if (overwrites || depth >= MAX_CHAIN_DEPTH) {
+            Object[] newValues = new Object[newLayout.size()];
+            for (int i = 0; i < layout.size(); i++) {
+                newValues[i] = getValue(i);
+            }
+            int newSize = size;
+            for (Map.Entry<String, Object> entry : fieldsAndValues.entrySet()) {
+                int index = newLayout.indexOf(entry.getKey());
+                if (newValues[index] == null) {
+                    ++newSize;
+                }
+                newValues[index] = Objects.requireNonNull(entry.getValue(), "null value for key " + entry.getKey());
+            }
+            return new IndexedStreamlineEvent(this, newLayout, null, newValues, newSize, header);
+        }
+        Object[] newValues = new Object[newLayout.size() - layout.size()];
+        for (Map.Entry<String, Object> entry : fieldsAndValues.entrySet()) {
+            newValues[newLayout.indexOf(entry.getKey()) - layout.size()] =
+                    Objects.requireNonNull(entry.getValue(), "null value for key " + entry.getKey());
+        }
+        return new IndexedStreamlineEvent(this, newLayout, this, newValues, size + newValues.length, header);
+    }
+
+    @Override
+    public StreamlineEvent addFieldAndValue(String key, Object value) {
+        return addFieldsAndValues(Collections.singletonMap(key, value));
+    }
+
+    /**
+     * Returns a new Streamline event with the given headers added to the existing headers.
+     * All the other fields are copied from this event.
+     * @param headers the map of fieldsAndValues to add or overwrite
+     * @return the new StreamlineEvent
+     */
+    @Override
+    public StreamlineEvent addHeaders(Map<String, Object> headers) {
+        IndexedStreamlineEvent result = new IndexedStreamlineEvent(this, layout, parent, values, size, header);
+        result.header.putAll(headers);
+        return result;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return this.toString().getBytes();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StreamlineEvent)) return false;
+
+        StreamlineEvent that = (StreamlineEvent) o;
+
+        return id.equals(that.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Object put(String k, Object v) {
+        return StreamlineEvent.super.put(k, v);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Object remove(Object o) {
+        return StreamlineEvent.super.remove(o);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void putAll(Map<? extends String, ? extends Object> map) {
+        StreamlineEvent.super.putAll(map);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void clear() {
+        StreamlineEvent.super.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedStreamlineEvent{" +
+                "header=" + header +
+                ", sourceStream='" + sourceStream + '\'' +
+                ", fieldsAndValues=" + super.toString() +
+                ", auxiliaryFieldsAndValues=" + auxiliaryFieldsAndValues +
+                ", dataSourceId='" + dataSourceId + '\'' +
+                ", id='" + id + '\'' +
+                '}';
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new Iterator<Entry<String, Object>>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < layout.size() && getValue(from) == null) {
+                        ++from;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < layout.size();
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Entry<String, Object> entry = new SimpleImmutableEntry<>(layout.fieldName(next), getValue(next));
+                    next = advance(next + 1);
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
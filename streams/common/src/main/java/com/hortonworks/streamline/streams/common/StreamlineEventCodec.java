@@ -0,0 +1,470 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.common;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A compact, schema aware binary codec for {@link StreamlineEvent}s that can be used with or without Storm.
+ * <p>
+ * The codec is created with the layouts of the streams in the topology and the encoder and decoder must use
+ * the same layouts in the same order. Field names of those layouts are written as ordinals, other field names
+ * are written inline. Ids that are UUIDs are written as 128 bit values and the header, auxiliary fields and
+ * nested maps are written as varint prefixed, type tagged entries.
+ * </p>
+ */
+public class StreamlineEventCodec implements Serializable {
+    private static final int VERSION = 1;
+
+    private static final int FLAG_UUID_ID = 1;
+    private static final int FLAG_DATA_SOURCE_ID = 1 << 1;
+    private static final int FLAG_DEFAULT_STREAM = 1 << 2;
+    private static final int FLAG_INDEXED = 1 << 3;
+
+    // value type tags
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int SHORT = 4;
+    private static final int INT = 5;
+    private static final int LONG = 6;
+    private static final int FLOAT = 7;
+    private static final int DOUBLE = 8;
+    private static final int STRING = 9;
+    private static final int BINARY = 10;
+    private static final int LIST = 11;
+    private static final int MAP = 12;
+    private static final int EVENT = 13;
+    private static final int OBJECT = 14;
+
+    private final List<StreamlineEventLayout> layouts;
+    private final Map<StreamlineEventLayout, Integer> layoutIndexes = new HashMap<>();
+    private final List<String> fieldNames = new ArrayList<>();
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+
+    /**
+     * Creates a codec without any known layouts, all the field names are written inline.
+     */
+    public StreamlineEventCodec() {
+        this(Collections.<StreamlineEventLayout>emptyList());
+    }
+
+    /**
+     * Creates a codec for the given stream layouts.
+     */
+    public StreamlineEventCodec(Collection<StreamlineEventLayout> layouts) {
+        this.layouts = new ArrayList<>(layouts);
+        for (StreamlineEventLayout layout : this.layouts) {
+            if (!layoutIndexes.containsKey(layout)) {
+                layoutIndexes.put(layout, layoutIndexes.size());
+            }
+            for (String name : layout.getFieldNames()) {
+                if (!fieldIndexes.containsKey(name)) {
+                    fieldIndexes.put(name, fieldNames.size());
+                    fieldNames.add(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a codec for the given stream schemas.
+     */
+    public static StreamlineEventCodec forSchemas(Collection<Schema> schemas) {
+        List<StreamlineEventLayout> layouts = new ArrayList<>(schemas.size());
+        for (Schema schema : schemas) {
+            layouts.add(StreamlineEventLayout.of(schema));
+        }
+        return new StreamlineEventCodec(layouts);
+    }
+
+    public byte[] encode(StreamlineEvent event) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            write(event, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error encoding event " + event.getId(), e);
+        }
+        return bos.toByteArray();
+    }
+
+    public StreamlineEvent decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error decoding event", e);
+        }
+    }
+
+    public void write(StreamlineEvent event, DataOutput out) throws IOException {
+        UUID uuid = toUUID(event.getId());
+        String dataSourceId = event.getDataSourceId();
+        String sourceStream = event.getSourceStream();
+        StreamlineEventLayout layout = event instanceof IndexedStreamlineEvent ? ((IndexedStreamlineEvent) event).getLayout() : null;
+        int flags = 0;
+        if (uuid != null) {
+            flags |= FLAG_UUID_ID;
+        }
+        if (dataSourceId != null) {
+            flags |= FLAG_DATA_SOURCE_ID;
+        }
+        if (StreamlineEvent.DEFAULT_SOURCE_STREAM.equals(sourceStream)) {
+            flags |= FLAG_DEFAULT_STREAM;
+        }
+        if (layout != null) {
+            flags |= FLAG_INDEXED;
+        }
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            writeString(event.getId(), out);
+        }
+        if (dataSourceId != null) {
+            writeString(dataSourceId, out);
+        }
+        if ((flags & FLAG_DEFAULT_STREAM) == 0) {
+            writeString(sourceStream, out);
+        }
+        Integer layoutIndex = layout != null ? layoutIndexes.get(layout) : null;
+        if (layoutIndex != null) {
+            writeVarInt(layoutIndex + 1, out);
+            IndexedStreamlineEvent indexedEvent = (IndexedStreamlineEvent) event;
+            writeVarInt(event.size(), out);
+            for (int i = 0; i < layout.size(); i++) {
+                Object value = indexedEvent.getValue(i);
+                if (value != null) {
+                    writeVarInt(i, out);
+                    writeValue(value, out);
+                }
+            }
+        } else {
+            writeVarInt(0, out);
+            writeVarInt(event.size(), out);
+            for (Map.Entry<String, Object> entry : event.entrySet()) {
+                writeFieldName(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        }
+        writeMap(event.getHeader(), out);
+        writeMap(event.getAuxiliaryFieldsAndValues(), out);
+    }
+
+    public StreamlineEvent read(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported event encoding version " + version);
+        }
+        int flags = in.readUnsignedByte();
+        String id;
+        if ((flags & FLAG_UUID_ID) != 0) {
+            id = new UUID(in.readLong(), in.readLong()).toString();
+        } else {
+            id = readString(in);
+        }
+        String dataSourceId = (flags & FLAG_DATA_SOURCE_ID) != 0 ? readString(in) : null;
+        String sourceStream = (flags & FLAG_DEFAULT_STREAM) != 0 ? StreamlineEvent.DEFAULT_SOURCE_STREAM : readString(in);
+        int layoutRef = readVarInt(in);
+        if (layoutRef > 0) {
+            if (layoutRef > layouts.size()) {
+                throw new IOException("Unknown layout " + layoutRef + ", the codec knows " + layouts.size() + " layouts");
+            }
+            StreamlineEventLayout layout = layouts.get(layoutRef - 1);
+            Object[] values = new Object[layout.size()];
+            int size = readVarInt(in);
+            for (int i = 0; i < size; i++) {
+                values[readVarInt(in)] = readValue(in);
+            }
+            Map<String, Object> header = readMap(in);
+            Map<String, Object> auxiliaryFieldsAndValues = readMap(in);
+            return new IndexedStreamlineEvent(layout, values, dataSourceId, id, header, sourceStream, auxiliaryFieldsAndValues);
+        }
+        int size = readVarInt(in);
+        Map<String, Object> fieldsAndValues = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String name = readFieldName(in);
+            fieldsAndValues.put(name, readValue(in));
+        }
+        Map<String, Object> header = readMap(in);
+        Map<String, Object> auxiliaryFieldsAndValues = readMap(in);
+        if ((flags & FLAG_INDEXED) != 0) {
+            return new IndexedStreamlineEvent(StreamlineEventLayout.EMPTY, fieldsAndValues, dataSourceId, id, header,
+                    sourceStream, auxiliaryFieldsAndValues);
+        }
+        return new StreamlineEventImpl(fieldsAndValues, dataSourceId, id, header, sourceStream, auxiliaryFieldsAndValues);
+    }
+
+    /*
+     * Returns the UUID for the id if the id is the canonical string form of that UUID, null otherwise.
+     */
+    private static UUID toUUID(String id) {
+        if (id == null || id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-'
+                || id.charAt(18) != '-' || id.charAt(23) != '-') {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // known names are written as even tags, inline names as the odd tag 1 followed by the name
+    private void writeFieldName(String name, DataOutput out) throws IOException {
+        Integer index = fieldIndexes.get(name);
+        if (index != null) {
+            writeVarInt(index << 1, out);
+        } else {
+            writeVarInt(1, out);
+            writeString(name, out);
+        }
+    }
+
+    private String readFieldName(DataInput in) throws IOException {
+        int tag = readVarInt(in);
+        if ((tag & 1) != 0) {
+            return readString(in);
+        }
+        int index = tag >>> 1;
+        if (index >= fieldNames.size()) {
+            throw new IOException("Unknown field ordinal " + index);
+        }
+        return fieldNames.get(index);
+    }
+
+    private void writeMap(Map<?, ?> map, DataOutput out) throws IOException {
+        if (map == null) {
+            writeVarInt(0, out);
+            return;
+        }
+        writeVarInt(map.size(), out);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K> Map<K, Object> readMap(DataInput in) throws IOException {
+        int size = readVarInt(in);
+        Map<K, Object> map = new HashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            K key = (K) readValue(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    /**
+     * Writes a single value, e.g. a field value of an event, in the same encoding as the event fields.
+     */
+    public void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            writeVarLong(zigzag((Integer) value), out);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            writeVarLong(zigzag((Long) value), out);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BINARY);
+            writeVarInt(bytes.length, out);
+            out.write(bytes);
+        } else if (value instanceof StreamlineEvent) {
+            out.writeByte(EVENT);
+            write((StreamlineEvent) value, out);
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            writeMap((Map<?, ?>) value, out);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            writeVarInt(list.size(), out);
+            for (Object element : list) {
+                writeValue(element, out);
+            }
+        } else {
+            out.writeByte(OBJECT);
+            writeObject(value, out);
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue(Object, DataOutput)}.
+     */
+    public Object readValue(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return (int) unzigzag(readVarLong(in));
+            case LONG:
+                return unzigzag(readVarLong(in));
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case BINARY:
+                byte[] bytes = new byte[readVarInt(in)];
+                in.readFully(bytes);
+                return bytes;
+            case LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case MAP:
+                return readMap(in);
+            case EVENT:
+                return read(in);
+            case OBJECT:
+                return readObject(in);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static void writeObject(Object value, DataOutput out) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        }
+        writeVarInt(bos.size(), out);
+        out.write(bos.toByteArray());
+    }
+
+    private static Object readObject(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(int value, DataOutput out) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL, out);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static void writeVarLong(long value, DataOutput out) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    @Override
+    public String toString() {
+        return "StreamlineEventCodec{" +
+                "layouts=" + layouts +
+                '}';
+    }
+}
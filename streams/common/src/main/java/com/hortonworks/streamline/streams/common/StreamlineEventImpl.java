@@ -210,11 +210,12 @@ public final class StreamlineEventImpl extends ForwardingMap<String, Object> imp
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        // events are identified by their id irrespective of the StreamlineEvent implementation
+        if (!(o instanceof StreamlineEvent)) return false;
 
-        StreamlineEventImpl that = (StreamlineEventImpl) o;
+        StreamlineEvent that = (StreamlineEvent) o;
 
-        return id.equals(that.id);
+        return id.equals(that.getId());
     }
 
     @Override
@@ -0,0 +1,196 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.hortonworks.streamline.common.Schema;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable, interned mapping of field names to array slots, shared by all the
+ * {@link IndexedStreamlineEvent}s of a stream.
+ * <p>
+ * Layouts are interned by their ordered list of field names, so two layouts built from
+ * the same {@link Schema} are the same instance. The fields added by {@link #extend(Collection)}
+ * are sorted, so that the field sets of events built from maps give the same layouts whatever
+ * the iteration order of the maps. At most {@link #MAX_INTERNED_LAYOUTS} layouts are interned,
+ * the layouts created past that are not shared, they have to be compared with equals.
+ * </p>
+ */
+public final class StreamlineEventLayout implements Serializable {
+    static final int MAX_INTERNED_LAYOUTS = 10000;
+
+    private static final ConcurrentMap<List<String>, StreamlineEventLayout> INTERNED = new ConcurrentHashMap<>();
+
+    public static final StreamlineEventLayout EMPTY = of(ImmutableList.<String>of());
+
+    private final ImmutableList<String> fieldNames;
+    private final ImmutableMap<String, Integer> indexes;
+
+    private StreamlineEventLayout(ImmutableList<String> fieldNames) {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            builder.put(fieldNames.get(i), i);
+        }
+        this.fieldNames = fieldNames;
+        this.indexes = builder.build();
+    }
+
+    /**
+     * Returns the layout for the top level fields of the given schema.
+     */
+    public static StreamlineEventLayout of(Schema schema) {
+        Objects.requireNonNull(schema, "schema is null");
+        List<String> names = new ArrayList<>(schema.getFields().size());
+        for (Schema.Field field : schema.getFields()) {
+            names.add(field.getName());
+        }
+        return of(names);
+    }
+
+    /**
+     * Returns the layout for the given field names. The field names must be unique.
+     */
+    public static StreamlineEventLayout of(List<String> fieldNames) {
+        Objects.requireNonNull(fieldNames, "fieldNames is null");
+        StreamlineEventLayout layout = INTERNED.get(fieldNames);
+        if (layout == null) {
+            ImmutableList<String> names = ImmutableList.copyOf(fieldNames);
+            layout = new StreamlineEventLayout(names);
+            if (INTERNED.size() >= MAX_INTERNED_LAYOUTS) {
+                return layout;
+            }
+            StreamlineEventLayout existing = INTERNED.putIfAbsent(names, layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Returns the layout for the distinct given field names, in the order of their first occurrence. Use
+     * {@link #indexesOf(List)} to map the positions of the given field names to the slots of the layout.
+     */
+    public static StreamlineEventLayout ofDistinct(List<String> fieldNames) {
+        Objects.requireNonNull(fieldNames, "fieldNames is null");
+        return of(new ArrayList<>(new LinkedHashSet<>(fieldNames)));
+    }
+
+    /**
+     * Returns the slot of each of the given field names, or -1 for the fields not part of this layout. Duplicate
+     * field names map to the same slot, so the value copied last wins.
+     */
+    public int[] indexesOf(List<String> fieldNames) {
+        int[] slots = new int[fieldNames.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = indexOf(fieldNames.get(i));
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the slot of the given field or -1 if the field is not part of this layout.
+     */
+    public int indexOf(Object fieldName) {
+        Integer index = indexes.get(fieldName);
+        return index != null ? index : -1;
+    }
+
+    public String fieldName(int index) {
+        return fieldNames.get(index);
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    public int size() {
+        return fieldNames.size();
+    }
+
+    /**
+     * Returns a layout that has all the fields of this layout at the same slots followed by the
+     * given field names that are not already part of this layout, in their natural order. Returns
+     * this layout if all the field names are already present.
+     */
+    public StreamlineEventLayout extend(Collection<String> names) {
+        List<String> missing = null;
+        for (String name : names) {
+            if (!indexes.containsKey(name) && (missing == null || !missing.contains(name))) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(name);
+            }
+        }
+        if (missing == null) {
+            return this;
+        }
+        Collections.sort(missing);
+        return of(ImmutableList.<String>builder().addAll(fieldNames).addAll(missing).build());
+    }
+
+    /**
+     * Returns true if this layout is a prefix of (or same as) the other layout, i.e. every slot of this
+     * layout holds the same field in the other layout.
+     */
+    public boolean isPrefixOf(StreamlineEventLayout other) {
+        return this == other
+                || (other.size() >= size() && other.fieldNames.subList(0, size()).equals(fieldNames));
+    }
+
+    /*
+     * Layouts are interned, so resolve to the existing instance in this JVM after deserialization.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        return of(fieldNames);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        StreamlineEventLayout that = (StreamlineEventLayout) o;
+
+        return fieldNames.equals(that.fieldNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return fieldNames.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamlineEventLayout{" +
+                "fieldNames=" + fieldNames +
+                '}';
+    }
+}
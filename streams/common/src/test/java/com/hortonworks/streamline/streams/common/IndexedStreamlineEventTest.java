@@ -0,0 +1,190 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.common;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedStreamlineEventTest {
+    private static final Schema SCHEMA = Schema.of(Schema.Field.of("a", Schema.Type.STRING),
+                                                   Schema.Field.of("b", Schema.Type.STRING),
+                                                   Schema.Field.of("c", Schema.Type.INTEGER));
+
+    @Test
+    public void testLayoutIsInterned() throws Exception {
+        StreamlineEventLayout layout = StreamlineEventLayout.of(SCHEMA);
+        assertSame(layout, StreamlineEventLayout.of(Arrays.asList("a", "b", "c")));
+        assertSame(layout, layout.extend(Arrays.asList("c", "a")));
+        assertSame(StreamlineEventLayout.of(Arrays.asList("a", "b", "c", "d")), layout.extend(Collections.singleton("d")));
+        assertEquals(2, layout.indexOf("c"));
+        assertEquals(-1, layout.indexOf("d"));
+    }
+
+    @Test
+    public void testDistinctLayout() throws Exception {
+        List<String> fieldNames = Arrays.asList("a", "b", "a", "c");
+        StreamlineEventLayout layout = StreamlineEventLayout.ofDistinct(fieldNames);
+        assertSame(StreamlineEventLayout.of(SCHEMA), layout);
+        assertArrayEquals(new int[]{0, 1, 0, 2}, layout.indexesOf(fieldNames));
+        assertArrayEquals(new int[]{2, -1}, layout.indexesOf(Arrays.asList("c", "d")));
+    }
+
+    @Test
+    public void testGetFieldsAndValues() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "aval");
+        map.put("b", "bval");
+
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), map, StringUtils.EMPTY);
+
+        assertEquals(map, event);
+        assertEquals(map.hashCode(), new HashMap<>(event).hashCode());
+        assertEquals(2, event.size());
+        assertTrue(event.containsKey("a"));
+        assertFalse(event.containsKey("c"));
+        assertNull(event.get("c"));
+    }
+
+    @Test
+    public void testExtendedLayoutIsCanonical() throws Exception {
+        StreamlineEventLayout layout = StreamlineEventLayout.of(SCHEMA);
+        StreamlineEventLayout extended = layout.extend(Arrays.asList("e", "d", "a"));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), extended.getFieldNames());
+        assertSame(extended, layout.extend(Arrays.asList("d", "e")));
+    }
+
+    @Test
+    public void testFieldsNotInLayout() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "aval");
+        map.put("x", "xval");
+
+        IndexedStreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), map, StringUtils.EMPTY);
+
+        assertEquals(map, event);
+        assertEquals(4, event.getLayout().size());
+    }
+
+    @Test
+    public void testValuesArray() throws Exception {
+        StreamlineEventLayout layout = StreamlineEventLayout.of(SCHEMA);
+        StreamlineEvent event = new IndexedStreamlineEvent(layout, new Object[]{"aval", null, 1}, "1");
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("a", "aval");
+        expected.put("c", 1);
+        assertEquals(expected, event);
+        assertEquals("1", event.getDataSourceId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValuesArrayLengthMismatch() throws Exception {
+        new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), new Object[]{"aval"}, "1");
+    }
+
+    @Test
+    public void testAddFieldsAndValues() throws Exception {
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), new Object[]{"aval", "bval", null}, "1");
+        StreamlineEvent result = event;
+        for (int i = 0; i < 10; i++) {
+            result = result.addFieldAndValue("f" + i, i);
+        }
+        result = result.addFieldAndValue("c", 3).addFieldAndValue("a", "newval");
+
+        assertEquals(2, event.size());
+        assertEquals(13, result.size());
+        assertEquals("newval", result.get("a"));
+        assertEquals("bval", result.get("b"));
+        assertEquals(3, result.get("c"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, result.get("f" + i));
+        }
+        assertEquals(event.getId(), result.getId());
+        assertEquals(event, result);
+        assertEquals(new HashMap<>(result), result);
+    }
+
+    @Test
+    public void testEqualsAcrossImplementations() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "aval");
+
+        StreamlineEvent event1 = new StreamlineEventImpl(map, StringUtils.EMPTY);
+        StreamlineEvent event2 = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), map, StringUtils.EMPTY, event1.getId(),
+                                                            new HashMap<>(), StreamlineEventImpl.DEFAULT_SOURCE_STREAM, null);
+
+        assertEquals(event1, event2);
+        assertEquals(event2, event1);
+        assertEquals(event1.hashCode(), event2.hashCode());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), new Object[]{"aval", "bval", 1}, "1")
+                .addFieldAndValue("d", 2L);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(event);
+        }
+        IndexedStreamlineEvent copy;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            copy = (IndexedStreamlineEvent) ois.readObject();
+        }
+
+        assertEquals(new HashMap<>(event), new HashMap<>(copy));
+        assertSame(((IndexedStreamlineEvent) event).getLayout(), copy.getLayout());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPut() throws Exception {
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), Collections.emptyMap(), StringUtils.EMPTY);
+        event.put("key", "val");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveIterator() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", "bar");
+
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA), map, StringUtils.EMPTY);
+        Iterator<Map.Entry<String, Object>> it = event.entrySet().iterator();
+        while(it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.common;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StreamlineEventCodecTest {
+    private static final Schema SCHEMA = Schema.of(Schema.Field.of("deviceId", Schema.Type.STRING),
+                                                   Schema.Field.of("temperature", Schema.Type.DOUBLE),
+                                                   Schema.Field.of("count", Schema.Type.LONG));
+
+    private final StreamlineEventCodec codec = StreamlineEventCodec.forSchemas(Collections.singletonList(SCHEMA));
+
+    @Test
+    public void testRoundTripEventImpl() throws Exception {
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("deviceId", "device-1");
+        fieldsAndValues.put("temperature", 98.6);
+        fieldsAndValues.put("unknown", -42);
+        fieldsAndValues.put("nested", Collections.singletonMap("a", Arrays.asList(1L, "two", true, null)));
+        fieldsAndValues.put("bytes", new byte[]{1, 2, 3});
+        Map<String, Object> header = new HashMap<>();
+        header.put("dataSourceIds", Arrays.asList("1", "2"));
+        StreamlineEventImpl event = new StreamlineEventImpl(fieldsAndValues, "ds", "not-a-uuid", header, "stream1",
+                                                            Collections.<String, Object>singletonMap("aux", 1.5f));
+
+        StreamlineEvent result = codec.decode(codec.encode(event));
+
+        assertTrue(result instanceof StreamlineEventImpl);
+        assertEquals("not-a-uuid", result.getId());
+        assertEquals("ds", result.getDataSourceId());
+        assertEquals("stream1", result.getSourceStream());
+        assertEquals(header, result.getHeader());
+        assertEquals(event.getAuxiliaryFieldsAndValues(), result.getAuxiliaryFieldsAndValues());
+        assertEquals("device-1", result.get("deviceId"));
+        assertEquals(98.6, result.get("temperature"));
+        assertEquals(-42, result.get("unknown"));
+        assertEquals(fieldsAndValues.get("nested"), result.get("nested"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) result.get("bytes"));
+    }
+
+    @Test
+    public void testRoundTripIndexedEvent() throws Exception {
+        IndexedStreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA),
+                                                                  new Object[]{"device-1", null, Long.MIN_VALUE}, "ds");
+
+        StreamlineEvent result = codec.decode(codec.encode(event));
+
+        assertTrue(result instanceof IndexedStreamlineEvent);
+        assertSame(event.getLayout(), ((IndexedStreamlineEvent) result).getLayout());
+        assertEquals(event.getId(), result.getId());
+        assertEquals(StreamlineEvent.DEFAULT_SOURCE_STREAM, result.getSourceStream());
+        assertEquals(new HashMap<>(event), new HashMap<>(result));
+    }
+
+    @Test
+    public void testIndexedEventWithUnknownLayout() throws Exception {
+        StreamlineEvent event = new IndexedStreamlineEvent(StreamlineEventLayout.of(SCHEMA),
+                                                           new Object[]{"device-1", 1.0, 2L}, "ds")
+                .addFieldAndValue("extra", "value");
+
+        StreamlineEvent result = codec.decode(codec.encode(event));
+
+        assertTrue(result instanceof IndexedStreamlineEvent);
+        assertEquals(new HashMap<>(event), new HashMap<>(result));
+    }
+
+    @Test
+    public void testUUIDIdIsCompact() throws Exception {
+        Map<String, Object> fieldsAndValues = Collections.<String, Object>singletonMap("deviceId", "d");
+        StreamlineEventImpl uuidEvent = new StreamlineEventImpl(fieldsAndValues, "ds");
+        StreamlineEventImpl stringEvent = new StreamlineEventImpl(fieldsAndValues, "ds", uuidEvent.getId().toUpperCase());
+
+        assertEquals(uuidEvent.getId(), codec.decode(codec.encode(uuidEvent)).getId());
+        assertEquals(stringEvent.getId(), codec.decode(codec.encode(stringEvent)).getId());
+        assertTrue(codec.encode(uuidEvent).length < codec.encode(stringEvent).length);
+    }
+}
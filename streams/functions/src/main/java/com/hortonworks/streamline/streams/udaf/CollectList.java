@@ -35,6 +35,12 @@ public class CollectList implements UDAF<List<Object>, Object, List<Object>> {
         return aggregate;
     }
 
+    @Override
+    public List<Object> merge(List<Object> aggregate1, List<Object> aggregate2) {
+        aggregate1.addAll(aggregate2);
+        return aggregate1;
+    }
+
     @Override
     public List<Object> result(List<Object> aggregate) {
         return aggregate;
@@ -41,6 +41,27 @@ public class NumberSum implements UDAF<Number, Number, Number> {
         throw new IllegalArgumentException("Value type " + val.getClass());
     }
 
+    @Override
+    public Number merge(Number aggregate1, Number aggregate2) {
+        // add returns the type of its second argument, so pass the wider one second
+        return rank(aggregate1) <= rank(aggregate2) ? add(aggregate1, aggregate2) : add(aggregate2, aggregate1);
+    }
+
+    private static int rank(Number val) {
+        if (val instanceof Byte) {
+            return 0;
+        } else if (val instanceof Short) {
+            return 1;
+        } else if (val instanceof Integer) {
+            return 2;
+        } else if (val instanceof Long) {
+            return 3;
+        } else if (val instanceof Float) {
+            return 4;
+        }
+        return 5;
+    }
+
     @Override
     public Number result(Number aggregate) {
         return aggregate;
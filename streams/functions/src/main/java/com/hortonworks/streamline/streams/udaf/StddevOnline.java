@@ -32,6 +32,22 @@ public class StddevOnline {
         return this;
     }
 
+    /**
+     * Combines the values of another instance into this one, see Chan et al.
+     * "Updating Formulae and a Pairwise Algorithm for Computing Sample Variances".
+     */
+    StddevOnline merge(StddevOnline other) {
+        if (other.n == 0) {
+            return this;
+        }
+        int total = n + other.n;
+        double delta = other.mean - mean;
+        aggregate += other.aggregate + delta * delta * n * other.n / total;
+        mean += delta * other.n / total;
+        n = total;
+        return this;
+    }
+
     double stddevp() {
         return Math.sqrt(variancep());
     }
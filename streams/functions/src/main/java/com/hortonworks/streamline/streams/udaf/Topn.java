@@ -28,11 +28,14 @@ import java.util.PriorityQueue;
 public class Topn<T extends Comparable<T>> implements UDAF2<PriorityQueue<T>, Integer, T, List<T>> {
     @Override
     public PriorityQueue<T> init() {
-        return new PriorityQueue<>();
+        return new TopnQueue<>();
     }
 
     @Override
     public PriorityQueue<T> add(PriorityQueue<T> aggregate, Integer n, T val) {
+        if (aggregate instanceof TopnQueue) {
+            ((TopnQueue<T>) aggregate).n = n;
+        }
         if (n <= 0) {
             return aggregate;
         }
@@ -48,10 +51,30 @@ public class Topn<T extends Comparable<T>> implements UDAF2<PriorityQueue<T>, In
 
     }
 
+    @Override
+    public PriorityQueue<T> merge(PriorityQueue<T> aggregate1, PriorityQueue<T> aggregate2) {
+        int n = Math.max(limit(aggregate1), limit(aggregate2));
+        for (T val : aggregate2) {
+            add(aggregate1, n, val);
+        }
+        return aggregate1;
+    }
+
+    private int limit(PriorityQueue<T> aggregate) {
+        return aggregate instanceof TopnQueue ? ((TopnQueue<T>) aggregate).n : aggregate.size();
+    }
+
     @Override
     public List<T> result(PriorityQueue<T> aggregate) {
         List<T> res = new ArrayList<>(aggregate);
         Collections.reverse(res);
         return res;
     }
+
+    /**
+     * Remembers the n of the values added to it so that the aggregates can be merged.
+     */
+    private static class TopnQueue<T> extends PriorityQueue<T> {
+        private int n;
+    }
 }
@@ -36,6 +36,15 @@ public class NumberSumTest {
         test(longArr, Long.class);
     }
 
+    @Test
+    public void testMerge() {
+        NumberSum sum = new NumberSum();
+        Number merged = sum.merge(sum.merge(sum.init(), sum.add(sum.init(), 2.5)), sum.add(sum.init(), 3));
+        Assert.assertEquals(Double.class, merged.getClass());
+        Assert.assertEquals(5.5, merged.doubleValue(), 0);
+        Assert.assertEquals(Long.class, sum.merge(sum.init(), 4L).getClass());
+    }
+
     void test(Number[] arr, Class<? extends Number> clazz) {
         NumberSum sum = new NumberSum();
         Number agg = sum.init();
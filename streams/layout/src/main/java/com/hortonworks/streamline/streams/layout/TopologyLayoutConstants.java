@@ -124,8 +124,10 @@ public final class TopologyLayoutConstants {
     public final static String JSON_KEY_CUSTOM_GROUPING_IMPL = "customGroupingImpl";
     public final static String JSON_KEY_PARALLELISM = "parallelism";
     public final static String JSON_KEY_PARALLELISM_TOOLTIP = "Number of executors";
+    public final static String JSON_KEY_BATCH_LINGER_MS = "batchLingerMs";
     public final static String JSON_KEY_RULES_PROCESSOR_CONFIG ="rulesProcessorConfig";
     public final static String JSON_KEY_RULES = "rules";
+    public final static String JSON_KEY_RULES_SCRIPT_TYPE = "scriptType";
     public final static String JSON_KEY_RULE_ACTIONS = "actions";
     public final static String JSON_KEY_RULE_DECLARED_OUTPUT = "declaredOutput";
     public final static String JSON_KEY_RULE_WINDOW_CONFIG = "windowConfig";
@@ -40,8 +40,12 @@ public class RulesProcessor extends StreamlineProcessor {     //TODO: Rename to
 
     public static final String CONFIG_KEY_RULES = "rules";
     public static final String CONFIG_PROCESS_ALL = "processAll";
+    public static final String CONFIG_INDEX_RULES = "indexRules";
+    public static final String CONFIG_INCREMENTAL_WINDOW = "incrementalWindow";
     private List<Rule> rules;
     private boolean processAll = true;
+    private boolean indexRules = false;
+    private boolean incrementalWindow = false;
 
     public RulesProcessor() {
     }
@@ -50,6 +54,8 @@ public class RulesProcessor extends StreamlineProcessor {     //TODO: Rename to
         super(other);
         this.rules = new ArrayList<>(other.getRules());
         this.processAll = other.processAll;
+        this.indexRules = other.indexRules;
+        this.incrementalWindow = other.incrementalWindow;
     }
 
     public boolean getProcessAll() {
@@ -60,6 +66,30 @@ public class RulesProcessor extends StreamlineProcessor {     //TODO: Rename to
         this.processAll = processAll;
     }
 
+    /**
+     * Whether the equality and range predicates of the rules are indexed so that only the rules whose
+     * indexed predicates match an event are evaluated.
+     */
+    public boolean getIndexRules() {
+        return indexRules;
+    }
+
+    public void setIndexRules(boolean indexRules) {
+        this.indexRules = indexRules;
+    }
+
+    /**
+     * Whether the windowed rules are evaluated incrementally, keeping partial aggregates per sliding interval
+     * instead of re-evaluating all the events in the window, when their window and aggregates support it.
+     */
+    public boolean getIncrementalWindow() {
+        return incrementalWindow;
+    }
+
+    public void setIncrementalWindow(boolean incrementalWindow) {
+        this.incrementalWindow = incrementalWindow;
+    }
+
     public List<Rule> getRules() {
         return rules;
     }
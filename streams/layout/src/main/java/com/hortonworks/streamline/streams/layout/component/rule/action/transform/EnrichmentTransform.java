@@ -32,6 +32,11 @@ public class EnrichmentTransform extends Transform {
     public static final long DEFAULT_MAX_CACHE_SIZE = 1000;
     public static final long DEFAULT_ENTRY_EXPIRATION_INTERVAL = 60 * 5 * 1000;
     public static final long DEFAULT_ENTRY_REFRESH_INTERVAL = 60 * 5 * 1000;
+    /**
+     * lookups wait until the values missing in the cache are loaded by default, so that no event is emitted without
+     * enrichment unless a timeout is configured explicitly.
+     */
+    public static final long DEFAULT_LOOKUP_TIMEOUT = 0;
 
     public static final String ENRICHMENTS_FIELD_NAME="__enrichments";
 
@@ -60,6 +65,13 @@ public class EnrichmentTransform extends Transform {
      */
     private long entryRefreshInterval = DEFAULT_ENTRY_REFRESH_INTERVAL;
 
+    /**
+     * maximum time (in milliseconds) an event waits for the lookups of values missing in the cache, 0 to wait until
+     * they are loaded. Values not loaded in time are not enriched, a timeout trades the enrichment of the events
+     * missing the cache for the latency of the stream when the data provider is slow.
+     */
+    private long lookupTimeout = DEFAULT_LOOKUP_TIMEOUT;
+
     private EnrichmentTransform() {
         this(null, null, null);
     }
@@ -93,6 +105,15 @@ public class EnrichmentTransform extends Transform {
         this.entryRefreshInterval = timeUnit.convert(refreshInterval, TimeUnit.SECONDS);
     }
 
+    /**
+     * @param lookupTimeout maximum time an event waits for the lookups of values missing in the cache, 0 to wait
+     *                      until they are loaded. Values not loaded in time are not enriched.
+     * @param timeUnit Unit of time
+     */
+    public void withLookupTimeout(long lookupTimeout, TimeUnit timeUnit) {
+        this.lookupTimeout = timeUnit.toMillis(lookupTimeout);
+    }
+
     public List<String> getFieldsToBeEnriched() {
         return Collections.unmodifiableList(fieldsToBeEnriched);
     }
@@ -113,6 +134,10 @@ public class EnrichmentTransform extends Transform {
         return entryRefreshInterval;
     }
 
+    public long getLookupTimeout() {
+        return lookupTimeout;
+    }
+
     @Override
     public String toString() {
         return "EnrichmentTransform{" +
@@ -121,6 +146,7 @@ public class EnrichmentTransform extends Transform {
                 ", maxCacheSize=" + maxCacheSize +
                 ", entryExpirationInterval=" + entryExpirationInterval +
                 ", entryRefreshInterval=" + entryRefreshInterval +
+                ", lookupTimeout=" + lookupTimeout +
                 '}'+super.toString();
     }
 }
@@ -105,10 +105,53 @@ public class Window implements Serializable {
         }
     }
 
+    /**
+     * A session window length, the events of a group by key separated by less than the gap belong to the
+     * same session.
+     */
+    public static class Session extends WindowParam {
+        private int gapMs;
+        public Session() {
+
+        }
+        public Session(int gapMs) {
+            this.gapMs = gapMs;
+        }
+
+        public int getGapMs() {
+            return gapMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Session session = (Session) o;
+
+            return gapMs == session.gapMs;
+
+        }
+
+        @Override
+        public int hashCode() {
+            return gapMs;
+        }
+
+        @Override
+        public String toString() {
+            return "Session{" +
+                    "gapMs=" + gapMs +
+                    "}";
+        }
+    }
+
     private WindowParam windowLength;
     private WindowParam slidingInterval;
     private String tsField;
     private int lagMs;
+    private int allowedLatenessMs;
+    private String lateStream;
 
     // for jackson
     private Window() {
@@ -125,6 +168,8 @@ public class Window implements Serializable {
         this.slidingInterval = other.getSlidingInterval();
         this.tsField = other.getTsField();
         this.lagMs = other.getLagMs();
+        this.allowedLatenessMs = other.getAllowedLatenessMs();
+        this.lateStream = other.getLateStream();
     }
 
     public WindowParam getWindowLength() {
@@ -159,6 +204,30 @@ public class Window implements Serializable {
         this.lagMs = lagMs;
     }
 
+    /**
+     * How long after the end of a session window the events still update the already emitted results.
+     * Only applies to session windows.
+     */
+    public int getAllowedLatenessMs() {
+        return allowedLatenessMs;
+    }
+
+    public void setAllowedLatenessMs(int allowedLatenessMs) {
+        this.allowedLatenessMs = allowedLatenessMs;
+    }
+
+    /**
+     * The output stream where the events arriving after the allowed lateness are emitted, null to drop them.
+     * Only applies to session windows.
+     */
+    public String getLateStream() {
+        return lateStream;
+    }
+
+    public void setLateStream(String lateStream) {
+        this.lateStream = lateStream;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -167,11 +236,13 @@ public class Window implements Serializable {
         Window window = (Window) o;
 
         if (lagMs != window.lagMs) return false;
+        if (allowedLatenessMs != window.allowedLatenessMs) return false;
         if (windowLength != null ? !windowLength.equals(window.windowLength) : window.windowLength != null)
             return false;
         if (slidingInterval != null ? !slidingInterval.equals(window.slidingInterval) : window.slidingInterval != null)
             return false;
-        return tsField != null ? tsField.equals(window.tsField) : window.tsField == null;
+        if (tsField != null ? !tsField.equals(window.tsField) : window.tsField != null) return false;
+        return lateStream != null ? lateStream.equals(window.lateStream) : window.lateStream == null;
 
     }
 
@@ -181,6 +252,8 @@ public class Window implements Serializable {
         result = 31 * result + (slidingInterval != null ? slidingInterval.hashCode() : 0);
         result = 31 * result + (tsField != null ? tsField.hashCode() : 0);
         result = 31 * result + lagMs;
+        result = 31 * result + allowedLatenessMs;
+        result = 31 * result + (lateStream != null ? lateStream.hashCode() : 0);
         return result;
     }
 
@@ -191,6 +264,8 @@ public class Window implements Serializable {
                 ", slidingInterval=" + slidingInterval +
                 ", tsField='" + tsField + '\'' +
                 ", lagMs=" + lagMs +
+                ", allowedLatenessMs=" + allowedLatenessMs +
+                ", lateStream='" + lateStream + '\'' +
                 '}';
     }
 }
@@ -80,6 +80,12 @@ public interface NotificationService {
      */
     List<Notification> findNotifications(List<QueryParam> queryParams);
 
+    /**
+     * Returns the page of the notifications matching the query params that skips the first {@code offset}
+     * notifications and has at most {@code limit} of them, in the order of {@link #findNotifications(List)}.
+     */
+    List<Notification> findNotifications(List<QueryParam> queryParams, long offset, int limit);
+
     /**
      * <p>
      * Gets Streamline event from the store matching the given eventId.
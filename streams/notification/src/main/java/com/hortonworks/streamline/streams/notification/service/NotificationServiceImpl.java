@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Notification service implementation.
@@ -138,6 +139,26 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public List<Notification> findNotifications(List<QueryParam> queryParams) {
         LOG.debug("findNotifications with queryParams {}", queryParams);
+        CriteriaImpl<Notification> criteria = buildCriteria(queryParams);
+        LOG.debug("Finding entities from notification store with criteria {}", criteria);
+        return notificationStore.map(s -> s.findEntities(criteria)).orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Notification> findNotifications(List<QueryParam> queryParams, long offset, int limit) {
+        LOG.debug("findNotifications with queryParams {}, offset {}, limit {}", queryParams, offset, limit);
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset can not be negative and limit must be positive");
+        }
+        CriteriaImpl<Notification> criteria = buildCriteria(queryParams);
+        // the store scans from the first row, the rows before the page are read and skipped
+        criteria.setNumRows((int) Math.min(offset, Integer.MAX_VALUE - limit) + limit);
+        LOG.debug("Finding entities from notification store with criteria {}", criteria);
+        return notificationStore.map(s -> s.findEntities(criteria)).orElse(Collections.<Notification>emptyList())
+                .stream().skip(offset).limit(limit).collect(Collectors.toList());
+    }
+
+    private CriteriaImpl<Notification> buildCriteria(List<QueryParam> queryParams) {
         CriteriaImpl<Notification> criteria = new CriteriaImpl<>(Notification.class);
         for (QueryParam qp : queryParams) {
             if (qp.name.equalsIgnoreCase(QUERY_PARAM_NUM_ROWS)) {
@@ -152,8 +173,7 @@ public class NotificationServiceImpl implements NotificationService {
                 criteria.addFieldRestriction(qp.name, qp.value);
             }
         }
-        LOG.debug("Finding entities from notification store with criteria {}", criteria);
-        return notificationStore.map(s -> s.findEntities(criteria)).orElse(Collections.emptyList());
+        return criteria;
     }
 
     @Override
@@ -45,6 +45,7 @@ public abstract class AbstractFluxComponent implements FluxComponent {
     protected final List<Map<String, Object>> referencedComponents = new ArrayList<>();
     protected Map<String, Object> component = new LinkedHashMap<>();
     protected final UUID UUID_FOR_COMPONENTS = UUID.randomUUID();
+    private static final long DEFAULT_BATCH_LINGER_MS = 100L;
 //  TODO: to be fixed after catalog rest client is refactored
 //  protected CatalogRestClient catalogRestClient;
 
@@ -95,6 +96,24 @@ public abstract class AbstractFluxComponent implements FluxComponent {
         }
     }
 
+    /**
+     * Adds the "withBatching" config method to the component when a batch size is configured, for the bolts extending
+     * AbstractProcessorBolt.
+     */
+    protected void addBatchingToComponent () {
+        Integer batchSize;
+        if ((batchSize = (Integer) conf.get(TopologyLayoutConstants.JSON_KEY_BATCH_SIZE)) != null && batchSize > 1) {
+            Number batchLingerMs = (Number) conf.get(TopologyLayoutConstants.JSON_KEY_BATCH_LINGER_MS);
+            Object[] args = {batchSize, batchLingerMs != null ? batchLingerMs.longValue() : DEFAULT_BATCH_LINGER_MS};
+            List configMethods = (List) component.get(StormTopologyLayoutConstants.YAML_KEY_CONFIG_METHODS);
+            if (configMethods == null) {
+                configMethods = new ArrayList();
+                component.put(StormTopologyLayoutConstants.YAML_KEY_CONFIG_METHODS, configMethods);
+            }
+            configMethods.addAll(getConfigMethodsYaml(new String[]{"withBatching"}, new Object[]{args}));
+        }
+    }
+
     protected void addToComponents (Map<String, Object> componentMap) {
         if (componentMap == null ) {
             return;
@@ -55,6 +55,7 @@ public class CustomProcessorBoltFluxComponent extends AbstractFluxComponent {
         List configMethods = getConfigMethodsYaml(configMethodNames, values);
         component = createComponent(boltId, boltClassName, null, null, configMethods);
         addParallelismToComponent();
+        addBatchingToComponent();
     }
 
     @Override
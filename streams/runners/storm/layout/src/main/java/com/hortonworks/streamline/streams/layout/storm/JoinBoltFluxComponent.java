@@ -56,7 +56,9 @@ import java.util.Map;
 
 
 public class JoinBoltFluxComponent extends AbstractFluxComponent {
-
+    private static final String KEY_MEMORY_BUDGET_MB = "memoryBudgetMb";
+    private static final String KEY_SPILL_DIRECTORY = "spillDirectory";
+    private static final String KEY_INCREMENTAL = "incremental";
 
     @Override
     protected void generateComponent()  {
@@ -95,6 +97,10 @@ public class JoinBoltFluxComponent extends AbstractFluxComponent {
                     result.add("join");
                 else if( joinType.compareToIgnoreCase("left")==0 )
                     result.add("leftJoin");
+                else if( joinType.compareToIgnoreCase("right")==0 )
+                    result.add("rightJoin");
+                else if( joinType.compareToIgnoreCase("outer")==0 )
+                    result.add("outerJoin");
                 else
                     throw new IllegalArgumentException("Unsupported Join type: " + joinType);
             }
@@ -117,6 +123,18 @@ public class JoinBoltFluxComponent extends AbstractFluxComponent {
             throw new IllegalArgumentException("'outputStream' is required and cannot be null");
         }
 
+        if( conf.containsKey(KEY_MEMORY_BUDGET_MB) ) {
+            result.add("withMemoryBudgetMb");
+        }
+
+        if( conf.containsKey(KEY_SPILL_DIRECTORY) ) {
+            result.add("withSpillDirectory");
+        }
+
+        if( conf.containsKey(KEY_INCREMENTAL) ) {
+            result.add("withIncrementalJoin");
+        }
+
         return result.toArray(new String[]{});
     }
 
@@ -146,6 +164,19 @@ public class JoinBoltFluxComponent extends AbstractFluxComponent {
         String outputStreamName = conf.get("outputStream").toString();
         result.add( new String[]{outputStreamName} );
 
+        // memory budget of the join
+        if( conf.containsKey(KEY_MEMORY_BUDGET_MB) ) {
+            result.add( new Object[]{ ((Number) conf.get(KEY_MEMORY_BUDGET_MB)).intValue() } );
+        }
+        if( conf.containsKey(KEY_SPILL_DIRECTORY) ) {
+            result.add( new String[]{ conf.get(KEY_SPILL_DIRECTORY).toString() } );
+        }
+
+        // emit only the new results of sliding windows
+        if( conf.containsKey(KEY_INCREMENTAL) ) {
+            result.add( new Object[]{ Boolean.valueOf(conf.get(KEY_INCREMENTAL).toString()) } );
+        }
+
         return result.toArray(new Object[]{});
     }
 
@@ -53,6 +53,7 @@ public class NormalizationBoltFluxComponent extends AbstractFluxComponent {
         boltConstructorArgs.add(normalizationProcessorJson);
         component = createComponent(boltId, boltClassName, null, boltConstructorArgs, null);
         addParallelismToComponent();
+        addBatchingToComponent();
     }
 
     @Override
@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +33,8 @@ import java.util.Map;
  */
 public class RuleBoltFluxComponent extends AbstractFluxComponent {
     private final Logger log = LoggerFactory.getLogger(RuleBoltFluxComponent.class);
+    private static final String DEFAULT_SCRIPT_TYPE = "SQL";
+    private static final List<String> SCRIPT_TYPES = Arrays.asList("SQL", "JAVA", "GROOVY_STATIC");
     protected RulesProcessor rulesProcessor;
 
     public RuleBoltFluxComponent() {
@@ -52,10 +55,16 @@ public class RuleBoltFluxComponent extends AbstractFluxComponent {
                     e);
         }
         boltConstructorArgs.add(rulesProcessorJson);
-        // hardcode script type enum for now.
-        boltConstructorArgs.add("SQL");
+        boltConstructorArgs.add(getScriptType());
         component = createComponent(boltId, boltClassName, null, boltConstructorArgs, null);
         addParallelismToComponent();
+        addBatchingToComponent();
+    }
+
+    // SQL unless the compiled JAVA or GROOVY_STATIC script is selected, the rules that can not be compiled are still evaluated with SQL
+    private String getScriptType() {
+        Object scriptType = conf.get(TopologyLayoutConstants.JSON_KEY_RULES_SCRIPT_TYPE);
+        return scriptType != null ? scriptType.toString() : DEFAULT_SCRIPT_TYPE;
     }
 
     @Override
@@ -66,6 +75,10 @@ public class RuleBoltFluxComponent extends AbstractFluxComponent {
         if (rulesProcessorConfig == null) {
             throw new ComponentConfigException(String.format(TopologyLayoutConstants.ERR_MSG_MISSING_INVALID_CONFIG, fieldName));
         }
+        if (!SCRIPT_TYPES.contains(getScriptType())) {
+            throw new ComponentConfigException(String.format(TopologyLayoutConstants.ERR_MSG_MISSING_INVALID_CONFIG,
+                    TopologyLayoutConstants.JSON_KEY_RULES_SCRIPT_TYPE));
+        }
         /*
         Commenting the below code because of cyclic dependency between layout
         module and core module
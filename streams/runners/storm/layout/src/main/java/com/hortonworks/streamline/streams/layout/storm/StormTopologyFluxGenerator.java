@@ -20,6 +20,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Multimap;
 import com.hortonworks.streamline.common.Config;
+import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.streams.layout.component.Component;
 import com.hortonworks.streamline.streams.layout.component.Edge;
 import com.hortonworks.streamline.streams.layout.component.InputComponent;
@@ -45,6 +46,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -63,12 +65,14 @@ public class StormTopologyFluxGenerator extends TopologyDagVisitor {
     private final TopologyDag topologyDag;
     private final Map<String, String> config;
     private final Config topologyConfig;
+    private final LinkedHashSet<List<String>> eventLayouts = new LinkedHashSet<>();
 
     public StormTopologyFluxGenerator(TopologyLayout topologyLayout, Map<String, String> config, Path extraJarsLocation) {
         this.topologyDag = topologyLayout.getTopologyDag();
         this.topologyConfig = topologyLayout.getConfig();
         this.config = config;
         fluxComponentFactory = new FluxComponentFactory(extraJarsLocation);
+        registerEventSerializer();
     }
 
     @Override
@@ -91,7 +95,9 @@ public class StormTopologyFluxGenerator extends TopologyDagVisitor {
 
 
     @Override
-    public void visit(final RulesProcessor rulesProcessor) {
+    public void visit(final RulesProcessor processor) {
+        // the rules and config are changed below, work on a copy since the dag may be shared
+        final RulesProcessor rulesProcessor = new RulesProcessor(processor);
         rulesProcessor.getConfig().setAny("outputStreams", rulesProcessor.getOutputStreams());
         List<Rule> rulesWithWindow = new ArrayList<>();
         List<Rule> rulesWithoutWindow = new ArrayList<>();
@@ -162,6 +168,53 @@ public class StormTopologyFluxGenerator extends TopologyDagVisitor {
         setIfGreater(StormTopologyLayoutConstants.TOPOLOGY_MAX_SPOUT_PENDING, maxPending);
     }
 
+    /*
+     * Registers the compact StreamlineEvent serializer for the event classes unless the
+     * user has configured serializers for them explicitly.
+     */
+    private void registerEventSerializer() {
+        List<Object> registrations = new ArrayList<>();
+        if (topologyConfig.contains(StormTopologyLayoutConstants.TOPOLOGY_KRYO_REGISTER)) {
+            registrations.addAll(topologyConfig.<List<Object>>getAny(StormTopologyLayoutConstants.TOPOLOGY_KRYO_REGISTER));
+        }
+        for (String eventClass : new String[]{StormTopologyLayoutConstants.STREAMLINE_EVENT_IMPL_CLASS,
+                StormTopologyLayoutConstants.INDEXED_STREAMLINE_EVENT_CLASS}) {
+            if (!isRegistered(registrations, eventClass)) {
+                Map<String, String> registration = new LinkedHashMap<>();
+                registration.put(eventClass, StormTopologyLayoutConstants.STREAMLINE_EVENT_SERIALIZER_CLASS);
+                registrations.add(registration);
+            }
+        }
+        topologyConfig.setAny(StormTopologyLayoutConstants.TOPOLOGY_KRYO_REGISTER, registrations);
+    }
+
+    private boolean isRegistered(List<Object> registrations, String className) {
+        for (Object registration : registrations) {
+            if (className.equals(registration)
+                    || (registration instanceof Map && ((Map) registration).containsKey(className))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Adds the field names of the stream to the layouts known to the event serializer so that
+     * the fields of the events in the stream are serialized as ordinals.
+     */
+    private void addEventLayout(Stream stream) {
+        Schema schema = stream.getSchema();
+        if (schema != null && schema.getFields() != null) {
+            List<String> fieldNames = new ArrayList<>();
+            for (Schema.Field field : schema.getFields()) {
+                fieldNames.add(field.getName());
+            }
+            if (eventLayouts.add(fieldNames)) {
+                topologyConfig.setAny(StormTopologyLayoutConstants.TOPOLOGY_EVENT_LAYOUTS, new ArrayList<>(eventLayouts));
+            }
+        }
+    }
+
     private void setIfGreater(String key, int value) {
         Integer curVal = topologyConfig.getInt(key, DELTA);
         if (value > curVal) {
@@ -205,6 +258,9 @@ public class StormTopologyFluxGenerator extends TopologyDagVisitor {
 
     @Override
     public void visit(Edge edge) {
+        for (StreamGrouping streamGrouping : edge.getStreamGroupings()) {
+            addEventLayout(streamGrouping.getStream());
+        }
         if (sourceYamlComponentExists(edge)) {
             for (StreamGrouping streamGrouping : edge.getStreamGroupings()) {
                 addEdge(edge.getFrom(),
@@ -26,6 +26,11 @@ public final class StormTopologyLayoutConstants {
     public static final String STORM_HOME_DIR = "stormHomeDir";
     public static final String TOPOLOGY_MESSAGE_TIMEOUT_SECS = "topology.message.timeout.secs";
     public static final String TOPOLOGY_MAX_SPOUT_PENDING = "topology.max.spout.pending";
+    public static final String TOPOLOGY_KRYO_REGISTER = "topology.kryo.register";
+    public static final String TOPOLOGY_EVENT_LAYOUTS = "topology.streamline.event.layouts";
+    public static final String STREAMLINE_EVENT_SERIALIZER_CLASS = "com.hortonworks.streamline.streams.runtime.storm.serialization.StreamlineEventSerializer";
+    public static final String STREAMLINE_EVENT_IMPL_CLASS = "com.hortonworks.streamline.streams.common.StreamlineEventImpl";
+    public static final String INDEXED_STREAMLINE_EVENT_CLASS = "com.hortonworks.streamline.streams.common.IndexedStreamlineEvent";
     public static final String STREAMLINE_COMPONENT_CONF_KEY = "streamlineComponent";
 
     // yaml key constants
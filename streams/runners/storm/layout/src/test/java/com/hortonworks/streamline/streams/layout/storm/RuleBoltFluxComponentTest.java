@@ -0,0 +1,72 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.layout.storm;
+
+import com.hortonworks.streamline.streams.layout.TopologyLayoutConstants;
+import com.hortonworks.streamline.streams.layout.component.impl.RulesProcessor;
+import com.hortonworks.streamline.streams.layout.exception.ComponentConfigException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RuleBoltFluxComponentTest {
+
+    @Test
+    public void testScriptTypeDefaultsToSql() throws Exception {
+        Assert.assertEquals("SQL", getScriptTypeArg(newConfig(null)));
+    }
+
+    @Test
+    public void testCompiledJavaScriptType() throws Exception {
+        Assert.assertEquals("JAVA", getScriptTypeArg(newConfig("JAVA")));
+    }
+
+    @Test
+    public void testStaticGroovyScriptType() throws Exception {
+        RuleBoltFluxComponent component = new RuleBoltFluxComponent();
+        component.withConfig(newConfig("GROOVY_STATIC"));
+        component.validateConfig();
+        Assert.assertEquals("GROOVY_STATIC", getScriptTypeArg(newConfig("GROOVY_STATIC")));
+    }
+
+    @Test(expected = ComponentConfigException.class)
+    public void testInvalidScriptType() throws Exception {
+        RuleBoltFluxComponent component = new RuleBoltFluxComponent();
+        component.withConfig(newConfig("GROOVY"));
+        component.validateConfig();
+    }
+
+    private static Map<String, Object> newConfig(String scriptType) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(StormTopologyLayoutConstants.STREAMLINE_COMPONENT_CONF_KEY, new RulesProcessor());
+        config.put(TopologyLayoutConstants.JSON_KEY_RULES_PROCESSOR_CONFIG, Collections.emptyMap());
+        if (scriptType != null) {
+            config.put(TopologyLayoutConstants.JSON_KEY_RULES_SCRIPT_TYPE, scriptType);
+        }
+        return config;
+    }
+
+    private static Object getScriptTypeArg(Map<String, Object> config) {
+        RuleBoltFluxComponent component = new RuleBoltFluxComponent();
+        component.withConfig(config);
+        List<Object> args = (List<Object>) component.getComponent().get(StormTopologyLayoutConstants.YAML_KEY_CONSTRUCTOR_ARGS);
+        return args.get(1);
+    }
+}
@@ -16,18 +16,34 @@
 
 package com.hortonworks.streamline.streams.runtime.storm.bolt;
 
+import com.hortonworks.streamline.streams.Result;
 import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.runtime.ProcessorRuntime;
+import org.apache.storm.Config;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- *
+ * Base class for the bolts which process one {@link StreamlineEvent} per input tuple.
+ * <p>
+ * By default every tuple is processed and acked as it arrives. When batching is enabled with {@link #withBatching(int, long)}
+ * and the runtime of the bolt processes batches natively (see {@link #supportsBatching()}), the tuples are buffered and
+ * handed over to {@link #processBatch(List, List)} once the batch size is reached or the oldest buffered tuple has waited
+ * for the linger time. The results of each tuple are then emitted and the tuple acked, or failed, on its own.
+ * Tick tuples are requested so that a partially filled batch is flushed even if no more tuples arrive.
+ * </p>
  */
 public abstract class AbstractProcessorBolt extends BaseRichBolt {
     protected static final Logger LOG = LoggerFactory.getLogger(AbstractProcessorBolt.class);
@@ -36,15 +52,59 @@ public abstract class AbstractProcessorBolt extends BaseRichBolt {
     protected TopologyContext context;
     protected OutputCollector collector;
 
+    private int batchSize = 1;
+    private long batchLingerMs;
+    private transient List<Tuple> bufferedTuples;
+    private transient List<StreamlineEvent> bufferedEvents;
+    private transient long batchStartNanos;
+    // decided once the runtime of the bolt is prepared
+    private transient Boolean batchingEnabled;
+
+    /**
+     * Enables processing the input tuples in batches.
+     *
+     * @param batchSize maximum number of tuples in a batch, a value of 1 or less disables batching
+     * @param batchLingerMs maximum time in milliseconds a tuple waits in a partially filled batch
+     * @return this bolt
+     */
+    public AbstractProcessorBolt withBatching(int batchSize, long batchLingerMs) {
+        if (batchLingerMs < 0) {
+            throw new IllegalArgumentException("batchLingerMs must not be negative: " + batchLingerMs);
+        }
+        this.batchSize = batchSize;
+        this.batchLingerMs = batchLingerMs;
+        return this;
+    }
+
+    public boolean isBatchingEnabled() {
+        if (batchingEnabled == null) {
+            batchingEnabled = batchSize > 1 && supportsBatching();
+            if (batchSize > 1 && !batchingEnabled) {
+                LOG.info("Batching disabled, the runtime of the bolt does not process batches natively");
+            }
+        }
+        return batchingEnabled;
+    }
+
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.stormConf = stormConf;
         this.context = context;
         this.collector = collector;
+        if (batchSize > 1) {
+            bufferedTuples = new ArrayList<>(batchSize);
+            bufferedEvents = new ArrayList<>(batchSize);
+        }
     }
 
     @Override
     public void execute(Tuple inputTuple) {
+        if (isBatchingEnabled()) {
+            executeBatching(inputTuple);
+            return;
+        } else if (TupleUtils.isTick(inputTuple)) {
+            return;
+        }
         try {
             Object event = inputTuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
             LOG.debug("Executing StreamlineEvent: [{}] with tuple: [{}]", event, inputTuple);
@@ -63,6 +123,112 @@ public abstract class AbstractProcessorBolt extends BaseRichBolt {
         }
     }
 
+    private void executeBatching(Tuple inputTuple) {
+        if (!TupleUtils.isTick(inputTuple)) {
+            Object event = inputTuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
+            LOG.debug("Buffering StreamlineEvent: [{}] with tuple: [{}]", event, inputTuple);
+            if (event instanceof StreamlineEvent) {
+                if (bufferedTuples.isEmpty()) {
+                    batchStartNanos = System.nanoTime();
+                }
+                bufferedTuples.add(inputTuple);
+                bufferedEvents.add((StreamlineEvent) event);
+            } else {
+                LOG.debug("Received invalid input tuple:[{}] with streamline event:[{}] and it is not processed.", inputTuple, event);
+                collector.ack(inputTuple);
+            }
+        }
+        if (bufferedTuples.size() >= batchSize
+                || (!bufferedTuples.isEmpty() && System.nanoTime() - batchStartNanos >= TimeUnit.MILLISECONDS.toNanos(batchLingerMs))) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<Tuple> tuples = new ArrayList<>(bufferedTuples);
+        List<StreamlineEvent> events = new ArrayList<>(bufferedEvents);
+        bufferedTuples.clear();
+        bufferedEvents.clear();
+        List<List<Result>> results;
+        try {
+            results = processBatch(tuples, events);
+        } catch (Exception e) {
+            // nothing has been emitted yet
+            LOG.error("Error occurred while processing a batch of {} tuples", tuples.size(), e);
+            for (Tuple tuple : tuples) {
+                collector.fail(tuple);
+            }
+            collector.reportError(e);
+            return;
+        }
+        for (int i = 0; i < tuples.size(); i++) {
+            Tuple tuple = tuples.get(i);
+            try {
+                emit(tuple, results.get(i));
+                collector.ack(tuple);
+            } catch (Exception e) {
+                LOG.error("Error occurred while emitting the results of the tuple", e);
+                collector.fail(tuple);
+                collector.reportError(e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        // the runtime is not known yet, tick tuples are ignored if batching turns out to be disabled
+        if (batchSize <= 1) {
+            return super.getComponentConfiguration();
+        }
+        // tick tuples have a resolution of seconds, the linger time is also checked on every incoming tuple.
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, (int) Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(batchLingerMs + 999)));
+        return conf;
+    }
+
     protected abstract void process(Tuple inputTuple, StreamlineEvent event) throws Exception;
 
+    /**
+     * Returns true if the bolt implements {@link #processBatch(List, List)} with a runtime that processes batches
+     * natively. Buffering the tuples otherwise only adds latency, so batching stays disabled.
+     */
+    protected boolean supportsBatching() {
+        return false;
+    }
+
+    /**
+     * Processes a batch of events without emitting anything, {@code events.get(i)} is the event carried by
+     * {@code inputTuples.get(i)}. If an exception is thrown all the tuples of the batch are failed.
+     *
+     * @return the results of each event, in the same order as the events
+     */
+    protected List<List<Result>> processBatch(List<Tuple> inputTuples, List<StreamlineEvent> events) throws Exception {
+        throw new UnsupportedOperationException("Batch processing is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Emits the results of the input tuple anchored to it.
+     */
+    protected void emit(Tuple inputTuple, List<Result> results) {
+        if (results != null) {
+            for (Result result : results) {
+                for (StreamlineEvent e : result.events) {
+                    collector.emit(result.stream, inputTuple, new Values(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the runtime overrides {@link ProcessorRuntime#processBatch(List)}.
+     */
+    protected static boolean overridesProcessBatch(ProcessorRuntime processorRuntime) {
+        try {
+            return processorRuntime != null && processorRuntime.getClass().getMethod("processBatch", List.class)
+                    .getDeclaringClass() != ProcessorRuntime.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
 }
@@ -27,14 +27,14 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
-import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
-import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,10 +43,9 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Bolt for supporting custom processors components in an Streamline topology
  */
-public class CustomProcessorBolt extends BaseRichBolt {
+public class CustomProcessorBolt extends AbstractProcessorBolt {
     private static final Logger LOG = LoggerFactory.getLogger(CustomProcessorBolt.class);
     private static final ConcurrentHashMap<String, CustomProcessorRuntime> customProcessorConcurrentHashMap = new ConcurrentHashMap<>();
-    private OutputCollector collector;
     private CustomProcessorRuntime customProcessorRuntime;
     private String customProcessorImpl;
     private Map<String, Object> config;
@@ -144,7 +143,7 @@ public class CustomProcessorBolt extends BaseRichBolt {
 
     @Override
     public void prepare (Map stormConf, TopologyContext context, OutputCollector collector) {
-        this.collector = collector;
+        super.prepare(stormConf, context, collector);
         String message;
         if (StringUtils.isEmpty(customProcessorImpl)) {
             message = "Custom processor implementation class not specified.";
@@ -157,19 +156,16 @@ public class CustomProcessorBolt extends BaseRichBolt {
 
     @Override
     public void execute (Tuple input) {
+        if (isBatchingEnabled()) {
+            super.execute(input);
+            return;
+        } else if (TupleUtils.isTick(input)) {
+            return;
+        }
         try {
             final Object tupleField = input.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
             if (tupleField instanceof StreamlineEvent) {
-                StreamlineEvent event = (StreamlineEvent) tupleField;
-                List<Result> results = customProcessorRuntime.process(new StreamlineEventImpl(event, event.getDataSourceId(), event
-                        .getId(), event.getHeader(), input.getSourceStreamId()));
-                if (results != null) {
-                    for (Result result : results) {
-                        for (StreamlineEvent e : result.events) {
-                            collector.emit(result.stream, input, new Values(e));
-                        }
-                    }
-                }
+                process(input, (StreamlineEvent) tupleField);
             } else {
                 LOG.debug("Invalid tuple received. Tuple disregarded and not sent to custom processor for processing.\n\tTuple [{}]." +
                         "\n\tStreamlineEvent [{}].", input, tupleField);
@@ -185,6 +181,29 @@ public class CustomProcessorBolt extends BaseRichBolt {
         }
     }
 
+    @Override
+    protected void process (Tuple input, StreamlineEvent event) throws Exception {
+        emit(input, customProcessorRuntime.process(getEventWithStream(input, event)));
+    }
+
+    @Override
+    protected boolean supportsBatching () {
+        return overridesProcessBatch(customProcessorRuntime);
+    }
+
+    @Override
+    protected List<List<Result>> processBatch (List<Tuple> inputs, List<StreamlineEvent> events) throws Exception {
+        List<StreamlineEvent> eventsWithStream = new ArrayList<>(events.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            eventsWithStream.add(getEventWithStream(inputs.get(i), events.get(i)));
+        }
+        return customProcessorRuntime.processBatch(eventsWithStream);
+    }
+
+    private StreamlineEvent getEventWithStream (Tuple input, StreamlineEvent event) {
+        return new StreamlineEventImpl(event, event.getDataSourceId(), event.getId(), event.getHeader(), input.getSourceStreamId());
+    }
+
     @Override
     public void declareOutputFields (OutputFieldsDeclarer declarer) {
         if (outputSchema == null || outputSchema.keySet().isEmpty()) {
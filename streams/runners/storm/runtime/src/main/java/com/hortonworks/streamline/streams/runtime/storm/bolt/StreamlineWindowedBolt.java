@@ -51,6 +51,13 @@ public abstract class StreamlineWindowedBolt extends BaseWindowedBolt {
             }
         }
 
+        withTimestampConfig(windowConfig);
+    }
+
+    /**
+     * Configures the timestamp field and the lag of the window, if any.
+     */
+    protected void withTimestampConfig(Window windowConfig) {
         if (windowConfig.getLagMs() != 0) {
             withLag(new Duration(windowConfig.getLagMs(), TimeUnit.MILLISECONDS));
         }
@@ -29,10 +29,10 @@ import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
-import org.apache.storm.tuple.Values;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -67,15 +67,26 @@ public class NormalizationBolt extends AbstractProcessorBolt {
     public void process(Tuple inputTuple, StreamlineEvent event) throws Exception {
         LOG.debug("Normalizing received StreamlineEvent: [{}] with tuple: [{}]", event, inputTuple);
         //todo this bolt will be replaced with custom baseprocessor bolt.
-        StreamlineEventImpl eventWithStream = new StreamlineEventImpl(event, event.getDataSourceId(),
-                event.getId(), event.getHeader(), inputTuple.getSourceStreamId());
-        List<Result> outputEvents = normalizationProcessorRuntime.process(eventWithStream);
-        LOG.debug("Emitting events to collector: [{}]", outputEvents);
-        for (Result outputEvent : outputEvents) {
-            for (StreamlineEvent e : outputEvent.events) {
-                collector.emit(outputEvent.stream, inputTuple, new Values(e));
-            }
+        List<Result> outputEvents = normalizationProcessorRuntime.process(getEventWithStream(inputTuple, event));
+        emit(inputTuple, outputEvents);
+    }
+
+    @Override
+    protected boolean supportsBatching() {
+        return overridesProcessBatch(normalizationProcessorRuntime);
+    }
+
+    @Override
+    protected List<List<Result>> processBatch(List<Tuple> inputTuples, List<StreamlineEvent> events) throws Exception {
+        List<StreamlineEvent> eventsWithStream = new ArrayList<>(events.size());
+        for (int i = 0; i < inputTuples.size(); i++) {
+            eventsWithStream.add(getEventWithStream(inputTuples.get(i), events.get(i)));
         }
+        return normalizationProcessorRuntime.processBatch(eventsWithStream);
+    }
+
+    private StreamlineEvent getEventWithStream(Tuple inputTuple, StreamlineEvent event) {
+        return new StreamlineEventImpl(event, event.getDataSourceId(), event.getId(), event.getHeader(), inputTuple.getSourceStreamId());
     }
 
     @Override
@@ -0,0 +1,216 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.storm.bolt.query;
+
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.windowing.TupleWindow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Inner join of sliding windows that keeps the tuples of the window hashed by join key across windows, see
+ * {@link WindowedQueryBolt#withIncrementalJoin(boolean)}.
+ * <p>
+ * Each stream is joined on its key with the key of a previously joined stream, so in an inner join all the tuples
+ * of a result share the same join key. The tuples are kept in one bucket per join key, holding the tuples of each
+ * stream in arrival order. On every window the expired tuples are removed from their bucket and the new ones are
+ * appended to it, then only the buckets with new tuples are joined, producing the results with at least one new
+ * tuple. The cost of a window is then proportional to the new and expired tuples and their results, rather than to
+ * the size of the window.
+ * </p>
+ */
+class IncrementalHashJoin {
+    private final Map<String, Integer> streamIndexes = new HashMap<>();
+    private final String[][] keyNames;
+    private final Map<Object, Bucket> buckets = new HashMap<>();
+    private int retainedTuples;
+
+    /**
+     * @param joinCriteria the join of each stream, in join order
+     */
+    IncrementalHashJoin(Map<String, WindowedQueryBolt.JoinInfo> joinCriteria) {
+        keyNames = new String[joinCriteria.size()][];
+        for (Map.Entry<String, WindowedQueryBolt.JoinInfo> entry : joinCriteria.entrySet()) {
+            WindowedQueryBolt.JoinInfo joinInfo = entry.getValue();
+            if (joinInfo.getJoinType() != null && joinInfo.getJoinType() != WindowedQueryBolt.JoinType.INNER) {
+                throw new IllegalArgumentException("Incremental join supports only inner joins, found "
+                        + joinInfo.getJoinType() + " join of stream '" + entry.getKey() + "'");
+            }
+            keyNames[streamIndexes.size()] = joinInfo.getNestedKeyName();
+            streamIndexes.put(entry.getKey(), streamIndexes.size());
+        }
+    }
+
+    /**
+     * Applies the expired and new tuples of the window and passes the tuples of each new result, in join order, to
+     * the output.
+     */
+    void join(TupleWindow window, Function<Tuple, String> streamSelector, Consumer<ArrayList<Tuple>> output) {
+        for (Tuple tuple : window.getExpired()) {
+            int index = getStreamIndex(streamSelector.apply(tuple));
+            Object key = WindowedQueryBolt.getNestedField(keyNames[index], tuple);
+            Bucket bucket = key != null ? buckets.get(key) : null;
+            // the expired tuples are usually the oldest of their bucket
+            if (bucket != null && bucket.tuples[index].removeFirstOccurrence(tuple)) {
+                --retainedTuples;
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+        List<Bucket> updated = new ArrayList<>();
+        for (Tuple tuple : window.getNew()) {
+            int index = getStreamIndex(streamSelector.apply(tuple));
+            Object key = WindowedQueryBolt.getNestedField(keyNames[index], tuple);
+            if (key == null) {
+                continue; // never matches in an inner join
+            }
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(keyNames.length);
+                buckets.put(key, bucket);
+            }
+            if (!bucket.hasNewTuples()) {
+                updated.add(bucket);
+            }
+            bucket.add(index, tuple);
+            ++retainedTuples;
+        }
+        for (Bucket bucket : updated) {
+            bucket.joinNewTuples(output);
+        }
+    }
+
+    /**
+     * Returns the number of tuples kept for the next windows.
+     */
+    int getRetainedTuples() {
+        return retainedTuples;
+    }
+
+    private int getStreamIndex(String stream) {
+        Integer index = streamIndexes.get(stream);
+        if (index == null) {
+            throw new RuntimeException("Join information for '" + stream + "' not found. Check the join clauses.");
+        }
+        return index;
+    }
+
+    // the tuples of each stream with the same join key
+    private static final class Bucket {
+        private final ArrayDeque<Tuple>[] tuples;
+        // the number of tuples of each stream added by the current window, at the end of the deques
+        private final int[] newTuples;
+        private int newTupleCount;
+
+        @SuppressWarnings("unchecked")
+        Bucket(int streams) {
+            tuples = new ArrayDeque[streams];
+            for (int i = 0; i < streams; i++) {
+                tuples[i] = new ArrayDeque<>(2);
+            }
+            newTuples = new int[streams];
+        }
+
+        void add(int stream, Tuple tuple) {
+            tuples[stream].addLast(tuple);
+            ++newTuples[stream];
+            ++newTupleCount;
+        }
+
+        boolean hasNewTuples() {
+            return newTupleCount > 0;
+        }
+
+        boolean isEmpty() {
+            for (ArrayDeque<Tuple> streamTuples : tuples) {
+                if (!streamTuples.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /*
+         * Joins the tuples having at least one new tuple. Each result is produced once, from the first stream
+         * contributing a new tuple to it: the streams before it contribute old tuples, the streams after it any tuple.
+         */
+        void joinNewTuples(Consumer<ArrayList<Tuple>> output) {
+            int streams = tuples.length;
+            Tuple[][] streamTuples = new Tuple[streams][];
+            for (int i = 0; i < streams; i++) {
+                if (tuples[i].isEmpty()) {
+                    resetNewTuples();
+                    return;
+                }
+                streamTuples[i] = tuples[i].toArray(new Tuple[tuples[i].size()]);
+            }
+            int[] from = new int[streams];
+            int[] to = new int[streams];
+            for (int first = 0; first < streams; first++) {
+                if (newTuples[first] == 0) {
+                    continue;
+                }
+                boolean empty = false;
+                for (int i = 0; i < streams; i++) {
+                    int oldTuples = streamTuples[i].length - newTuples[i];
+                    from[i] = i == first ? oldTuples : 0;
+                    to[i] = i < first ? oldTuples : streamTuples[i].length;
+                    empty |= from[i] == to[i];
+                }
+                if (!empty) {
+                    joinRange(streamTuples, from, to, output);
+                }
+            }
+            resetNewTuples();
+        }
+
+        private void resetNewTuples() {
+            for (int i = 0; i < newTuples.length; i++) {
+                newTuples[i] = 0;
+            }
+            newTupleCount = 0;
+        }
+
+        // the cartesian product of streamTuples[i][from[i]..to[i])
+        private static void joinRange(Tuple[][] streamTuples, int[] from, int[] to, Consumer<ArrayList<Tuple>> output) {
+            int streams = streamTuples.length;
+            int[] positions = from.clone();
+            while (true) {
+                ArrayList<Tuple> result = new ArrayList<>(streams);
+                for (int i = 0; i < streams; i++) {
+                    result.add(streamTuples[i][positions[i]]);
+                }
+                output.accept(result);
+                int i = streams - 1;
+                while (i >= 0 && ++positions[i] == to[i]) {
+                    positions[i] = from[i];
+                    --i;
+                }
+                if (i < 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.storm.bolt.query;
+
+import com.hortonworks.streamline.streams.common.StreamlineEventCodec;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of a join input split in partitions by the hash of their join key. The rows are kept in memory until the rows
+ * held by all the partitions sharing the {@link MemoryBudget} exceed it, the largest in memory partition is then
+ * spilled to a {@link SpillFile}. A spilled partition that would not fit back in the budget can be drained into
+ * finer partitions instead of being read back, see {@link SpillableHashJoin}.
+ */
+class JoinPartitions implements Closeable {
+    private final MemoryBudget budget;
+    private final File spillDirectory;
+    private final StreamlineEventCodec codec;
+    private final List<Object[]>[] rows;
+    private final long[] sizes;
+    private final long[] spilledSizes;
+    private final SpillFile[] spillFiles;
+
+    @SuppressWarnings("unchecked")
+    JoinPartitions(int partitions, MemoryBudget budget, File spillDirectory, StreamlineEventCodec codec) {
+        this.budget = budget;
+        this.spillDirectory = spillDirectory;
+        this.codec = codec;
+        this.rows = new List[partitions];
+        this.sizes = new long[partitions];
+        this.spilledSizes = new long[partitions];
+        this.spillFiles = new SpillFile[partitions];
+        for (int i = 0; i < partitions; i++) {
+            rows[i] = new ArrayList<>();
+        }
+    }
+
+    void add(int partition, Object[] row) throws IOException {
+        long size = estimateSize(row);
+        rows[partition].add(row);
+        sizes[partition] += size;
+        budget.allocate(size);
+        while (budget.isExceeded() && spillLargest()) {
+            // spill until the rows fit in the budget or there is nothing left to spill
+        }
+    }
+
+    /**
+     * Returns all the rows of the partition, reading back the spilled rows. The memory held by the rows is accounted
+     * for until the partition is released. The spilled rows are read back whole, even when they exceed the budget.
+     */
+    List<Object[]> get(int partition) throws IOException {
+        SpillFile spillFile = spillFiles[partition];
+        if (spillFile == null) {
+            return rows[partition];
+        }
+        List<Object[]> result = spillFile.readAll();
+        long size = 0;
+        for (Object[] row : result) {
+            size += estimateSize(row);
+        }
+        sizes[partition] += size;
+        budget.allocate(size);
+        result.addAll(rows[partition]);
+        rows[partition] = result;
+        spillFiles[partition] = null;
+        spilledSizes[partition] = 0;
+        spillFile.close();
+        return result;
+    }
+
+    /**
+     * Passes the spilled then the in memory rows of the partition to the consumer one at a time, and releases the
+     * partition.
+     */
+    void drain(int partition, SpillFile.RowConsumer consumer) throws IOException {
+        try {
+            if (spillFiles[partition] != null) {
+                spillFiles[partition].forEach(consumer);
+            }
+            for (Object[] row : rows[partition]) {
+                consumer.accept(row);
+            }
+        } finally {
+            release(partition);
+        }
+    }
+
+    boolean isSpilled(int partition) {
+        return spillFiles[partition] != null;
+    }
+
+    /**
+     * Returns the estimated size of the spilled rows of the partition.
+     */
+    long getSpilledSize(int partition) {
+        return spilledSizes[partition];
+    }
+
+    /**
+     * Discards the rows of the partition.
+     */
+    void release(int partition) throws IOException {
+        budget.free(sizes[partition]);
+        sizes[partition] = 0;
+        spilledSizes[partition] = 0;
+        rows[partition] = new ArrayList<>();
+        if (spillFiles[partition] != null) {
+            spillFiles[partition].close();
+            spillFiles[partition] = null;
+        }
+    }
+
+    int getSpilledPartitionCount() {
+        int count = 0;
+        for (SpillFile spillFile : spillFiles) {
+            if (spillFile != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < rows.length; i++) {
+            try {
+                release(i);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private boolean spillLargest() throws IOException {
+        int largest = -1;
+        for (int i = 0; i < sizes.length; i++) {
+            if (!rows[i].isEmpty() && (largest < 0 || sizes[i] > sizes[largest])) {
+                largest = i;
+            }
+        }
+        if (largest < 0) {
+            return false;
+        }
+        if (spillFiles[largest] == null) {
+            spillFiles[largest] = new SpillFile(spillDirectory, codec);
+        }
+        for (Object[] row : rows[largest]) {
+            spillFiles[largest].write(row);
+        }
+        budget.free(sizes[largest]);
+        spilledSizes[largest] += sizes[largest];
+        sizes[largest] = 0;
+        rows[largest] = new ArrayList<>();
+        return true;
+    }
+
+    // a rough estimate of the heap used by the row, assuming compressed references
+    static long estimateSize(Object[] row) {
+        long size = 16 + 4L * row.length;
+        for (Object value : row) {
+            size += estimateSize(value);
+        }
+        return size;
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        } else if (value instanceof Map) {
+            return 64 + 48L * ((Map<?, ?>) value).size();
+        } else if (value instanceof Collection) {
+            return 40 + 24L * ((Collection<?>) value).size();
+        }
+        return 32;
+    }
+
+    /**
+     * The memory available to the rows of a join.
+     */
+    static final class MemoryBudget {
+        private final long limit;
+        private long used;
+
+        MemoryBudget(long limit) {
+            this.limit = limit;
+        }
+
+        void allocate(long size) {
+            used += size;
+        }
+
+        void free(long size) {
+            used -= size;
+        }
+
+        boolean isExceeded() {
+            return used > limit;
+        }
+
+        boolean isExceededBy(long size) {
+            return used + size > limit;
+        }
+
+        long getUsed() {
+            return used;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.storm.bolt.query;
+
+import com.hortonworks.streamline.streams.common.StreamlineEventCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append only file of join rows, the rows are written sequentially and read back through memory mapped regions
+ * of the file. The values are encoded with {@link StreamlineEventCodec#writeValue(Object, java.io.DataOutput)}.
+ */
+class SpillFile implements Closeable {
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+    private final File file;
+    private final StreamlineEventCodec codec;
+    private DataOutputStream out;
+    private int rowCount;
+
+    SpillFile(File directory, StreamlineEventCodec codec) throws IOException {
+        this.file = File.createTempFile("join-", ".spill", directory);
+        this.file.deleteOnExit();
+        this.codec = codec;
+    }
+
+    void write(Object[] row) throws IOException {
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+        out.writeInt(row.length);
+        for (Object value : row) {
+            codec.writeValue(value, out);
+        }
+        ++rowCount;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Reads all the rows written so far.
+     */
+    List<Object[]> readAll() throws IOException {
+        List<Object[]> rows = new ArrayList<>(rowCount);
+        forEach(rows::add);
+        return rows;
+    }
+
+    /**
+     * Passes the rows written so far to the consumer one at a time, without holding them in memory.
+     */
+    void forEach(RowConsumer consumer) throws IOException {
+        closeOutput();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             DataInputStream in = new DataInputStream(new MappedInputStream(raf.getChannel()))) {
+            for (int i = 0; i < rowCount; i++) {
+                Object[] row = new Object[in.readInt()];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = codec.readValue(in);
+                }
+                consumer.accept(row);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeOutput();
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Could not delete spill file " + file);
+        }
+    }
+
+    private void closeOutput() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    interface RowConsumer {
+        void accept(Object[] row) throws IOException;
+    }
+
+    // maps the file region by region as it is read, so that files larger than 2GB can be read as well
+    private static final class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+        private MappedByteBuffer buffer;
+
+        private MappedInputStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        private boolean ensureRemaining() throws IOException {
+            if (buffer != null && buffer.hasRemaining()) {
+                return true;
+            } else if (position >= size) {
+                return false;
+            }
+            long length = Math.min(REGION_SIZE, size - position);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            } else if (!ensureRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+    }
+}
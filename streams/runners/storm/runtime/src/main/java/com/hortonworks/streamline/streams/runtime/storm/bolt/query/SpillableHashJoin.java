@@ -0,0 +1,301 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.storm.bolt.query;
+
+import com.hortonworks.streamline.streams.common.StreamlineEventCodec;
+import org.apache.storm.tuple.Tuple;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Memory bounded hash join of the tuples of a window, see {@link WindowedQueryBolt#withMemoryBudgetMb(int)}.
+ * <p>
+ * Only the join key and the projected fields of each tuple are kept, as a row of values. A joined row holds the
+ * columns of every stream at a fixed offset, with nulls for the streams missing in outer joins. The streams are
+ * joined one at a time in the join order, grace hash join style: the rows joined so far and the rows of the next
+ * stream are split in partitions by the hash of their join key, then each pair of partitions is joined in memory.
+ * When the rows exceed the memory budget the largest partitions are spilled to files, which are read back memory
+ * mapped when the partition is joined. A spilled pair of partitions that does not fit back in the budget is split
+ * again in partitions by the next bits of the hash, up to {@link #MAX_LEVEL} times, so only the rows sharing a large
+ * number of join keys of the same hash, e.g. a single skewed key, are read back over the budget.
+ * </p>
+ */
+class SpillableHashJoin {
+    static final int PARTITIONS = 16;
+    private static final int PARTITION_BITS = Integer.numberOfTrailingZeros(PARTITIONS);
+    private static final int PARTITION_SHIFT = Integer.SIZE - PARTITION_BITS;
+    // the levels of repartitioning until the bits of the hash are exhausted
+    static final int MAX_LEVEL = Integer.SIZE / PARTITION_BITS - 1;
+
+    private final Map<String, Integer> streamIndexes = new HashMap<>();
+    private final WindowedQueryBolt.JoinInfo[] joinInfos;
+    private final String[][] outputKeys;
+    // for each stream, the column of the key of the stream it is joined with
+    private final int[] probeColumns;
+    // the join key followed by the output keys
+    private final int rowWidth;
+    private final long memoryBudget;
+    private final File spillDirectory;
+    private final StreamlineEventCodec codec = new StreamlineEventCodec();
+    private int spilledPartitions;
+
+    /**
+     * @param joinCriteria the join of each stream, in join order
+     * @param outputKeys the nested names of the projected fields
+     * @param memoryBudget the memory available to the rows of a window, in bytes
+     * @param spillDirectory the directory of the spill files
+     */
+    SpillableHashJoin(Map<String, WindowedQueryBolt.JoinInfo> joinCriteria, String[][] outputKeys, long memoryBudget,
+                      File spillDirectory) {
+        this.joinInfos = joinCriteria.values().toArray(new WindowedQueryBolt.JoinInfo[joinCriteria.size()]);
+        this.outputKeys = outputKeys;
+        this.rowWidth = 1 + outputKeys.length;
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+        for (String stream : joinCriteria.keySet()) {
+            streamIndexes.put(stream, streamIndexes.size());
+        }
+        probeColumns = new int[joinInfos.length];
+        for (int i = 1; i < joinInfos.length; i++) {
+            probeColumns[i] = streamIndexes.get(joinInfos[i].getOtherStream()) * rowWidth;
+        }
+    }
+
+    /**
+     * Joins the tuples and passes the projected values of each result to the output.
+     */
+    void join(List<Tuple> tuples, Function<Tuple, String> streamSelector, Consumer<Object[]> output) throws IOException {
+        int streams = joinInfos.length;
+        JoinPartitions.MemoryBudget budget = new JoinPartitions.MemoryBudget(memoryBudget);
+        List<JoinPartitions> allPartitions = new ArrayList<>();
+        spilledPartitions = 0;
+        try {
+            JoinPartitions probe = newPartitions(budget, allPartitions);
+            JoinPartitions[] builds = new JoinPartitions[streams];
+            for (int i = 1; i < streams; i++) {
+                builds[i] = newPartitions(budget, allPartitions);
+            }
+            // 1) partition the rows of each stream by their join key
+            for (Tuple tuple : tuples) {
+                String stream = streamSelector.apply(tuple);
+                Integer index = streamIndexes.get(stream);
+                if (index == null) {
+                    throw new RuntimeException("Join information for '" + stream + "' not found. Check the join clauses.");
+                }
+                if (index == 0) {
+                    Object[] row = new Object[streams * rowWidth];
+                    extractColumns(tuple, joinInfos[0], row, 0);
+                    if (streams == 1) {
+                        output.accept(project(row));
+                    } else {
+                        probe.add(getPartition(row[probeColumns[1]]), row);
+                    }
+                } else {
+                    Object[] row = new Object[rowWidth];
+                    extractColumns(tuple, joinInfos[index], row, 0);
+                    builds[index].add(getPartition(row[0]), row);
+                }
+            }
+            // 2) join the streams in order, one partition at a time
+            for (int i = 1; i < streams; i++) {
+                JoinPartitions next = i < streams - 1 ? newPartitions(budget, allPartitions) : null;
+                joinPartitions(i, probe, builds[i], 0, budget, next, output);
+                probe = next;
+            }
+        } finally {
+            for (JoinPartitions partitions : allPartitions) {
+                partitions.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of partitions spilled to disk by the last join.
+     */
+    int getSpilledPartitions() {
+        return spilledPartitions;
+    }
+
+    private JoinPartitions newPartitions(JoinPartitions.MemoryBudget budget, List<JoinPartitions> allPartitions) {
+        JoinPartitions partitions = new JoinPartitions(PARTITIONS, budget, spillDirectory, codec);
+        allPartitions.add(partitions);
+        return partitions;
+    }
+
+    private void joinPartitions(int stream, JoinPartitions probe, JoinPartitions build, int level,
+                                JoinPartitions.MemoryBudget budget, JoinPartitions next, Consumer<Object[]> output)
+            throws IOException {
+        spilledPartitions += probe.getSpilledPartitionCount() + build.getSpilledPartitionCount();
+        for (int p = 0; p < PARTITIONS; p++) {
+            if (level < MAX_LEVEL && (probe.isSpilled(p) || build.isSpilled(p))
+                    && budget.isExceededBy(probe.getSpilledSize(p) + build.getSpilledSize(p))) {
+                repartition(stream, probe, build, p, level + 1, budget, next, output);
+            } else {
+                joinPartition(stream, probe.get(p), build.get(p), next, output);
+                probe.release(p);
+                build.release(p);
+            }
+        }
+    }
+
+    // splits the partition of both sides by the next bits of the hash of the key, and joins the finer partitions
+    private void repartition(int stream, JoinPartitions probe, JoinPartitions build, int partition, int level,
+                             JoinPartitions.MemoryBudget budget, JoinPartitions next, Consumer<Object[]> output)
+            throws IOException {
+        try (JoinPartitions probeParts = new JoinPartitions(PARTITIONS, budget, spillDirectory, codec);
+             JoinPartitions buildParts = new JoinPartitions(PARTITIONS, budget, spillDirectory, codec)) {
+            probe.drain(partition, row -> probeParts.add(getPartition(row[probeColumns[stream]], level), row));
+            build.drain(partition, row -> buildParts.add(getPartition(row[0], level), row));
+            joinPartitions(stream, probeParts, buildParts, level, budget, next, output);
+        }
+    }
+
+    private void joinPartition(int stream, List<Object[]> probeRows, List<Object[]> buildRows, JoinPartitions next,
+                               Consumer<Object[]> output) throws IOException {
+        WindowedQueryBolt.JoinType joinType = joinInfos[stream].getJoinType();
+        boolean keepUnmatchedProbe = joinType == WindowedQueryBolt.JoinType.LEFT || joinType == WindowedQueryBolt.JoinType.OUTER;
+        boolean keepUnmatchedBuild = joinType == WindowedQueryBolt.JoinType.RIGHT || joinType == WindowedQueryBolt.JoinType.OUTER;
+        RowTable table = new RowTable(buildRows);
+        boolean[] matched = keepUnmatchedBuild ? new boolean[buildRows.size()] : null;
+        int offset = stream * rowWidth;
+        for (Object[] probeRow : probeRows) {
+            Object key = probeRow[probeColumns[stream]];
+            boolean found = false;
+            if (key != null) {
+                for (int i = table.first(key); i >= 0; i = table.next(i, key)) {
+                    Object[] joined = probeRow.clone();
+                    System.arraycopy(buildRows.get(i), 0, joined, offset, rowWidth);
+                    emit(stream, joined, next, output);
+                    found = true;
+                    if (matched != null) {
+                        matched[i] = true;
+                    }
+                }
+            }
+            // as in WindowedQueryBolt#doLeftJoin, the rows without key are only kept by the outer join
+            if (!found && (key != null ? keepUnmatchedProbe : joinType == WindowedQueryBolt.JoinType.OUTER)) {
+                emit(stream, probeRow, next, output);
+            }
+        }
+        if (matched != null) {
+            for (int i = 0; i < matched.length; i++) {
+                if (!matched[i]) {
+                    Object[] joined = new Object[joinInfos.length * rowWidth];
+                    System.arraycopy(buildRows.get(i), 0, joined, offset, rowWidth);
+                    emit(stream, joined, next, output);
+                }
+            }
+        }
+    }
+
+    private void emit(int stream, Object[] row, JoinPartitions next, Consumer<Object[]> output) throws IOException {
+        if (next == null) {
+            output.accept(project(row));
+        } else {
+            next.add(getPartition(row[probeColumns[stream + 1]]), row);
+        }
+    }
+
+    private void extractColumns(Tuple tuple, WindowedQueryBolt.JoinInfo joinInfo, Object[] row, int offset) {
+        row[offset] = WindowedQueryBolt.getNestedField(joinInfo.getNestedKeyName(), tuple);
+        for (int i = 0; i < outputKeys.length; i++) {
+            row[offset + 1 + i] = WindowedQueryBolt.getNestedField(outputKeys[i], tuple);
+        }
+    }
+
+    // the first non null value of each output key, in join order
+    private Object[] project(Object[] row) {
+        Object[] values = new Object[outputKeys.length];
+        for (int i = 0; i < values.length; i++) {
+            for (int offset = 1 + i; offset < row.length; offset += rowWidth) {
+                if (row[offset] != null) {
+                    values[i] = row[offset];
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    private static int hash(Object key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    private static int getPartition(Object key) {
+        return getPartition(key, 0);
+    }
+
+    // the partition at each level of repartitioning is taken from the next bits of the hash
+    private static int getPartition(Object key, int level) {
+        return key == null ? 0 : (hash(key) << (level * PARTITION_BITS)) >>> PARTITION_SHIFT;
+    }
+
+    /**
+     * Hash table over the rows of a partition keyed by their first column, chained through arrays of row indexes.
+     */
+    private static final class RowTable {
+        private final List<Object[]> rows;
+        private final int[] buckets;
+        private final int[] next;
+        private final int[] hashes;
+        private final int mask;
+
+        private RowTable(List<Object[]> rows) {
+            this.rows = rows;
+            int capacity = Integer.highestOneBit(Math.max(2, rows.size() * 2) - 1) << 1;
+            buckets = new int[capacity];
+            Arrays.fill(buckets, -1);
+            next = new int[rows.size()];
+            hashes = new int[rows.size()];
+            mask = capacity - 1;
+            // inserted in reverse so that the chains are in arrival order
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                Object key = rows.get(i)[0];
+                if (key != null) {
+                    hashes[i] = hash(key);
+                    int bucket = hashes[i] & mask;
+                    next[i] = buckets[bucket];
+                    buckets[bucket] = i;
+                }
+            }
+        }
+
+        private int first(Object key) {
+            int hash = hash(key);
+            return find(buckets[hash & mask], key, hash);
+        }
+
+        private int next(int index, Object key) {
+            return find(next[index], key, hashes[index]);
+        }
+
+        private int find(int index, Object key, int hash) {
+            while (index >= 0 && (hashes[index] != hash || !key.equals(rows.get(index)[0]))) {
+                index = next[index];
+            }
+            return index;
+        }
+    }
+}
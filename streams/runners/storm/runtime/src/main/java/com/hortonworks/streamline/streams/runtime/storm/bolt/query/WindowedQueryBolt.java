@@ -27,13 +27,17 @@ import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
 import com.hortonworks.streamline.streams.runtime.storm.bolt.StreamlineWindowedBolt;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 public class WindowedQueryBolt extends StreamlineWindowedBolt {
@@ -54,6 +58,14 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
     public enum  StreamSelector { STREAM, SOURCE }
     private final StreamSelector streamSelectorType;
 
+    // memory budget of the join of a window in bytes, 0 to keep the tuples of the window in memory
+    private long memoryBudgetBytes = 0;
+    private String spillDirectory;
+    private transient SpillableHashJoin spillableJoin;
+    // emit only the results with tuples new to the window, keeping the window hashed across windows
+    private boolean incrementalJoin = false;
+    private transient IncrementalHashJoin incrementalHashJoin;
+
 
     /**
      * StreamId to start the join with. Equivalent SQL ...
@@ -103,6 +115,65 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
         return join_common(newStream, key, priorStream, JoinType.LEFT);
     }
 
+    /**
+     * Performs right Join.
+     *  SQL    :   from stream1  right join stream2  on stream2.key = stream1.key1
+     *  same as:   new  WindowedQueryBolt(stream1, key1). rightJoin(stream2, key, stream1);
+     *
+     *  Note: priorStream must be previously joined
+     *    Valid ex:    new WindowedQueryBolt(s1,k1). rightJoin(s2,k2, s1). rightJoin(s3,k3, s2);
+     *    Invalid ex:  new WindowedQueryBolt(s1,k1). rightJoin(s3,k3, s2). rightJoin(s2,k2, s1);
+     */
+    public WindowedQueryBolt rightJoin(String newStream, String key, String priorStream) {
+        return join_common(newStream, key, priorStream, JoinType.RIGHT);
+    }
+
+    /**
+     * Performs full outer Join.
+     *  SQL    :   from stream1  full outer join stream2  on stream2.key = stream1.key1
+     *  same as:   new  WindowedQueryBolt(stream1, key1). outerJoin(stream2, key, stream1);
+     *
+     *  Note: priorStream must be previously joined
+     *    Valid ex:    new WindowedQueryBolt(s1,k1). outerJoin(s2,k2, s1). outerJoin(s3,k3, s2);
+     *    Invalid ex:  new WindowedQueryBolt(s1,k1). outerJoin(s3,k3, s2). outerJoin(s2,k2, s1);
+     */
+    public WindowedQueryBolt outerJoin(String newStream, String key, String priorStream) {
+        return join_common(newStream, key, priorStream, JoinType.OUTER);
+    }
+
+    /**
+     * Bounds the memory used to join the tuples of a window. Only the join keys and the projected fields of the tuples
+     * are kept, and when they exceed the budget they are partitioned by join key and spilled to local files, see
+     * {@link SpillableHashJoin}. The tuples of the window itself are still held by Storm.
+     */
+    public WindowedQueryBolt withMemoryBudgetMb(int memoryBudgetMb) {
+        return withMemoryBudgetBytes(memoryBudgetMb * 1024L * 1024L);
+    }
+
+    WindowedQueryBolt withMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        return this;
+    }
+
+    /**
+     * The directory where the join spills to, defaults to java.io.tmpdir. Applies with {@link #withMemoryBudgetMb(int)}.
+     */
+    public WindowedQueryBolt withSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Emits only the results that are new to each window, i.e. that join at least one tuple which arrived since the
+     * previous window, instead of all the results of the window. The tuples of the window stay hashed by join key
+     * across windows, so each window only joins its new tuples and removes its expired ones, see
+     * {@link IncrementalHashJoin}. Meant for sliding windows, supports only inner joins.
+     */
+    public WindowedQueryBolt withIncrementalJoin(boolean incrementalJoin) {
+        this.incrementalJoin = incrementalJoin;
+        return this;
+    }
+
     private WindowedQueryBolt join_common(String newStream, String key, String priorStream, JoinType joinType) {
         hashedInputs.put(newStream, new HashMap<Object, ArrayList<Tuple>>());
         JoinInfo joinInfo = joinCriteria.get(priorStream);
@@ -199,24 +270,56 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
         if(outputKeys==null) {
             throw new IllegalArgumentException("Must specify output fields via .select() method.");
         }
+        if (incrementalJoin) {
+            if (memoryBudgetBytes > 0) {
+                throw new IllegalArgumentException("Incremental join keeps the window in memory, it cannot be used with a memory budget.");
+            }
+            incrementalHashJoin = new IncrementalHashJoin(joinCriteria);
+        } else if (memoryBudgetBytes > 0) {
+            File directory = new File(spillDirectory != null ? spillDirectory : System.getProperty("java.io.tmpdir"));
+            spillableJoin = new SpillableHashJoin(joinCriteria, outputKeys, memoryBudgetBytes, directory);
+        }
     }
 
     @Override
     public void execute(TupleWindow inputWindow) {
+        if (spillableJoin != null) {
+            executeSpillable(inputWindow);
+            return;
+        }
+        if (incrementalHashJoin != null) {
+            incrementalHashJoin.join(inputWindow, this::getStreamSelector, tuples -> emit(doProjection(tuples, outputKeys)));
+            return;
+        }
         // 1) Perform Join
         List<Tuple> currentWindow = inputWindow.get();
         JoinAccumulator joinResult = hashJoin(currentWindow);
 
         // 2) Emit results
         for (ResultRecord resultRecord : joinResult.getRecords()) {
-            ArrayList<Object> outputTuple = resultRecord.getOutputFields();
-            if ( outputStreamName==null )
-                collector.emit( outputTuple );
-            else
-                collector.emit( outputStreamName, outputTuple );
+            emit( resultRecord.getOutputFields() );
         }
     }
 
+    // joins and emits the results as they are produced. A spill failure leaves the window partially joined, it is
+    // rethrown so that the tuples of the window are replayed rather than acked.
+    private void executeSpillable(TupleWindow inputWindow) {
+        try {
+            spillableJoin.join(inputWindow.get(), this::getStreamSelector,
+                               projectedValues -> emit(makeOutputTuple(projectedValues)));
+        } catch (IOException e) {
+            collector.reportError(e);
+            throw new RuntimeException("Failed to spill the join of the window", e);
+        }
+    }
+
+    private void emit(ArrayList<Object> outputTuple) {
+        if ( outputStreamName==null )
+            collector.emit( outputTuple );
+        else
+            collector.emit( outputStreamName, outputTuple );
+    }
+
     private void clearHashedInputs() {
         for (HashMap<Object, ArrayList<Tuple>> mappings : hashedInputs.values()) {
             mappings.clear();
@@ -271,7 +374,9 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
             case LEFT:
                 return doLeftJoin(probe, buildInput, joinInfo, finalJoin);
             case RIGHT:
+                return doRightJoin(probe, buildInput, joinInfo, finalJoin);
             case OUTER:
+                return doOuterJoin(probe, buildInput, joinInfo, finalJoin);
             default:
                 throw new RuntimeException("Unsupported join type : " + joinType.name() );
         }
@@ -320,6 +425,47 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
     }
 
 
+    // right join - core implementation
+    protected JoinAccumulator doRightJoin(JoinAccumulator probe, Map<Object, ArrayList<Tuple>> buildInput, JoinInfo joinInfo, boolean finalJoin) {
+        return doJoinKeepingUnmatched(probe, buildInput, joinInfo, finalJoin, false);
+    }
+
+    // full outer join - core implementation
+    protected JoinAccumulator doOuterJoin(JoinAccumulator probe, Map<Object, ArrayList<Tuple>> buildInput, JoinInfo joinInfo, boolean finalJoin) {
+        return doJoinKeepingUnmatched(probe, buildInput, joinInfo, finalJoin, true);
+    }
+
+    // joins keeping the unmatched build records, and the unmatched probe records if 'keepUnmatchedProbe' is set
+    private JoinAccumulator doJoinKeepingUnmatched(JoinAccumulator probe, Map<Object, ArrayList<Tuple>> buildInput, JoinInfo joinInfo,
+                                                   boolean finalJoin, boolean keepUnmatchedProbe) {
+        String[] probeKeyName = joinInfo.getOtherKey();
+        JoinAccumulator result = new JoinAccumulator();
+        Set<Object> matchedKeys = new HashSet<>();
+        for (ResultRecord rec : probe.getRecords()) {
+            Object probeKey = rec.getField(joinInfo.otherStream, probeKeyName);
+            ArrayList<Tuple> matchingBuildRecs = probeKey != null ? buildInput.get(probeKey) : null;
+            if (matchingBuildRecs!=null && !matchingBuildRecs.isEmpty()) {
+                matchedKeys.add(probeKey);
+                for (Tuple matchingRec : matchingBuildRecs) {
+                    ResultRecord mergedRecord = new ResultRecord(rec, matchingRec, finalJoin);
+                    result.insert(mergedRecord);
+                }
+            } else if (keepUnmatchedProbe) {
+                ResultRecord mergedRecord = new ResultRecord(rec, null, finalJoin);
+                result.insert(mergedRecord);
+            }
+        }
+        for (Map.Entry<Object, ArrayList<Tuple>> entry : buildInput.entrySet()) {
+            if (entry.getKey() == null || !matchedKeys.contains(entry.getKey())) {
+                for (Tuple buildRec : entry.getValue()) {
+                    ResultRecord mergedRecord = new ResultRecord(null, buildRec, finalJoin);
+                    result.insert(mergedRecord);
+                }
+            }
+        }
+        return result;
+    }
+
     // Identify the key for the stream, and look it up in 'tuple'. key can be nested key:  outerKey.innerKey
     private Object getKeyField(String streamId, Tuple tuple) {
         JoinInfo ji = joinCriteria.get(streamId);
@@ -476,6 +622,27 @@ public class WindowedQueryBolt extends StreamlineWindowedBolt {
         return result;
     }
 
+    // Creates the output tuple from the projected values, as in doProjection()
+    private ArrayList<Object> makeOutputTuple(Object[] projectedValues) {
+        if(!streamLineStyleProjection) {
+            ArrayList<Object> result = new ArrayList<>(projectedValues.length);
+            for (Object value : projectedValues) {
+                result.add(value);
+            }
+            return result;
+        }
+        HashMap<String, Object> projection = new HashMap<>(projectedValues.length);
+        for (int i = 0; i < projectedValues.length; i++) {
+            if (projectedValues[i] != null) {
+                String flattenedKey = dotSeparatedOutputKeyNames[i];
+                projection.put(flattenedKey.substring(flattenedKey.indexOf('.')+1), projectedValues[i]);
+            }
+        }
+        ArrayList<Object> resultRow = new ArrayList<>();
+        resultRow.add(new StreamlineEventImpl(projection, "multiple sources"));
+        return resultRow;
+    }
+
     // Performs projection and creates output tuple structure as expected by StreamLine compliant
     protected ArrayList<Object> doProjectionStreamLine(ArrayList<Tuple> tuplesRow, String[][] projectionKeys) {
 
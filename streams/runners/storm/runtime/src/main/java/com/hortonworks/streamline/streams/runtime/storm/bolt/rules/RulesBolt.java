@@ -25,30 +25,30 @@ import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
 import com.hortonworks.streamline.streams.layout.component.Stream;
 import com.hortonworks.streamline.streams.layout.component.impl.RulesProcessor;
 import com.hortonworks.streamline.streams.runtime.processor.RuleProcessorRuntime;
+import com.hortonworks.streamline.streams.runtime.storm.bolt.AbstractProcessorBolt;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
-import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
-import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
-public class RulesBolt extends BaseRichBolt {
+public class RulesBolt extends AbstractProcessorBolt {
     private static final Logger LOG = LoggerFactory.getLogger(RulesBolt.class);
 
     private RuleProcessorRuntime ruleProcessorRuntime;
     private final RulesProcessor rulesProcessor;
     private final RuleProcessorRuntime.ScriptType scriptType;
 
-    private OutputCollector collector;
-
     public RulesBolt(RulesProcessor rulesProcessor, RuleProcessorRuntime.ScriptType scriptType) {
         this.rulesProcessor = rulesProcessor;
         this.scriptType = scriptType;
@@ -63,7 +63,7 @@ public class RulesBolt extends BaseRichBolt {
         if (this.rulesProcessor == null) {
             throw new RuntimeException("rulesProcessor cannot be null");
         }
-        this.collector = collector;
+        super.prepare(stormConf, context, collector);
         ruleProcessorRuntime = new RuleProcessorRuntime(rulesProcessor, scriptType);
 
         Map<String, Object> config = Collections.emptyMap();
@@ -77,16 +77,16 @@ public class RulesBolt extends BaseRichBolt {
 
     @Override
     public void execute(Tuple input) {  // Input tuple is expected to be an StreamlineEvent
+        if (isBatchingEnabled()) {
+            super.execute(input);
+            return;
+        } else if (TupleUtils.isTick(input)) {
+            return;
+        }
         try {
             final Object event = input.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
             if (event instanceof StreamlineEvent) {
-                StreamlineEvent eventWithStream = getStreamlineEventWithStream((StreamlineEvent) event, input);
-                LOG.debug("++++++++ Executing tuple [{}], StreamlineEvent [{}]", input, eventWithStream);
-                for (Result result : ruleProcessorRuntime.process(eventWithStream)) {
-                    for (StreamlineEvent e : result.events) {
-                        collector.emit(result.stream, input, new Values(e));
-                    }
-                }
+                process(input, (StreamlineEvent) event);
             } else {
                 LOG.debug("Invalid tuple received. Tuple disregarded and rules not evaluated.\n\tTuple [{}]." +
                         "\n\tStreamlineEvent [{}].", input, event);
@@ -99,6 +99,27 @@ public class RulesBolt extends BaseRichBolt {
         }
     }
 
+    @Override
+    protected void process(Tuple input, StreamlineEvent event) throws Exception {
+        StreamlineEvent eventWithStream = getStreamlineEventWithStream(event, input);
+        LOG.debug("++++++++ Executing tuple [{}], StreamlineEvent [{}]", input, eventWithStream);
+        emit(input, ruleProcessorRuntime.process(eventWithStream));
+    }
+
+    @Override
+    protected boolean supportsBatching() {
+        return overridesProcessBatch(ruleProcessorRuntime);
+    }
+
+    @Override
+    protected List<List<Result>> processBatch(List<Tuple> inputs, List<StreamlineEvent> events) throws Exception {
+        List<StreamlineEvent> eventsWithStream = new ArrayList<>(events.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            eventsWithStream.add(getStreamlineEventWithStream(events.get(i), inputs.get(i)));
+        }
+        return ruleProcessorRuntime.processBatch(eventsWithStream);
+    }
+
     private StreamlineEvent getStreamlineEventWithStream(StreamlineEvent event, Tuple tuple) {
         return new StreamlineEventImpl(event,
                 event.getDataSourceId(), event.getId(),
@@ -22,19 +22,25 @@ import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
 import com.hortonworks.streamline.streams.exception.ProcessingException;
 import com.hortonworks.streamline.streams.layout.component.Stream;
 import com.hortonworks.streamline.streams.layout.component.impl.RulesProcessor;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.Window;
 import com.hortonworks.streamline.streams.runtime.processor.RuleProcessorRuntime;
+import com.hortonworks.streamline.streams.runtime.rule.aggregate.PaneAggregator;
+import com.hortonworks.streamline.streams.runtime.rule.aggregate.SessionAggregator;
+import org.apache.storm.Config;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.apache.storm.windowing.TupleWindow;
 import com.hortonworks.streamline.streams.runtime.storm.bolt.StreamlineWindowedBolt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -42,13 +48,24 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.hortonworks.streamline.streams.common.StreamlineEventImpl.GROUP_BY_TRIGGER_EVENT;
 import static com.hortonworks.streamline.streams.runtime.transform.AddHeaderTransformRuntime.HEADER_FIELD_DATASOURCE_IDS;
 import static com.hortonworks.streamline.streams.runtime.transform.AddHeaderTransformRuntime.HEADER_FIELD_EVENT_IDS;
 
 /**
- * A windowed rules bolt
+ * A windowed rules bolt.
+ * <p>
+ * If {@link RulesProcessor#getIncrementalWindow()} is set and all the rules can be evaluated incrementally, the bolt
+ * receives tumbling windows of the sliding interval (panes) and the rules keep the partial aggregates of each pane,
+ * so that a tuple is aggregated once instead of once per window containing it.
+ * </p>
+ * <p>
+ * Session windows are evaluated by the bolt itself, the tuples are received as they arrive and the rules keep the
+ * partial aggregates of the open sessions of each group. The events arriving after the allowed lateness of the window
+ * are emitted on its late stream, if any.
+ * </p>
  */
 public class WindowRulesBolt extends StreamlineWindowedBolt {
     private static final Logger LOG = LoggerFactory.getLogger(WindowRulesBolt.class);
@@ -58,6 +75,10 @@ public class WindowRulesBolt extends StreamlineWindowedBolt {
     private final RuleProcessorRuntime.ScriptType scriptType;
     private OutputCollector collector;
     private long windowId;
+    // the number of panes in the window when the rules are evaluated incrementally, 0 otherwise
+    private int windowPanes;
+    private boolean sessionWindow;
+    private String lateStream;
 
     public WindowRulesBolt(RulesProcessor rulesProcessor, RuleProcessorRuntime.ScriptType scriptType) {
         this.rulesProcessor = rulesProcessor;
@@ -67,13 +88,74 @@ public class WindowRulesBolt extends StreamlineWindowedBolt {
     public WindowRulesBolt(String rulesProcessorJson, RuleProcessorRuntime.ScriptType scriptType) {
         this(Utils.createObjectFromJson(rulesProcessorJson, RulesProcessor.class), scriptType);
     }
+
+    @Override
+    public void withWindowConfig(Window windowConfig) throws IOException {
+        if (SessionAggregator.isSessionWindow(windowConfig)) {
+            withSessionWindow(windowConfig);
+            return;
+        }
+        int panes = getIncrementalWindowPanes(windowConfig);
+        if (panes > 0) {
+            LOG.info("Rules are evaluated incrementally with {} panes per window {}", panes, windowConfig);
+            windowPanes = panes;
+            Window.WindowParam slidingInterval = windowConfig.getSlidingInterval();
+            if (slidingInterval instanceof Window.Duration) {
+                withTumblingWindow(new Duration(((Window.Duration) slidingInterval).getDurationMs(), TimeUnit.MILLISECONDS));
+            } else {
+                withTumblingWindow(new Count(slidingInterval != null ? ((Window.Count) slidingInterval).getCount() : 1));
+            }
+            withTimestampConfig(windowConfig);
+        } else {
+            super.withWindowConfig(windowConfig);
+        }
+    }
+
+    private int getIncrementalWindowPanes(Window windowConfig) {
+        if (rulesProcessor == null || !rulesProcessor.getIncrementalWindow()) {
+            return 0;
+        }
+        for (Rule rule : rulesProcessor.getRules()) {
+            if (!PaneAggregator.supports(rule)) {
+                LOG.info("Rule {} can not be evaluated incrementally", rule);
+                return 0;
+            }
+        }
+        return PaneAggregator.getPanesPerWindow(windowConfig);
+    }
+
+    private void withSessionWindow(Window windowConfig) {
+        for (Rule rule : rulesProcessor.getRules()) {
+            if (!SessionAggregator.supports(rule)) {
+                throw new IllegalArgumentException("Rule " + rule.getId() + " can not be evaluated over session windows, "
+                        + "the projection should only contain the group by fields and mergeable aggregate functions");
+            }
+        }
+        LOG.info("Rules are evaluated over session window {}", windowConfig);
+        sessionWindow = true;
+        lateStream = windowConfig.getLateStream();
+        // the event time, lag and allowed lateness are handled by the rules, every tuple is processed as it arrives
+        withTumblingWindow(new Count(1));
+    }
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        Map<String, Object> conf = super.getComponentConfiguration();
+        if (sessionWindow) {
+            // closes the sessions based on processing time even if no tuples arrive
+            conf = new HashMap<>(conf);
+            conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, 1);
+        }
+        return conf;
+    }
+
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         if (this.rulesProcessor == null) {
             throw new RuntimeException("rulesProcessor cannot be null");
         }
         this.collector = collector;
-        ruleProcessorRuntime = new RuleProcessorRuntime(rulesProcessor, scriptType);
+        ruleProcessorRuntime = new RuleProcessorRuntime(rulesProcessor, scriptType, windowPanes);
         Map<String, Object> config = Collections.emptyMap();
         ruleProcessorRuntime.initialize(config);
     }
@@ -85,6 +167,13 @@ public class WindowRulesBolt extends StreamlineWindowedBolt {
      */
     @Override
     public void execute(TupleWindow inputWindow) {
+        if (sessionWindow) {
+            executeSession(inputWindow);
+            return;
+        } else if (windowPanes > 0) {
+            executePane(inputWindow);
+            return;
+        }
         ++windowId;
         LOG.debug("Window activated, window id {}, number of tuples in window {}", windowId, inputWindow.get().size());
         List<Tuple> curGroup = new ArrayList<>();
@@ -105,6 +194,51 @@ public class WindowRulesBolt extends StreamlineWindowedBolt {
         }
     }
 
+    private void executePane(TupleWindow pane) {
+        LOG.debug("Pane activated, number of tuples in pane {}", pane.get().size());
+        try {
+            StreamlineEvent event;
+            for (Tuple input : pane.get()) {
+                if ((event = getStreamlineEventFromTuple(input)) != null) {
+                    ruleProcessorRuntime.addToPane(event);
+                }
+            }
+            for (Result result : ruleProcessorRuntime.slideWindow()) {
+                for (StreamlineEvent e : result.events) {
+                    collector.emit(result.stream, new Values(e));
+                }
+            }
+        } catch (Exception e) {
+            collector.reportError(e);
+            LOG.debug("", e);                        // useful to debug unit tests
+        }
+    }
+
+    private void executeSession(TupleWindow inputWindow) {
+        try {
+            StreamlineEvent event;
+            for (Tuple input : inputWindow.get()) {
+                if (TupleUtils.isTick(input)) {
+                    continue;
+                }
+                if ((event = getStreamlineEventFromTuple(input)) != null && !ruleProcessorRuntime.addToSession(event)) {
+                    LOG.debug("Late event [{}]", event);
+                    if (lateStream != null) {
+                        collector.emit(lateStream, new Values(event));
+                    }
+                }
+            }
+            for (Result result : ruleProcessorRuntime.closeSessions()) {
+                for (StreamlineEvent e : result.events) {
+                    collector.emit(result.stream, new Values(e));
+                }
+            }
+        } catch (Exception e) {
+            collector.reportError(e);
+            LOG.debug("", e);                        // useful to debug unit tests
+        }
+    }
+
     private void processAndEmit(StreamlineEvent event, List<Tuple> curGroup) throws ProcessingException {
         for (Result result : ruleProcessorRuntime.process(eventWithWindowId(event))) {
             for (StreamlineEvent e : result.events) {
@@ -170,6 +304,18 @@ public class WindowRulesBolt extends StreamlineWindowedBolt {
         for (Stream stream : rulesProcessor.getOutputStreams()) {
             declarer.declareStream(stream.getId(), new Fields(StreamlineEvent.STREAMLINE_EVENT));
         }
+        if (lateStream != null && !isOutputStream(lateStream)) {
+            declarer.declareStream(lateStream, new Fields(StreamlineEvent.STREAMLINE_EVENT));
+        }
+    }
+
+    private boolean isOutputStream(String streamId) {
+        for (Stream stream : rulesProcessor.getOutputStreams()) {
+            if (stream.getId().equals(streamId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
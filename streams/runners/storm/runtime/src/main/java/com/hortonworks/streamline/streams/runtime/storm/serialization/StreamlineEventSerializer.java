@@ -0,0 +1,89 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventCodec;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
+import com.hortonworks.streamline.streams.layout.storm.StormTopologyLayoutConstants;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kryo serializer for the {@link StreamlineEvent}s exchanged between Storm workers, backed by {@link StreamlineEventCodec}.
+ * <p>
+ * Storm instantiates the registered serializers with the topology config, the stream layouts are read from
+ * {@link StormTopologyLayoutConstants#TOPOLOGY_EVENT_LAYOUTS}, the list of field names of each stream in the topology,
+ * which is populated while generating the flux yaml for the topology.
+ * </p>
+ */
+public class StreamlineEventSerializer extends Serializer<StreamlineEvent> {
+    private final StreamlineEventCodec codec;
+
+    public StreamlineEventSerializer() {
+        this(new StreamlineEventCodec());
+    }
+
+    public StreamlineEventSerializer(Kryo kryo, Class<?> type, Map conf) {
+        this(new StreamlineEventCodec(getLayouts(conf)));
+    }
+
+    public StreamlineEventSerializer(StreamlineEventCodec codec) {
+        this.codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<StreamlineEventLayout> getLayouts(Map conf) {
+        Object value = conf != null ? conf.get(StormTopologyLayoutConstants.TOPOLOGY_EVENT_LAYOUTS) : null;
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<StreamlineEventLayout> layouts = new ArrayList<>();
+        for (List<String> fieldNames : (List<List<String>>) value) {
+            layouts.add(StreamlineEventLayout.of(fieldNames));
+        }
+        return layouts;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, StreamlineEvent event) {
+        try {
+            codec.write(event, new DataOutputStream(output));
+        } catch (IOException e) {
+            throw new KryoException(e);
+        }
+    }
+
+    @Override
+    public StreamlineEvent read(Kryo kryo, Input input, Class<StreamlineEvent> type) {
+        try {
+            return codec.read(new DataInputStream(input));
+        } catch (IOException e) {
+            throw new KryoException(e);
+        }
+    }
+}
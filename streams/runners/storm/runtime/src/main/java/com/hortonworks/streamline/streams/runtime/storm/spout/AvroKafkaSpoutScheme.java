@@ -25,7 +25,8 @@ import org.apache.storm.spout.MultiScheme;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Values;
 import com.hortonworks.streamline.streams.StreamlineEvent;
-import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -43,6 +44,8 @@ public class AvroKafkaSpoutScheme implements MultiScheme {
     private final String schemaRegistryUrl;
     private String dataSourceId;
     private transient volatile AvroStreamsSnapshotDeserializer avroStreamsSnapshotDeserializer;
+    // grows to cover all the fields seen so far, so that the events of a topic share the same layout
+    private transient StreamlineEventLayout layout;
 
     public AvroKafkaSpoutScheme(String dataSourceId, String topicName, String schemaRegistryUrl) {
         this.dataSourceId = dataSourceId;
@@ -72,7 +75,8 @@ public class AvroKafkaSpoutScheme implements MultiScheme {
                              schemaMetadata,
                              null);
 
-        return Collections.<List<Object>>singletonList(new Values(new StreamlineEventImpl(keyValues, dataSourceId)));
+        layout = (layout != null ? layout : StreamlineEventLayout.EMPTY).extend(keyValues.keySet());
+        return Collections.<List<Object>>singletonList(new Values(new IndexedStreamlineEvent(layout, keyValues, dataSourceId)));
     }
 
     @Override
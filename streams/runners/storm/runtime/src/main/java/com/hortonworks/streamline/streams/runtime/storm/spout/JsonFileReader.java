@@ -24,7 +24,8 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.storm.hdfs.spout.ParseException;
 import org.apache.storm.hdfs.spout.TextFileReader;
-import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -38,6 +39,8 @@ import java.util.Map;
  */
 
 public class JsonFileReader extends TextFileReader {
+    private StreamlineEventLayout layout = StreamlineEventLayout.EMPTY;
+
     public JsonFileReader(FileSystem fs, Path file, Map conf) throws IOException {
         super(fs, file, conf);
     }
@@ -59,7 +62,8 @@ public class JsonFileReader extends TextFileReader {
             HashMap<String, Object> jsonMap = new ObjectMapper().readValue(jsonLine, HashMap.class);
 
             //2- make StreamlineEvent from map
-            StreamlineEventImpl slEvent = new StreamlineEventImpl(jsonMap, "HdfsSpout");
+            layout = layout.extend(jsonMap.keySet());
+            IndexedStreamlineEvent slEvent = new IndexedStreamlineEvent(layout, jsonMap, "HdfsSpout");
 
             //3- create tuple from StreamlineEvent
             return Collections.singletonList(slEvent);
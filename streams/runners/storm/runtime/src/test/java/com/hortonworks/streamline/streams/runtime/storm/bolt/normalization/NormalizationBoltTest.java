@@ -35,6 +35,7 @@ import mockit.Injectable;
 import mockit.Verifications;
 import mockit.integration.junit4.JMockit;
 import org.apache.commons.io.IOUtils;
+import org.apache.storm.Constants;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
@@ -72,6 +73,12 @@ public class NormalizationBoltTest {
     @Injectable
     private Tuple tuple;
 
+    @Injectable
+    private Tuple otherTuple;
+
+    @Injectable
+    private Tuple tickTuple;
+
     public static final StreamlineEventImpl INPUT_STREAMLINE_EVENT = new StreamlineEventImpl(new HashMap<String, Object>() {{
         put("illuminance", 70);
         put("temp", 104);
@@ -121,6 +128,71 @@ public class NormalizationBoltTest {
         testNormalizationBoltFailure(createNormalizationBolt(createBulkNormalizationProcessor("normalized-output")));
     }
 
+    @Test
+    public void testBatchFlushedOnSize() throws NormalizationException {
+        NormalizationBolt normalizationBolt = createNormalizationBolt(createFieldBasedNormalizationProcessor("normalized-output"), 2, 60_000L);
+        Assert.assertTrue(normalizationBolt.isBatchingEnabled());
+        new Expectations() {{
+            tuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
+            returns(INPUT_STREAMLINE_EVENT);
+            otherTuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
+            returns(INPUT_STREAMLINE_EVENT);
+        }};
+
+        normalizationBolt.execute(tuple);
+
+        // buffered until the batch is full
+        new Verifications() {{
+            outputCollector.emit(withAny(""), withAny(tuple), withAny(new Values())); times = 0;
+            outputCollector.ack(withAny(tuple)); times = 0;
+        }};
+
+        normalizationBolt.execute(otherTuple);
+
+        new Verifications() {{
+            outputCollector.emit(withAny(""), tuple, new Values(VALID_OUTPUT_STREAMLINE_EVENT)); times = 1;
+            outputCollector.emit(withAny(""), otherTuple, new Values(VALID_OUTPUT_STREAMLINE_EVENT)); times = 1;
+            outputCollector.ack(tuple); times = 1;
+            outputCollector.ack(otherTuple); times = 1;
+            outputCollector.fail(withAny(tuple)); times = 0;
+        }};
+    }
+
+    @Test
+    public void testBatchFlushedOnLingerTick() throws Exception {
+        NormalizationBolt normalizationBolt = createNormalizationBolt(createFieldBasedNormalizationProcessor("normalized-output"), 10, 50L);
+        new Expectations() {{
+            tuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
+            returns(INPUT_STREAMLINE_EVENT);
+            otherTuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
+            returns(INPUT_STREAMLINE_EVENT);
+            tickTuple.getSourceComponent();
+            result = Constants.SYSTEM_COMPONENT_ID;
+            minTimes = 0;
+            tickTuple.getSourceStreamId();
+            result = Constants.SYSTEM_TICK_STREAM_ID;
+            minTimes = 0;
+        }};
+
+        normalizationBolt.execute(tuple);
+        normalizationBolt.execute(otherTuple);
+
+        new Verifications() {{
+            outputCollector.ack(withAny(tuple)); times = 0;
+        }};
+
+        Thread.sleep(100L);
+        normalizationBolt.execute(tickTuple);
+
+        new Verifications() {{
+            outputCollector.emit(withAny(""), tuple, new Values(VALID_OUTPUT_STREAMLINE_EVENT)); times = 1;
+            outputCollector.emit(withAny(""), otherTuple, new Values(VALID_OUTPUT_STREAMLINE_EVENT)); times = 1;
+            outputCollector.ack(tuple); times = 1;
+            outputCollector.ack(otherTuple); times = 1;
+            outputCollector.ack(tickTuple); times = 0;
+        }};
+    }
+
     private void testNormalizationBolt(NormalizationBolt normalizationBolt) {
         new Expectations() {{
             tuple.getValueByField(StreamlineEvent.STREAMLINE_EVENT);
@@ -155,7 +227,12 @@ public class NormalizationBoltTest {
     }
 
     private NormalizationBolt createNormalizationBolt(NormalizationProcessor normalizationProcessor) throws NormalizationException {
+        return createNormalizationBolt(normalizationProcessor, 1, 0L);
+    }
+
+    private NormalizationBolt createNormalizationBolt(NormalizationProcessor normalizationProcessor, int batchSize, long batchLingerMs) throws NormalizationException {
         NormalizationBolt normalizationBolt = new NormalizationBolt(normalizationProcessor);
+        normalizationBolt.withBatching(batchSize, batchLingerMs);
 
         normalizationBolt.declareOutputFields(outputFieldsDeclarer);
         normalizationBolt.prepare(null, topologyContext, outputCollector);
@@ -29,11 +29,15 @@ import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class TestWindowedQueryBolt {
     private static final String SL_PREFIX = StreamlineEvent.STREAMLINE_EVENT + ".";
@@ -248,6 +252,244 @@ public class TestWindowedQueryBolt {
         Assert.assertEquals(stores.length+1, collector.actualResults.size() ); // stores.length+1 as 2 users in Bengaluru
     }
 
+    @Test
+    public void testRightJoin() throws Exception {
+        ArrayList<Tuple> userStream = makeStream("users", userFields, users);
+        ArrayList<Tuple> cityStream = makeStream("cities", cityFields, cities);
+        TupleWindow window = makeTupleWindow(userStream, cityStream);
+
+        WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                .rightJoin("cities", "cityName", "users")
+                .select("name,cityName,country");
+
+        MockCollector collector = new MockCollector();
+        bolt.prepare(null, null, collector);
+        bolt.execute(window);
+        printResults(collector);
+        Assert.assertEquals(cities.length+1, collector.actualResults.size() ); // 2 users in bengaluru, none in chennai
+    }
+
+    @Test
+    public void testOuterJoin() throws Exception {
+        ArrayList<Tuple> userStream = makeStream("users", userFields, users);
+        ArrayList<Tuple> cityStream = makeStream("cities", cityFields, cities);
+        TupleWindow window = makeTupleWindow(userStream, cityStream);
+
+        WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                .outerJoin("cities", "cityName", "users")
+                .select("name,cityName,country");
+
+        MockCollector collector = new MockCollector();
+        bolt.prepare(null, null, collector);
+        bolt.execute(window);
+        printResults(collector);
+        Assert.assertEquals(cities.length+2, collector.actualResults.size() ); // and no city for the user in seattle
+    }
+
+    @Test
+    public void testSpillableJoin() throws Exception {
+        ArrayList<Tuple> userStream = makeStream("users", userFields, users);
+        ArrayList<Tuple> storesStream = makeStream("stores", storeFields, stores);
+        ArrayList<Tuple> cityStream = makeStream("cities", cityFields, cities);
+        TupleWindow window = makeTupleWindow(userStream, cityStream, storesStream);
+
+        for (WindowedQueryBolt.JoinType storesJoin : WindowedQueryBolt.JoinType.values()) {
+            for (WindowedQueryBolt.JoinType citiesJoin : WindowedQueryBolt.JoinType.values()) {
+                List<List<Object>> expected = executeJoin(window, storesJoin, citiesJoin, 0);
+                // a budget of 1 byte spills every partition
+                for (long memoryBudget : new long[] {1, 1024 * 1024}) {
+                    Assert.assertEquals(storesJoin + " " + citiesJoin, expected,
+                                        executeJoin(window, storesJoin, citiesJoin, memoryBudget));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpillableJoin_StreamLine() throws Exception {
+        ArrayList<Tuple> userStream = makeStreamLineEventStream("users", userFields, users);
+        ArrayList<Tuple> cityStream = makeStreamLineEventStream("city", cityFields, cities);
+        TupleWindow window = makeTupleWindow(userStream, cityStream);
+        MockCollector collector = new MockCollector();
+        MockCollector spillableCollector = new MockCollector();
+        for (MockCollector c : Arrays.asList(collector, spillableCollector)) {
+            WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", "city")
+                    .outerJoin("city", "cityName", "users")
+                    .selectStreamLine("name,city,country");
+            if (c == spillableCollector) {
+                bolt.withMemoryBudgetBytes(1);
+            }
+            bolt.prepare(null, null, c);
+            bolt.execute(window);
+        }
+        Assert.assertEquals(fieldsAndValues(collector), fieldsAndValues(spillableCollector));
+    }
+
+    @Test
+    public void testSpillableJoinRepartitions() throws Exception {
+        // enough distinct keys for the spilled partitions to be split again
+        Object[][] manyUsers = new Object[500][];
+        Object[][] manyStores = new Object[500][];
+        for (int i = 0; i < manyUsers.length; i++) {
+            manyUsers[i] = new Object[] {i, "user" + i, "city" + (i % 100)};
+            manyStores[i] = new Object[] {i, "store" + i, "city" + (i % 250)};
+        }
+        TupleWindow window = makeTupleWindow(makeStream("users", userFields, manyUsers),
+                                             makeStream("stores", storeFields, manyStores));
+        List<List<Object>> expected = null;
+        for (long memoryBudget : new long[] {0, 1, 64 * 1024}) {
+            WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                    .leftJoin("stores", "city", "users")
+                    .select("name,storeName,city")
+                    .withMemoryBudgetBytes(memoryBudget);
+            MockCollector collector = new MockCollector();
+            bolt.prepare(null, null, collector);
+            bolt.execute(window);
+            List<List<Object>> results = sorted(collector.actualResults);
+            if (expected == null) {
+                expected = results;
+            } else {
+                Assert.assertEquals(expected, results);
+            }
+        }
+        Assert.assertEquals(1000, expected.size());
+    }
+
+    @Test
+    public void testSpillableJoinFailsWindowOnSpillError() throws Exception {
+        TupleWindow window = makeTupleWindow(makeStream("users", userFields, users), makeStream("stores", storeFields, stores));
+        WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                .join("stores", "city", "users")
+                .select("name,storeName,city")
+                .withSpillDirectory(new File(System.getProperty("java.io.tmpdir"), "missing-" + System.nanoTime()).getPath())
+                .withMemoryBudgetBytes(1);
+        List<Throwable> errors = new ArrayList<>();
+        bolt.prepare(null, null, new MockCollector() {
+            @Override
+            public void reportError(Throwable error) {
+                errors.add(error);
+            }
+        });
+        try {
+            bolt.execute(window);
+            Assert.fail("the window should fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        Assert.assertEquals(1, errors.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> fieldsAndValues(MockCollector collector) {
+        List<String> result = new ArrayList<>();
+        for (List<Object> tuple : collector.actualResults) {
+            result.add(new TreeMap<>((Map<String, Object>) tuple.get(0)).toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test
+    public void testIncrementalJoin() throws Exception {
+        // interleave the streams, so that each window has tuples of every stream
+        List<ArrayList<Tuple>> streams = Arrays.asList(makeStream("users", userFields, users),
+                makeStream("stores", storeFields, stores), makeStream("cities", cityFields, cities));
+        ArrayList<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < users.length; i++) {
+            for (ArrayList<Tuple> stream : streams) {
+                if (i < stream.size()) {
+                    tuples.add(stream.get(i));
+                }
+            }
+        }
+
+        WindowedQueryBolt bolt = newIncrementalJoinBolt().withIncrementalJoin(true);
+        MockCollector collector = new MockCollector();
+        bolt.prepare(null, null, collector);
+        // sliding window of 10 tuples, sliding by 3 tuples
+        int windowLength = 10;
+        int previousStart = 0;
+        int emitted = 0;
+        for (int end = 3; end < tuples.size() + 3; end += 3) {
+            end = Math.min(end, tuples.size());
+            int start = Math.max(0, end - windowLength);
+            int previousEnd = Math.max(start, end - 3);
+            ArrayList<Tuple> window = new ArrayList<>(tuples.subList(start, end));
+            collector.actualResults.clear();
+            bolt.execute(new TupleWindowImpl(window, new ArrayList<>(tuples.subList(previousEnd, end)),
+                                             new ArrayList<>(tuples.subList(previousStart, start))));
+
+            // the results of the window, except those of the tuples already in the previous window
+            List<List<Object>> expected = executeFullJoin(window);
+            for (List<Object> previous : executeFullJoin(new ArrayList<>(tuples.subList(start, previousEnd)))) {
+                expected.remove(previous);
+            }
+            Assert.assertEquals(expected, sorted(collector.actualResults));
+            emitted += expected.size();
+            previousStart = start;
+        }
+        Assert.assertTrue(emitted > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncrementalJoinRequiresInnerJoins() throws Exception {
+        new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                .leftJoin("cities", "cityName", "users")
+                .select("name,cityName,country")
+                .withIncrementalJoin(true)
+                .prepare(null, null, new MockCollector());
+    }
+
+    private WindowedQueryBolt newIncrementalJoinBolt() {
+        return new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2])
+                .join("stores", "city", "users")
+                .join("cities", "cityName", "stores")
+                .select("name,storeName,city,country");
+    }
+
+    private List<List<Object>> executeFullJoin(ArrayList<Tuple> window) {
+        WindowedQueryBolt bolt = newIncrementalJoinBolt();
+        MockCollector collector = new MockCollector();
+        bolt.prepare(null, null, collector);
+        bolt.execute(makeTupleWindow(window));
+        return sorted(collector.actualResults);
+    }
+
+    private List<List<Object>> executeJoin(TupleWindow window, WindowedQueryBolt.JoinType storesJoin,
+                                           WindowedQueryBolt.JoinType citiesJoin, long memoryBudget) {
+        WindowedQueryBolt bolt = new WindowedQueryBolt(WindowedQueryBolt.StreamSelector.STREAM, "users", userFields[2]);
+        join(bolt, storesJoin, "stores", "city", "users");
+        join(bolt, citiesJoin, "cities", "cityName", "stores");
+        bolt.select("name,storeName,city,cityName,country").withMemoryBudgetBytes(memoryBudget);
+        MockCollector collector = new MockCollector();
+        bolt.prepare(null, null, collector);
+        bolt.execute(window);
+        return sorted(collector.actualResults);
+    }
+
+    private static void join(WindowedQueryBolt bolt, WindowedQueryBolt.JoinType joinType, String newStream, String key,
+                             String priorStream) {
+        switch (joinType) {
+            case INNER:
+                bolt.join(newStream, key, priorStream);
+                break;
+            case LEFT:
+                bolt.leftJoin(newStream, key, priorStream);
+                break;
+            case RIGHT:
+                bolt.rightJoin(newStream, key, priorStream);
+                break;
+            default:
+                bolt.outerJoin(newStream, key, priorStream);
+        }
+    }
+
+    private static List<List<Object>> sorted(List<List<Object>> results) {
+        List<List<Object>> sorted = new ArrayList<>(results);
+        sorted.sort((r1, r2) -> r1.toString().compareTo(r2.toString()));
+        return sorted;
+    }
+
     private static void printResults(MockCollector collector) {
         int counter=0;
         for (List<Object> rec : collector.actualResults) {
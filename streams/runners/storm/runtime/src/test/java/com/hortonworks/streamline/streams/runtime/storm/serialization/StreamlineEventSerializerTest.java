@@ -0,0 +1,65 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
+import com.hortonworks.streamline.streams.layout.storm.StormTopologyLayoutConstants;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamlineEventSerializerTest {
+    private static final List<String> FIELDS = Arrays.asList("a", "b");
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(StormTopologyLayoutConstants.TOPOLOGY_EVENT_LAYOUTS, Collections.singletonList(FIELDS));
+        Kryo kryo = new Kryo();
+        kryo.register(StreamlineEventImpl.class, new StreamlineEventSerializer(kryo, StreamlineEventImpl.class, conf));
+        kryo.register(IndexedStreamlineEvent.class, new StreamlineEventSerializer(kryo, IndexedStreamlineEvent.class, conf));
+
+        StreamlineEvent eventImpl = new StreamlineEventImpl(Collections.<String, Object>singletonMap("a", "aval"), "1");
+        StreamlineEvent indexedEvent = new IndexedStreamlineEvent(StreamlineEventLayout.of(FIELDS), new Object[]{null, 2}, "1");
+
+        Output output = new Output(1024);
+        kryo.writeClassAndObject(output, eventImpl);
+        kryo.writeClassAndObject(output, indexedEvent);
+        Input input = new Input(output.toBytes());
+        StreamlineEvent eventImplCopy = (StreamlineEvent) kryo.readClassAndObject(input);
+        StreamlineEvent indexedEventCopy = (StreamlineEvent) kryo.readClassAndObject(input);
+
+        assertTrue(eventImplCopy instanceof StreamlineEventImpl);
+        assertEquals(eventImpl.getId(), eventImplCopy.getId());
+        assertEquals(new HashMap<>(eventImpl), new HashMap<>(eventImplCopy));
+        assertTrue(indexedEventCopy instanceof IndexedStreamlineEvent);
+        assertEquals(indexedEvent.getId(), indexedEventCopy.getId());
+        assertEquals(new HashMap<>(indexedEvent), new HashMap<>(indexedEventCopy));
+    }
+}
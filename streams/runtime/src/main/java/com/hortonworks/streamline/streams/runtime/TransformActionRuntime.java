@@ -84,6 +84,49 @@ public class TransformActionRuntime extends AbstractActionRuntime {
         return Collections.singletonList(new Result(stream, doTransform(input)));
     }
 
+    /**
+     * {@inheritDoc}
+     * Applies each {@link TransformRuntime} of the chain to the events of the whole batch at once, see
+     * {@link TransformRuntime#executeBatch(List)}.
+     */
+    @Override
+    public List<List<Result>> executeBatch(List<StreamlineEvent> inputs) {
+        List<List<StreamlineEvent>> transformed = new ArrayList<>(inputs.size());
+        for (StreamlineEvent input : inputs) {
+            transformed.add(Collections.singletonList(input));
+        }
+        for (TransformRuntime transformRuntime : transformRuntimes) {
+            transformed = doTransformBatch(transformRuntime, transformed);
+        }
+        List<List<Result>> results = new ArrayList<>(inputs.size());
+        for (List<StreamlineEvent> events : transformed) {
+            results.add(Collections.singletonList(new Result(stream, events)));
+        }
+        return results;
+    }
+
+    /*
+     * applies the transformation to all the events of the batch, the events generated from the events of each
+     * input are kept together and in order
+     */
+    private List<List<StreamlineEvent>> doTransformBatch(TransformRuntime transformRuntime, List<List<StreamlineEvent>> inputs) {
+        List<StreamlineEvent> events = new ArrayList<>();
+        for (List<StreamlineEvent> inputEvents : inputs) {
+            events.addAll(inputEvents);
+        }
+        List<List<StreamlineEvent>> eventResults = transformRuntime.executeBatch(events);
+        List<List<StreamlineEvent>> transformed = new ArrayList<>(inputs.size());
+        int next = 0;
+        for (List<StreamlineEvent> inputEvents : inputs) {
+            List<StreamlineEvent> inputTransformed = new ArrayList<>();
+            for (int i = 0; i < inputEvents.size(); i++) {
+                inputTransformed.addAll(eventResults.get(next++));
+            }
+            transformed.add(inputTransformed);
+        }
+        return transformed;
+    }
+
     /*
      * applies the transformation chain to the input and returns the transformed events
      */
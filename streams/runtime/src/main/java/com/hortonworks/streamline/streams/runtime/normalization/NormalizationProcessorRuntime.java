@@ -28,6 +28,7 @@ import com.hortonworks.streamline.streams.runtime.ProcessorRuntime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -55,8 +56,35 @@ public class NormalizationProcessorRuntime implements ProcessorRuntime {
      */
     @Override
     public List<Result> process(StreamlineEvent event) throws ProcessingException {
-        String currentStreamId = event.getSourceStream() != null ? event.getSourceStream() : NormalizationProcessor.DEFAULT_STREAM_ID;
-        NormalizationRuntime normalizationRuntime = schemasWithNormalizationRuntime.get(currentStreamId);
+        String currentStreamId = getStreamId(event);
+        return normalize(event, currentStreamId, schemasWithNormalizationRuntime.get(currentStreamId));
+    }
+
+    /**
+     * Normalizes a batch of events, the normalization runtime is looked up once for each run of events from the same
+     * stream.
+     */
+    @Override
+    public List<List<Result>> processBatch(List<StreamlineEvent> events) throws ProcessingException {
+        List<List<Result>> results = new ArrayList<>(events.size());
+        String currentStreamId = null;
+        NormalizationRuntime normalizationRuntime = null;
+        for (StreamlineEvent event : events) {
+            String streamId = getStreamId(event);
+            if (!streamId.equals(currentStreamId)) {
+                currentStreamId = streamId;
+                normalizationRuntime = schemasWithNormalizationRuntime.get(streamId);
+            }
+            results.add(normalize(event, streamId, normalizationRuntime));
+        }
+        return results;
+    }
+
+    private String getStreamId(StreamlineEvent event) {
+        return event.getSourceStream() != null ? event.getSourceStream() : NormalizationProcessor.DEFAULT_STREAM_ID;
+    }
+
+    private List<Result> normalize(StreamlineEvent event, String currentStreamId, NormalizationRuntime normalizationRuntime) {
         LOG.debug("Normalization runtime for this stream [{}]", normalizationRuntime);
 
         StreamlineEvent outputEvent = event;
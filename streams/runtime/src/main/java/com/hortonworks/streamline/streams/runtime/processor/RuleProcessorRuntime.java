@@ -30,10 +30,15 @@ import com.hortonworks.streamline.streams.layout.component.rule.expression.Expre
 import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.GroupBy;
 import com.hortonworks.streamline.streams.runtime.ProcessorRuntime;
+import com.hortonworks.streamline.streams.runtime.rule.RuleIndex;
 import com.hortonworks.streamline.streams.runtime.rule.RuleRuntime;
+import com.hortonworks.streamline.streams.runtime.rule.aggregate.PaneAggregator;
+import com.hortonworks.streamline.streams.runtime.rule.aggregate.SessionAggregator;
 import org.apache.commons.lang3.StringUtils;
 import com.hortonworks.streamline.streams.runtime.rule.action.ActionRuntime;
 import com.hortonworks.streamline.streams.runtime.rule.action.ActionRuntimeContext;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.CompiledRuleScript;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.ExpressionCompiler;
 import com.hortonworks.streamline.streams.runtime.rule.condition.expression.GroovyExpression;
 import com.hortonworks.streamline.streams.runtime.rule.condition.expression.StormSqlExpression;
 import com.hortonworks.streamline.streams.runtime.rule.sql.SqlEngine;
@@ -51,6 +56,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -64,32 +70,53 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
     protected static final Logger LOG = LoggerFactory.getLogger(RuleProcessorRuntime.class);
     private static final GroupBy GROUP_BY_WINDOWID = new GroupBy(new FieldExpression(Schema.Field.of(WINDOW_ID, Schema.Type.LONG)));
 
-    public enum ScriptType {GROOVY, SQL}
+    // GROOVY_STATIC compiles the groovy conditions with @CompileStatic using the types of the fields in the condition,
+    // falling back to SQL for the rules with a window, group by or projection which the groovy script does not evaluate
+    // JAVA evaluates the rules compiled by the ExpressionCompiler, falling back to SQL for the rules it can not handle
+    public enum ScriptType {GROOVY, SQL, GROOVY_STATIC, JAVA}
 
     private final RulesProcessor rulesProcessor;
     private final ScriptType scriptType;
     private List<RuleRuntime> rulesRuntime = new ArrayList<>();
     private Map<String, List<RuleRuntime>> streamToRuleRuntimes;
+    private Map<String, RuleIndex> streamToRuleIndex;
     private List<RuleRuntime> allRuleRuntimes;
     private boolean processAll = true;
+    private boolean indexRules = false;
+    private final int windowPanes;
+    private transient Map<RuleRuntime, PaneAggregator> paneAggregators = new LinkedHashMap<>();
+    private transient Map<RuleRuntime, SessionAggregator> sessionAggregators = new LinkedHashMap<>();
 
     public RuleProcessorRuntime(RulesProcessor rulesProcessor, ScriptType scriptType) {
+        this(rulesProcessor, scriptType, 0);
+    }
+
+    /**
+     * Creates a runtime that evaluates the windowed rules incrementally, see {@link #addToPane(StreamlineEvent)}.
+     *
+     * @param windowPanes the number of panes (sliding intervals) in the window, 0 to evaluate the windowed rules
+     *                    over all the events of the window
+     */
+    public RuleProcessorRuntime(RulesProcessor rulesProcessor, ScriptType scriptType, int windowPanes) {
         this.rulesProcessor = rulesProcessor;
         this.scriptType = scriptType;
+        this.windowPanes = windowPanes;
     }
 
     @Override
     public void initialize(Map<String, Object> config) {
+        this.processAll = this.rulesProcessor.getProcessAll();
+        this.indexRules = this.rulesProcessor.getIndexRules();
         initializeRuleRuntimes(config);
         buildStreamToRulesRuntime();
-        this.processAll = this.rulesProcessor.getProcessAll();
     }
 
     //for testing
     void initializeWithRuleRuntimesForTesting(Map<String, Object> config, List<RuleRuntime> ruleRuntimes) {
+        this.processAll = this.rulesProcessor.getProcessAll();
+        this.indexRules = this.rulesProcessor.getIndexRules();
         rulesRuntime = ruleRuntimes;
         buildStreamToRulesRuntime();
-        this.processAll = this.rulesProcessor.getProcessAll();
     }
 
     @Override
@@ -118,6 +145,164 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
         return results;
     }
 
+    /**
+     * Evaluates the conditions of the rules for every event of the batch first, then runs the actions of each rule
+     * once for all the events of the batch it matched, see {@link RuleRuntime#processBatch(List)}. The results of
+     * each event are in the same order as with {@link #process(StreamlineEvent)}.
+     */
+    @Override
+    public List<List<Result>> processBatch(List<StreamlineEvent> events) throws ProcessingException {
+        List<List<Result>> results = new ArrayList<>(events.size());
+        Map<RuleRuntime, RuleMatches> ruleMatches = new HashMap<>();
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                results.add(new ArrayList<>());
+                StreamlineEvent event = events.get(i);
+                for (RuleRuntime rr : getRulesRuntime(event)) {
+                    boolean succeeded = false;
+                    for (StreamlineEvent result : rr.evaluate(event)) {
+                        if (result != null) {
+                            ruleMatches.computeIfAbsent(rr, k -> new RuleMatches()).add(i, result);
+                            succeeded = true;
+                        }
+                    }
+                    if (!processAll && succeeded)
+                        break;
+                }
+            }
+            // in the order of the rules, so that the results of each event are ordered as in process
+            for (RuleRuntime rr : rulesRuntime) {
+                RuleMatches matches = ruleMatches.get(rr);
+                if (matches != null) {
+                    List<List<Result>> ruleResults = rr.processBatch(matches.results);
+                    for (int j = 0; j < ruleResults.size(); j++) {
+                        results.get(matches.eventIndexes.get(j)).addAll(ruleResults.get(j));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            String message = String.format("Error evaluating rule processor with id: %s, error: %s",
+                    rulesProcessor.getId(), e.getMessage());
+            LOG.error(message, e);
+            throw new ProcessingException(message, e);
+        }
+        return results;
+    }
+
+    // the results of the condition of a rule in a batch, with the index of the event each result comes from
+    private static final class RuleMatches {
+        private final List<Integer> eventIndexes = new ArrayList<>();
+        private final List<StreamlineEvent> results = new ArrayList<>();
+
+        private void add(int eventIndex, StreamlineEvent result) {
+            eventIndexes.add(eventIndex);
+            results.add(result);
+        }
+    }
+
+    /**
+     * Adds the event to the current pane of the windowed rules evaluated incrementally.
+     */
+    public void addToPane(StreamlineEvent event) throws ProcessingException {
+        try {
+            for (RuleRuntime rr : getRulesRuntime(event)) {
+                PaneAggregator paneAggregator = paneAggregators.get(rr);
+                if (paneAggregator != null) {
+                    paneAggregator.add(event);
+                }
+            }
+        } catch (ProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            String message = String.format("Error aggregating event in rule processor with id: %s, error: %s",
+                    rulesProcessor.getId(), e.getMessage());
+            LOG.error(message, e);
+            throw new ProcessingException(message, e);
+        }
+    }
+
+    /**
+     * Closes the current pane of the windowed rules evaluated incrementally and processes the results of the
+     * window ending with it.
+     */
+    public List<Result> slideWindow() throws ProcessingException {
+        List<Result> results = new ArrayList<>();
+        try {
+            long now = System.currentTimeMillis();
+            boolean succeeded = false;
+            for (Map.Entry<RuleRuntime, PaneAggregator> entry : paneAggregators.entrySet()) {
+                // every pane aggregator has to slide, with processAll = false only the results of the first rule are processed
+                succeeded |= processWindowResults(entry.getKey(), entry.getValue().slide(now), succeeded, results);
+            }
+        } catch (Exception e) {
+            String message = String.format("Error evaluating window in rule processor with id: %s, error: %s",
+                    rulesProcessor.getId(), e.getMessage());
+            LOG.error(message, e);
+            throw new ProcessingException(message, e);
+        }
+        return results;
+    }
+
+    /**
+     * Adds the event to the sessions of the rules with session windows. The other rules with session windows still
+     * advance their event time with it.
+     *
+     * @return false if the event is late for any of the rules, i.e. it arrived after the allowed lateness of its session
+     */
+    public boolean addToSession(StreamlineEvent event) throws ProcessingException {
+        boolean added = true;
+        try {
+            long now = System.currentTimeMillis();
+            List<RuleRuntime> candidates = getRulesRuntime(event);
+            for (Map.Entry<RuleRuntime, SessionAggregator> entry : sessionAggregators.entrySet()) {
+                if (candidates.contains(entry.getKey())) {
+                    added &= entry.getValue().add(event, now);
+                } else {
+                    entry.getValue().advance(event, now);
+                }
+            }
+        } catch (ProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            String message = String.format("Error aggregating event in rule processor with id: %s, error: %s",
+                    rulesProcessor.getId(), e.getMessage());
+            LOG.error(message, e);
+            throw new ProcessingException(message, e);
+        }
+        return added;
+    }
+
+    /**
+     * Processes the results of the sessions closed, or updated by late events, since the last invocation.
+     */
+    public List<Result> closeSessions() throws ProcessingException {
+        List<Result> results = new ArrayList<>();
+        try {
+            long now = System.currentTimeMillis();
+            boolean succeeded = false;
+            for (Map.Entry<RuleRuntime, SessionAggregator> entry : sessionAggregators.entrySet()) {
+                succeeded |= processWindowResults(entry.getKey(), entry.getValue().fire(now), succeeded, results);
+            }
+        } catch (Exception e) {
+            String message = String.format("Error evaluating sessions in rule processor with id: %s, error: %s",
+                    rulesProcessor.getId(), e.getMessage());
+            LOG.error(message, e);
+            throw new ProcessingException(message, e);
+        }
+        return results;
+    }
+
+    private boolean processWindowResults(RuleRuntime ruleRuntime, List<StreamlineEvent> windowResults, boolean succeeded,
+                                         List<Result> results) throws ProcessingException {
+        if (succeeded && !processAll) {
+            return false;
+        }
+        for (StreamlineEvent result : windowResults) {
+            results.addAll(ruleRuntime.process(result));
+        }
+        return !windowResults.isEmpty();
+    }
+
     @Override
     public String toString() {
         return "RuleProcessorRuntime{" + rulesProcessor + ", " + rulesRuntime + '}';
@@ -136,6 +321,13 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
         if (StringUtils.isEmpty(inputStream)) {
             throw new ProcessingException("Event SourceStream is empty");
         }
+        if (streamToRuleIndex != null) {
+            RuleIndex ruleIndex = streamToRuleIndex.get(inputStream);
+            if (ruleIndex != null) {
+                // only the rules that may match the event, in the same order, so that processAll = false still stops at the first match
+                return ruleIndex.getCandidates(event);
+            }
+        }
         List<RuleRuntime> result = streamToRuleRuntimes.get(inputStream);
         if (result == null) {
             LOG.debug("Could not find matching rules for input stream {}. Will not process event.", inputStream);
@@ -147,19 +339,32 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
     private void initializeRuleRuntimes(Map<String, Object> config) {
         List<Rule> rules = rulesProcessor.getRules();
         if (rules != null) {
+            // with indexed rules, the subexpressions shared by the compiled rules are evaluated once per event
+            ExpressionCompiler expressionCompiler = indexRules ? new ExpressionCompiler(true) : null;
+            paneAggregators = new LinkedHashMap<>();
+            sessionAggregators = new LinkedHashMap<>();
             for (Rule rule: rules) {
                 RuleRuntime ruleRuntime;
                 Script script = null;
                 if (ScriptType.GROOVY.equals(scriptType)) {
-                    script = createGroovyScript(rule);
+                    script = createGroovyScript(rule, false);
+                } else if (ScriptType.GROOVY_STATIC.equals(scriptType)) {
+                    script = createStaticGroovyScript(rule);
                 } else if (ScriptType.SQL.equals(scriptType)) {
                     script = createSqlScript(rule);
+                } else if (ScriptType.JAVA.equals(scriptType)) {
+                    script = createCompiledScript(rule, expressionCompiler != null ? expressionCompiler : new ExpressionCompiler());
                 } else {
                     throw new RuntimeException("Ruleruntime scriptType unsupported: " + scriptType );
                 }
                 ruleRuntime = new RuleRuntime(rule, script, createActionRuntimes(rule));
                 rulesRuntime.add(ruleRuntime);
                 ruleRuntime.initialize(config);
+                if (SessionAggregator.isSessionWindow(rule.getWindow())) {
+                    sessionAggregators.put(ruleRuntime, new SessionAggregator(rule));
+                } else if (windowPanes > 0 && rule.getWindow() != null) {
+                    paneAggregators.put(ruleRuntime, new PaneAggregator(rule, windowPanes));
+                }
             }
             LOG.info("ruleRuntimes [{}]", rulesRuntime);
         }
@@ -178,6 +383,13 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
             }
         }
         streamToRuleRuntimes = ImmutableMap.copyOf(map);
+        if (indexRules) {
+            Map<String, RuleIndex> indexes = new HashMap<>();
+            for (Map.Entry<String, List<RuleRuntime>> entry : streamToRuleRuntimes.entrySet()) {
+                indexes.put(entry.getKey(), new RuleIndex(entry.getValue()));
+            }
+            streamToRuleIndex = ImmutableMap.copyOf(indexes);
+        }
         ImmutableSet.Builder<RuleRuntime> builder = ImmutableSet.builder();
         for(List<RuleRuntime> ruleRuntimes: streamToRuleRuntimes.values()) {
             builder.addAll(ruleRuntimes);
@@ -196,11 +408,12 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
     }
 
 
-    private Script createGroovyScript(Rule rule) {
+    private Script createGroovyScript(Rule rule, boolean compileStatic) {
         LOG.info("Creating groovy execution script for rule {} ", rule);
         GroovyExpression groovyExpression = new GroovyExpression(rule.getCondition());
         GroovyScriptEngine groovyScriptEngine = new GroovyScriptEngine();
-        GroovyScript<Boolean> groovyScript = createHelperGroovyScript(groovyExpression, groovyScriptEngine);
+        GroovyScript<Boolean> groovyScript = createHelperGroovyScript(groovyExpression, groovyScriptEngine,
+                compileStatic ? groovyExpression.getFields() : null);
         GroovyScript<Collection<StreamlineEvent>> wrapper = new GroovyScript<Collection<StreamlineEvent>>(groovyExpression.asString(),
                 groovyScriptEngine) {
             @Override
@@ -215,8 +428,18 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
         return wrapper;
     }
 
-    private GroovyScript<Boolean> createHelperGroovyScript(GroovyExpression groovyExpression, GroovyScriptEngine groovyScriptEngine) {
-        return new GroovyScript<Boolean>(groovyExpression.asString(), groovyScriptEngine) {
+    private Script createStaticGroovyScript(Rule rule) {
+        if (rule.getWindow() != null || rule.getGroupBy() != null || rule.getHaving() != null || rule.getProjection() != null) {
+            LOG.info("Rule {} has window, group by or projection, creating sql script", rule);
+            return createSqlScript(rule);
+        }
+        return createGroovyScript(rule, true);
+    }
+
+    private GroovyScript<Boolean> createHelperGroovyScript(GroovyExpression groovyExpression, GroovyScriptEngine groovyScriptEngine,
+                                                           List<Schema.Field> typedFields) {
+        return new GroovyScript<Boolean>(groovyExpression.asString(), groovyScriptEngine,
+                Collections.<String, Object>emptyMap(), typedFields) {
             @Override
             public Boolean evaluate(StreamlineEvent event) throws ScriptException {
                 Boolean evaluates = false;
@@ -238,6 +461,21 @@ public class RuleProcessorRuntime implements Serializable, ProcessorRuntime {
         };
     }
 
+    private Script createCompiledScript(Rule rule, ExpressionCompiler expressionCompiler) {
+        if (rule.getWindow() != null || rule.getGroupBy() != null || rule.getHaving() != null) {
+            LOG.info("Rule {} has window or group by, creating sql script", rule);
+            return createSqlScript(rule);
+        }
+        try {
+            CompiledRuleScript compiledRuleScript = new CompiledRuleScript(rule.getCondition(), rule.getProjection(), expressionCompiler);
+            LOG.info("Built CompiledRuleScript {}", compiledRuleScript);
+            return compiledRuleScript;
+        } catch (UnsupportedOperationException e) {
+            LOG.info("Could not compile rule {}, creating sql script. {}", rule, e.getMessage());
+            return createSqlScript(rule);
+        }
+    }
+
     private Script createSqlScript(Rule rule) {
         SqlEngine sqlEngine = new SqlEngine();
         LOG.info("Built sqlEngine {}", sqlEngine);
@@ -0,0 +1,332 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule;
+
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Literal;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.ExpressionCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the {@link RuleRuntime}s of a stream on the equality and range predicates of their conditions.
+ * <p>
+ * For each rule, one of the {@code field op literal} predicates that are AND-ed at the top level of its condition
+ * is indexed, preferring an equality over a range predicate. The equality predicates on a field are kept in a hash
+ * index and the range predicates in sorted interval indexes, so that the indexed predicates of all the rules on a
+ * field are checked with one lookup per event. {@link #getCandidates(StreamlineEvent)} returns, in their original
+ * order, the rules whose indexed predicate may match the event along with the rules that have no indexed predicate,
+ * which still have to be evaluated in full.
+ * </p>
+ * <p>
+ * The index only skips rules that can not match: an event with a missing, null or non comparable value for an indexed
+ * field gets all the rules indexed on that field as candidates. Rules with a window or group by are never indexed.
+ * </p>
+ */
+public class RuleIndex implements Serializable {
+    private static final Logger LOG = LoggerFactory.getLogger(RuleIndex.class);
+    private static final double MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final List<RuleRuntime> ruleRuntimes;
+    private final BitSet unindexedRules = new BitSet();
+    private final List<FieldIndex> fieldIndexes;
+
+    public RuleIndex(List<RuleRuntime> ruleRuntimes) {
+        this.ruleRuntimes = new ArrayList<>(ruleRuntimes);
+        Map<String, FieldIndex.Builder> builders = new LinkedHashMap<>();
+        for (int i = 0; i < this.ruleRuntimes.size(); i++) {
+            Predicate predicate = getIndexedPredicate(this.ruleRuntimes.get(i).getRule());
+            if (predicate == null) {
+                unindexedRules.set(i);
+            } else {
+                FieldIndex.Builder builder = builders.get(predicate.field);
+                if (builder == null) {
+                    builder = new FieldIndex.Builder(predicate.field);
+                    builders.put(predicate.field, builder);
+                }
+                builder.add(predicate, i);
+            }
+        }
+        fieldIndexes = new ArrayList<>();
+        for (FieldIndex.Builder builder : builders.values()) {
+            fieldIndexes.add(builder.build());
+        }
+        LOG.info("Indexed {} out of {} rules on fields {}", ruleRuntimes.size() - unindexedRules.cardinality(),
+                ruleRuntimes.size(), builders.keySet());
+    }
+
+    /**
+     * Returns the rules that have to be evaluated for the event, in the order they were added to the index.
+     */
+    public List<RuleRuntime> getCandidates(StreamlineEvent event) {
+        if (fieldIndexes.isEmpty()) {
+            return ruleRuntimes;
+        }
+        BitSet candidates = (BitSet) unindexedRules.clone();
+        for (FieldIndex fieldIndex : fieldIndexes) {
+            fieldIndex.addCandidates(event, candidates);
+        }
+        List<RuleRuntime> result = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            result.add(ruleRuntimes.get(i));
+        }
+        return result;
+    }
+
+    private static Predicate getIndexedPredicate(Rule rule) {
+        if (rule.getCondition() == null || rule.getCondition().getExpression() == null
+                || rule.getWindow() != null || rule.getGroupBy() != null) {
+            return null;
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        collectPredicates(rule.getCondition().getExpression(), predicates);
+        Predicate result = null;
+        for (Predicate predicate : predicates) {
+            if (predicate.operator == Operator.EQUALS) {
+                return predicate;
+            } else if (result == null) {
+                result = predicate;
+            }
+        }
+        return result;
+    }
+
+    private static void collectPredicates(Expression expression, List<Predicate> predicates) {
+        if (!(expression instanceof BinaryExpression)) {
+            return;
+        }
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        Operator operator = binaryExpression.getOperator();
+        Expression first = binaryExpression.getFirst();
+        Expression second = binaryExpression.getSecond();
+        if (operator == Operator.AND) {
+            collectPredicates(first, predicates);
+            collectPredicates(second, predicates);
+        } else if (operator != Operator.OR && operator != Operator.NOT_EQUAL) {
+            if (first instanceof Literal && second instanceof FieldExpression) {
+                addPredicate(reverse(operator), (FieldExpression) second, (Literal) first, predicates);
+            } else if (first instanceof FieldExpression && second instanceof Literal) {
+                addPredicate(operator, (FieldExpression) first, (Literal) second, predicates);
+            }
+        }
+    }
+
+    private static void addPredicate(Operator operator, FieldExpression field, Literal literal, List<Predicate> predicates) {
+        if (field == FieldExpression.STAR || literal.getValue() == null) {
+            return;
+        }
+        Object value;
+        try {
+            value = ExpressionCompiler.parseLiteral(literal.getValue());
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        // only numbers and quoted strings mean the same in all the script types
+        boolean indexable = (value instanceof Number || (value instanceof String && operator == Operator.EQUALS))
+                && toKey(value) != null;
+        if (indexable) {
+            predicates.add(new Predicate(field.getValue().getName(), operator, value));
+        }
+    }
+
+    private static Operator reverse(Operator operator) {
+        switch (operator) {
+            case GREATER_THAN:
+                return Operator.LESS_THAN;
+            case LESS_THAN:
+                return Operator.GREATER_THAN;
+            case GREATER_THAN_EQUALS_TO:
+                return Operator.LESS_THAN_EQUALS_TO;
+            case LESS_THAN_EQUALS_TO:
+                return Operator.GREATER_THAN_EQUALS_TO;
+            default:
+                return operator;
+        }
+    }
+
+    /*
+     * Key of the equality index, numbers are compared by value irrespective of their type. Returns null for the values
+     * that can not be looked up in the index, e.g. integral doubles too large to be exactly compared with a long, or NaN
+     * which is not ordered with the bounds of the range predicates.
+     */
+    private static Object toKey(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d)) {
+                return null;
+            } else if (d != Math.rint(d)) {
+                return d;
+            }
+            return Math.abs(d) < MAX_EXACT_DOUBLE ? (Long) (long) d : null;
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = ((BigDecimal) value).stripTrailingZeros();
+            if (decimal.scale() > 0) {
+                return decimal.doubleValue();
+            }
+            return decimal.toBigInteger().bitLength() < 64 ? (Long) decimal.longValue() : null;
+        } else if (value instanceof String) {
+            return value;
+        }
+        return null;
+    }
+
+    private static final class Predicate {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+
+        private Predicate(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+    }
+
+    private static final class FieldIndex implements Serializable {
+        private final String field;
+        private final BitSet allRules;
+        private final BitSet rangeRules;
+        private final Map<Object, BitSet> equalities;
+        // lower bounds (field > x) sorted by ascending threshold and upper bounds (field < x) by descending threshold
+        private final double[] lowerBounds;
+        private final int[] lowerBoundRules;
+        private final double[] upperBounds;
+        private final int[] upperBoundRules;
+
+        private FieldIndex(Builder builder) {
+            this.field = builder.field;
+            this.allRules = builder.allRules;
+            this.rangeRules = builder.rangeRules;
+            this.equalities = builder.equalities;
+            Collections.sort(builder.lowerBounds, new Comparator<Bound>() {
+                @Override
+                public int compare(Bound b1, Bound b2) {
+                    return Double.compare(b1.threshold, b2.threshold);
+                }
+            });
+            Collections.sort(builder.upperBounds, new Comparator<Bound>() {
+                @Override
+                public int compare(Bound b1, Bound b2) {
+                    return Double.compare(b2.threshold, b1.threshold);
+                }
+            });
+            lowerBounds = new double[builder.lowerBounds.size()];
+            lowerBoundRules = new int[lowerBounds.length];
+            for (int i = 0; i < lowerBounds.length; i++) {
+                lowerBounds[i] = builder.lowerBounds.get(i).threshold;
+                lowerBoundRules[i] = builder.lowerBounds.get(i).rule;
+            }
+            upperBounds = new double[builder.upperBounds.size()];
+            upperBoundRules = new int[upperBounds.length];
+            for (int i = 0; i < upperBounds.length; i++) {
+                upperBounds[i] = builder.upperBounds.get(i).threshold;
+                upperBoundRules[i] = builder.upperBounds.get(i).rule;
+            }
+        }
+
+        private void addCandidates(StreamlineEvent event, BitSet candidates) {
+            Object value = event.get(field);
+            Object key = toKey(value);
+            if (key == null) {
+                candidates.or(allRules);
+                return;
+            }
+            BitSet matched = equalities.get(key);
+            if (matched != null) {
+                candidates.or(matched);
+            }
+            if (value instanceof Number) {
+                // bounds equal to the value are candidates irrespective of the operator, the comparison of the
+                // doubles may have lost precision and the full evaluation decides
+                double d = ((Number) value).doubleValue();
+                for (int i = 0; i < lowerBounds.length && lowerBounds[i] <= d; i++) {
+                    candidates.set(lowerBoundRules[i]);
+                }
+                for (int i = 0; i < upperBounds.length && upperBounds[i] >= d; i++) {
+                    candidates.set(upperBoundRules[i]);
+                }
+            } else {
+                candidates.or(rangeRules);
+            }
+        }
+
+        private static final class Bound {
+            private final double threshold;
+            private final int rule;
+
+            private Bound(double threshold, int rule) {
+                this.threshold = threshold;
+                this.rule = rule;
+            }
+        }
+
+        private static final class Builder {
+            private final String field;
+            private final BitSet allRules = new BitSet();
+            private final BitSet rangeRules = new BitSet();
+            private final Map<Object, BitSet> equalities = new HashMap<>();
+            private final List<Bound> lowerBounds = new ArrayList<>();
+            private final List<Bound> upperBounds = new ArrayList<>();
+
+            private Builder(String field) {
+                this.field = field;
+            }
+
+            private void add(Predicate predicate, int rule) {
+                allRules.set(rule);
+                if (predicate.operator == Operator.EQUALS) {
+                    Object key = toKey(predicate.value);
+                    BitSet rules = equalities.get(key);
+                    if (rules == null) {
+                        rules = new BitSet();
+                        equalities.put(key, rules);
+                    }
+                    rules.set(rule);
+                } else {
+                    rangeRules.set(rule);
+                    double threshold = ((Number) predicate.value).doubleValue();
+                    if (predicate.operator == Operator.GREATER_THAN || predicate.operator == Operator.GREATER_THAN_EQUALS_TO) {
+                        lowerBounds.add(new Bound(threshold, rule));
+                    } else {
+                        upperBounds.add(new Bound(threshold, rule));
+                    }
+                }
+            }
+
+            private FieldIndex build() {
+                return new FieldIndex(this);
+            }
+        }
+    }
+}
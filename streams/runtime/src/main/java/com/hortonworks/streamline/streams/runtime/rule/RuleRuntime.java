@@ -86,6 +86,36 @@ public class RuleRuntime implements Serializable, ProcessorRuntime {
         return allResults;
     }
 
+    /**
+     * Executes the {@link Rule}'s Actions for a batch of events, each action is invoked once for the whole batch.
+     *
+     * @param events runtime inputs to this rule
+     */
+    @Override
+    public List<List<Result>> processBatch(List<StreamlineEvent> events) throws ProcessingException {
+        LOG.debug("processBatch invoked with {} StreamlineEvents", events.size());
+        List<List<Result>> allResults = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            allResults.add(new ArrayList<>());
+        }
+        try {
+            for (ActionRuntime action : actions) {
+                List<List<Result>> actionResults = action.executeBatch(events);
+                LOG.debug("Applied action {} to a batch", action);
+                for (int i = 0; i < actionResults.size(); i++) {
+                    if (actionResults.get(i) != null) {
+                        allResults.get(i).addAll(actionResults.get(i));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            String message = "Error evaluating rule with id:" + rule.getId();
+            LOG.error(message);
+            throw new ProcessingException(message, e);
+        }
+        return allResults;
+    }
+
     @Override
     public void initialize(Map<String, Object> config) {
         for (ActionRuntime action : actions) {
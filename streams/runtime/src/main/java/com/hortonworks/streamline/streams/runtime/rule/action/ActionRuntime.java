@@ -21,6 +21,7 @@ import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.Result;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +55,21 @@ public interface ActionRuntime extends Serializable {
      */
     List<Result> execute(StreamlineEvent input);
 
+    /**
+     * Execute the current action for a batch of inputs. The default implementation invokes
+     * {@link #execute(StreamlineEvent)} for each input.
+     *
+     * @param inputs the input StreamlineEvents
+     * @return the results of each input, in the same order as the inputs
+     */
+    default List<List<Result>> executeBatch(List<StreamlineEvent> inputs) {
+        List<List<Result>> results = new ArrayList<>(inputs.size());
+        for (StreamlineEvent input : inputs) {
+            results.add(execute(input));
+        }
+        return results;
+    }
+
 
     /**
      * The streams where the result of this action are sent out
@@ -0,0 +1,199 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FunctionExpression;
+import com.hortonworks.streamline.streams.rule.UDAF;
+import com.hortonworks.streamline.streams.rule.UDAF2;
+
+/**
+ * A decomposable aggregate function, the partial aggregates of disjoint groups of values can be merged.
+ */
+interface Accumulator {
+    Object init();
+
+    Object add(Object aggregate, Object[] args);
+
+    /**
+     * Merges the second aggregate into the first one. The first aggregate may be modified and returned.
+     */
+    Object merge(Object aggregate1, Object aggregate2);
+
+    Object result(Object aggregate);
+
+    /**
+     * Creates the accumulator of the aggregate function, the built in COUNT, MIN and MAX functions and the user
+     * defined aggregate functions implementing {@link UDAF#merge(Object, Object)} are supported.
+     *
+     * @throws UnsupportedOperationException if the aggregate function can not be merged
+     */
+    static Accumulator of(AggregateFunctionExpression expression) {
+        FunctionExpression.Function function = expression.getFunction();
+        int operands = expression.getOperands().size();
+        if (!function.isUdf()) {
+            String name = function.getName().toUpperCase();
+            if ("COUNT".equals(name) && operands <= 1) {
+                return new Count();
+            } else if ("MIN".equals(name) && operands == 1) {
+                return new MinMax(true);
+            } else if ("MAX".equals(name) && operands == 1) {
+                return new MinMax(false);
+            }
+            throw new UnsupportedOperationException("Aggregate function " + function.getName() + " can not be merged");
+        }
+        Object udaf;
+        try {
+            udaf = Class.forName(function.getClassName()).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new UnsupportedOperationException("Could not instantiate aggregate function " + function.getClassName(), e);
+        }
+        if (udaf instanceof UDAF && operands == 1 && overridesMerge(udaf.getClass(), UDAF.class)) {
+            return new Udaf((UDAF<Object, Object, Object>) udaf);
+        } else if (udaf instanceof UDAF2 && operands == 2 && overridesMerge(udaf.getClass(), UDAF2.class)) {
+            return new Udaf2((UDAF2<Object, Object, Object, Object>) udaf);
+        }
+        throw new UnsupportedOperationException("Aggregate function " + function.getClassName() + " can not be merged");
+    }
+
+    static boolean overridesMerge(Class<?> udafClass, Class<?> udafInterface) {
+        try {
+            return udafClass.getMethod("merge", Object.class, Object.class).getDeclaringClass() != udafInterface;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    final class Count implements Accumulator {
+        @Override
+        public Object init() {
+            return 0L;
+        }
+
+        @Override
+        public Object add(Object aggregate, Object[] args) {
+            return args.length == 0 || args[0] != null ? (Long) aggregate + 1 : aggregate;
+        }
+
+        @Override
+        public Object merge(Object aggregate1, Object aggregate2) {
+            return (Long) aggregate1 + (Long) aggregate2;
+        }
+
+        @Override
+        public Object result(Object aggregate) {
+            return aggregate;
+        }
+    }
+
+    final class MinMax implements Accumulator {
+        private final boolean min;
+
+        MinMax(boolean min) {
+            this.min = min;
+        }
+
+        @Override
+        public Object init() {
+            return null;
+        }
+
+        @Override
+        public Object add(Object aggregate, Object[] args) {
+            return merge(aggregate, args[0]);
+        }
+
+        @Override
+        public Object merge(Object aggregate1, Object aggregate2) {
+            if (aggregate1 == null) {
+                return aggregate2;
+            } else if (aggregate2 == null) {
+                return aggregate1;
+            }
+            int comparison = compare(aggregate1, aggregate2);
+            return (min ? comparison <= 0 : comparison >= 0) ? aggregate1 : aggregate2;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare(Object value1, Object value2) {
+            if (value1 instanceof Number && value2 instanceof Number && value1.getClass() != value2.getClass()) {
+                return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+            }
+            return ((Comparable<Object>) value1).compareTo(value2);
+        }
+
+        @Override
+        public Object result(Object aggregate) {
+            return aggregate;
+        }
+    }
+
+    final class Udaf implements Accumulator {
+        private final UDAF<Object, Object, Object> udaf;
+
+        Udaf(UDAF<Object, Object, Object> udaf) {
+            this.udaf = udaf;
+        }
+
+        @Override
+        public Object init() {
+            return udaf.init();
+        }
+
+        @Override
+        public Object add(Object aggregate, Object[] args) {
+            return udaf.add(aggregate, args[0]);
+        }
+
+        @Override
+        public Object merge(Object aggregate1, Object aggregate2) {
+            return udaf.merge(aggregate1, aggregate2);
+        }
+
+        @Override
+        public Object result(Object aggregate) {
+            return udaf.result(aggregate);
+        }
+    }
+
+    final class Udaf2 implements Accumulator {
+        private final UDAF2<Object, Object, Object, Object> udaf;
+
+        Udaf2(UDAF2<Object, Object, Object, Object> udaf) {
+            this.udaf = udaf;
+        }
+
+        @Override
+        public Object init() {
+            return udaf.init();
+        }
+
+        @Override
+        public Object add(Object aggregate, Object[] args) {
+            return udaf.add(aggregate, args[0], args[1]);
+        }
+
+        @Override
+        public Object merge(Object aggregate1, Object aggregate2) {
+            return udaf.merge(aggregate1, aggregate2);
+        }
+
+        @Override
+        public Object result(Object aggregate) {
+            return udaf.result(aggregate);
+        }
+    }
+}
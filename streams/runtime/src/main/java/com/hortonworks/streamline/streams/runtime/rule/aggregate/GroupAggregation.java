@@ -0,0 +1,291 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AsExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.GroupBy;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.CompiledCondition;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.CompiledExpression;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.ExpressionCompiler;
+import com.hortonworks.streamline.streams.runtime.rule.condition.expression.StormSqlExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hortonworks.streamline.streams.runtime.transform.AddHeaderTransformRuntime.HEADER_FIELD_DATASOURCE_IDS;
+import static com.hortonworks.streamline.streams.runtime.transform.AddHeaderTransformRuntime.HEADER_FIELD_EVENT_IDS;
+
+/**
+ * The condition, group by, projection and having of an aggregate rule compiled to be evaluated over partial
+ * aggregates, see {@link PaneAggregator} and {@link SessionAggregator}.
+ * <p>
+ * This is supported for the rules whose projection consists of group by fields and aggregate functions that can
+ * be merged (see {@link Accumulator#of(AggregateFunctionExpression)}), and whose condition, group by and having
+ * can be compiled by the {@link ExpressionCompiler}.
+ * </p>
+ */
+class GroupAggregation {
+    private static final String AGGREGATE_FIELD_PREFIX = "$aggregate";
+    // the ids of the aggregated events kept per group, so that the state does not grow with the number of events
+    static final int MAX_EVENT_IDS = 100;
+
+    private final String[] referencedFields;
+    private final CompiledCondition condition;
+    private final CompiledExpression[] groupBy;
+    private final Accumulator[] accumulators;
+    private final CompiledExpression[][] accumulatorArgs;
+    // for each output field, the index of the aggregate (>= 0) or of the group by field (encoded as -index - 1)
+    private final int[] outputs;
+    private final StreamlineEventLayout outputLayout;
+    // the slot of each output field, the fields projected more than once keep the last value
+    private final int[] outputSlots;
+    private final CompiledCondition having;
+    private final StreamlineEventLayout havingLayout;
+    // the slot of each group by field followed by the aggregates, a field grouped by more than once has one slot
+    private final int[] havingSlots;
+
+    /**
+     * @throws UnsupportedOperationException if the rule can not be evaluated over partial aggregates
+     */
+    GroupAggregation(Rule rule) {
+        if (rule.getProjection() == null) {
+            throw new UnsupportedOperationException("Rule " + rule.getId() + " can not be evaluated incrementally");
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        StormSqlExpression sqlExpression = new StormSqlExpression(rule.getCondition(), rule.getProjection(),
+                rule.getGroupBy() != null ? rule.getGroupBy() : new GroupBy(Collections.<Expression>emptyList()), rule.getHaving());
+
+        List<String> fields = new ArrayList<>();
+        for (Schema.Field field : sqlExpression.getStormSqlFields()) {
+            if (!FieldExpression.STAR.getValue().getName().equals(field.getName())) {
+                fields.add(field.getName());
+            }
+        }
+        referencedFields = fields.toArray(new String[fields.size()]);
+        condition = rule.getCondition() != null ? compiler.compileCondition(rule.getCondition().getExpression()) : null;
+
+        List<String> groupByFields = new ArrayList<>();
+        List<Expression> groupByExpressions = rule.getGroupBy() != null ? rule.getGroupBy().getExpressions()
+                : Collections.<Expression>emptyList();
+        groupBy = new CompiledExpression[groupByExpressions.size()];
+        for (int i = 0; i < groupBy.length; i++) {
+            Expression expression = groupByExpressions.get(i);
+            if (!(expression instanceof FieldExpression)) {
+                throw new UnsupportedOperationException("Can not evaluate incrementally group by " + expression);
+            }
+            groupByFields.add(((FieldExpression) expression).getValue().getName());
+            groupBy[i] = compiler.compile(expression);
+        }
+
+        List<AggregateFunctionExpression> aggregates = new ArrayList<>();
+        List<Expression> projection = rule.getProjection().getExpressions();
+        outputs = new int[projection.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            Expression expression = projection.get(i);
+            if (expression instanceof AsExpression) {
+                expression = ((AsExpression) expression).getExpression();
+            }
+            if (expression instanceof AggregateFunctionExpression) {
+                outputs[i] = indexOf(aggregates, (AggregateFunctionExpression) expression);
+            } else if (expression instanceof FieldExpression
+                    && groupByFields.contains(((FieldExpression) expression).getValue().getName())) {
+                outputs[i] = -groupByFields.indexOf(((FieldExpression) expression).getValue().getName()) - 1;
+            } else {
+                throw new UnsupportedOperationException("Can not evaluate incrementally projection " + expression);
+            }
+        }
+        outputLayout = StreamlineEventLayout.ofDistinct(sqlExpression.getOutputFields());
+        outputSlots = outputLayout.indexesOf(sqlExpression.getOutputFields());
+
+        if (rule.getHaving() != null) {
+            Expression havingExpression = replaceAggregates(rule.getHaving().getExpression(), aggregates);
+            List<String> havingFields = new ArrayList<>(groupByFields);
+            for (int i = 0; i < aggregates.size(); i++) {
+                havingFields.add(AGGREGATE_FIELD_PREFIX + i);
+            }
+            having = compiler.compileCondition(havingExpression);
+            havingLayout = StreamlineEventLayout.ofDistinct(havingFields);
+            havingSlots = havingLayout.indexesOf(havingFields);
+        } else {
+            having = null;
+            havingLayout = null;
+            havingSlots = null;
+        }
+
+        accumulators = new Accumulator[aggregates.size()];
+        accumulatorArgs = new CompiledExpression[aggregates.size()][];
+        for (int i = 0; i < accumulators.length; i++) {
+            AggregateFunctionExpression aggregate = aggregates.get(i);
+            accumulators[i] = Accumulator.of(aggregate);
+            List<CompiledExpression> args = new ArrayList<>();
+            for (Expression operand : aggregate.getOperands()) {
+                if (!FieldExpression.STAR.equals(operand)) {
+                    args.add(compiler.compile(operand));
+                }
+            }
+            accumulatorArgs[i] = args.toArray(new CompiledExpression[args.size()]);
+        }
+    }
+
+    /**
+     * Returns the group by key of the event, or null if the event does not match the condition or misses
+     * any of the fields referenced by the rule.
+     */
+    List<Object> getKey(StreamlineEvent event) {
+        for (String field : referencedFields) {
+            if (event.get(field) == null) {
+                return null;
+            }
+        }
+        if (condition != null && !condition.test(event)) {
+            return null;
+        }
+        Object[] key = new Object[groupBy.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = groupBy[i].evaluate(event);
+        }
+        return Arrays.asList(key);
+    }
+
+    Group newGroup() {
+        Object[] aggregates = new Object[accumulators.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            aggregates[i] = accumulators[i].init();
+        }
+        return new Group(aggregates);
+    }
+
+    void add(Group group, StreamlineEvent event) {
+        for (int i = 0; i < accumulators.length; i++) {
+            Object[] args = new Object[accumulatorArgs[i].length];
+            for (int j = 0; j < args.length; j++) {
+                args[j] = accumulatorArgs[i][j].evaluate(event);
+            }
+            group.aggregates[i] = accumulators[i].add(group.aggregates[i], args);
+        }
+        if (group.eventIds.size() < MAX_EVENT_IDS) {
+            group.eventIds.add(event.getId());
+        }
+        group.dataSourceIds.add(event.getDataSourceId());
+    }
+
+    /**
+     * Merges the partial aggregates of the source group into the target group.
+     */
+    void merge(Group target, Group source) {
+        for (int i = 0; i < accumulators.length; i++) {
+            target.aggregates[i] = accumulators[i].merge(target.aggregates[i], source.aggregates[i]);
+        }
+        for (int i = 0; i < source.eventIds.size() && target.eventIds.size() < MAX_EVENT_IDS; i++) {
+            target.eventIds.add(source.eventIds.get(i));
+        }
+        target.dataSourceIds.addAll(source.dataSourceIds);
+    }
+
+    /**
+     * Returns the projection of the group, or null if it does not match the having.
+     */
+    StreamlineEvent getResult(List<Object> key, Group group) {
+        Object[] aggregateResults = new Object[accumulators.length];
+        for (int i = 0; i < aggregateResults.length; i++) {
+            aggregateResults[i] = accumulators[i].result(group.aggregates[i]);
+        }
+        if (having != null) {
+            Object[] havingValues = new Object[havingLayout.size()];
+            for (int i = 0; i < key.size(); i++) {
+                havingValues[havingSlots[i]] = key.get(i);
+            }
+            for (int i = 0; i < aggregateResults.length; i++) {
+                havingValues[havingSlots[key.size() + i]] = aggregateResults[i];
+            }
+            if (!having.test(new IndexedStreamlineEvent(havingLayout, havingValues, ""))) {
+                return null;
+            }
+        }
+        Object[] values = new Object[outputLayout.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            values[outputSlots[i]] = outputs[i] >= 0 ? aggregateResults[outputs[i]] : key.get(-outputs[i] - 1);
+        }
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(HEADER_FIELD_EVENT_IDS, new ArrayList<>(group.eventIds));
+        headers.put(HEADER_FIELD_DATASOURCE_IDS, new ArrayList<>(group.dataSourceIds));
+        return new IndexedStreamlineEvent(outputLayout, values, "").addHeaders(headers);
+    }
+
+    private static int indexOf(List<AggregateFunctionExpression> aggregates, AggregateFunctionExpression aggregate) {
+        int index = aggregates.indexOf(aggregate);
+        if (index < 0) {
+            aggregates.add(aggregate);
+            index = aggregates.size() - 1;
+        }
+        return index;
+    }
+
+    // replaces the aggregate functions in the having expression with fields referring to their results
+    private static Expression replaceAggregates(Expression expression, List<AggregateFunctionExpression> aggregates) {
+        if (expression instanceof AggregateFunctionExpression) {
+            int index = indexOf(aggregates, (AggregateFunctionExpression) expression);
+            return new FieldExpression(Schema.Field.of(AGGREGATE_FIELD_PREFIX + index, Schema.Type.STRING));
+        } else if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            return new BinaryExpression(binaryExpression.getOperator(),
+                    replaceAggregates(binaryExpression.getFirst(), aggregates),
+                    replaceAggregates(binaryExpression.getSecond(), aggregates));
+        } else if (expression instanceof FunctionExpression) {
+            FunctionExpression functionExpression = (FunctionExpression) expression;
+            List<Expression> operands = new ArrayList<>();
+            for (Expression operand : functionExpression.getOperands()) {
+                operands.add(replaceAggregates(operand, aggregates));
+            }
+            FunctionExpression.Function function = functionExpression.getFunction();
+            return function.isUdf() ? new FunctionExpression(function.getName(), function.getClassName(), operands)
+                    : new FunctionExpression(function.getName(), operands);
+        } else if (expression instanceof AsExpression) {
+            return replaceAggregates(((AsExpression) expression).getExpression(), aggregates);
+        }
+        return expression;
+    }
+
+    /**
+     * The partial aggregates of a group, along with the ids of the first {@link #MAX_EVENT_IDS} aggregated events.
+     */
+    static final class Group {
+        private final Object[] aggregates;
+        private final List<String> eventIds = new ArrayList<>();
+        private final Set<String> dataSourceIds = new LinkedHashSet<>();
+
+        private Group(Object[] aggregates) {
+            this.aggregates = aggregates;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Window;
+import com.hortonworks.streamline.streams.runtime.rule.compiled.ExpressionCompiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a windowed rule incrementally. The window is split in panes of the size of the sliding interval and
+ * only the partial aggregates of each group in each pane are kept, on every slide the partial aggregates of the
+ * panes in the window are merged to compute the result of each group.
+ * <p>
+ * This is supported for the rules whose projection consists of group by fields and aggregate functions that can
+ * be merged (see {@link Accumulator#of(AggregateFunctionExpression)}), and whose condition, group by and having
+ * can be compiled by the {@link ExpressionCompiler}. The results are the same as evaluating the rule with the
+ * {@link com.hortonworks.streamline.streams.runtime.rule.sql.SqlScript} over all the events of the window, except
+ * that each group is emitted once per window.
+ * </p>
+ * <p>
+ * With count windows a pane falls out of the window after the number of panes per window slides. With duration
+ * windows the panes are expired by time, since no pane is closed while no events arrive: by the value of the
+ * timestamp field of the window if it is set, by the processing time otherwise.
+ * </p>
+ */
+public class PaneAggregator {
+    private final int panesPerWindow;
+    private final GroupAggregation aggregation;
+    // 0 for count windows
+    private final long slideMs;
+    private final String tsField;
+
+    private final Deque<Pane> panes = new ArrayDeque<>();
+    private Map<List<Object>, GroupAggregation.Group> currentPane = new LinkedHashMap<>();
+    private long currentPaneMaxTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param rule the windowed rule
+     * @param panesPerWindow the number of sliding intervals in the window length
+     * @throws UnsupportedOperationException if the rule can not be evaluated incrementally
+     */
+    public PaneAggregator(Rule rule, int panesPerWindow) {
+        if (panesPerWindow <= 0) {
+            throw new UnsupportedOperationException("Rule " + rule.getId() + " can not be evaluated incrementally");
+        }
+        this.panesPerWindow = panesPerWindow;
+        this.aggregation = new GroupAggregation(rule);
+        Window window = rule.getWindow();
+        if (window != null && window.getWindowLength() instanceof Window.Duration) {
+            slideMs = ((Window.Duration) window.getWindowLength()).getDurationMs() / panesPerWindow;
+            tsField = window.getTsField();
+        } else {
+            slideMs = 0;
+            tsField = null;
+        }
+    }
+
+    /**
+     * Returns true if the windowed rule can be evaluated incrementally.
+     */
+    public static boolean supports(Rule rule) {
+        try {
+            new GroupAggregation(rule);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of panes in the window, i.e. the number of sliding intervals in the window length,
+     * or 0 if the window can not be split in panes.
+     */
+    public static int getPanesPerWindow(Window window) {
+        Window.WindowParam length = window.getWindowLength();
+        Window.WindowParam slidingInterval = window.getSlidingInterval();
+        if (length instanceof Window.Count) {
+            int count = ((Window.Count) length).getCount();
+            if (slidingInterval == null) {
+                return count;   // slides with every tuple
+            } else if (slidingInterval instanceof Window.Count) {
+                int slide = ((Window.Count) slidingInterval).getCount();
+                return slide > 0 && count % slide == 0 ? count / slide : 0;
+            }
+        } else if (length instanceof Window.Duration && slidingInterval instanceof Window.Duration) {
+            int durationMs = ((Window.Duration) length).getDurationMs();
+            int slideMs = ((Window.Duration) slidingInterval).getDurationMs();
+            return slideMs > 0 && durationMs % slideMs == 0 ? durationMs / slideMs : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Adds the event to the partial aggregates of the current pane.
+     */
+    public void add(StreamlineEvent event) {
+        List<Object> key = aggregation.getKey(event);
+        if (key == null) {
+            return;
+        }
+        if (tsField != null) {
+            Object timestamp = event.get(tsField);
+            if (timestamp instanceof Number) {
+                currentPaneMaxTimestamp = Math.max(currentPaneMaxTimestamp, ((Number) timestamp).longValue());
+            }
+        }
+        GroupAggregation.Group group = currentPane.get(key);
+        if (group == null) {
+            group = aggregation.newGroup();
+            currentPane.put(key, group);
+        }
+        aggregation.add(group, event);
+    }
+
+    /**
+     * Closes the current pane and returns the results of the window ending with it, one event per group.
+     */
+    public List<StreamlineEvent> slide() {
+        return slide(System.currentTimeMillis());
+    }
+
+    /**
+     * Closes the current pane and returns the results of the window ending with it, one event per group.
+     *
+     * @param now the processing time
+     */
+    public List<StreamlineEvent> slide(long now) {
+        long paneTime = getPaneTime(now);
+        panes.addLast(new Pane(paneTime, currentPane));
+        currentPane = new LinkedHashMap<>();
+        currentPaneMaxTimestamp = Long.MIN_VALUE;
+        while (panes.size() > panesPerWindow || (slideMs > 0 && isExpired(panes.peekFirst(), paneTime))) {
+            panes.removeFirst();
+        }
+        Map<List<Object>, GroupAggregation.Group> window = new LinkedHashMap<>();
+        for (Pane pane : panes) {
+            for (Map.Entry<List<Object>, GroupAggregation.Group> entry : pane.groups.entrySet()) {
+                GroupAggregation.Group group = window.get(entry.getKey());
+                if (group == null) {
+                    group = aggregation.newGroup();
+                    window.put(entry.getKey(), group);
+                }
+                aggregation.merge(group, entry.getValue());
+            }
+        }
+        List<StreamlineEvent> results = new ArrayList<>(window.size());
+        for (Map.Entry<List<Object>, GroupAggregation.Group> entry : window.entrySet()) {
+            StreamlineEvent result = aggregation.getResult(entry.getKey(), entry.getValue());
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    // the index of the sliding interval for event time, the processing time otherwise
+    private long getPaneTime(long now) {
+        if (slideMs == 0) {
+            return 0;
+        } else if (tsField == null) {
+            return now;
+        } else if (currentPaneMaxTimestamp != Long.MIN_VALUE) {
+            return Math.floorDiv(currentPaneMaxTimestamp, slideMs);
+        }
+        return panes.isEmpty() ? Long.MIN_VALUE : panes.peekLast().time;
+    }
+
+    private boolean isExpired(Pane pane, long paneTime) {
+        if (paneTime == Long.MIN_VALUE) {
+            return false;   // no event time seen yet
+        } else if (tsField != null) {
+            return pane.time <= paneTime - panesPerWindow;
+        }
+        // half a slide of tolerance for the delay of the processing time triggers
+        return pane.time <= paneTime - panesPerWindow * slideMs + slideMs / 2;
+    }
+
+    private static final class Pane {
+        private final long time;
+        private final Map<List<Object>, GroupAggregation.Group> groups;
+
+        private Pane(long time, Map<List<Object>, GroupAggregation.Group> groups) {
+            this.time = time;
+            this.groups = groups;
+        }
+    }
+}
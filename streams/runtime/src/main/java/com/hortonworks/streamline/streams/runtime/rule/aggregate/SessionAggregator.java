@@ -0,0 +1,269 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Window;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Evaluates a rule over session windows. The events of a group by key separated by less than the gap belong to the
+ * same session, the partial aggregates of a session are computed as the events arrive and the sessions bridged by
+ * an event are merged.
+ * <p>
+ * The event time is the value of the timestamp field of the window or, if it is not set, the processing time. The
+ * watermark is the max event time seen minus the lag of the window, including the events not matching the rule given
+ * to {@link #advance(StreamlineEvent, long)}, so that a quiet key does not hold back the others. A session is emitted
+ * once the watermark passes
+ * its last event time plus the gap. A session is kept for the allowed lateness of the window after it is emitted and
+ * the events arriving in that time update its aggregates and emit it again, the events arriving afterwards are late.
+ * </p>
+ * <p>
+ * The sessions are kept per key and the keys to check are indexed by time buckets of the size of the gap, so that
+ * the state is bounded by the number of open sessions, even when replaying a backlog.
+ * </p>
+ */
+public class SessionAggregator {
+    private final GroupAggregation aggregation;
+    private final long gapMs;
+    private final long lagMs;
+    private final long allowedLatenessMs;
+    private final String tsField;
+
+    // the sessions of each key by start time, the sessions of a key are disjoint so they are sorted by end time as well
+    private final Map<List<Object>, TreeMap<Long, Session>> sessions = new HashMap<>();
+    // the keys having a session to emit or to evict, by time bucket
+    private final TreeMap<Long, Set<List<Object>>> timers = new TreeMap<>();
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+
+    /**
+     * @param rule the rule with a session window
+     * @throws UnsupportedOperationException if the rule can not be evaluated over partial aggregates
+     */
+    public SessionAggregator(Rule rule) {
+        Window window = rule.getWindow();
+        if (!isSessionWindow(window)) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + " does not have a session window");
+        }
+        gapMs = ((Window.Session) window.getWindowLength()).getGapMs();
+        if (gapMs <= 0) {
+            throw new IllegalArgumentException("Session gap should be positive, rule " + rule.getId());
+        }
+        lagMs = window.getLagMs();
+        allowedLatenessMs = window.getAllowedLatenessMs();
+        tsField = window.getTsField();
+        aggregation = new GroupAggregation(rule);
+    }
+
+    /**
+     * Returns true if the window is a session window.
+     */
+    public static boolean isSessionWindow(Window window) {
+        return window != null && window.getWindowLength() instanceof Window.Session;
+    }
+
+    /**
+     * Returns true if the rule can be evaluated over session windows.
+     */
+    public static boolean supports(Rule rule) {
+        return PaneAggregator.supports(rule);
+    }
+
+    /**
+     * Adds the event to the session of its key, merging it with the sessions the event bridges.
+     *
+     * @param event the event
+     * @param now the processing time
+     * @return false if the event is late, i.e. the session it belongs to has been evicted, true otherwise, including
+     * when the event does not match the condition of the rule
+     * @throws IllegalArgumentException if an event matching the rule does not have the timestamp field of the window
+     */
+    public boolean add(StreamlineEvent event, long now) {
+        List<Object> key = aggregation.getKey(event);
+        if (key == null) {
+            // not evaluated by the rule, so it can not be late for it
+            advance(event, now);
+            return true;
+        }
+        long timestamp = getTimestamp(event, now);
+        if (timestamp + gapMs + allowedLatenessMs <= watermark) {
+            return false;
+        }
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        Session session = new Session(timestamp, aggregation.newGroup());
+        aggregation.add(session.group, event);
+
+        TreeMap<Long, Session> keySessions = sessions.get(key);
+        if (keySessions == null) {
+            keySessions = new TreeMap<>();
+            sessions.put(key, keySessions);
+        }
+        Iterator<Session> it = keySessions.headMap(timestamp + gapMs, false).descendingMap().values().iterator();
+        while (it.hasNext()) {
+            Session other = it.next();
+            if (other.end <= timestamp - gapMs) {
+                break;
+            }
+            it.remove();
+            aggregation.merge(other.group, session.group);
+            other.start = Math.min(other.start, session.start);
+            other.end = Math.max(other.end, session.end);
+            session = other;
+        }
+        session.pending = true;
+        keySessions.put(session.start, session);
+        register(key, session.end + gapMs);
+        return true;
+    }
+
+    /**
+     * Advances the event time with an event not evaluated by the rule, e.g. one not matching its condition. Events
+     * without the timestamp field of the window are ignored.
+     *
+     * @param event the event
+     * @param now the processing time
+     */
+    public void advance(StreamlineEvent event, long now) {
+        if (tsField == null) {
+            return;
+        }
+        Object timestamp = event.get(tsField);
+        if (timestamp instanceof Number) {
+            maxTimestamp = Math.max(maxTimestamp, ((Number) timestamp).longValue());
+        }
+    }
+
+    /**
+     * Advances the watermark and returns the results of the sessions closed since the last invocation, or updated
+     * by events arriving within the allowed lateness. The sessions past the allowed lateness are evicted.
+     *
+     * @param now the processing time
+     */
+    public List<StreamlineEvent> fire(long now) {
+        long newWatermark = tsField == null ? now : maxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : maxTimestamp - lagMs;
+        watermark = Math.max(watermark, newWatermark);
+        List<StreamlineEvent> results = new ArrayList<>();
+        if (watermark == Long.MIN_VALUE) {
+            return results;
+        }
+        // the keys registered again while firing go to the next invocation
+        NavigableMap<Long, Set<List<Object>>> due = timers.headMap(getBucket(watermark), true);
+        Set<List<Object>> keys = new LinkedHashSet<>();
+        for (Set<List<Object>> bucketKeys : due.values()) {
+            keys.addAll(bucketKeys);
+        }
+        due.clear();
+        for (List<Object> key : keys) {
+            fire(key, results);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of open sessions, including the ones kept for the allowed lateness.
+     */
+    public int getSessionCount() {
+        int count = 0;
+        for (TreeMap<Long, Session> keySessions : sessions.values()) {
+            count += keySessions.size();
+        }
+        return count;
+    }
+
+    private void fire(List<Object> key, List<StreamlineEvent> results) {
+        TreeMap<Long, Session> keySessions = sessions.get(key);
+        if (keySessions == null) {
+            return;
+        }
+        Iterator<Session> it = keySessions.values().iterator();
+        while (it.hasNext()) {
+            Session session = it.next();
+            long closeTime = session.end + gapMs;
+            if (closeTime > watermark) {
+                // the following sessions close later
+                register(key, closeTime);
+                break;
+            }
+            if (session.pending) {
+                StreamlineEvent result = aggregation.getResult(key, session.group);
+                if (result != null) {
+                    results.add(result);
+                }
+                session.pending = false;
+            }
+            if (closeTime + allowedLatenessMs <= watermark) {
+                it.remove();
+            } else {
+                register(key, closeTime + allowedLatenessMs);
+            }
+        }
+        if (keySessions.isEmpty()) {
+            sessions.remove(key);
+        }
+    }
+
+    private void register(List<Object> key, long time) {
+        long bucket = getBucket(time);
+        Set<List<Object>> keys = timers.get(bucket);
+        if (keys == null) {
+            keys = new LinkedHashSet<>();
+            timers.put(bucket, keys);
+        }
+        keys.add(key);
+    }
+
+    private long getBucket(long time) {
+        return Math.floorDiv(time, gapMs);
+    }
+
+    private long getTimestamp(StreamlineEvent event, long now) {
+        if (tsField == null) {
+            return now;
+        }
+        Object timestamp = event.get(tsField);
+        if (!(timestamp instanceof Number)) {
+            throw new IllegalArgumentException("Event " + event.getId() + " does not have a valid timestamp field "
+                    + tsField + ": " + timestamp);
+        }
+        return ((Number) timestamp).longValue();
+    }
+
+    private static final class Session {
+        private long start;
+        private long end;
+        private final GroupAggregation.Group group;
+        // whether the session has events that are not reflected in the emitted results
+        private boolean pending;
+
+        private Session(long timestamp, GroupAggregation.Group group) {
+            this.start = timestamp;
+            this.end = timestamp;
+            this.group = group;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule.compiled;
+
+import com.hortonworks.streamline.streams.StreamlineEvent;
+
+/**
+ * A boolean {@link com.hortonworks.streamline.streams.layout.component.rule.expression.Expression} compiled by the
+ * {@link ExpressionCompiler}, evaluated without boxing the result.
+ */
+public interface CompiledCondition {
+    boolean test(StreamlineEvent event);
+}
@@ -0,0 +1,138 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule.compiled;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
+import com.hortonworks.streamline.streams.layout.component.rule.exception.ConditionEvaluationException;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Condition;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Projection;
+import com.hortonworks.streamline.streams.runtime.rule.condition.expression.StormSqlExpression;
+import com.hortonworks.streamline.streams.runtime.script.Script;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hortonworks.streamline.streams.common.StreamlineEventImpl.GROUP_BY_TRIGGER_EVENT;
+
+/**
+ * Evaluates the condition and the projection of a stateless rule with the expressions compiled by the
+ * {@link ExpressionCompiler}. The results are the same as with the {@link com.hortonworks.streamline.streams.runtime.rule.sql.SqlScript}
+ * for rules without window or group by, i.e. an event missing any of the fields referenced by the rule does not match
+ * and the projected fields are named after their alias or the sql expression.
+ */
+public class CompiledRuleScript extends Script<StreamlineEvent, Collection<StreamlineEvent>, ExpressionCompiler> {
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledRuleScript.class);
+
+    private final Condition condition;
+    private final Projection projection;
+    private final String[] referencedFields;
+    private final StreamlineEventLayout outputLayout;
+    // the slot of each projected expression, the fields projected more than once keep the last value
+    private final int[] outputSlots;
+    // the compiled expressions are rebuilt after deserialization
+    private transient CompiledCondition compiledCondition;
+    private transient CompiledExpression[] compiledProjection;
+
+    public CompiledRuleScript(Condition condition, Projection projection, ExpressionCompiler expressionCompiler) {
+        this(new StormSqlExpression(condition, projection), expressionCompiler);
+    }
+
+    private CompiledRuleScript(StormSqlExpression sqlExpression, ExpressionCompiler expressionCompiler) {
+        super(sqlExpression.asString(), expressionCompiler);
+        this.condition = sqlExpression.getCondition();
+        this.projection = sqlExpression.getProjection();
+        List<Schema.Field> fields = sqlExpression.getStormSqlFields();
+        this.referencedFields = new String[fields.size()];
+        for (int i = 0; i < referencedFields.length; i++) {
+            referencedFields[i] = fields.get(i).getName();
+        }
+        List<String> outputFields = sqlExpression.getOutputFields();
+        this.outputLayout = outputFields.isEmpty() ? null : StreamlineEventLayout.ofDistinct(outputFields);
+        this.outputSlots = outputLayout != null ? outputLayout.indexesOf(outputFields) : null;
+        compile();
+    }
+
+    private void compile() {
+        compiledCondition = condition != null ? scriptEngine.compileCondition(condition.getExpression()) : null;
+        if (projection != null && !projection.getExpressions().isEmpty()) {
+            List<Expression> expressions = projection.getExpressions();
+            compiledProjection = new CompiledExpression[expressions.size()];
+            for (int i = 0; i < compiledProjection.length; i++) {
+                compiledProjection[i] = scriptEngine.compile(expressions.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Collection<StreamlineEvent> evaluate(StreamlineEvent event) {
+        LOG.debug("Evaluating [{}] with compiled expression [{}]", event, expression);
+        if (event == null) {
+            LOG.error("Cannot evaluate null event");
+            return Collections.emptyList();
+        } else if (event == GROUP_BY_TRIGGER_EVENT) {
+            return Collections.emptyList();
+        }
+        for (String field : referencedFields) {
+            if (event.get(field) == null) {
+                LOG.debug("Missing property {}", field);
+                return Collections.emptyList();
+            }
+        }
+        try {
+            if (compiledCondition != null && !compiledCondition.test(event)) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(project(event));
+        } catch (ConditionEvaluationException ex) {
+            LOG.error("Got exception {} while processing StreamlineEvent {}", ex, event);
+            return Collections.emptyList();
+        }
+    }
+
+    private StreamlineEvent project(StreamlineEvent event) {
+        if (compiledProjection == null || outputLayout == null) {
+            return event;
+        }
+        Object[] values = new Object[outputLayout.size()];
+        for (int i = 0; i < compiledProjection.length; i++) {
+            values[outputSlots[i]] = compiledProjection[i].evaluate(event);
+        }
+        return new IndexedStreamlineEvent(outputLayout, values, event.getDataSourceId(), event.getId(),
+                event.getHeader(), event.getSourceStream());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compile();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledRuleScript{" +
+                "condition=" + condition +
+                ", projection=" + projection +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,561 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule.compiled;
+
+import com.google.common.collect.ImmutableMap;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.layout.component.rule.exception.ConditionEvaluationException;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.ArrayFieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AsExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.ExpressionVisitor;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Literal;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.MapFieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
+import com.hortonworks.streamline.streams.rule.UDF;
+import com.hortonworks.streamline.streams.rule.UDF2;
+import com.hortonworks.streamline.streams.rule.UDF3;
+import com.hortonworks.streamline.streams.rule.UDF4;
+import com.hortonworks.streamline.streams.rule.UDF5;
+import com.hortonworks.streamline.streams.rule.UDF6;
+import com.hortonworks.streamline.streams.rule.UDF7;
+import com.hortonworks.streamline.streams.runtime.script.engine.ScriptEngine;
+
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compiles the rule {@link Expression} tree into a tree of {@link CompiledExpression}s and {@link CompiledCondition}s
+ * that are evaluated directly against the {@link StreamlineEvent}, as an alternative to interpreting the expression
+ * with Groovy or running it through the Storm SQL engine.
+ * <p>
+ * The evaluation follows the SQL semantics of the rules: a comparison with a null value is false, array indexes start
+ * at 1 and numbers of different types are compared by value. The literals are parsed and the user defined functions
+ * instantiated once at compile time, the functions are then invoked through the {@link UDF}..{@link UDF7} interfaces.
+ * </p>
+ * <p>
+ * A compiler created to share the subexpressions compiles the equal boolean subexpressions of all the expressions it
+ * compiles, e.g. the conditions of all the rules of a rules processor, only once and evaluates them once per event.
+ * </p>
+ * Aggregate functions and unknown built-in functions are not supported and result in {@link UnsupportedOperationException}.
+ */
+public class ExpressionCompiler implements ScriptEngine<ExpressionCompiler>, Serializable {
+    private static final Map<String, UnaryOperator<Object>> BUILTIN_FUNCTIONS = ImmutableMap.<String, UnaryOperator<Object>>builder()
+            .put("UPPER", value -> value.toString().toUpperCase())
+            .put("LOWER", value -> value.toString().toLowerCase())
+            .put("TRIM", value -> value.toString().trim())
+            .put("CHAR_LENGTH", value -> value.toString().length())
+            .put("CHARACTER_LENGTH", value -> value.toString().length())
+            .put("ABS", ExpressionCompiler::abs)
+            .build();
+
+    private static final Class<?>[] UDF_INTERFACES = {UDF.class, UDF2.class, UDF3.class, UDF4.class, UDF5.class, UDF6.class, UDF7.class};
+
+    private final boolean shareSubexpressions;
+    private transient Map<BinaryExpression, SharedCondition> sharedConditions;
+
+    public ExpressionCompiler() {
+        this(false);
+    }
+
+    public ExpressionCompiler(boolean shareSubexpressions) {
+        this.shareSubexpressions = shareSubexpressions;
+    }
+
+    @Override
+    public ExpressionCompiler getEngine() {
+        return this;
+    }
+
+    /**
+     * Compiles the expression to a {@link CompiledExpression} computing its value.
+     */
+    public CompiledExpression compile(Expression expression) {
+        Compiler compiler = new Compiler();
+        expression.accept(compiler);
+        return compiler.result;
+    }
+
+    /**
+     * Compiles a boolean expression, e.g. the expression of a rule condition, to a {@link CompiledCondition}.
+     */
+    public CompiledCondition compileCondition(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            return compileBinaryExpression((BinaryExpression) expression);
+        }
+        final CompiledExpression value = compile(expression);
+        return event -> Boolean.TRUE.equals(value.evaluate(event));
+    }
+
+    private CompiledCondition compileBinaryExpression(BinaryExpression binaryExpression) {
+        if (!shareSubexpressions) {
+            return doCompileBinaryExpression(binaryExpression);
+        }
+        if (sharedConditions == null) {
+            sharedConditions = new HashMap<>();
+        }
+        SharedCondition sharedCondition = sharedConditions.get(binaryExpression);
+        if (sharedCondition == null) {
+            sharedCondition = new SharedCondition(doCompileBinaryExpression(binaryExpression));
+            sharedConditions.put(binaryExpression, sharedCondition);
+        }
+        sharedCondition.references++;
+        return sharedCondition;
+    }
+
+    private CompiledCondition doCompileBinaryExpression(BinaryExpression binaryExpression) {
+        final Operator operator = binaryExpression.getOperator();
+        switch (operator) {
+            case AND: {
+                final CompiledCondition first = compileCondition(binaryExpression.getFirst());
+                final CompiledCondition second = compileCondition(binaryExpression.getSecond());
+                return event -> first.test(event) && second.test(event);
+            }
+            case OR: {
+                final CompiledCondition first = compileCondition(binaryExpression.getFirst());
+                final CompiledCondition second = compileCondition(binaryExpression.getSecond());
+                return event -> first.test(event) || second.test(event);
+            }
+            default:
+                if (binaryExpression.getFirst() instanceof Literal && !(binaryExpression.getSecond() instanceof Literal)) {
+                    return compileComparison(reverse(operator), binaryExpression.getSecond(), binaryExpression.getFirst());
+                }
+                return compileComparison(operator, binaryExpression.getFirst(), binaryExpression.getSecond());
+        }
+    }
+
+    private CompiledCondition compileComparison(final Operator operator, Expression first, Expression second) {
+        final CompiledExpression left = compile(first);
+        if (second instanceof Literal) {
+            final Object constant = parseLiteral(((Literal) second).getValue());
+            if (constant == null) {
+                return event -> false;
+            }
+            if (first instanceof FieldExpression && isIntegral(constant) && isIntegral(((FieldExpression) first).getValue().getType())) {
+                // fast path for the common comparison of an integral field with a constant
+                final String name = ((FieldExpression) first).getValue().getName();
+                final long longConstant = ((Number) constant).longValue();
+                return event -> {
+                    Object value = event.get(name);
+                    if (isIntegral(value)) {
+                        return matches(operator, Long.compare(((Number) value).longValue(), longConstant));
+                    }
+                    return value != null && compare(operator, value, constant);
+                };
+            }
+            return event -> {
+                Object value = left.evaluate(event);
+                return value != null && compare(operator, value, constant);
+            };
+        }
+        final CompiledExpression right = compile(second);
+        return event -> {
+            Object value1 = left.evaluate(event);
+            if (value1 == null) {
+                return false;
+            }
+            Object value2 = right.evaluate(event);
+            return value2 != null && compare(operator, value1, value2);
+        };
+    }
+
+    /*
+     * Condition referenced from several places, the result of the last evaluated event is kept so that it is
+     * evaluated once per event.
+     */
+    private static final class SharedCondition implements CompiledCondition {
+        private final CompiledCondition condition;
+        private int references;
+        private Evaluation last;
+
+        private SharedCondition(CompiledCondition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean test(StreamlineEvent event) {
+            if (references < 2) {
+                return condition.test(event);
+            }
+            Evaluation evaluation = last;
+            if (evaluation != null && evaluation.event == event) {
+                return evaluation.result;
+            }
+            boolean result = condition.test(event);
+            last = new Evaluation(event, result);
+            return result;
+        }
+    }
+
+    private static final class Evaluation {
+        private final StreamlineEvent event;
+        private final boolean result;
+
+        private Evaluation(StreamlineEvent event, boolean result) {
+            this.event = event;
+            this.result = result;
+        }
+    }
+
+    private class Compiler implements ExpressionVisitor {
+        private CompiledExpression result;
+
+        @Override
+        public void visit(BinaryExpression binaryExpression) {
+            final CompiledCondition condition = compileBinaryExpression(binaryExpression);
+            result = event -> condition.test(event);
+        }
+
+        @Override
+        public void visit(FieldExpression fieldExpression) {
+            if (fieldExpression == FieldExpression.STAR) {
+                throw new UnsupportedOperationException("Can not compile " + fieldExpression);
+            }
+            final String name = fieldExpression.getValue().getName();
+            result = event -> event.get(name);
+        }
+
+        @Override
+        public void visit(ArrayFieldExpression arrayFieldExpression) {
+            final CompiledExpression array = compile(arrayFieldExpression.getExpression());
+            final int index = arrayFieldExpression.getIndex() - 1;
+            result = event -> {
+                Object value = array.evaluate(event);
+                if (value == null) {
+                    return null;
+                } else if (!(value instanceof List)) {
+                    throw new ConditionEvaluationException("Not an array " + value);
+                }
+                List<?> list = (List<?>) value;
+                return index >= 0 && index < list.size() ? list.get(index) : null;
+            };
+        }
+
+        @Override
+        public void visit(MapFieldExpression mapFieldExpression) {
+            final CompiledExpression map = compile(mapFieldExpression.getExpression());
+            final String key = mapFieldExpression.getKey();
+            result = event -> {
+                Object value = map.evaluate(event);
+                if (value == null) {
+                    return null;
+                } else if (!(value instanceof Map)) {
+                    throw new ConditionEvaluationException("Not a map " + value);
+                }
+                return ((Map<?, ?>) value).get(key);
+            };
+        }
+
+        @Override
+        public void visit(Literal literal) {
+            final Object value = parseLiteral(literal.getValue());
+            result = event -> value;
+        }
+
+        @Override
+        public void visit(FunctionExpression functionExpression) {
+            FunctionExpression.Function function = functionExpression.getFunction();
+            List<Expression> operands = functionExpression.getOperands();
+            CompiledExpression[] args = new CompiledExpression[operands.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = compile(operands.get(i));
+            }
+            result = function.isUdf() ? compileUdf(function, args) : compileBuiltinFunction(function, args);
+        }
+
+        @Override
+        public void visit(AggregateFunctionExpression aggregateFunctionExpression) {
+            throw new UnsupportedOperationException("Can not compile aggregate function " + aggregateFunctionExpression.getFunction().getName());
+        }
+
+        @Override
+        public void visit(AsExpression asExpression) {
+            result = compile(asExpression.getExpression());
+        }
+    }
+
+    private static CompiledExpression compileBuiltinFunction(FunctionExpression.Function function, CompiledExpression[] args) {
+        final UnaryOperator<Object> fn = BUILTIN_FUNCTIONS.get(function.getName().toUpperCase());
+        if (fn == null || args.length != 1) {
+            throw new UnsupportedOperationException("Can not compile function " + function.getName() + " with " + args.length + " arguments");
+        }
+        final CompiledExpression arg = args[0];
+        return event -> {
+            Object value = arg.evaluate(event);
+            return value != null ? fn.apply(value) : null;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompiledExpression compileUdf(FunctionExpression.Function function, CompiledExpression[] operands) {
+        Object udf;
+        try {
+            udf = Class.forName(function.getClassName()).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Could not instantiate function " + function.getName() + " with class " + function.getClassName(), e);
+        }
+        CompiledExpression[] args = coerceArguments(udf.getClass(), operands);
+        switch (args.length) {
+            case 1:
+                if (udf instanceof UDF) {
+                    final UDF fn = (UDF) udf;
+                    final CompiledExpression arg1 = args[0];
+                    return event -> fn.evaluate(arg1.evaluate(event));
+                }
+                break;
+            case 2:
+                if (udf instanceof UDF2) {
+                    final UDF2 fn = (UDF2) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event));
+                }
+                break;
+            case 3:
+                if (udf instanceof UDF3) {
+                    final UDF3 fn = (UDF3) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1], arg3 = args[2];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event), arg3.evaluate(event));
+                }
+                break;
+            case 4:
+                if (udf instanceof UDF4) {
+                    final UDF4 fn = (UDF4) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1], arg3 = args[2], arg4 = args[3];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event), arg3.evaluate(event),
+                            arg4.evaluate(event));
+                }
+                break;
+            case 5:
+                if (udf instanceof UDF5) {
+                    final UDF5 fn = (UDF5) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1], arg3 = args[2], arg4 = args[3], arg5 = args[4];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event), arg3.evaluate(event),
+                            arg4.evaluate(event), arg5.evaluate(event));
+                }
+                break;
+            case 6:
+                if (udf instanceof UDF6) {
+                    final UDF6 fn = (UDF6) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1], arg3 = args[2], arg4 = args[3], arg5 = args[4],
+                            arg6 = args[5];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event), arg3.evaluate(event),
+                            arg4.evaluate(event), arg5.evaluate(event), arg6.evaluate(event));
+                }
+                break;
+            case 7:
+                if (udf instanceof UDF7) {
+                    final UDF7 fn = (UDF7) udf;
+                    final CompiledExpression arg1 = args[0], arg2 = args[1], arg3 = args[2], arg4 = args[3], arg5 = args[4],
+                            arg6 = args[5], arg7 = args[6];
+                    return event -> fn.evaluate(arg1.evaluate(event), arg2.evaluate(event), arg3.evaluate(event),
+                            arg4.evaluate(event), arg5.evaluate(event), arg6.evaluate(event), arg7.evaluate(event));
+                }
+                break;
+        }
+        throw new UnsupportedOperationException("Function " + function.getName() + " with class " + function.getClassName()
+                + " does not implement the UDF interface for " + args.length + " arguments");
+    }
+
+    /*
+     * Converts the numeric arguments to the parameter types declared by the UDF, the way the SQL engine would do.
+     * The types are resolved once from the generic interface implemented by the function class.
+     */
+    private static CompiledExpression[] coerceArguments(Class<?> udfClass, CompiledExpression[] operands) {
+        if (operands.length < 1 || operands.length > UDF_INTERFACES.length) {
+            return operands;
+        }
+        Type[] typeArguments = null;
+        for (Class<?> clazz = udfClass; clazz != null && typeArguments == null; clazz = clazz.getSuperclass()) {
+            for (Type type : clazz.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType
+                        && ((ParameterizedType) type).getRawType() == UDF_INTERFACES[operands.length - 1]) {
+                    typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+                }
+            }
+        }
+        if (typeArguments == null) {
+            return operands;
+        }
+        CompiledExpression[] args = new CompiledExpression[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            // first type argument is the result type
+            Type type = typeArguments[i + 1];
+            args[i] = type instanceof Class && Number.class.isAssignableFrom((Class<?>) type) && type != Number.class
+                    ? coerce(operands[i], (Class<?>) type) : operands[i];
+        }
+        return args;
+    }
+
+    private static CompiledExpression coerce(final CompiledExpression operand, final Class<?> type) {
+        return event -> {
+            Object value = operand.evaluate(event);
+            return value instanceof Number && !type.isInstance(value) ? toNumber((Number) value, type) : value;
+        };
+    }
+
+    private static Object toNumber(Number value, Class<?> type) {
+        if (type == Integer.class) {
+            return value.intValue();
+        } else if (type == Long.class) {
+            return value.longValue();
+        } else if (type == Double.class) {
+            return value.doubleValue();
+        } else if (type == Float.class) {
+            return value.floatValue();
+        } else if (type == Short.class) {
+            return value.shortValue();
+        } else if (type == Byte.class) {
+            return value.byteValue();
+        } else if (type == BigDecimal.class) {
+            return isIntegral(value) ? BigDecimal.valueOf(value.longValue()) : new BigDecimal(value.toString());
+        }
+        return value;
+    }
+
+    /**
+     * Parses the value of a {@link Literal} as generated from the rule sql, e.g. 100, 2.5, 'text', TRUE or NULL.
+     */
+    public static Object parseLiteral(String literal) {
+        if (literal == null || "NULL".equalsIgnoreCase(literal)) {
+            return null;
+        } else if ("TRUE".equalsIgnoreCase(literal)) {
+            return Boolean.TRUE;
+        } else if ("FALSE".equalsIgnoreCase(literal)) {
+            return Boolean.FALSE;
+        }
+        // character literals may be prefixed with the charset, e.g. _ISO-8859-1'text'
+        int quote = literal.indexOf('\'');
+        if (quote >= 0 && literal.length() > quote + 1 && literal.endsWith("'")) {
+            return literal.substring(quote + 1, literal.length() - 1).replace("''", "'");
+        }
+        try {
+            BigDecimal number = new BigDecimal(literal);
+            if (number.scale() <= 0) {
+                try {
+                    return number.intValueExact();
+                } catch (ArithmeticException e) {
+                    return number.longValueExact();
+                }
+            }
+            return number.doubleValue();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new UnsupportedOperationException("Can not compile literal " + literal);
+        }
+    }
+
+    static boolean compare(Operator operator, Object value1, Object value2) {
+        switch (operator) {
+            case EQUALS:
+                return isEqual(value1, value2);
+            case NOT_EQUAL:
+                return !isEqual(value1, value2);
+            default:
+                return matches(operator, compareTo(value1, value2));
+        }
+    }
+
+    private static boolean matches(Operator operator, int comparison) {
+        switch (operator) {
+            case EQUALS:
+                return comparison == 0;
+            case NOT_EQUAL:
+                return comparison != 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case GREATER_THAN_EQUALS_TO:
+                return comparison >= 0;
+            case LESS_THAN_EQUALS_TO:
+                return comparison <= 0;
+            default:
+                throw new UnsupportedOperationException("Not a comparison operator " + operator);
+        }
+    }
+
+    private static Operator reverse(Operator operator) {
+        switch (operator) {
+            case GREATER_THAN:
+                return Operator.LESS_THAN;
+            case LESS_THAN:
+                return Operator.GREATER_THAN;
+            case GREATER_THAN_EQUALS_TO:
+                return Operator.LESS_THAN_EQUALS_TO;
+            case LESS_THAN_EQUALS_TO:
+                return Operator.GREATER_THAN_EQUALS_TO;
+            default:
+                return operator;
+        }
+    }
+
+    private static boolean isEqual(Object value1, Object value2) {
+        if (value1 instanceof Number && value2 instanceof Number) {
+            return compareTo(value1, value2) == 0;
+        }
+        return value1.equals(value2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareTo(Object value1, Object value2) {
+        if (value1 instanceof Number && value2 instanceof Number) {
+            Number number1 = (Number) value1;
+            Number number2 = (Number) value2;
+            if (isIntegral(number1) && isIntegral(number2)) {
+                return Long.compare(number1.longValue(), number2.longValue());
+            } else if (number1 instanceof BigDecimal || number2 instanceof BigDecimal) {
+                return new BigDecimal(number1.toString()).compareTo(new BigDecimal(number2.toString()));
+            }
+            return Double.compare(number1.doubleValue(), number2.doubleValue());
+        } else if (value1 instanceof Comparable && value1.getClass() == value2.getClass()) {
+            return ((Comparable<Object>) value1).compareTo(value2);
+        }
+        throw new ConditionEvaluationException("Can not compare " + value1 + " with " + value2);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean isIntegral(Schema.Type type) {
+        return type == Schema.Type.INTEGER || type == Schema.Type.LONG || type == Schema.Type.SHORT || type == Schema.Type.BYTE;
+    }
+
+    private static Object abs(Object value) {
+        if (value instanceof Integer) {
+            return Math.abs((Integer) value);
+        } else if (value instanceof Long) {
+            return Math.abs((Long) value);
+        } else if (value instanceof Float) {
+            return Math.abs((Float) value);
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).abs();
+        } else if (value instanceof Number) {
+            return isIntegral(value) ? Math.abs(((Number) value).intValue()) : Math.abs(((Number) value).doubleValue());
+        }
+        throw new ConditionEvaluationException("Not a number " + value);
+    }
+}
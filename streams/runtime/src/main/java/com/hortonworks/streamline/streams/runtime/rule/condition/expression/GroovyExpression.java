@@ -17,6 +17,7 @@
 
 package com.hortonworks.streamline.streams.runtime.rule.condition.expression;
 
+import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.Condition;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.ExpressionTranslator;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
@@ -24,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents the expression of this {@link Condition} in Groovy language syntax
@@ -46,6 +48,15 @@ public class GroovyExpression extends ExpressionRuntime {
         return expression;
     }
 
+    /**
+     * @return the fields referenced by this {@link Condition}
+     */
+    public List<Schema.Field> getFields() {
+        GroovyExpressionTranslator expressionTranslator = new GroovyExpressionTranslator();
+        condition.getExpression().accept(expressionTranslator);
+        return expressionTranslator.getFields();
+    }
+
     private static class GroovyExpressionTranslator extends ExpressionTranslator {
         protected String getOperator(Operator operator) {
             switch (operator) {
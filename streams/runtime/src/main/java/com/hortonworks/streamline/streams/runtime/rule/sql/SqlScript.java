@@ -21,7 +21,8 @@ import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.streams.StreamlineEvent;
-import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
 import com.hortonworks.streamline.streams.layout.component.rule.exception.ConditionEvaluationException;
 import com.hortonworks.streamline.streams.runtime.rule.condition.expression.ExpressionRuntime;
 import com.hortonworks.streamline.streams.runtime.rule.condition.expression.StormSqlExpression;
@@ -35,9 +36,7 @@ import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import static com.hortonworks.streamline.streams.common.StreamlineEventImpl.GROUP_BY_TRIGGER_EVENT;
 import static com.hortonworks.streamline.streams.runtime.rule.condition.expression.StormSqlExpression.RULE_SCHEMA;
@@ -149,9 +148,14 @@ public class SqlScript extends Script<StreamlineEvent, Collection<StreamlineEven
 
     public static class ValuesToStreamlineEventConverter implements ValuesConverter<StreamlineEvent> {
         private final List<String> outputFields;
+        private final StreamlineEventLayout layout;
+        // the slot of each output field, the fields projected more than once keep the last value
+        private final int[] slots;
 
         public ValuesToStreamlineEventConverter(List<String> projectedFields) {
             this.outputFields = projectedFields;
+            this.layout = projectedFields != null ? StreamlineEventLayout.ofDistinct(projectedFields) : null;
+            this.slots = layout != null ? layout.indexesOf(projectedFields) : null;
         }
 
         @Override
@@ -160,15 +164,15 @@ public class SqlScript extends Script<StreamlineEvent, Collection<StreamlineEven
             if (input == null) {
                 result = null;
             } else if (outputFields != null && !outputFields.isEmpty()) {
-                Map<String, Object> fieldsAndValues = new HashMap<>();
-                for (int i = 0; i < outputFields.size(); i++) {
-                    fieldsAndValues.put(outputFields.get(i), input.get(i));
+                Object[] values = new Object[layout.size()];
+                for (int i = 0; i < slots.length; i++) {
+                    values[slots[i]] = input.get(i);
                 }
                 if (inputEvent != null) {
-                    result = new StreamlineEventImpl(fieldsAndValues, inputEvent.getDataSourceId(), inputEvent.getId(),
+                    result = new IndexedStreamlineEvent(layout, values, inputEvent.getDataSourceId(), inputEvent.getId(),
                                                 inputEvent.getHeader(), inputEvent.getSourceStream());
                 } else {
-                    result = new StreamlineEventImpl(fieldsAndValues, "");
+                    result = new IndexedStreamlineEvent(layout, values, "");
                 }
             } else {
                 result = inputEvent;
@@ -13,43 +13,71 @@
   * See the License for the specific language governing permissions and
   * limitations under the License.
  **/
-
-
 package com.hortonworks.streamline.streams.runtime.script;
 
+import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
-import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Evaluates the {@link Expression} for each {@code Input} using the provided Groovy Engine
+ * <p>
+ * The expression is compiled once per process (see {@link GroovyScriptCache}) and each thread evaluates it with its own
+ * script instance and a reusable binding that reads the variables straight from the event.
+ * </p>
+ * <p>
+ * When the types of the fields are known, the expression can be compiled with {@code @CompileStatic} semantics. The
+ * referenced fields are then declared as typed local variables read from the event at the beginning of each evaluation,
+ * hence a referenced field missing from the event fails the evaluation with {@link groovy.lang.MissingPropertyException}
+ * even if the expression would not have needed its value. Expressions that can not be statically compiled fall back
+ * to the dynamic mode.
+ * </p>
  *
  * @param <O> Type of output returned after the script is evaluated with {@link GroovyScript#evaluate(StreamlineEvent)}.
  */
 public class GroovyScript<O> extends Script<StreamlineEvent, O, javax.script.ScriptEngine> {
     private static final Logger LOG = LoggerFactory.getLogger(GroovyScript.class);
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
 
-    // instance of parsed Script is not thread-safe so we want to store parsed script per each thread
+    // instance of Script is not thread-safe so we want to store a script instance per each thread
     // transient to avoid NotSerializableException
     // volatile to safe lazy-init via Double Checking Lock
     private transient volatile ThreadLocal<groovy.lang.Script> parsedScript;
     private final Map<String, Object> initialBindings;
+    // script text compiled with @CompileStatic, null if the expression is evaluated dynamically
+    private final String staticScript;
 
     public GroovyScript(String expression, com.hortonworks.streamline.streams.runtime.script.engine.ScriptEngine<ScriptEngine> scriptEngine) {
         this(expression, scriptEngine, Collections.<String, Object>emptyMap());
     }
 
     public GroovyScript(String expression, com.hortonworks.streamline.streams.runtime.script.engine.ScriptEngine<ScriptEngine> scriptEngine, Map<String, Object> initialBindings) {
+        this(expression, scriptEngine, initialBindings, null);
+    }
+
+    /**
+     * Creates a script that is statically compiled against the types of the given fields.
+     *
+     * @param typedFields the fields, with their types, that can be referenced by the expression. Dynamic compilation
+     *                    is used if it is null or empty.
+     */
+    public GroovyScript(String expression, com.hortonworks.streamline.streams.runtime.script.engine.ScriptEngine<ScriptEngine> scriptEngine,
+                        Map<String, Object> initialBindings, Collection<Schema.Field> typedFields) {
         super(expression, scriptEngine);
         this.initialBindings = initialBindings;
+        this.staticScript = typedFields == null || typedFields.isEmpty() ? null : createStaticScript(expression, typedFields);
     }
 
     @Override
@@ -59,9 +87,9 @@ public class GroovyScript<O> extends Script<StreamlineEvent, O, javax.script.Scr
         O evaluatedResult = null;
 
         if (event != null) {
+            StreamlineEventBinding binding = (StreamlineEventBinding) parsedScript.getBinding();
             try {
-                Binding binding = createBinding(event);
-                parsedScript.setBinding(binding);
+                binding.bind(event);
                 LOG.debug("Set script binding to [{}]", event);
 
                 evaluatedResult = (O) parsedScript.run();
@@ -70,37 +98,67 @@ public class GroovyScript<O> extends Script<StreamlineEvent, O, javax.script.Scr
             } catch (groovy.lang.MissingPropertyException e) {
                 LOG.debug("Missing property: Expression [{}] params [{}]", expression, event);
                 throw new ScriptException(e);
+            } catch (ClassCastException e) {
+                // field value not matching the declared type of a statically compiled script
+                LOG.debug("Invalid field type: Expression [{}] params [{}]", expression, event);
+                throw new ScriptException(e);
+            } finally {
+                binding.unbind();
             }
         }
         return evaluatedResult;
     }
 
-    private Binding createBinding(Map<String, Object> fieldsToValues) {
-        Binding binding = new Binding();
-        addToBinding(initialBindings, binding);
-        addToBinding(fieldsToValues, binding);
-
-        return binding;
+    private groovy.lang.Script getParsedScript() {
+        ThreadLocal<groovy.lang.Script> scripts = parsedScript;
+        if (scripts == null) {
+            synchronized (this) {
+                scripts = parsedScript;
+                if (scripts == null) {
+                    final Class<? extends groovy.lang.Script> scriptClass = getScriptClass();
+                    scripts = new ThreadLocal<groovy.lang.Script>() {
+                        @Override
+                        protected groovy.lang.Script initialValue() {
+                            return InvokerHelper.createScript(scriptClass, new StreamlineEventBinding(initialBindings));
+                        }
+                    };
+                    parsedScript = scripts;
+                }
+            }
+        }
+        return scripts.get();
     }
 
-    private void addToBinding(Map<String, Object> fieldsToValues, Binding binding) {
-        for (Map.Entry<String, Object> entry : fieldsToValues.entrySet()) {
-            binding.setProperty(entry.getKey(), entry.getValue());
+    private Class<? extends groovy.lang.Script> getScriptClass() {
+        if (staticScript != null) {
+            try {
+                return GroovyScriptCache.getScriptClass(staticScript, true);
+            } catch (CompilationFailedException e) {
+                LOG.warn("Expression [{}] can not be statically compiled, falling back to dynamic compilation. {}",
+                        expression, e.getMessage());
+            }
         }
+        return GroovyScriptCache.getScriptClass(expression, false);
     }
 
-    private groovy.lang.Script getParsedScript() {
-        if (parsedScript == null) {
-            synchronized (this) {
-                parsedScript = new ThreadLocal<groovy.lang.Script>() {
-                    @Override
-                    protected groovy.lang.Script initialValue() {
-                        return new GroovyShell().parse(expression);
-                    }
-                };
+    /**
+     * Prepends the declarations of the typed local variables for the fields referenced by the expression.
+     */
+    private static String createStaticScript(String expression, Collection<Schema.Field> typedFields) {
+        Map<String, Schema.Field> referencedFields = new LinkedHashMap<>();
+        for (Schema.Field field : typedFields) {
+            String name = field.getName();
+            if (IDENTIFIER.matcher(name).matches()
+                    && Pattern.compile("(?<![\\w$.'\"])" + Pattern.quote(name) + "(?![\\w$'\"])").matcher(expression).find()) {
+                referencedFields.put(name, field);
             }
         }
-        return parsedScript.get();
+        StringBuilder script = new StringBuilder();
+        for (Schema.Field field : referencedFields.values()) {
+            String type = field.getType().getJavaType().getCanonicalName();
+            script.append(type).append(' ').append(field.getName())
+                    .append(" = (").append(type).append(") this.binding.getVariable('").append(field.getName()).append("');\n");
+        }
+        return script.append(expression).toString();
     }
-
 }
@@ -0,0 +1,88 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.script;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
+import groovy.transform.CompileStatic;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the compiled Groovy script classes keyed by the script text, so that an expression is
+ * compiled only once irrespective of the number of {@link GroovyScript} instances and threads evaluating it.
+ */
+final class GroovyScriptCache {
+    private static final Logger LOG = LoggerFactory.getLogger(GroovyScriptCache.class);
+    private static final String CODE_BASE = "/groovy/script";
+
+    private static final AtomicLong SCRIPT_COUNTER = new AtomicLong();
+    private static final ConcurrentMap<String, Class<? extends groovy.lang.Script>> DYNAMIC_SCRIPTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Class<? extends groovy.lang.Script>> STATIC_SCRIPTS = new ConcurrentHashMap<>();
+    private static final GroovyClassLoader DYNAMIC_CLASS_LOADER = createClassLoader(new CompilerConfiguration());
+    private static final GroovyClassLoader STATIC_CLASS_LOADER = createClassLoader(createStaticConfiguration());
+
+    private GroovyScriptCache() {
+    }
+
+    /**
+     * Returns the script class for the given script text, compiling it the first time it is requested.
+     *
+     * @param scriptText    the groovy script
+     * @param compileStatic whether the script should be compiled with {@link CompileStatic} semantics
+     * @throws org.codehaus.groovy.control.CompilationFailedException if the script can not be compiled
+     */
+    static Class<? extends groovy.lang.Script> getScriptClass(String scriptText, boolean compileStatic) {
+        ConcurrentMap<String, Class<? extends groovy.lang.Script>> scripts = compileStatic ? STATIC_SCRIPTS : DYNAMIC_SCRIPTS;
+        Class<? extends groovy.lang.Script> scriptClass = scripts.get(scriptText);
+        if (scriptClass == null) {
+            GroovyClassLoader classLoader = compileStatic ? STATIC_CLASS_LOADER : DYNAMIC_CLASS_LOADER;
+            scriptClass = scripts.computeIfAbsent(scriptText, text -> compile(classLoader, text));
+        }
+        return scriptClass;
+    }
+
+    static int size() {
+        return DYNAMIC_SCRIPTS.size() + STATIC_SCRIPTS.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends groovy.lang.Script> compile(GroovyClassLoader classLoader, String scriptText) {
+        String name = "StreamlineScript" + SCRIPT_COUNTER.incrementAndGet() + ".groovy";
+        LOG.debug("Compiling script [{}] as [{}]", scriptText, name);
+        Class<?> scriptClass = classLoader.parseClass(new GroovyCodeSource(scriptText, name, CODE_BASE), false);
+        if (!groovy.lang.Script.class.isAssignableFrom(scriptClass)) {
+            throw new IllegalArgumentException("Not a groovy script: " + scriptText);
+        }
+        return (Class<? extends groovy.lang.Script>) scriptClass;
+    }
+
+    private static CompilerConfiguration createStaticConfiguration() {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+        return configuration;
+    }
+
+    private static GroovyClassLoader createClassLoader(CompilerConfiguration configuration) {
+        return new GroovyClassLoader(GroovyScriptCache.class.getClassLoader(), configuration);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.script;
+
+import groovy.lang.Binding;
+import groovy.lang.MissingPropertyException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Binding} that resolves the script variables directly from the {@link com.hortonworks.streamline.streams.StreamlineEvent}
+ * being evaluated instead of copying its fields, so that a single instance can be reused by a thread across evaluations.
+ * <p>
+ * Variables are looked up in the variables assigned by the script during the current evaluation, then in the event
+ * and finally in the initial bindings. A name not found in any of them results in {@link MissingPropertyException},
+ * the same way as with a plain {@link Binding}.
+ * </p>
+ */
+class StreamlineEventBinding extends Binding {
+    private final Map<String, Object> initialBindings;
+    private Map<String, Object> fieldsAndValues;
+    private Map<String, Object> assigned;
+
+    StreamlineEventBinding(Map<String, Object> initialBindings) {
+        this.initialBindings = initialBindings;
+    }
+
+    void bind(Map<String, Object> fieldsAndValues) {
+        this.fieldsAndValues = fieldsAndValues;
+    }
+
+    void unbind() {
+        fieldsAndValues = null;
+        if (assigned != null) {
+            assigned.clear();
+        }
+    }
+
+    @Override
+    public Object getVariable(String name) {
+        if (assigned != null && !assigned.isEmpty()) {
+            Object value = assigned.get(name);
+            if (value != null || assigned.containsKey(name)) {
+                return value;
+            }
+        }
+        if (fieldsAndValues != null) {
+            Object value = fieldsAndValues.get(name);
+            if (value != null || fieldsAndValues.containsKey(name)) {
+                return value;
+            }
+        }
+        Object value = initialBindings.get(name);
+        if (value != null || initialBindings.containsKey(name)) {
+            return value;
+        }
+        throw new MissingPropertyException(name, getClass());
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+        if (assigned == null) {
+            assigned = new HashMap<>();
+        }
+        assigned.put(name, value);
+    }
+
+    @Override
+    public boolean hasVariable(String name) {
+        return (assigned != null && assigned.containsKey(name))
+                || (fieldsAndValues != null && fieldsAndValues.containsKey(name))
+                || initialBindings.containsKey(name);
+    }
+
+    @Override
+    public Map getVariables() {
+        Map<String, Object> variables = new HashMap<>(initialBindings);
+        if (fieldsAndValues != null) {
+            variables.putAll(fieldsAndValues);
+        }
+        if (assigned != null) {
+            variables.putAll(assigned);
+        }
+        return variables;
+    }
+}
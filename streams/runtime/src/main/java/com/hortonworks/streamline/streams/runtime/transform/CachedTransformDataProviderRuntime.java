@@ -19,22 +19,68 @@ package com.hortonworks.streamline.streams.runtime.transform;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class creates a loadable cache for given backing {@link TransformDataProviderRuntime} with caching configuration like maximum size, expiration interval
  * and refresh interval.
+ * <p>
+ * Lookups never load on the calling thread. Missing keys are queued and loaded in the background with
+ * {@link TransformDataProviderRuntime#getAll(Collection)}. The load of a miss starts right away when no load is in
+ * progress, the keys missed while a load is in progress are loaded together once it completes, in batches of at most
+ * {@link #DEFAULT_MAX_BATCH_SIZE} keys. Concurrent misses of the same key share a single load, and keys without value in
+ * the backing data provider are cached as absent. Entries are refreshed in the background as well.
+ * <p>
+ * Callers wait for the loads of their missing keys until they complete, unless a lookup timeout is given. Waiting is the
+ * default so that every event is enriched, as when the lookups were made on the calling thread. With a timeout a slow
+ * backing data provider no longer stalls the callers, but the keys not loaded in time are returned without value: they
+ * are counted in {@link #getTimedOutKeyCount()} and logged, and are served once their load completes.
  */
 public class CachedTransformDataProviderRuntime implements TransformDataProviderRuntime {
+    private static final Logger log = LoggerFactory.getLogger(CachedTransformDataProviderRuntime.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    // cached for the keys without value, Guava caches do not hold nulls
+    private static final Object ABSENT = new Object();
 
     private final TransformDataProviderRuntime backedTransformDataProviderRuntime;
     private final long maxCacheSize;
     private final long entryExpirationInterval;
     private final long refreshInterval;
+    private final long lookupTimeoutMs;
+
+    private final LongAdder timedOutKeys = new LongAdder();
+    private final ConcurrentMap<Object, SettableFuture<Object>> pendingLoads = new ConcurrentHashMap<>();
+    private final Queue<Object> pendingKeys = new ConcurrentLinkedQueue<>();
+    // set while a load of the pending keys is submitted or running
+    private final AtomicBoolean loading = new AtomicBoolean();
 
     private LoadingCache<Object, Object> loadingCache;
+    private ExecutorService loaderExecutor;
 
     /**
      * Creates CachedDataProvider.
@@ -43,17 +89,23 @@ public class CachedTransformDataProviderRuntime implements TransformDataProvider
      * @param maxCacheSize maximum cache size
      * @param entryExpirationInterval expiration interval in seconds for each entry
      * @param entryRefreshInterval refresh interval in seconds for an entry
+     * @param lookupTimeoutMs maximum time in milliseconds a lookup waits for the keys missing in the cache, 0 to wait
+     *                        until they are loaded
      */
-    public CachedTransformDataProviderRuntime(TransformDataProviderRuntime backedTransformDataProviderRuntime, long maxCacheSize, long entryExpirationInterval, long entryRefreshInterval) {
+    public CachedTransformDataProviderRuntime(TransformDataProviderRuntime backedTransformDataProviderRuntime, long maxCacheSize,
+                                              long entryExpirationInterval, long entryRefreshInterval, long lookupTimeoutMs) {
         this.backedTransformDataProviderRuntime = backedTransformDataProviderRuntime;
         this.maxCacheSize = maxCacheSize;
         this.entryExpirationInterval = entryExpirationInterval;
         this.refreshInterval = entryRefreshInterval;
+        this.lookupTimeoutMs = lookupTimeoutMs;
     }
 
     @Override
     public void prepare() {
         backedTransformDataProviderRuntime.prepare();
+        loaderExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("transform-data-loader-%d").setDaemon(true).build());
         loadingCache =
                 CacheBuilder.newBuilder()
                         .maximumSize(maxCacheSize)
@@ -62,7 +114,15 @@ public class CachedTransformDataProviderRuntime implements TransformDataProvider
                         .build(new CacheLoader<Object, Object>() {
                             @Override
                             public Object load(Object key) throws Exception {
-                                return backedTransformDataProviderRuntime.get(key);
+                                final Object value = backedTransformDataProviderRuntime.get(key);
+                                return value != null ? value : ABSENT;
+                            }
+
+                            @Override
+                            public ListenableFuture<Object> reload(Object key, Object oldValue) {
+                                final ListenableFuture<Object> load = submitLoad(key);
+                                startLoading();
+                                return load;
                             }
                         });
 
@@ -70,17 +130,146 @@ public class CachedTransformDataProviderRuntime implements TransformDataProvider
 
     @Override
     public Object get(Object key) {
-        try {
-            return loadingCache.get(key);
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+        return getAll(Collections.singletonList(key)).get(key);
+    }
+
+    /**
+     * Returns the values of the given keys, waiting for the keys missing in the cache at most the lookup timeout if
+     * any. Keys without value, or whose load did not complete in time, are left out of the returned map.
+     */
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        final Map<Object, Object> values = new HashMap<>();
+        final Map<Object, ListenableFuture<Object>> loads = new HashMap<>();
+        for (Object key : keys) {
+            final Object value = loadingCache.getIfPresent(key);    // also schedules the refresh of stale entries
+            if (value == null) {
+                loads.put(key, submitLoad(key));
+            } else if (value != ABSENT) {
+                values.put(key, value);
+            }
         }
+        if (!loads.isEmpty()) {
+            startLoading();
+            awaitLoads(loads.values());
+            int timedOut = 0;
+            for (Map.Entry<Object, ListenableFuture<Object>> load : loads.entrySet()) {
+                if (!load.getValue().isDone()) {
+                    timedOut++;
+                    continue;
+                }
+                final Object value = getLoaded(load.getKey(), load.getValue());
+                if (value != null && value != ABSENT) {
+                    values.put(load.getKey(), value);
+                }
+            }
+            if (timedOut > 0) {
+                timedOutKeys.add(timedOut);
+                log.warn("[{}] of [{}] keys not loaded within [{}] ms are returned without value, [{}] keys so far",
+                        timedOut, keys.size(), lookupTimeoutMs, timedOutKeys.sum());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of keys returned without value because their load did not complete within the lookup timeout
+     */
+    public long getTimedOutKeyCount() {
+        return timedOutKeys.sum();
     }
 
     @Override
     public void cleanup() {
+        loaderExecutor.shutdownNow();
         loadingCache.cleanUp();
         backedTransformDataProviderRuntime.cleanup();
     }
 
+    // =========== Private helper methods ===========
+
+    // coalesces the loads of the same key, only the first caller queues the key
+    private ListenableFuture<Object> submitLoad(Object key) {
+        final SettableFuture<Object> load = SettableFuture.create();
+        final SettableFuture<Object> pendingLoad = pendingLoads.putIfAbsent(key, load);
+        if (pendingLoad != null) {
+            return pendingLoad;
+        }
+        pendingKeys.add(key);
+        return load;
+    }
+
+    // the keys queued while a load is in progress are picked up by that load once it completes
+    private void startLoading() {
+        if (loading.compareAndSet(false, true)) {
+            loaderExecutor.execute(this::loadPendingKeys);
+        }
+    }
+
+    private void awaitLoads(Collection<ListenableFuture<Object>> loads) {
+        try {
+            if (lookupTimeoutMs > 0) {
+                Futures.successfulAsList(loads).get(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+            } else {
+                Futures.successfulAsList(loads).get();
+            }
+        } catch (TimeoutException e) {
+            // the keys still loading are counted by the caller
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);  // never thrown by successfulAsList
+        }
+    }
+
+    private Object getLoaded(Object key, ListenableFuture<Object> load) {
+        try {
+            return load.get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.warn("Failed to load key [{}]", key, e);
+            return null;
+        }
+    }
+
+    // runs on the loader thread only
+    private void loadPendingKeys() {
+        do {
+            List<Object> keys = new ArrayList<>();
+            Object key;
+            while ((key = pendingKeys.poll()) != null) {
+                keys.add(key);
+                if (keys.size() == DEFAULT_MAX_BATCH_SIZE) {
+                    loadBatch(keys);
+                    keys = new ArrayList<>();
+                }
+            }
+            if (!keys.isEmpty()) {
+                loadBatch(keys);
+            }
+            loading.set(false);
+            // a key queued after the queue was drained, but before the flag was cleared, did not start a load
+        } while (!pendingKeys.isEmpty() && loading.compareAndSet(false, true));
+    }
+
+    private void loadBatch(List<Object> keys) {
+        try {
+            final Map<Object, Object> values = backedTransformDataProviderRuntime.getAll(keys);
+            log.debug("Loaded [{}] values of [{}] keys", values.size(), keys.size());
+            for (Object key : keys) {
+                final Object value = values.get(key);
+                final Object cachedValue = value != null ? value : ABSENT;
+                loadingCache.put(key, cachedValue);
+                pendingLoads.remove(key).set(cachedValue);
+            }
+        } catch (Exception e) {     // must not escape, the keys queued meanwhile would not be loaded
+            log.error("Failed to load [{}] keys from [{}]", keys.size(), backedTransformDataProviderRuntime, e);
+            for (Object key : keys) {
+                final SettableFuture<Object> load = pendingLoads.remove(key);
+                if (load != null) {
+                    load.setException(e);
+                }
+            }
+        }
+    }
+
 }
@@ -25,10 +25,13 @@ import com.hortonworks.streamline.streams.runtime.TransformRuntime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Enrichment adds an extra enriched message of original message's fields.
@@ -45,31 +48,61 @@ public class EnrichmentTransformRuntime implements TransformRuntime {
         final TransformDataProvider transformDataProvider = enrichmentTransform.getTransformDataProvider();
 
         cachedDataProvider = new CachedTransformDataProviderRuntime(TransformDataProviderRuntimeService.get().get(transformDataProvider), enrichmentTransform.getMaxCacheSize(),
-                enrichmentTransform.getEntryExpirationInterval(), enrichmentTransform.getEntryRefreshInterval());
+                enrichmentTransform.getEntryExpirationInterval(), enrichmentTransform.getEntryRefreshInterval(), enrichmentTransform.getLookupTimeout());
         cachedDataProvider.prepare();
     }
 
     @Override
     public List<StreamlineEvent> execute(StreamlineEvent event) {
+        enrich(Collections.singletonList(event));
+        return Collections.singletonList(event);
+    }
+
+    /**
+     * Looks up the values of all the events of the batch at once.
+     */
+    @Override
+    public List<List<StreamlineEvent>> executeBatch(List<StreamlineEvent> inputs) {
+        enrich(inputs);
+        List<List<StreamlineEvent>> results = new ArrayList<>(inputs.size());
+        for (StreamlineEvent input : inputs) {
+            results.add(Collections.singletonList(input));
+        }
+        return results;
+    }
+
+    private void enrich(List<StreamlineEvent> events) {
         List<String> fieldsToBeEnriched = enrichmentTransform.getFieldsToBeEnriched();
-        Map<String, Object> auxiliaryFieldsAndValues = event.getAuxiliaryFieldsAndValues();
-        Map<String, Object> enrichments = (Map<String, Object>) auxiliaryFieldsAndValues.get(EnrichmentTransform.ENRICHMENTS_FIELD_NAME);
-        if (enrichments == null) {
-            enrichments = new HashMap<>();
-            event.addAuxiliaryFieldAndValue(EnrichmentTransform.ENRICHMENTS_FIELD_NAME, enrichments);
+        Set<Object> values = new HashSet<>();
+        for (StreamlineEvent event : events) {
+            for (String fieldName : fieldsToBeEnriched) {
+                Object value = event.get(fieldName);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
         }
+        Map<Object, Object> enrichedValues = values.isEmpty() ? Collections.emptyMap() : cachedDataProvider.getAll(values);
 
-        for (String fieldName : fieldsToBeEnriched) {
-            Object value = event.get(fieldName);
-            if (value != null) {
-                Object enrichedValue = cachedDataProvider.get(value);
-                log.debug("Enriched value [{}] for key [{}] with value [{}]", enrichedValue, fieldName, value);
-                enrichments.put(fieldName, enrichedValue);
-            } else {
-                log.warn("Value in input event for key [{}] is null", fieldName);
+        for (StreamlineEvent event : events) {
+            Map<String, Object> auxiliaryFieldsAndValues = event.getAuxiliaryFieldsAndValues();
+            Map<String, Object> enrichments = (Map<String, Object>) auxiliaryFieldsAndValues.get(EnrichmentTransform.ENRICHMENTS_FIELD_NAME);
+            if (enrichments == null) {
+                enrichments = new HashMap<>();
+                event.addAuxiliaryFieldAndValue(EnrichmentTransform.ENRICHMENTS_FIELD_NAME, enrichments);
+            }
+
+            for (String fieldName : fieldsToBeEnriched) {
+                Object value = event.get(fieldName);
+                if (value != null) {
+                    Object enrichedValue = enrichedValues.get(value);
+                    log.debug("Enriched value [{}] for key [{}] with value [{}]", enrichedValue, fieldName, value);
+                    enrichments.put(fieldName, enrichedValue);
+                } else {
+                    log.warn("Value in input event for key [{}] is null", fieldName);
+                }
             }
         }
-        return Collections.singletonList(event);
     }
 
     public static class Factory implements RuntimeService.Factory<TransformRuntime, Transform> {
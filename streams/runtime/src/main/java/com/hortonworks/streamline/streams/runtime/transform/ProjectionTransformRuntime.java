@@ -17,22 +17,23 @@
 package com.hortonworks.streamline.streams.runtime.transform;
 
 import com.hortonworks.streamline.streams.StreamlineEvent;
-import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.common.IndexedStreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventLayout;
 import com.hortonworks.streamline.streams.layout.Transform;
 import com.hortonworks.streamline.streams.layout.component.rule.action.transform.ProjectionTransform;
 import com.hortonworks.streamline.streams.runtime.RuntimeService;
 import com.hortonworks.streamline.streams.runtime.TransformRuntime;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Project given fields from the input StreamlineEvent.
  */
 public class ProjectionTransformRuntime implements TransformRuntime {
     private final ProjectionTransform projectionTransform;
+    private final StreamlineEventLayout layout;
 
     /**
      * Selects the fields from the event matching the input fields.
@@ -41,6 +42,7 @@ public class ProjectionTransformRuntime implements TransformRuntime {
      */
     public ProjectionTransformRuntime(ProjectionTransform projectionTransform) {
         this.projectionTransform = projectionTransform;
+        this.layout = StreamlineEventLayout.of(new ArrayList<>(projectionTransform.getProjectionFields()));
     }
 
     @Override
@@ -49,11 +51,11 @@ public class ProjectionTransformRuntime implements TransformRuntime {
     }
 
     private List<StreamlineEvent> doTransform(StreamlineEvent input) {
-        Map<String, Object> result = new HashMap<>();
-        for (String field : projectionTransform.getProjectionFields()) {
-            result.put(field, input.get(field));
+        Object[] values = new Object[layout.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.get(layout.fieldName(i));
         }
-        return Collections.<StreamlineEvent>singletonList(new StreamlineEventImpl(result, input.getDataSourceId()));
+        return Collections.<StreamlineEvent>singletonList(new IndexedStreamlineEvent(layout, values, input.getDataSourceId()));
     }
 
     @Override
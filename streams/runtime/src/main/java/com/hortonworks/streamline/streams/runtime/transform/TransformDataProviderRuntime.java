@@ -18,6 +18,10 @@ package com.hortonworks.streamline.streams.runtime.transform;
 
 import com.hortonworks.streamline.streams.layout.Transform;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Data provider for {@link Transform} which can be used for lookups.
  */
@@ -35,6 +39,23 @@ public interface TransformDataProviderRuntime {
      */
     Object get(Object key);
 
+    /**
+     * Retrieves the values of the given keys from a data store. Keys without value are left out of the returned map.
+     * Data providers backed by a remote store should override this to look up all the keys at once.
+     *
+     * @param keys
+     */
+    default Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        for (Object key : keys) {
+            Object value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * cleanup any resources held by this instance.
      */
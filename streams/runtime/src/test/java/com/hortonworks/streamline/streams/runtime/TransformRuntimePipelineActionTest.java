@@ -94,4 +94,41 @@ public class TransformRuntimePipelineActionTest {
         assertEquals("one plus one", resultEvents.get(0).get("2"));
         assertEquals("one plus one plus one plus one", resultEvents.get(0).get("4"));
     }
+
+    @Test
+    public void testMergeSubstituteProjectBatch() throws Exception {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("2", "TWO");
+        defaults.put("3", "THREE");
+        defaults.put("4", "${2} plus ${2}");
+
+        List<StreamlineEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> fieldsAndValues = new HashMap<>();
+            fieldsAndValues.put("1", "one" + i);
+            if (i != 1) {
+                fieldsAndValues.put("2", "${1} plus ${1}");
+            }
+            events.add(new StreamlineEventImpl(fieldsAndValues, "dsrcid"));
+        }
+        MergeTransform merge = new MergeTransform(defaults);
+        SubstituteTransform substitute = new SubstituteTransform();
+        ProjectionTransform projection = new ProjectionTransform("test-projection", defaults.keySet());
+        TransformAction transformAction = new TransformAction(ImmutableList.of(merge, substitute, projection));
+        transformAction.setOutputStreams(ImmutableSet.of("streamid"));
+        ActionRuntime actionRuntime = new TransformActionRuntime(transformAction);
+
+        List<List<Result>> batchResults = actionRuntime.executeBatch(events);
+        assertEquals(events.size(), batchResults.size());
+        for (int i = 0; i < events.size(); i++) {
+            List<Result> results = actionRuntime.execute(events.get(i));
+            assertEquals(1, batchResults.get(i).size());
+            assertEquals(results.get(0).stream, batchResults.get(i).get(0).stream);
+            assertEquals(results.get(0).events.size(), batchResults.get(i).get(0).events.size());
+            assertEquals(results.get(0).events.get(0).get("4"), batchResults.get(i).get(0).events.get(0).get("4"));
+        }
+        assertEquals("one0 plus one0 plus one0 plus one0", batchResults.get(0).get(0).events.get(0).get("4"));
+        assertEquals("TWO plus TWO", batchResults.get(1).get(0).events.get(0).get("4"));
+        assertEquals("one2 plus one2 plus one2 plus one2", batchResults.get(2).get(0).events.get(0).get("4"));
+    }
 }
\ No newline at end of file
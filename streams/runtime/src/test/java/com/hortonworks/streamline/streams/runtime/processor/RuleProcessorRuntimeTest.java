@@ -17,6 +17,7 @@ package com.hortonworks.streamline.streams.runtime.processor;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.hortonworks.streamline.streams.Result;
 import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.exception.ProcessingException;
 import com.hortonworks.streamline.streams.layout.component.impl.RulesProcessor;
@@ -31,6 +32,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 
 /**
  * Unit tests for {@link RuleProcessorRuntime}
@@ -133,6 +137,35 @@ public class RuleProcessorRuntimeTest {
         }};
     }
 
+    @Test
+    public void testProcessBatch() throws Exception {
+        final Result result1 = new Result("out1", Collections.singletonList(event1));
+        final Result result2 = new Result("out2", Collections.singletonList(event2));
+        new Expectations() {{
+            mockRr1.evaluate(event1);
+            result = Collections.singletonList(event1);
+            mockRr2.evaluate(event2);
+            result = Collections.singletonList(event2);
+            mockRr1.processBatch(ImmutableList.of(event1));
+            result = Collections.singletonList(Collections.singletonList(result1));
+            mockRr2.processBatch(ImmutableList.of(event2));
+            result = Collections.singletonList(Collections.singletonList(result2));
+        }};
+        RuleProcessorRuntime rpr = new RuleProcessorRuntime(mockRulesProcessor, RuleProcessorRuntime.ScriptType.SQL);
+        rpr.initializeWithRuleRuntimesForTesting(Collections.emptyMap(), ImmutableList.of(mockRr1, mockRr2));
+        List<List<Result>> results = rpr.processBatch(ImmutableList.of(event1, event2, event3));
+        assertEquals(ImmutableList.of(ImmutableList.of(result1), ImmutableList.of(result2), ImmutableList.of()), results);
+        new Verifications() {{
+            // rule1 matched event1, processAll is not set so rule2 is not evaluated for it
+            mockRr2.evaluate(event1);
+            times=0;
+            mockRr1.process(withAny(event1));
+            times=0;
+            mockRr2.process(withAny(event1));
+            times=0;
+        }};
+    }
+
     @Test(expected = ProcessingException.class)
     public void testEventWithEmptyStream() throws Exception {
         RuleProcessorRuntime rpr = new RuleProcessorRuntime(mockRulesProcessor, RuleProcessorRuntime.ScriptType.SQL);
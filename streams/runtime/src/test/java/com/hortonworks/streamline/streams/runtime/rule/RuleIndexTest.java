@@ -0,0 +1,142 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.action.Action;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Condition;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Literal;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
+import com.hortonworks.streamline.streams.runtime.rule.action.ActionRuntime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class RuleIndexTest {
+    private static final FieldExpression DEVICE_TYPE = new FieldExpression(Schema.Field.of("deviceType", Schema.Type.STRING));
+    private static final FieldExpression TEMPERATURE = new FieldExpression(Schema.Field.of("temperature", Schema.Type.INTEGER));
+
+    @Test
+    public void testCandidates() throws Exception {
+        List<RuleRuntime> ruleRuntimes = new ArrayList<>();
+        // deviceType = 'thermostat' AND temperature > 100
+        ruleRuntimes.add(createRuleRuntime(1L, and(equalTo(DEVICE_TYPE, "'thermostat'"), compare(Operator.GREATER_THAN, TEMPERATURE, "100"))));
+        // deviceType = 'sensor' AND temperature > 50
+        ruleRuntimes.add(createRuleRuntime(2L, and(equalTo(DEVICE_TYPE, "'sensor'"), compare(Operator.GREATER_THAN, TEMPERATURE, "50"))));
+        // temperature > 200
+        ruleRuntimes.add(createRuleRuntime(3L, compare(Operator.GREATER_THAN, TEMPERATURE, "200")));
+        // 10 >= temperature
+        ruleRuntimes.add(createRuleRuntime(4L, compare(Operator.GREATER_THAN_EQUALS_TO, new Literal("10"), TEMPERATURE)));
+        // deviceType = 'sensor' OR temperature = 0, not indexed
+        ruleRuntimes.add(createRuleRuntime(5L, new BinaryExpression(Operator.OR, equalTo(DEVICE_TYPE, "'sensor'"),
+                                                                    compare(Operator.EQUALS, TEMPERATURE, "0"))));
+        // temperature = 150.0
+        ruleRuntimes.add(createRuleRuntime(6L, compare(Operator.EQUALS, TEMPERATURE, "150.0")));
+        RuleIndex ruleIndex = new RuleIndex(ruleRuntimes);
+
+        assertEquals(ruleIds(1L, 5L, 6L), ruleIds(ruleIndex.getCandidates(createEvent("thermostat", 150))));
+        assertEquals(ruleIds(2L, 3L, 5L), ruleIds(ruleIndex.getCandidates(createEvent("sensor", 250L))));
+        assertEquals(ruleIds(4L, 5L), ruleIds(ruleIndex.getCandidates(createEvent("other", 10))));
+        assertEquals(ruleIds(3L, 5L), ruleIds(ruleIndex.getCandidates(createEvent("other", 200.0))));
+        // missing field, all the rules indexed on it are candidates
+        assertEquals(ruleIds(1L, 2L, 4L, 5L), ruleIds(ruleIndex.getCandidates(createEvent(null, 0))));
+    }
+
+    @Test
+    public void testNaNValue() throws Exception {
+        List<RuleRuntime> ruleRuntimes = new ArrayList<>();
+        ruleRuntimes.add(createRuleRuntime(1L, compare(Operator.GREATER_THAN, TEMPERATURE, "100")));
+        ruleRuntimes.add(createRuleRuntime(2L, compare(Operator.GREATER_THAN_EQUALS_TO, new Literal("10"), TEMPERATURE)));
+        ruleRuntimes.add(createRuleRuntime(3L, compare(Operator.EQUALS, TEMPERATURE, "150.0")));
+        ruleRuntimes.add(createRuleRuntime(4L, equalTo(DEVICE_TYPE, "'sensor'")));
+        RuleIndex ruleIndex = new RuleIndex(ruleRuntimes);
+
+        // NaN is not comparable with the bounds, all the rules indexed on the field are candidates
+        assertEquals(ruleIds(1L, 2L, 3L), ruleIds(ruleIndex.getCandidates(createEvent("other", Double.NaN))));
+        assertEquals(ruleIds(1L, 2L, 3L), ruleIds(ruleIndex.getCandidates(createEvent("other", Float.NaN))));
+    }
+
+    @Test
+    public void testUnindexedRules() throws Exception {
+        List<RuleRuntime> ruleRuntimes = new ArrayList<>();
+        ruleRuntimes.add(createRuleRuntime(1L, compare(Operator.NOT_EQUAL, TEMPERATURE, "100")));
+        ruleRuntimes.add(createRuleRuntime(2L, null));
+        RuleIndex ruleIndex = new RuleIndex(ruleRuntimes);
+
+        assertEquals(ruleIds(1L, 2L), ruleIds(ruleIndex.getCandidates(createEvent("thermostat", 100))));
+    }
+
+    private static Expression and(Expression first, Expression second) {
+        return new BinaryExpression(Operator.AND, first, second);
+    }
+
+    private static Expression equalTo(FieldExpression field, String literal) {
+        return new BinaryExpression(Operator.EQUALS, field, new Literal(literal));
+    }
+
+    private static Expression compare(Operator operator, FieldExpression field, String literal) {
+        return new BinaryExpression(operator, field, new Literal(literal));
+    }
+
+    private static Expression compare(Operator operator, Literal literal, FieldExpression field) {
+        return new BinaryExpression(operator, literal, field);
+    }
+
+    private static RuleRuntime createRuleRuntime(Long id, Expression expression) {
+        Rule rule = new Rule();
+        rule.setId(id);
+        rule.setActions(Collections.<Action>emptyList());
+        if (expression != null) {
+            rule.setCondition(new Condition(expression));
+        }
+        return new RuleRuntime(rule, null, Collections.<ActionRuntime>emptyList());
+    }
+
+    private static StreamlineEvent createEvent(String deviceType, Number temperature) {
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        if (deviceType != null) {
+            fieldsAndValues.put("deviceType", deviceType);
+        }
+        fieldsAndValues.put("temperature", temperature);
+        return new StreamlineEventImpl(fieldsAndValues, "1");
+    }
+
+    private static List<Long> ruleIds(Long... ids) {
+        List<Long> result = new ArrayList<>();
+        Collections.addAll(result, ids);
+        return result;
+    }
+
+    private static List<Long> ruleIds(List<RuleRuntime> ruleRuntimes) {
+        List<Long> result = new ArrayList<>();
+        for (RuleRuntime ruleRuntime : ruleRuntimes) {
+            result.add(ruleRuntime.getRule().getId());
+        }
+        return result;
+    }
+}
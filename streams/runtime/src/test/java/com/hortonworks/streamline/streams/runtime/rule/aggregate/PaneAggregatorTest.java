@@ -0,0 +1,279 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AsExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.GroupBy;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Having;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Literal;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Projection;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Window;
+import com.hortonworks.streamline.streams.rule.UDAF;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hortonworks.streamline.streams.runtime.transform.AddHeaderTransformRuntime.HEADER_FIELD_EVENT_IDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PaneAggregatorTest {
+    private static final FieldExpression DEVICE_TYPE = new FieldExpression(Schema.Field.of("deviceType", Schema.Type.STRING));
+    private static final FieldExpression TEMPERATURE = new FieldExpression(Schema.Field.of("temperature", Schema.Type.INTEGER));
+    private static final AggregateFunctionExpression COUNT = new AggregateFunctionExpression("COUNT",
+            Collections.singletonList(FieldExpression.STAR));
+
+    public static class IntSum implements UDAF<Integer, Integer, Integer> {
+        @Override
+        public Integer init() {
+            return 0;
+        }
+
+        @Override
+        public Integer add(Integer aggregate, Integer val) {
+            return aggregate + val;
+        }
+
+        @Override
+        public Integer merge(Integer aggregate1, Integer aggregate2) {
+            return aggregate1 + aggregate2;
+        }
+
+        @Override
+        public Integer result(Integer aggregate) {
+            return aggregate;
+        }
+    }
+
+    public static class IntSumNoMerge implements UDAF<Integer, Integer, Integer> {
+        @Override
+        public Integer init() {
+            return 0;
+        }
+
+        @Override
+        public Integer add(Integer aggregate, Integer val) {
+            return aggregate + val;
+        }
+
+        @Override
+        public Integer result(Integer aggregate) {
+            return aggregate;
+        }
+    }
+
+    @Test
+    public void testSlidingPanes() throws Exception {
+        // select deviceType, COUNT(*) as cnt, MAX(temperature) as maxTemp, SUM(temperature) as total group by deviceType
+        PaneAggregator aggregator = new PaneAggregator(createRule(IntSum.class, null), 3);
+
+        aggregator.add(createEvent("a", 10));
+        aggregator.add(createEvent("b", 20));
+        List<StreamlineEvent> results = aggregator.slide();
+        assertEquals(2, results.size());
+        assertResult(results.get(0), "a", 1L, 10, 10);
+        assertResult(results.get(1), "b", 1L, 20, 20);
+
+        aggregator.add(createEvent("a", 30));
+        aggregator.add(createEvent("a", 5));
+        results = aggregator.slide();
+        assertEquals(2, results.size());
+        assertResult(results.get(0), "a", 3L, 30, 45);
+        assertResult(results.get(1), "b", 1L, 20, 20);
+        assertEquals(3, ((List<?>) results.get(0).getHeader().get(HEADER_FIELD_EVENT_IDS)).size());
+
+        aggregator.add(createEvent("b", 40));
+        aggregator.add(createEvent("a", 1));
+        results = aggregator.slide();
+        assertResult(results.get(0), "a", 4L, 30, 46);
+        assertResult(results.get(1), "b", 2L, 40, 60);
+
+        // the first pane falls out of the window
+        aggregator.add(createEvent("b", 1));
+        aggregator.add(createEvent("b", 2));
+        results = aggregator.slide();
+        assertResult(results.get(0), "a", 3L, 30, 36);
+        assertResult(results.get(1), "b", 3L, 40, 43);
+
+        // events missing the referenced fields are ignored
+        aggregator.add(createEvent(null, 100));
+        aggregator.add(createEvent("a", null));
+        aggregator.slide();
+        aggregator.slide();
+        results = aggregator.slide();
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testPanesExpireByProcessingTime() throws Exception {
+        Rule rule = createRule(IntSum.class, null);
+        rule.setWindow(createWindow("Duration\",\"durationMs\":3000", "Duration\",\"durationMs\":1000"));
+        PaneAggregator aggregator = new PaneAggregator(rule, 3);
+
+        aggregator.add(createEvent("a", 10));
+        aggregator.slide(1000);
+        aggregator.add(createEvent("a", 20));
+        List<StreamlineEvent> results = aggregator.slide(2010);
+        assertResult(results.get(0), "a", 2L, 20, 30);
+
+        // no pane is closed while idle, the panes older than the window length are expired on the next slide
+        aggregator.add(createEvent("a", 5));
+        results = aggregator.slide(4000);
+        assertResult(results.get(0), "a", 2L, 20, 25);
+        aggregator.add(createEvent("a", 1));
+        results = aggregator.slide(10000);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "a", 1L, 1, 1);
+    }
+
+    @Test
+    public void testPanesExpireByEventTime() throws Exception {
+        Rule rule = createRule(IntSum.class, null);
+        Window window = createWindow("Duration\",\"durationMs\":3000", "Duration\",\"durationMs\":1000");
+        window.setTsField("ts");
+        rule.setWindow(window);
+        PaneAggregator aggregator = new PaneAggregator(rule, 3);
+
+        aggregator.add(createEvent("a", 10, 500L));
+        aggregator.slide(0);
+        aggregator.add(createEvent("a", 20, 2500L));
+        List<StreamlineEvent> results = aggregator.slide(0);
+        assertResult(results.get(0), "a", 2L, 20, 30);
+
+        // the pane of [0, 1000) is out of the window ending at 4000
+        aggregator.add(createEvent("a", 5, 3900L));
+        results = aggregator.slide(0);
+        assertResult(results.get(0), "a", 2L, 20, 25);
+    }
+
+    @Test
+    public void testEventIdsAreBounded() throws Exception {
+        PaneAggregator aggregator = new PaneAggregator(createRule(IntSum.class, null), 2);
+        for (int i = 0; i < GroupAggregation.MAX_EVENT_IDS; i++) {
+            aggregator.add(createEvent("a", i));
+        }
+        aggregator.slide();
+        aggregator.add(createEvent("a", 1));
+        List<StreamlineEvent> results = aggregator.slide();
+        assertEquals(GroupAggregation.MAX_EVENT_IDS + 1L, results.get(0).get("cnt"));
+        assertEquals(GroupAggregation.MAX_EVENT_IDS, ((List<?>) results.get(0).getHeader().get(HEADER_FIELD_EVENT_IDS)).size());
+    }
+
+    @Test
+    public void testHaving() throws Exception {
+        // ... having COUNT(*) > 1
+        PaneAggregator aggregator = new PaneAggregator(createRule(IntSum.class,
+                new BinaryExpression(Operator.GREATER_THAN, COUNT, new Literal("1"))), 2);
+
+        aggregator.add(createEvent("a", 10));
+        aggregator.add(createEvent("b", 20));
+        aggregator.add(createEvent("a", 30));
+        List<StreamlineEvent> results = aggregator.slide();
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "a", 2L, 30, 40);
+
+        aggregator.add(createEvent("b", 5));
+        results = aggregator.slide();
+        assertEquals(2, results.size());
+        assertResult(results.get(1), "b", 2L, 20, 25);
+
+        results = aggregator.slide();
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void testSupports() throws Exception {
+        assertTrue(PaneAggregator.supports(createRule(IntSum.class, null)));
+        assertFalse(PaneAggregator.supports(createRule(IntSumNoMerge.class, null)));
+
+        Rule rule = createRule(IntSum.class, null);
+        rule.setProjection(new Projection(Arrays.asList(DEVICE_TYPE, TEMPERATURE, COUNT)));
+        assertFalse(PaneAggregator.supports(rule));
+    }
+
+    @Test
+    public void testGetPanesPerWindow() throws Exception {
+        assertEquals(3, PaneAggregator.getPanesPerWindow(createWindow("Count\",\"count\":6", "Count\",\"count\":2")));
+        assertEquals(0, PaneAggregator.getPanesPerWindow(createWindow("Count\",\"count\":5", "Count\",\"count\":2")));
+        assertEquals(4, PaneAggregator.getPanesPerWindow(createWindow("Duration\",\"durationMs\":2000",
+                                                                      "Duration\",\"durationMs\":500")));
+        assertEquals(0, PaneAggregator.getPanesPerWindow(createWindow("Duration\",\"durationMs\":2000",
+                                                                      "Count\",\"count\":2")));
+    }
+
+    private static void assertResult(StreamlineEvent result, String deviceType, long count, int max, int total) {
+        assertEquals(deviceType, result.get("deviceType"));
+        assertEquals(count, result.get("cnt"));
+        assertEquals(max, result.get("maxTemp"));
+        assertEquals(total, result.get("total"));
+    }
+
+    private static Rule createRule(Class<?> sumClass, Expression having) {
+        List<Expression> projection = new ArrayList<>();
+        projection.add(DEVICE_TYPE);
+        projection.add(new AsExpression(COUNT, "cnt"));
+        projection.add(new AsExpression(new AggregateFunctionExpression("MAX", Collections.singletonList(TEMPERATURE)), "maxTemp"));
+        projection.add(new AsExpression(new AggregateFunctionExpression("SUM_TEMP", sumClass.getName(),
+                                                                         Collections.singletonList(TEMPERATURE)), "total"));
+        Rule rule = new Rule();
+        rule.setId(1L);
+        rule.setProjection(new Projection(projection));
+        rule.setGroupBy(new GroupBy(Collections.<Expression>singletonList(DEVICE_TYPE)));
+        if (having != null) {
+            rule.setHaving(new Having(having));
+        }
+        return rule;
+    }
+
+    private static Window createWindow(String length, String slidingInterval) throws Exception {
+        return new Window("{\"windowLength\":{\"class\":\".Window$" + length + "},"
+                                  + "\"slidingInterval\":{\"class\":\".Window$" + slidingInterval + "}}");
+    }
+
+    private static StreamlineEvent createEvent(String deviceType, Integer temperature) {
+        return createEvent(deviceType, temperature, null);
+    }
+
+    private static StreamlineEvent createEvent(String deviceType, Integer temperature, Long ts) {
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        if (ts != null) {
+            fieldsAndValues.put("ts", ts);
+        }
+        if (deviceType != null) {
+            fieldsAndValues.put("deviceType", deviceType);
+        }
+        if (temperature != null) {
+            fieldsAndValues.put("temperature", temperature);
+        }
+        return new StreamlineEventImpl(fieldsAndValues, "1");
+    }
+}
@@ -0,0 +1,207 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.rule.aggregate;
+
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.layout.component.rule.Rule;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AggregateFunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AsExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.GroupBy;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Projection;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Window;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SessionAggregatorTest {
+    private static final FieldExpression DEVICE_ID = new FieldExpression(Schema.Field.of("deviceId", Schema.Type.STRING));
+    private static final FieldExpression TEMPERATURE = new FieldExpression(Schema.Field.of("temperature", Schema.Type.INTEGER));
+
+    @Test
+    public void testSessions() throws Exception {
+        SessionAggregator aggregator = new SessionAggregator(createRule(100, 0, 0));
+
+        assertTrue(aggregator.add(createEvent("d1", 1000L, 10), 0));
+        assertTrue(aggregator.add(createEvent("d1", 1050L, 30), 0));
+        assertTrue(aggregator.add(createEvent("d2", 1060L, 20), 0));
+        assertTrue(aggregator.fire(0).isEmpty());
+
+        // closes the session of d1, d2 is still open
+        assertTrue(aggregator.add(createEvent("d2", 1150L, 5), 0));
+        List<StreamlineEvent> results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 2L, 30);
+        assertEquals(1, aggregator.getSessionCount());
+
+        // a new session of d1 closes the session of d2
+        assertTrue(aggregator.add(createEvent("d1", 1300L, 1), 0));
+        results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d2", 2L, 20);
+        assertEquals(1, aggregator.getSessionCount());
+
+        // the late events are rejected without allowed lateness
+        assertFalse(aggregator.add(createEvent("d2", 1100L, 50), 0));
+    }
+
+    @Test
+    public void testMergeSessions() throws Exception {
+        SessionAggregator aggregator = new SessionAggregator(createRule(100, 0, 1000));
+
+        aggregator.add(createEvent("d1", 1000L, 10), 0);
+        aggregator.add(createEvent("d1", 1180L, 20), 0);
+        assertEquals(2, aggregator.getSessionCount());
+        // bridges both sessions
+        aggregator.add(createEvent("d1", 1090L, 30), 0);
+        assertEquals(1, aggregator.getSessionCount());
+
+        aggregator.add(createEvent("d2", 1400L, 0), 0);
+        List<StreamlineEvent> results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 3L, 30);
+    }
+
+    @Test
+    public void testAllowedLateness() throws Exception {
+        SessionAggregator aggregator = new SessionAggregator(createRule(100, 50, 200));
+
+        aggregator.add(createEvent("d1", 1000L, 10), 0);
+        aggregator.add(createEvent("d2", 1200L, 20), 0);
+        // watermark 1150
+        List<StreamlineEvent> results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 1L, 10);
+
+        // within the allowed lateness, the emitted result is updated
+        assertTrue(aggregator.add(createEvent("d1", 1020L, 40), 0));
+        results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 2L, 40);
+        assertTrue(aggregator.fire(0).isEmpty());
+
+        // watermark 1450, the session of d1 is evicted and its events are late
+        aggregator.add(createEvent("d2", 1500L, 30), 0);
+        results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d2", 1L, 20);
+        assertEquals(2, aggregator.getSessionCount());
+        assertFalse(aggregator.add(createEvent("d1", 1010L, 50), 0));
+
+        // watermark 1850, only the last session of d2 is left
+        aggregator.add(createEvent("d2", 1900L, 0), 0);
+        results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d2", 1L, 30);
+        assertEquals(1, aggregator.getSessionCount());
+    }
+
+    @Test
+    public void testWatermarkAdvancedByOtherEvents() throws Exception {
+        SessionAggregator aggregator = new SessionAggregator(createRule(100, 0, 0));
+
+        aggregator.add(createEvent("d1", 1000L, 10), 0);
+        assertTrue(aggregator.fire(0).isEmpty());
+
+        // no more events of the rule, the events not matching it close the session
+        aggregator.advance(createEvent("d2", 1150L, 20), 0);
+        aggregator.advance(createEvent("d2", null, 30), 0);
+        List<StreamlineEvent> results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 1L, 10);
+        assertEquals(0, aggregator.getSessionCount());
+    }
+
+    @Test
+    public void testNonMatchingEventsAreNotLate() throws Exception {
+        SessionAggregator aggregator = new SessionAggregator(createRule(100, 0, 0));
+
+        aggregator.add(createEvent("d1", 1000L, 10), 0);
+        aggregator.add(createEvent("d1", 1300L, 20), 0);
+        assertEquals(1, aggregator.fire(0).size());
+
+        // older than the watermark but without the fields of the rule, it only advances the event time
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("deviceId", "d2");
+        fieldsAndValues.put("ts", 1500L);
+        assertTrue(aggregator.add(new StreamlineEventImpl(fieldsAndValues, "1"), 0));
+        fieldsAndValues.put("ts", 1000L);
+        assertTrue(aggregator.add(new StreamlineEventImpl(fieldsAndValues, "1"), 0));
+        assertEquals(1, aggregator.getSessionCount());
+
+        List<StreamlineEvent> results = aggregator.fire(0);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 1L, 20);
+    }
+
+    @Test
+    public void testProcessingTime() throws Exception {
+        Rule rule = createRule(100, 0, 0);
+        rule.getWindow().setTsField(null);
+        SessionAggregator aggregator = new SessionAggregator(rule);
+
+        aggregator.add(createEvent("d1", null, 10), 1000);
+        aggregator.add(createEvent("d1", null, 20), 1050);
+        assertTrue(aggregator.fire(1100).isEmpty());
+        List<StreamlineEvent> results = aggregator.fire(1150);
+        assertEquals(1, results.size());
+        assertResult(results.get(0), "d1", 2L, 20);
+        assertEquals(0, aggregator.getSessionCount());
+    }
+
+    private static void assertResult(StreamlineEvent result, String deviceId, long count, int max) {
+        assertEquals(deviceId, result.get("deviceId"));
+        assertEquals(count, result.get("cnt"));
+        assertEquals(max, result.get("maxTemp"));
+    }
+
+    private static Rule createRule(int gapMs, int lagMs, int allowedLatenessMs) throws Exception {
+        Window window = new Window("{\"windowLength\":{\"class\":\".Window$Session\",\"gapMs\":" + gapMs + "}}");
+        window.setTsField("ts");
+        window.setLagMs(lagMs);
+        window.setAllowedLatenessMs(allowedLatenessMs);
+        Rule rule = new Rule();
+        rule.setId(1L);
+        rule.setWindow(window);
+        rule.setProjection(new Projection(Arrays.asList(DEVICE_ID,
+                new AsExpression(new AggregateFunctionExpression("COUNT", Collections.singletonList(FieldExpression.STAR)), "cnt"),
+                new AsExpression(new AggregateFunctionExpression("MAX", Collections.singletonList(TEMPERATURE)), "maxTemp"))));
+        rule.setGroupBy(new GroupBy(Collections.<Expression>singletonList(DEVICE_ID)));
+        return rule;
+    }
+
+    private static StreamlineEvent createEvent(String deviceId, Long ts, int temperature) {
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("deviceId", deviceId);
+        fieldsAndValues.put("temperature", temperature);
+        if (ts != null) {
+            fieldsAndValues.put("ts", ts);
+        }
+        return new StreamlineEventImpl(fieldsAndValues, "1");
+    }
+}
@@ -0,0 +1,218 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.streams.runtime.rule.compiled;
+
+import com.google.common.collect.ImmutableList;
+import com.hortonworks.streamline.common.Schema;
+import com.hortonworks.streamline.streams.StreamlineEvent;
+import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.ArrayFieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.AsExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.BinaryExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Condition;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Expression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.FunctionExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Literal;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.MapFieldExpression;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Operator;
+import com.hortonworks.streamline.streams.layout.component.rule.expression.Projection;
+import com.hortonworks.streamline.streams.rule.UDF;
+import com.hortonworks.streamline.streams.rule.UDF2;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.hortonworks.streamline.streams.common.StreamlineEventImpl.GROUP_BY_TRIGGER_EVENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledRuleScriptTest {
+    private static final FieldExpression TEMPERATURE = new FieldExpression(Schema.Field.of("temperature", Schema.Type.INTEGER));
+    private static final FieldExpression HUMIDITY = new FieldExpression(Schema.Field.of("humidity", Schema.Type.DOUBLE));
+    private static final FieldExpression DEVICE_NAME = new FieldExpression(Schema.Field.of("devicename", Schema.Type.STRING));
+
+    private final ExpressionCompiler expressionCompiler = new ExpressionCompiler();
+
+    public static class Plus implements UDF2<Long, Long, Long> {
+        @Override
+        public Long evaluate(Long x, Long y) {
+            return x + y;
+        }
+    }
+
+    public static class CountingIdentity implements UDF<Integer, Integer> {
+        static int invocations;
+
+        @Override
+        public Integer evaluate(Integer x) {
+            invocations++;
+            return x;
+        }
+    }
+
+    @Test
+    public void testSharedSubexpressions() throws Exception {
+        ExpressionCompiler sharingCompiler = new ExpressionCompiler(true);
+        Expression shared = new BinaryExpression(Operator.GREATER_THAN,
+                new FunctionExpression("IDENTITY", CountingIdentity.class.getName(), ImmutableList.<Expression>of(TEMPERATURE)),
+                new Literal("100"));
+        CompiledRuleScript script1 = new CompiledRuleScript(new Condition(new BinaryExpression(Operator.AND, shared,
+                new BinaryExpression(Operator.EQUALS, DEVICE_NAME, new Literal("'nest'")))), null, sharingCompiler);
+        CompiledRuleScript script2 = new CompiledRuleScript(new Condition(new BinaryExpression(Operator.AND, shared,
+                new BinaryExpression(Operator.EQUALS, DEVICE_NAME, new Literal("'other'")))), null, sharingCompiler);
+
+        CountingIdentity.invocations = 0;
+        StreamlineEvent event = createEvent(101, 0.0, "nest");
+        assertEquals(1, script1.evaluate(event).size());
+        assertTrue(script2.evaluate(event).isEmpty());
+        assertEquals(1, CountingIdentity.invocations);
+
+        assertEquals(1, script1.evaluate(createEvent(101, 0.0, "nest")).size());
+        assertEquals(2, CountingIdentity.invocations);
+    }
+
+    @Test
+    public void testCondition() throws Exception {
+        // temperature > 100 AND (humidity <= 50.5 OR devicename = 'nest')
+        Condition condition = new Condition(new BinaryExpression(Operator.AND,
+                new BinaryExpression(Operator.GREATER_THAN, TEMPERATURE, new Literal("100")),
+                new BinaryExpression(Operator.OR,
+                        new BinaryExpression(Operator.LESS_THAN_EQUALS_TO, HUMIDITY, new Literal("50.5")),
+                        new BinaryExpression(Operator.EQUALS, DEVICE_NAME, new Literal("'nest'")))));
+        CompiledRuleScript script = new CompiledRuleScript(condition, null, expressionCompiler);
+
+        StreamlineEvent event = createEvent(101, 60.0, "nest");
+        assertEquals(Collections.singletonList(event), script.evaluate(event));
+        assertTrue(script.evaluate(createEvent(101, 60.0, "other")).isEmpty());
+        assertEquals(1, script.evaluate(createEvent(101L, 50, "other")).size());
+        assertTrue(script.evaluate(createEvent(100, 10.0, "nest")).isEmpty());
+        assertTrue(script.evaluate(GROUP_BY_TRIGGER_EVENT).isEmpty());
+    }
+
+    @Test
+    public void testMissingFieldDoesNotMatch() throws Exception {
+        Condition condition = new Condition(new BinaryExpression(Operator.OR,
+                new BinaryExpression(Operator.GREATER_THAN, TEMPERATURE, new Literal("100")),
+                new BinaryExpression(Operator.EQUALS, DEVICE_NAME, new Literal("'nest'"))));
+        CompiledRuleScript script = new CompiledRuleScript(condition, null, expressionCompiler);
+
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("temperature", 101);
+        assertTrue(script.evaluate(new StreamlineEventImpl(fieldsAndValues, "1")).isEmpty());
+    }
+
+    @Test
+    public void testLiteralOnTheLeft() throws Exception {
+        Condition condition = new Condition(new BinaryExpression(Operator.LESS_THAN, new Literal("100"), TEMPERATURE));
+        CompiledRuleScript script = new CompiledRuleScript(condition, null, expressionCompiler);
+
+        assertEquals(1, script.evaluate(createEvent(101, 0.0, "nest")).size());
+        assertTrue(script.evaluate(createEvent(99, 0.0, "nest")).isEmpty());
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        Condition condition = new Condition(new BinaryExpression(Operator.NOT_EQUAL, DEVICE_NAME, new Literal("'it''s'")));
+        Expression plus = new FunctionExpression("PLUS", Plus.class.getName(), ImmutableList.of(TEMPERATURE, new Literal("10")));
+        Projection projection = new Projection(Arrays.<Expression>asList(DEVICE_NAME,
+                new AsExpression(plus, "INCREMENTED"),
+                new FunctionExpression("UPPER", ImmutableList.<Expression>of(DEVICE_NAME))));
+        CompiledRuleScript script = new CompiledRuleScript(condition, projection, expressionCompiler);
+
+        StreamlineEvent event = createEvent(100, 0.0, "nest");
+        Collection<StreamlineEvent> result = script.evaluate(event);
+
+        assertEquals(1, result.size());
+        StreamlineEvent output = result.iterator().next();
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("devicename", "nest");
+        expected.put("INCREMENTED", 110L);
+        expected.put("UPPER(devicename)", "NEST");
+        assertEquals(expected, new HashMap<>(output));
+        assertEquals(event.getId(), output.getId());
+        assertTrue(script.evaluate(createEvent(100, 0.0, "it's")).isEmpty());
+    }
+
+    @Test
+    public void testDuplicateProjectedFields() throws Exception {
+        Expression plus = new FunctionExpression("PLUS", Plus.class.getName(), ImmutableList.of(TEMPERATURE, new Literal("10")));
+        // SELECT devicename, temperature + 10 AS devicename, the last value wins
+        Projection projection = new Projection(Arrays.<Expression>asList(DEVICE_NAME, new AsExpression(plus, "devicename")));
+        CompiledRuleScript script = new CompiledRuleScript(null, projection, expressionCompiler);
+
+        Collection<StreamlineEvent> result = script.evaluate(createEvent(100, 0.0, "nest"));
+
+        assertEquals(1, result.size());
+        assertEquals(Collections.singletonMap("devicename", 110L), new HashMap<>(result.iterator().next()));
+    }
+
+    @Test
+    public void testNestedFields() throws Exception {
+        // y['a'][1] < 100, arrays are indexed from 1 as in sql
+        Expression y_a_1 = new ArrayFieldExpression(new MapFieldExpression(
+                new FieldExpression(Schema.Field.of("y", Schema.Type.NESTED)), "a"), 1);
+        Condition condition = new Condition(new BinaryExpression(Operator.LESS_THAN, y_a_1, new Literal("100")));
+        CompiledRuleScript script = new CompiledRuleScript(condition, null, expressionCompiler);
+
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("y", Collections.singletonMap("a", Arrays.asList(1, 500)));
+        assertEquals(1, script.evaluate(new StreamlineEventImpl(fieldsAndValues, "1")).size());
+        fieldsAndValues.put("y", Collections.singletonMap("a", Arrays.asList(500, 1)));
+        assertTrue(script.evaluate(new StreamlineEventImpl(fieldsAndValues, "1")).isEmpty());
+        fieldsAndValues.put("y", Collections.singletonMap("b", Arrays.asList(1, 1)));
+        assertTrue(script.evaluate(new StreamlineEventImpl(fieldsAndValues, "1")).isEmpty());
+    }
+
+    @Test
+    public void testNoConditionNoProjection() throws Exception {
+        CompiledRuleScript script = new CompiledRuleScript(null, null, expressionCompiler);
+        StreamlineEvent event = createEvent(1, 1.0, "nest");
+        assertSame(event, script.evaluate(event).iterator().next());
+    }
+
+    @Test
+    public void testParseLiteral() throws Exception {
+        assertEquals(100, ExpressionCompiler.parseLiteral("100"));
+        assertEquals(10000000000L, ExpressionCompiler.parseLiteral("10000000000"));
+        assertEquals(2.5, ExpressionCompiler.parseLiteral("2.5"));
+        assertEquals("it's", ExpressionCompiler.parseLiteral("'it''s'"));
+        assertEquals("text", ExpressionCompiler.parseLiteral("_ISO-8859-1'text'"));
+        assertEquals(Boolean.TRUE, ExpressionCompiler.parseLiteral("TRUE"));
+        assertEquals(null, ExpressionCompiler.parseLiteral("NULL"));
+        assertFalse(ExpressionCompiler.compare(Operator.EQUALS, 1, "1"));
+        assertTrue(ExpressionCompiler.compare(Operator.EQUALS, 1, 1.0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnknownBuiltinFunction() throws Exception {
+        expressionCompiler.compile(new FunctionExpression("SOUNDEX", ImmutableList.<Expression>of(DEVICE_NAME)));
+    }
+
+    private StreamlineEvent createEvent(Number temperature, Number humidity, String deviceName) {
+        Map<String, Object> fieldsAndValues = new HashMap<>();
+        fieldsAndValues.put("temperature", temperature);
+        fieldsAndValues.put("humidity", humidity);
+        fieldsAndValues.put("devicename", deviceName);
+        return new StreamlineEventImpl(fieldsAndValues, "1");
+    }
+}
@@ -17,6 +17,7 @@
 
 package com.hortonworks.streamline.streams.runtime.script;
 
+import com.hortonworks.streamline.common.Schema;
 import com.hortonworks.streamline.streams.common.StreamlineEventImpl;
 import com.hortonworks.streamline.streams.runtime.script.engine.GroovyScriptEngine;
 import org.junit.Assert;
@@ -26,6 +27,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.script.ScriptException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
@@ -33,6 +36,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class GroovyScriptTest {
@@ -112,4 +116,76 @@ public class GroovyScriptTest {
             Assert.fail("Exception occurred within thread, first one is " + anyException.get().getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testScriptIsCompiledOnce() throws Exception {
+        String groovyExpression = "a * 2 + b";
+        GroovyScript<Integer> groovyScript1 = new GroovyScript<>(groovyExpression, new GroovyScriptEngine());
+        GroovyScript<Integer> groovyScript2 = new GroovyScript<>(groovyExpression, new GroovyScriptEngine());
+        HashMap<String, Object> fieldsAndValue = new HashMap<>();
+        fieldsAndValue.put("a", 2);
+        fieldsAndValue.put("b", 1);
+
+        assertEquals(5, (int) groovyScript1.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+        int size = GroovyScriptCache.size();
+        assertEquals(5, (int) groovyScript2.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+        assertEquals(size, GroovyScriptCache.size());
+    }
+
+    @Test
+    public void testInitialBindingsAndAssignedVariables() throws Exception {
+        String groovyExpression = "if (a > 0) { x = a }; x = (binding.hasVariable('x') ? x : 0) + offset; x";
+        GroovyScript<Integer> groovyScript = new GroovyScript<>(groovyExpression, new GroovyScriptEngine(),
+                Collections.<String, Object>singletonMap("offset", 10));
+        HashMap<String, Object> fieldsAndValue = new HashMap<>();
+        fieldsAndValue.put("a", 5);
+        assertEquals(15, (int) groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+
+        // variables assigned by the previous evaluation are not visible anymore
+        fieldsAndValue.put("a", -1);
+        assertEquals(10, (int) groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+
+        // event fields take precedence over the initial bindings
+        fieldsAndValue.put("offset", 1);
+        assertEquals(1, (int) groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+    }
+
+    @Test
+    public void testCompileStatic() throws Exception {
+        String groovyExpression = "temperature > 10 && humidity < 30 && city.startsWith('San')";
+        GroovyScript<Boolean> groovyScript = new GroovyScript<>(groovyExpression, new GroovyScriptEngine(),
+                Collections.<String, Object>emptyMap(),
+                Arrays.asList(Schema.Field.of("temperature", Schema.Type.INTEGER),
+                              Schema.Field.of("humidity", Schema.Type.LONG),
+                              Schema.Field.of("city", Schema.Type.STRING),
+                              Schema.Field.of("unused", Schema.Type.STRING)));
+        HashMap<String, Object> fieldsAndValue = new HashMap<>();
+        fieldsAndValue.put("temperature", 20);
+        fieldsAndValue.put("humidity", 10L);
+        fieldsAndValue.put("city", "San Jose");
+        assertTrue(groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+
+        fieldsAndValue.put("city", "Palo Alto");
+        assertFalse(groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+
+        fieldsAndValue.put("humidity", "10");
+        try {
+            groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1"));
+            Assert.fail("It should not evaluate a field of unexpected type");
+        } catch (ScriptException e) {
+            // no-op, that's what we want
+        }
+    }
+
+    @Test
+    public void testCompileStaticFallsBackToDynamic() throws Exception {
+        // 'untyped' is not a typed field, hence it can only be resolved dynamically
+        String groovyExpression = "temperature > 10 && untyped == 'value'";
+        GroovyScript<Boolean> groovyScript = new GroovyScript<>(groovyExpression, new GroovyScriptEngine(),
+                Collections.<String, Object>emptyMap(), Collections.singletonList(Schema.Field.of("temperature", Schema.Type.INTEGER)));
+        HashMap<String, Object> fieldsAndValue = new HashMap<>();
+        fieldsAndValue.put("temperature", 20);
+        fieldsAndValue.put("untyped", "value");
+        assertTrue(groovyScript.evaluate(new StreamlineEventImpl(fieldsAndValue, "1")));
+    }
+}
@@ -0,0 +1,199 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+
+package com.hortonworks.streamline.streams.runtime.transform;
+
+import com.hortonworks.streamline.streams.layout.component.rule.action.transform.EnrichmentTransform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachedTransformDataProviderRuntimeTest {
+    private RecordingDataProviderRuntime backingDataProvider;
+    private CachedTransformDataProviderRuntime cachedDataProvider;
+
+    @Before
+    public void setup() {
+        Map<Object, Object> data = new HashMap<>();
+        data.put("k1", "v1");
+        data.put("k2", "v2");
+        data.put("k3", "v3");
+        backingDataProvider = new RecordingDataProviderRuntime(data);
+        cachedDataProvider = new CachedTransformDataProviderRuntime(backingDataProvider, 100, 60, 60, 5000);
+        cachedDataProvider.prepare();
+    }
+
+    @After
+    public void cleanup() {
+        cachedDataProvider.cleanup();
+    }
+
+    @Test
+    public void testMissesAreLoadedInOneBatch() throws Exception {
+        Map<Object, Object> values = cachedDataProvider.getAll(Arrays.asList("k1", "k2", "k3"));
+
+        assertEquals(3, values.size());
+        assertEquals("v2", values.get("k2"));
+        assertEquals(1, backingDataProvider.batches.size());
+        assertEquals(3, backingDataProvider.batches.get(0).size());
+
+        // served by the cache
+        assertEquals("v1", cachedDataProvider.get("k1"));
+        assertEquals(1, backingDataProvider.batches.size());
+    }
+
+    @Test
+    public void testAbsentKeysAreCached() throws Exception {
+        assertNull(cachedDataProvider.get("unknown"));
+        assertNull(cachedDataProvider.get("unknown"));
+
+        assertEquals(1, backingDataProvider.batches.size());
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        final int threads = 4;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    barrier.await();
+                    assertEquals("v1", cachedDataProvider.get("k1"));
+                } catch (Throwable e) {
+                    failure.set(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertNull(failure.get());
+        int loads = 0;
+        for (Collection<?> batch : backingDataProvider.batches) {
+            loads += Collections.frequency(batch, "k1");
+        }
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testLookupTimeout() throws Exception {
+        cachedDataProvider.cleanup();
+        backingDataProvider.delayMs = 500;
+        cachedDataProvider = new CachedTransformDataProviderRuntime(backingDataProvider, 100, 60, 60, 10);
+        cachedDataProvider.prepare();
+
+        long start = System.currentTimeMillis();
+        assertNull(cachedDataProvider.get("k1"));
+        assertTrue(System.currentTimeMillis() - start < backingDataProvider.delayMs);
+        assertEquals(1, cachedDataProvider.getTimedOutKeyCount());
+    }
+
+    @Test
+    public void testDefaultLookupWaitsForLoad() throws Exception {
+        // by default no event is enriched partially, however slow the data provider
+        cachedDataProvider.cleanup();
+        backingDataProvider.delayMs = 100;
+        cachedDataProvider = new CachedTransformDataProviderRuntime(backingDataProvider, 100, 60, 60,
+                EnrichmentTransform.DEFAULT_LOOKUP_TIMEOUT);
+        cachedDataProvider.prepare();
+
+        assertEquals("v1", cachedDataProvider.get("k1"));
+        assertEquals(0, cachedDataProvider.getTimedOutKeyCount());
+    }
+
+    @Test
+    public void testMissesDuringLoadAreLoadedInNextBatch() throws Exception {
+        backingDataProvider.delayMs = 300;
+        final List<Thread> lookups = new ArrayList<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (String key : Arrays.asList("k1", "k2", "k3")) {
+            Thread lookup = new Thread(() -> {
+                try {
+                    assertEquals("v" + key.substring(1), cachedDataProvider.get(key));
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            lookup.start();
+            lookups.add(lookup);
+            // the load of the first miss starts right away
+            while (backingDataProvider.batches.isEmpty()) {
+                Thread.sleep(1);
+            }
+        }
+        for (Thread lookup : lookups) {
+            lookup.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(2, backingDataProvider.batches.size());
+        assertEquals(Collections.singletonList("k1"), backingDataProvider.batches.get(0));
+        assertEquals(new HashSet<>(Arrays.asList("k2", "k3")), new HashSet<>(backingDataProvider.batches.get(1)));
+    }
+
+    private static class RecordingDataProviderRuntime implements TransformDataProviderRuntime {
+        private final Map<Object, Object> data;
+        private final List<Collection<?>> batches = Collections.synchronizedList(new ArrayList<Collection<?>>());
+        private volatile long delayMs;
+
+        RecordingDataProviderRuntime(Map<Object, Object> data) {
+            this.data = data;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Object get(Object key) {
+            return data.get(key);
+        }
+
+        @Override
+        public Map<Object, Object> getAll(Collection<?> keys) {
+            batches.add(new ArrayList<>(keys));
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return TransformDataProviderRuntime.super.getAll(keys);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+}
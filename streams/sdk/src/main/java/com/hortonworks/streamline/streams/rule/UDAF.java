@@ -52,6 +52,19 @@ public interface UDAF<A, V, R> {
      */
     A add(A aggregate, V val);
 
+    /**
+     * Merges two partial aggregates computed over disjoint groups of values, e.g. the aggregates of the panes of a
+     * sliding window. Implementing this is optional, the aggregate functions that do can be evaluated incrementally.
+     * The first aggregate may be modified and returned, the second one must not be modified.
+     *
+     * @param aggregate1 the first aggregate
+     * @param aggregate2 the second aggregate
+     * @return the aggregate of the values of both the aggregates
+     */
+    default A merge(A aggregate1, A aggregate2) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support merging aggregates");
+    }
+
     /**
      * Returns the result of the aggregate.
      *
@@ -19,6 +19,7 @@ import com.hortonworks.streamline.streams.StreamlineEvent;
 import com.hortonworks.streamline.streams.Result;
 import com.hortonworks.streamline.streams.exception.ProcessingException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +35,21 @@ public interface ProcessorRuntime {
      */
     List<Result> process (StreamlineEvent event) throws ProcessingException;
 
+    /**
+     * Process a batch of {@link StreamlineEvent}s. Implementations can override this to amortize the per event overhead,
+     * the default implementation invokes {@link #process(StreamlineEvent)} for each event.
+     * @param events to be processed
+     * @return the results for each event, in the same order as the events
+     * @throws ProcessingException
+     */
+    default List<List<Result>> processBatch (List<StreamlineEvent> events) throws ProcessingException {
+        List<List<Result>> results = new ArrayList<>(events.size());
+        for (StreamlineEvent event : events) {
+            results.add(process(event));
+        }
+        return results;
+    }
+
     /**
      * Initialize any necessary resources needed for the implementation
      * @param config
@@ -18,6 +18,7 @@ package com.hortonworks.streamline.streams.runtime;
 import com.hortonworks.streamline.streams.StreamlineEvent;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,4 +35,19 @@ public interface TransformRuntime extends Serializable {
      */
     List<StreamlineEvent> execute(StreamlineEvent input);
 
+    /**
+     * Transforms a batch of input {@link StreamlineEvent}s. The default implementation
+     * invokes {@link #execute(StreamlineEvent)} for each input.
+     *
+     * @param inputs the input StreamlineEvents
+     * @return the list of events generated from each input, in the same order as the inputs
+     */
+    default List<List<StreamlineEvent>> executeBatch(List<StreamlineEvent> inputs) {
+        List<List<StreamlineEvent>> results = new ArrayList<>(inputs.size());
+        for (StreamlineEvent input : inputs) {
+            results.add(execute(input));
+        }
+        return results;
+    }
+
 }
@@ -69,7 +69,10 @@ public class FileCatalogResource {
     public Response listFiles(@Context UriInfo uriInfo) {
         Collection<FileInfo> files = null;
         MultivaluedMap<String, String> params = uriInfo.getQueryParameters();
-        if (params == null || params.isEmpty()) {
+        if (WSUtils.isPageRequest(params)) {
+            files = catalogService.listFiles(WSUtils.buildQueryParameters(params), WSUtils.buildOrderByFields(params),
+                    WSUtils.getOffset(params), WSUtils.getLimit(params));
+        } else if (params == null || params.isEmpty()) {
             files = catalogService.listFiles();
         } else {
             files = catalogService.listFiles(WSUtils.buildQueryParameters(params));
@@ -85,7 +85,12 @@ public class NotificationsResource {
         } else {
             LOG.info("Query params empty, will use default criteria to return notifications.");
         }
-        notifications = notificationService.findNotifications(queryParams);
+        if (WSUtils.isPageRequest(uriInfoParams)) {
+            notifications = notificationService.findNotifications(queryParams,
+                    WSUtils.getOffset(uriInfoParams), WSUtils.getLimit(uriInfoParams));
+        } else {
+            notifications = notificationService.findNotifications(queryParams);
+        }
         if (notifications != null && !notifications.isEmpty()) {
             return WSUtils.respondEntities(notifications, OK);
         }
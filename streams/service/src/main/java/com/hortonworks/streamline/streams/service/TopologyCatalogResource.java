@@ -51,8 +51,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -179,9 +182,17 @@ public class TopologyCatalogResource {
     @GET
     @Path("/topologies/{topologyId}/versions")
     @Timed
-    public Response listTopologyVersions(@PathParam("topologyId") Long topologyId) {
-        Collection<TopologyVersionInfo> versionInfos = catalogService.listTopologyVersionInfos(
-                WSUtils.buildTopologyIdAwareQueryParams(topologyId, null));
+    public Response listTopologyVersions(@PathParam("topologyId") Long topologyId, @Context UriInfo uriInfo) {
+        Collection<TopologyVersionInfo> versionInfos;
+        MultivaluedMap<String, String> params = uriInfo.getQueryParameters();
+        if (WSUtils.isPageRequest(params)) {
+            versionInfos = catalogService.listTopologyVersionInfos(
+                    WSUtils.buildTopologyIdAwareQueryParams(topologyId, null), WSUtils.buildOrderByFields(params),
+                    WSUtils.getOffset(params), WSUtils.getLimit(params));
+        } else {
+            versionInfos = catalogService.listTopologyVersionInfos(
+                    WSUtils.buildTopologyIdAwareQueryParams(topologyId, null));
+        }
         Response response;
         if (versionInfos != null) {
             response = WSUtils.respondEntities(versionInfos, OK);
@@ -85,7 +85,8 @@ public class UDFCatalogResource {
     }
 
     /**
-     * List ALL UDFs or the ones matching specific query params.
+     * List ALL UDFs or the ones matching specific query params. The offset, limit and orderBy params return a page of
+     * them, e.g. GET api/v1/catalog/udfs?offset=100&amp;limit=50&amp;orderBy=name:desc
      * <p>
      * GET api/v1/catalog/udfs
      * </p>
@@ -118,7 +119,11 @@ public class UDFCatalogResource {
         List<QueryParam> queryParams = new ArrayList<>();
         MultivaluedMap<String, String> params = uriInfo.getQueryParameters();
         Collection<UDFInfo> udfs;
-        if (params.isEmpty()) {
+        if (WSUtils.isPageRequest(params)) {
+            queryParams = WSUtils.buildQueryParameters(params);
+            udfs = catalogService.listUDFs(queryParams, WSUtils.buildOrderByFields(params),
+                    WSUtils.getOffset(params), WSUtils.getLimit(params));
+        } else if (params.isEmpty()) {
             udfs = catalogService.listUDFs();
         } else {
             queryParams = WSUtils.buildQueryParameters(params);
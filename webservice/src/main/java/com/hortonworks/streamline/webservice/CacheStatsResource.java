@@ -0,0 +1,79 @@
+/**
+  * Copyright 2017 Hortonworks.
+  *
+  * Licensed under the Apache License, Version 2.0 (the "License");
+  * you may not use this file except in compliance with the License.
+  * You may obtain a copy of the License at
+
+  *   http://www.apache.org/licenses/LICENSE-2.0
+
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+ **/
+package com.hortonworks.streamline.webservice;
+
+import com.codahale.metrics.annotation.Timed;
+import com.hortonworks.streamline.cache.view.service.CacheService;
+import com.hortonworks.streamline.cache.view.service.CacheServiceId;
+import com.hortonworks.streamline.cache.view.service.registry.CacheServiceRegistry;
+import com.hortonworks.streamline.common.exception.service.exception.request.EntityNotFoundException;
+import com.hortonworks.streamline.common.util.WSUtils;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static javax.ws.rs.core.Response.Status.OK;
+
+/**
+ * Exposes the statistics of the caches registered in the {@link CacheServiceRegistry}
+ */
+@Path("/v1/cache/stats")
+@Produces(MediaType.APPLICATION_JSON)
+public class CacheStatsResource {
+    private final CacheServiceRegistry cacheServiceRegistry;
+
+    public CacheStatsResource(CacheServiceRegistry cacheServiceRegistry) {
+        this.cacheServiceRegistry = cacheServiceRegistry;
+    }
+
+    /**
+     * List the statistics of all the caches, keyed by cache service id and cache id.
+     */
+    @GET
+    @Timed
+    public Response listCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (CacheServiceId cacheServiceId : cacheServiceRegistry.getCacheServiceIds()) {
+            CacheService<?, ?> cacheService = cacheServiceRegistry.getCacheService(cacheServiceId);
+            if (cacheService != null) {
+                stats.put(cacheServiceId.getId(), cacheService.getCacheStats());
+            }
+        }
+        return WSUtils.respondEntity(stats, OK);
+    }
+
+    /**
+     * List the statistics of the caches of one cache service, keyed by cache id. Cache service ids are URIs, hence
+     * the path parameter spans the rest of the path.
+     */
+    @GET
+    @Path("/{serviceId: .+}")
+    @Timed
+    public Response getCacheStats(@PathParam("serviceId") String serviceId) {
+        CacheService<?, ?> cacheService = cacheServiceRegistry.getCacheService(new CacheServiceId(serviceId));
+        if (cacheService == null) {
+            throw EntityNotFoundException.byId(serviceId);
+        }
+        return WSUtils.respondEntity(cacheService.getCacheStats(), OK);
+    }
+}
@@ -20,6 +20,10 @@ package com.hortonworks.streamline.webservice;
 import com.google.common.cache.CacheBuilder;
 import io.dropwizard.server.AbstractServerFactory;
 import com.hortonworks.streamline.cache.Cache;
+import com.hortonworks.streamline.cache.view.config.TypeConfig;
+import com.hortonworks.streamline.cache.view.service.CacheService;
+import com.hortonworks.streamline.cache.view.service.CacheServiceId;
+import com.hortonworks.streamline.cache.view.service.registry.CacheServiceLocalRegistry;
 import com.hortonworks.streamline.common.Constants;
 import com.hortonworks.streamline.common.ModuleRegistration;
 import com.hortonworks.streamline.common.util.FileStorage;
@@ -54,6 +58,8 @@ import java.util.List;
 
 public class StreamlineApplication extends Application<StreamlineConfiguration> {
     private static final Logger LOG = LoggerFactory.getLogger(StreamlineApplication.class);
+    private static final String STORAGE_CACHE_SERVICE_ID = "storage";
+    private static final String STORAGE_CACHE_ID = "storables";
 
     public static void main(String[] args) throws Exception {
         new StreamlineApplication().run(args);
@@ -107,6 +113,7 @@ public class StreamlineApplication extends Application<StreamlineConfiguration>
         final StorageManager dao = getStorageManager(storageProviderConfiguration);
         final CacheBuilder cacheBuilder = getGuavaCacheBuilder();
         final Cache<StorableKey, Storable> cache = getCache(dao, cacheBuilder);
+        registerCacheService(cache);
         final StorageWriter storageWriter = getStorageWriter(dao);
 
         return doGetCacheBackedDao(cache, storageWriter);
@@ -137,9 +144,16 @@ public class StreamlineApplication extends Application<StreamlineConfiguration>
         return new GuavaCache(dao, guavaCacheBuilder);
     }
 
+    // exposes the statistics of the storage cache through the CacheStatsResource
+    private void registerCacheService(Cache<StorableKey, Storable> cache) {
+        final CacheService<StorableKey, Storable> cacheService = new CacheService<>(STORAGE_CACHE_SERVICE_ID, TypeConfig.Cache.GUAVA);
+        cacheService.registerCache(STORAGE_CACHE_ID, cache);
+        CacheServiceLocalRegistry.INSTANCE.register(new CacheServiceId(STORAGE_CACHE_SERVICE_ID), cacheService);
+    }
+
     private CacheBuilder getGuavaCacheBuilder() {
         final long maxSize = 1000;
-        return CacheBuilder.newBuilder().maximumSize(maxSize);
+        return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats();
     }
 
     private FileStorage getJarStorage (StreamlineConfiguration configuration) {
@@ -163,6 +177,7 @@ public class StreamlineApplication extends Application<StreamlineConfiguration>
 
         // add StreamlineConfigResource
         resourcesToRegister.add(new StreamlineConfigurationResource(configuration));
+        resourcesToRegister.add(new CacheStatsResource(CacheServiceLocalRegistry.INSTANCE));
 
 
         for (ModuleConfiguration moduleConfiguration: modules) {